@@ -0,0 +1,193 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.csvwriter;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.io.csvwriter.FileWriterSettings.quoteMode;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * Tests that the {@link CSVWriter} writes the same output with rows formatted concurrently as with rows formatted by
+ * the calling thread.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CSVWriterTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"int", "long", "double", "string"},
+        new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, StringCell.TYPE});
+
+    /**
+     * Writes a table with different settings sequentially and in parallel and compares the output.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelOutputEqualsSequentialOutput() throws Exception {
+        List<DataRow> rows = createRows(10 * CSVWriter.BATCH_SIZE + 17);
+
+        FileWriterSettings settings = new FileWriterSettings();
+        settings.setColSeparator(",");
+        assertSameOutput(rows, settings);
+
+        // the decimal separator is also the column separator, numbers need quotes
+        settings = new FileWriterSettings();
+        settings.setColSeparator(",");
+        settings.setDecimalSeparator(',');
+        settings.setQuoteMode(quoteMode.IF_NEEDED);
+        assertSameOutput(rows, settings);
+
+        // numbers equal to the missing value pattern need quotes
+        settings = new FileWriterSettings();
+        settings.setColSeparator(";");
+        settings.setMissValuePattern("0");
+        settings.setQuoteMode(quoteMode.IF_NEEDED);
+        settings.setWriteRowID(true);
+        assertSameOutput(rows, settings);
+
+        // a decimal separator that is contained in some numbers already causes a warning
+        settings = new FileWriterSettings();
+        settings.setColSeparator("\t");
+        settings.setDecimalSeparator('E');
+        settings.setQuoteMode(quoteMode.REPLACE);
+        settings.setSeparatorReplacement(" ");
+        String warning = assertSameOutput(rows, settings);
+        assertThat("Missing warning", warning != null, is(true));
+
+        settings = new FileWriterSettings();
+        settings.setColSeparator("-");
+        settings.setQuoteMode(quoteMode.ALWAYS);
+        assertSameOutput(rows, settings);
+    }
+
+    private static String assertSameOutput(final List<DataRow> rows, final FileWriterSettings settings)
+        throws Exception {
+        StringWriter sequentialOut = new StringWriter();
+        CSVWriter sequential = new CSVWriter(sequentialOut, new FileWriterSettings(settings));
+        sequential.write(new ListRowInput(rows), new ExecutionMonitor());
+        sequential.close();
+
+        StringWriter parallelOut = new StringWriter();
+        CSVWriter parallel = new CSVWriter(parallelOut, new FileWriterSettings(settings));
+        parallel.setNumberOfFormatThreads(4);
+        parallel.write(new ListRowInput(rows), new ExecutionMonitor());
+        parallel.close();
+
+        assertThat("Different output when formatting in parallel", parallelOut.toString(),
+            is(sequentialOut.toString()));
+        assertThat("Different warning when formatting in parallel", parallel.getLastWarningMessage(),
+            is(sequential.getLastWarningMessage()));
+        return sequential.getLastWarningMessage();
+    }
+
+    private static List<DataRow> createRows(final int count) {
+        Random rand = new Random(42);
+        List<DataRow> rows = new ArrayList<>(count);
+        for (int r = 0; r < count; r++) {
+            DataCell[] cells = new DataCell[4];
+            cells[0] = rand.nextInt(10) == 0 ? DataType.getMissingCell() : new IntCell(rand.nextInt(21) - 10);
+            cells[1] = new LongCell(rand.nextLong() >> rand.nextInt(64));
+            switch (rand.nextInt(5)) {
+                case 0:
+                    cells[2] = new DoubleCell(rand.nextInt(3));
+                    break;
+                case 1:
+                    cells[2] = new DoubleCell(rand.nextGaussian() * Math.pow(10, rand.nextInt(40) - 20));
+                    break;
+                case 2:
+                    cells[2] = new DoubleCell(Double.NaN);
+                    break;
+                default:
+                    cells[2] = new DoubleCell(-rand.nextDouble());
+            }
+            cells[3] = new StringCell("s,\t-" + r);
+            rows.add(new DefaultRow("Row" + r, cells));
+        }
+        return rows;
+    }
+
+    /** Hands out the rows of a list. */
+    private static final class ListRowInput extends RowInput {
+        private final Iterator<DataRow> m_rows;
+
+        ListRowInput(final List<DataRow> rows) {
+            m_rows = rows.iterator();
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return SPEC;
+        }
+
+        @Override
+        public DataRow poll() {
+            return m_rows.hasNext() ? m_rows.next() : null;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
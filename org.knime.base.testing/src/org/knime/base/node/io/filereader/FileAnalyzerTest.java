@@ -59,7 +59,10 @@
 import java.util.Vector;
 
 import org.knime.base.node.io.filereader.FileAnalyzer.HeaderHelper;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.util.tokenizer.Quote;
 
@@ -598,4 +601,167 @@ public void testNumbersWithThousandseparator() throws Exception {
         assertThat("Unexpected guessed type for double column",
             analSettings.getColumnProperties().get(0).getColumnSpec().getType(), is(DoubleCell.TYPE));
     }
+
+    /**
+     * Checks that large files are analyzed from samples made of complete lines (if sampling is requested), and that
+     * column types guessed from the samples are widened when reading the file hits values the samples didn't
+     * contain.
+     *
+     * @throws Exception if an errors occurs
+     */
+    public void testSampledAnalysisAndTypeWidening() throws Exception {
+        // 12.6MB of 14 byte lines, the double and the string value are located between the first and the second
+        // sampled block
+        final int lines = 900000;
+        final int doubleLine = (FileAnalyzer.SAMPLE_HEAD_SIZE + 2 * FileAnalyzer.SAMPLE_BLOCK_SIZE) / 14;
+        final int stringLine = doubleLine + 1;
+        StringBuilder contents = new StringBuilder(lines * 14);
+        for (int l = 0; l < lines; l++) {
+            contents.append(l == doubleLine ? "1234.5" : "123456").append(',');
+            contents.append(l == stringLine ? "abcd" : "4242").append(",x\n");
+        }
+        URL url = initTempFile(contents.toString());
+
+        FileReaderNodeSettings settings = new FileReaderNodeSettings();
+        settings.setFileHasRowHeadersUserSet(true);
+        settings.setFileHasRowHeaders(false);
+        settings.setFileHasColumnHeadersUserSet(true);
+        settings.setFileHasColumnHeaders(false);
+        settings.setDataFileLocationAndUpdateTableName(url);
+
+        byte[] sample = FileAnalyzer.readSample(settings, null, 64);
+        assertNotNull("Large file not sampled", sample);
+        assertThat("Sample not made of complete lines", sample.length % 14, is(0));
+        assertTrue("Sample too large",
+            sample.length < FileAnalyzer.SAMPLE_HEAD_SIZE + 66 * FileAnalyzer.SAMPLE_BLOCK_SIZE);
+        assertNull("Sampling not disabled", FileAnalyzer.readSample(settings, null, 0));
+
+        assertTrue("Analysis without sampling didn't read all rows",
+            FileAnalyzer.analyze(settings, null).analyzeUsedAllRows());
+
+        FileReaderNodeSettings analSettings = FileAnalyzer.analyze(settings, null, true);
+        assertFalse("Analysis claims to have read all rows", analSettings.analyzeUsedAllRows());
+        assertThat("Unexpected guessed type for sampled column",
+            analSettings.getColumnProperties().get(0).getColumnSpec().getType(), is(IntCell.TYPE));
+        assertThat("Unexpected guessed type for sampled column",
+            analSettings.getColumnProperties().get(1).getColumnSpec().getType(), is(IntCell.TYPE));
+
+        FileReaderException error = null;
+        FileTable table = new FileTable(analSettings.createDataTableSpec(), analSettings, null);
+        try {
+            for (DataRow row : table) {
+                assertNotNull(row);
+            }
+        } catch (FileReaderException fre) {
+            error = fre;
+        } finally {
+            table.dispose();
+        }
+        assertNotNull("Double value in int column not detected", error);
+        assertThat("Wrong column of error", error.getErrorColumnIndex(), is(0));
+        assertTrue("Column type not widened", FileAnalyzer.widenColumnTypes(analSettings, error, null));
+        assertThat("Unexpected widened type",
+            analSettings.getColumnProperties().get(0).getColumnSpec().getType(), is(DoubleCell.TYPE));
+        assertThat("Type of column without error widened",
+            analSettings.getColumnProperties().get(1).getColumnSpec().getType(), is(IntCell.TYPE));
+
+        // the next attempt hits the string value in the second column
+        error = null;
+        table = new FileTable(analSettings.createDataTableSpec(), analSettings, null);
+        try {
+            for (DataRow row : table) {
+                assertNotNull(row);
+            }
+        } catch (FileReaderException fre) {
+            error = fre;
+        } finally {
+            table.dispose();
+        }
+        assertNotNull("String value in int column not detected", error);
+        assertThat("Wrong column of error", error.getErrorColumnIndex(), is(1));
+        assertTrue("Column type not widened", FileAnalyzer.widenColumnTypes(analSettings, error, null));
+        assertThat("Unexpected widened type",
+            analSettings.getColumnProperties().get(1).getColumnSpec().getType(), is(DoubleCell.TYPE));
+        assertTrue("Column type not widened", FileAnalyzer.widenColumnTypes(analSettings, error, null));
+        assertThat("Unexpected widened type",
+            analSettings.getColumnProperties().get(1).getColumnSpec().getType(), is(StringCell.TYPE));
+        assertFalse("String column widened", FileAnalyzer.widenColumnTypes(analSettings, error, null));
+        assertThat("Unexpected type of column without errors",
+            analSettings.getColumnProperties().get(2).getColumnSpec().getType(), is(StringCell.TYPE));
+
+        // reading the file succeeds now
+        table = new FileTable(analSettings.createDataTableSpec(), analSettings, null);
+        int rows = 0;
+        try {
+            for (DataRow row : table) {
+                if (rows == doubleLine) {
+                    assertThat("Wrong value read", ((DoubleValue)row.getCell(0)).getDoubleValue(), is(1234.5));
+                } else if (rows == stringLine) {
+                    assertThat("Wrong value read", row.getCell(1).toString(), is("abcd"));
+                }
+                rows++;
+            }
+        } finally {
+            table.dispose();
+        }
+        assertThat("Wrong number of rows", rows, is(lines));
+
+        // types guessed from all rows are never widened
+        URL smallUrl = initTempFile("1,xy\n2,xy\n");
+        settings.setDataFileLocationAndUpdateTableName(smallUrl);
+        assertNull("Small file sampled", FileAnalyzer.readSample(settings, null, 64));
+        analSettings = FileAnalyzer.analyze(settings, null, true);
+        assertFalse("Type widened", FileAnalyzer.widenColumnTypes(analSettings, error, null));
+    }
+
+    /**
+     * Checks that samples of files with line feeds in quoted values are cut at a line feed outside of quotes and don't
+     * take longer to read than samples of other files, and that such files are not sampled if the quotes are not
+     * known.
+     *
+     * @throws Exception if an errors occurs
+     */
+    public void testSampledAnalysisWithLineFeedsInQuotes() throws Exception {
+        // 12MB of records spanning three lines each
+        final String record = "\"a\nb\nc\",123456\n";
+        final int records = 800000;
+        StringBuilder contents = new StringBuilder(records * record.length());
+        for (int r = 0; r < records; r++) {
+            contents.append(record);
+        }
+        URL url = initTempFile(contents.toString());
+
+        FileReaderNodeSettings settings = new FileReaderNodeSettings();
+        settings.setFileHasRowHeadersUserSet(true);
+        settings.setFileHasRowHeaders(false);
+        settings.setFileHasColumnHeadersUserSet(true);
+        settings.setFileHasColumnHeaders(false);
+        settings.allowLFinQuotes(true);
+        settings.setDataFileLocationAndUpdateTableName(url);
+
+        assertNull("File sampled without knowing the quotes", FileAnalyzer.readSample(settings, null, 64));
+        assertTrue("Analysis without known quotes didn't read all rows",
+            FileAnalyzer.analyze(settings, null, true).analyzeUsedAllRows());
+
+        settings.addQuotePattern("\"", "\"");
+        settings.setQuoteUserSet(true);
+        byte[] sample = FileAnalyzer.readSample(settings, settings.getAllQuotes(), 64);
+        assertNotNull("Large file not sampled", sample);
+        assertTrue("Sample too large",
+            sample.length <= FileAnalyzer.SAMPLE_HEAD_SIZE + 65 * FileAnalyzer.SAMPLE_BLOCK_SIZE);
+        String sampleString = new String(sample, "US-ASCII");
+        assertThat("Sample not made of complete records", sampleString.length() % record.length(), is(0));
+        for (int pos = 0; pos < sampleString.length(); pos += record.length()) {
+            assertEquals("Sample not made of complete records", record,
+                sampleString.substring(pos, pos + record.length()));
+        }
+
+        FileReaderNodeSettings analSettings = FileAnalyzer.analyze(settings, null, true);
+        assertFalse("Analysis claims to have read all rows", analSettings.analyzeUsedAllRows());
+        assertThat("Unexpected number of columns detected", analSettings.getNumberOfColumns(), is(2));
+        assertThat("Unexpected guessed type for quoted column",
+            analSettings.getColumnProperties().get(0).getColumnSpec().getType(), is(StringCell.TYPE));
+        assertThat("Unexpected guessed type for int column",
+            analSettings.getColumnProperties().get(1).getColumnSpec().getType(), is(IntCell.TYPE));
+    }
 }
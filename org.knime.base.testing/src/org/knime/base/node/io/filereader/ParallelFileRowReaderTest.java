@@ -0,0 +1,274 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.node.io.filereader.ParallelFileRowReader.Chunk;
+import org.knime.base.node.io.filereader.ParallelFileRowReader.ChunkScanner;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the {@link ParallelFileRowReader} by comparing its rows with the rows read sequentially.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelFileRowReaderTest {
+
+    private File m_file;
+
+    /**
+     * Creates the temp file.
+     *
+     * @throws IOException if that fails
+     */
+    @Before
+    public void createFile() throws IOException {
+        m_file = File.createTempFile("parallelFileReader", ".csv");
+    }
+
+    /** Deletes the temp file. */
+    @After
+    public void deleteFile() {
+        m_file.delete();
+    }
+
+    private static FileReaderSettings createSettings() {
+        FileReaderSettings settings = new FileReaderSettings();
+        settings.addDelimiterPattern(",", false, false, false);
+        settings.addRowDelimiter("\n", false);
+        settings.addQuotePattern("\"", "\"", '\\');
+        settings.allowLFinQuotes(true);
+        settings.addSingleLineCommentPattern("#", false, false);
+        settings.addWhiteSpaceCharacter(" ");
+        settings.setLineContinuationCharacter('~');
+        return settings;
+    }
+
+    /* rows with a row header, a number, and a string - with plenty of things the tokenizer must not split */
+    private static String createContent(final int rows) {
+        StringBuilder b = new StringBuilder("# a comment before the column headers\nID,num,text\n");
+        for (int r = 0; r < rows; r++) {
+            String id = (r % 97 == 0) ? "" : "r" + (r % 5000);
+            switch (r % 7) {
+                case 0:
+                    b.append(id).append(',').append(r).append(",\"quoted\n,line\nfeeds\"\n");
+                    break;
+                case 1:
+                    b.append(id).append(',').append(r).append(",#comment after an empty token\nlast\n");
+                    break;
+                case 2:
+                    b.append(id).append(',').append(r).append(",trailing # comment\r\n");
+                    break;
+                case 3:
+                    b.append(id).append(',').append(r).append(",\"escaped \\\" quote\nand LF\"\n\n");
+                    break;
+                case 4:
+                    b.append(id).append(',').append(r).append(",continued~\nline\n# comment line\n");
+                    break;
+                default:
+                    b.append(id).append(',').append(r).append(",  text ").append(r).append('\n');
+            }
+        }
+        return b.toString();
+    }
+
+    private static DataTableSpec createSpec() {
+        return new DataTableSpec(new String[]{"num", "text"}, new DataType[]{IntCell.TYPE,
+            StringCell.TYPE});
+    }
+
+    private List<DataRow> readRows(final FileReaderSettings settings, final int threads) throws IOException {
+        FileReaderSettings s = new FileReaderSettings(settings);
+        s.setNumberOfParserThreads(threads);
+        List<DataRow> rows = new ArrayList<>();
+        FileRowIterator it = new FileTable(createSpec(), s, null).iterator();
+        try {
+            while (it.hasNext()) {
+                rows.add(it.next());
+            }
+        } finally {
+            it.dispose();
+        }
+        return rows;
+    }
+
+    private FileReaderSettings writeFile(final String content) throws Exception {
+        Files.write(m_file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        FileReaderSettings settings = createSettings();
+        settings.setDataFileLocationAndUpdateTableName(m_file.toURI().toURL());
+        settings.setFileHasColumnHeaders(true);
+        settings.setFileHasRowHeaders(true);
+        settings.setUniquifyRowIDs(true);
+        settings.setIgnoreEmptyLines(true);
+        return settings;
+    }
+
+    private static void assertSameRows(final List<DataRow> expected, final List<DataRow> actual) {
+        assertThat("Unexpected number of rows", actual.size(), is(expected.size()));
+        for (int r = 0; r < expected.size(); r++) {
+            assertThat("Wrong row ID in row " + r, actual.get(r).getKey(), is(expected.get(r).getKey()));
+            for (int c = 0; c < expected.get(r).getNumCells(); c++) {
+                assertThat("Wrong cell in row " + r, actual.get(r).getCell(c), is(expected.get(r).getCell(c)));
+            }
+        }
+    }
+
+    /**
+     * Checks that the chunks start at the beginning of rows and that they know the number of lines before them.
+     */
+    @Test
+    public void testChunkBoundaries() {
+        String content = createContent(2000);
+        FileReaderSettings settings = createSettings();
+        settings.setFileHasColumnHeaders(true);
+        settings.setSkipFirstLines(1);
+        ChunkScanner scanner = new ChunkScanner(new StringReader(content), settings);
+        StringBuilder all = new StringBuilder();
+        Chunk chunk;
+        int chunks = 0;
+        while ((chunk = scanner.nextChunk(100)) != null) {
+            String text = chunk.getText();
+            if (chunks == 0) {
+                assertThat("First chunk must contain the column headers", text.startsWith(
+                    "# a comment before the column headers\nID,num,text\n,0,"), is(true));
+            } else {
+                assertThat("Chunk doesn't start with a row",
+                    text.matches("(?s)(# comment line\n)?(r\\d+)?,\\d+,.*"), is(true));
+            }
+            int lines = (int)all.chars().filter(c -> c == '\n').count();
+            assertThat("Wrong line offset", chunk.getLineOffset(), is(lines));
+            all.append(text);
+            chunks++;
+        }
+        assertThat("Chunks must add up to the content", all.toString(), is(content));
+        assertThat("Content was not split", chunks > 100, is(true));
+    }
+
+    /**
+     * Compares the rows read in parallel with the rows read sequentially.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testSameRowsAsSequential() throws Exception {
+        FileReaderSettings settings = writeFile(createContent(100000));
+        assertThat(ParallelFileRowReader.isApplicable(settings, m_file.length()), is(true));
+        List<DataRow> expected = readRows(settings, 1);
+        assertThat(expected.size(), is(100000));
+        assertSameRows(expected, readRows(settings, 4));
+
+        settings.setFileHasRowHeaders(false);
+        settings.setRowHeaderPrefix("Line");
+        FileReaderSettings skipFirstColumn = new FileReaderSettings(settings);
+        skipFirstColumn.setMaximumNumberOfRowsToRead(54321);
+        List<DataRow> expectedPrefix = readRowsSkipFirst(skipFirstColumn, 1);
+        assertThat(expectedPrefix.size(), is(54321));
+        assertSameRows(expectedPrefix, readRowsSkipFirst(skipFirstColumn, 3));
+    }
+
+    private List<DataRow> readRowsSkipFirst(final FileReaderSettings settings, final int threads) {
+        FileReaderSettings s = new FileReaderSettings(settings);
+        s.setNumberOfParserThreads(threads);
+        List<DataRow> rows = new ArrayList<>();
+        FileRowIterator it = new FileTable(createSpec(), s, new boolean[]{true, false, false}, null).iterator();
+        try {
+            while (it.hasNext()) {
+                rows.add(it.next());
+            }
+        } finally {
+            it.dispose();
+        }
+        return rows;
+    }
+
+    /**
+     * Checks that errors are reported after all rows before the faulty one, with the correct line number.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testErrorInLaterChunk() throws Exception {
+        String content = createContent(100000);
+        FileReaderSettings settings = writeFile(content + "x,notANumber,foo\n" + createContent(10));
+        int expectedLine = (int)content.chars().filter(c -> c == '\n').count() + 1;
+        for (int threads : new int[]{1, 4}) {
+            FileReaderSettings s = new FileReaderSettings(settings);
+            s.setNumberOfParserThreads(threads);
+            FileRowIterator it = new FileTable(createSpec(), s, null).iterator();
+            int rows = 0;
+            try {
+                while (it.hasNext()) {
+                    it.next();
+                    rows++;
+                }
+                fail("Expected exception not thrown");
+            } catch (FileReaderException e) {
+                assertThat("Wrong number of rows before the error", rows, is(100000));
+                assertThat("Wrong line number", e.getErrorLineNumber(), is(expectedLine));
+                assertThat("Iterator must end after an error", it.hasNext(), is(false));
+            } finally {
+                it.dispose();
+            }
+        }
+    }
+}
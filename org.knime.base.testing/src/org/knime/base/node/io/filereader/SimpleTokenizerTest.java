@@ -0,0 +1,262 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the {@link SimpleTokenizer} and the {@link TokenCellParser} by comparing the rows read with them with the
+ * rows read by the {@link org.knime.core.util.tokenizer.Tokenizer}. The latter is used if the settings contain a
+ * comment pattern, the tests add one that doesn't occur in the files.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SimpleTokenizerTest {
+
+    private File m_file;
+
+    /**
+     * Creates the temp file.
+     *
+     * @throws IOException if that fails
+     */
+    @Before
+    public void createFile() throws IOException {
+        m_file = File.createTempFile("simpleTokenizer", ".csv");
+    }
+
+    /** Deletes the temp file. */
+    @After
+    public void deleteFile() {
+        m_file.delete();
+    }
+
+    private FileReaderSettings writeFile(final String content, final char delimiter) throws Exception {
+        Files.write(m_file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        FileReaderSettings settings = new FileReaderSettings();
+        settings.addDelimiterPattern(String.valueOf(delimiter), false, false, false);
+        settings.addRowDelimiter("\n", true);
+        settings.addQuotePattern("\"", "\"", '\\');
+        settings.addWhiteSpaceCharacter(" ");
+        settings.addWhiteSpaceCharacter("\t");
+        settings.setDataFileLocationAndUpdateTableName(m_file.toURI().toURL());
+        settings.setFileHasColumnHeaders(true);
+        settings.setFileHasRowHeaders(true);
+        settings.setUniquifyRowIDs(true);
+        settings.setIgnoreEmptyLines(true);
+        settings.setIgnoreEmptyTokensAtEndOfRow(true);
+        settings.setNumberOfParserThreads(1);
+        return settings;
+    }
+
+    /* the same settings, but not applicable for the simple tokenizer */
+    private static FileReaderSettings withTokenizer(final FileReaderSettings settings) {
+        FileReaderSettings s = new FileReaderSettings(settings);
+        s.addSingleLineCommentPattern("##", false, false);
+        return s;
+    }
+
+    private static DataTableSpec createSpec() {
+        return new DataTableSpec(new String[]{"int", "long", "double", "string"},
+            new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, StringCell.TYPE});
+    }
+
+    /* numbers in all (valid) formats the cell factories accept, and nominal strings */
+    private static String createContent(final int rows, final char delimiter, final char decimalSeparator) {
+        final String[] doubles = {"1" + decimalSeparator + "5", "-0", "+" + decimalSeparator + "25", "7" + decimalSeparator,
+            "1e-3", "1" + decimalSeparator + "00000000000000000000000001", "123456789012345678901234",
+            "-0" + decimalSeparator + "1", "\"2" + decimalSeparator + "75\"", "", "NaN", "  3 ", "9007199254740993"};
+        final String[] ints = {"0", "-2147483648", "+17", "2147483647", "", " 42", "\"-5\"", "007"};
+        final String[] longs = {"9223372036854775807", "-9223372036854775808", "+123456789012", "", "1"};
+        final String[] strings = {"red", "green", "\"blue, quoted\"", "", "  padded  ", "\"esc\\\"aped\""};
+        StringBuilder b = new StringBuilder("ID" + delimiter + "int" + delimiter + "long" + delimiter + "double"
+            + delimiter + "string\n");
+        for (int r = 0; r < rows; r++) {
+            String id = (r % 89 == 0) ? "" : "r" + (r % 3000);
+            b.append(id).append(delimiter).append(ints[r % ints.length]).append(delimiter)
+                .append(longs[r % longs.length]).append(delimiter).append(doubles[r % doubles.length])
+                .append(delimiter).append(strings[r % strings.length]);
+            if (r % 11 == 0) {
+                b.append(delimiter).append(delimiter); // empty tokens at the end of the row
+            }
+            b.append(r % 5 == 0 ? "\r\n" : "\n");
+            if (r % 13 == 0) {
+                b.append('\n');
+            }
+        }
+        return b.toString();
+    }
+
+    private static List<DataRow> readRows(final FileReaderSettings settings) {
+        List<DataRow> rows = new ArrayList<>();
+        FileRowIterator it = new FileTable(createSpec(), settings, null).iterator();
+        try {
+            while (it.hasNext()) {
+                rows.add(it.next());
+            }
+        } finally {
+            it.dispose();
+        }
+        return rows;
+    }
+
+    private static void assertSameRows(final List<DataRow> expected, final List<DataRow> actual) {
+        assertThat("Unexpected number of rows", actual.size(), is(expected.size()));
+        for (int r = 0; r < expected.size(); r++) {
+            assertThat("Wrong row ID in row " + r, actual.get(r).getKey(), is(expected.get(r).getKey()));
+            for (int c = 0; c < expected.get(r).getNumCells(); c++) {
+                DataCell e = expected.get(r).getCell(c);
+                DataCell a = actual.get(r).getCell(c);
+                assertThat("Wrong cell in row " + r, a, is(e));
+                if (e instanceof DoubleCell) {
+                    // equals doesn't distinguish -0.0 from 0.0
+                    assertThat("Wrong double in row " + r,
+                        Double.doubleToLongBits(((DoubleCell)a).getDoubleValue()),
+                        is(Double.doubleToLongBits(((DoubleCell)e).getDoubleValue())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the rows read with the simple tokenizer with the rows read by the tokenizer, for different
+     * separators and missing value patterns.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testSameRowsAsTokenizer() throws Exception {
+        FileReaderSettings settings = writeFile(createContent(20000, ',', '.'), ',');
+        assertThat(SimpleTokenizer.isApplicable(settings), is(true));
+        assertThat(SimpleTokenizer.isApplicable(withTokenizer(settings)), is(false));
+        List<DataRow> expected = readRows(withTokenizer(settings));
+        assertThat(expected.size(), is(20000));
+        assertSameRows(expected, readRows(settings));
+
+        settings = writeFile(createContent(20000, ';', ','), ';');
+        settings.setDecimalSeparator(',');
+        settings.setMissingValueForColumn(2, "NaN");
+        settings.setMissingValueForColumn(3, "green");
+        assertSameRows(readRows(withTokenizer(settings)), readRows(settings));
+
+        settings.setFileHasRowHeaders(false);
+        settings.setSkipFirstLines(3);
+        settings.setMaximumNumberOfRowsToRead(777);
+        List<DataRow> expectedPrefix = readRows(withTokenizer(settings));
+        assertThat(expectedPrefix.size(), is(777));
+        assertSameRows(expectedPrefix, readRows(settings));
+    }
+
+    /**
+     * Checks that the nominal values of a column share their cells.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testStringCellsAreShared() throws Exception {
+        List<DataRow> rows = readRows(writeFile(createContent(100, ',', '.'), ','));
+        assertThat(rows.get(6).getCell(3), sameInstance(rows.get(0).getCell(3)));
+        assertThat(rows.get(7).getCell(3), sameInstance(rows.get(1).getCell(3)));
+    }
+
+    /**
+     * Checks that the errors (and their line numbers) are the same as with the tokenizer.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testSameErrorsAsTokenizer() throws Exception {
+        String content = createContent(1000, ',', '.');
+        int line = (int)content.chars().filter(c -> c == '\n').count() + 1;
+        for (String faulty : new String[]{"x,1,2,3.0,a,b\n", "x,1,2\n", "x,1,2,3.0.0,a\n", "x,3000000000,2,3,a\n"}) {
+            FileReaderSettings settings = writeFile(content + faulty + "y,1,2,3,a\n", ',');
+            FileReaderException expected = readUntilError(withTokenizer(settings), 1000);
+            FileReaderException actual = readUntilError(settings, 1000);
+            assertThat("Wrong line number", actual.getErrorLineNumber(), is(line));
+            assertThat("Wrong line number", actual.getErrorLineNumber(), is(expected.getErrorLineNumber()));
+            assertThat("Wrong message", actual.getMessage(), is(expected.getMessage()));
+        }
+    }
+
+    private static FileReaderException readUntilError(final FileReaderSettings settings, final int rowsBefore) {
+        FileRowIterator it = new FileTable(createSpec(), settings, null).iterator();
+        int rows = 0;
+        try {
+            while (it.hasNext()) {
+                it.next();
+                rows++;
+            }
+        } catch (FileReaderException e) {
+            assertThat("Wrong number of rows before the error", rows, is(rowsBefore));
+            return e;
+        } finally {
+            it.dispose();
+        }
+        fail("Expected exception not thrown");
+        return null;
+    }
+}
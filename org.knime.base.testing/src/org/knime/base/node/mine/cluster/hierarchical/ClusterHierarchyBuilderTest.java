@@ -0,0 +1,208 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.cluster.hierarchical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.knime.base.node.mine.cluster.hierarchical.ClusterHierarchyBuilder.Merges;
+import org.knime.base.node.mine.cluster.hierarchical.HierarchicalClusterNodeModel.Linkage;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.EuclideanDist;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.ManhattanDist;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.MinkowskiDist;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Compares the O(n&sup2;) algorithms of {@link ClusterHierarchyBuilder} with a naive agglomerative clustering.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ClusterHierarchyBuilderTest {
+
+    private static double[][] createPoints(final Random random, final int count, final int dim) {
+        double[][] points = new double[count][dim];
+        for (double[] p : points) {
+            for (int d = 0; d < dim; d++) {
+                p[d] = random.nextGaussian() * 5;
+            }
+        }
+        return points;
+    }
+
+    /** Merge distances of the greedy algorithm that always merges the two closest clusters. */
+    private static double[] naiveClustering(final double[][] points, final MinkowskiDist dist,
+        final Linkage linkage) {
+        List<List<Integer>> clusters = new ArrayList<>();
+        for (int i = 0; i < points.length; i++) {
+            List<Integer> c = new ArrayList<>();
+            c.add(i);
+            clusters.add(c);
+        }
+        double[] heights = new double[points.length - 1];
+        for (int step = 0; step < heights.length; step++) {
+            double best = Double.MAX_VALUE;
+            int bestI = -1;
+            int bestJ = -1;
+            for (int i = 0; i < clusters.size(); i++) {
+                for (int j = i + 1; j < clusters.size(); j++) {
+                    double d = linkage == Linkage.SINGLE ? Double.MAX_VALUE : 0;
+                    for (int a : clusters.get(i)) {
+                        for (int b : clusters.get(j)) {
+                            double ab = (float)dist.calcDistance(points[a], points[b]);
+                            if (linkage == Linkage.SINGLE) {
+                                d = Math.min(d, ab);
+                            } else if (linkage == Linkage.COMPLETE) {
+                                d = Math.max(d, ab);
+                            } else {
+                                d += ab;
+                            }
+                        }
+                    }
+                    if (linkage == Linkage.AVERAGE) {
+                        d /= clusters.get(i).size() * clusters.get(j).size();
+                    }
+                    if (d < best) {
+                        best = d;
+                        bestI = i;
+                        bestJ = j;
+                    }
+                }
+            }
+            heights[step] = best;
+            clusters.get(bestI).addAll(clusters.remove(bestJ));
+        }
+        return heights;
+    }
+
+    private static void assertHeights(final double[] expected, final Merges merges) {
+        merges.sort();
+        assertEquals(expected.length, merges.size());
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals("Merge " + k, expected[k], merges.getDistance(k), 1E-4);
+        }
+    }
+
+    /**
+     * Tests single, complete and average linkage against the naive implementation.
+     *
+     * @throws Exception if it fails
+     */
+    @Test
+    public void testAgainstNaiveClustering() throws Exception {
+        Random random = new Random(42);
+        for (int run = 0; run < 10; run++) {
+            double[][] points = createPoints(random, 2 + random.nextInt(80), 1 + random.nextInt(4));
+            if (run % 3 == 0) {
+                points[0][0] = Double.NaN;
+            }
+            MinkowskiDist dist = run % 2 == 0 ? EuclideanDist.EUCLIDEAN_DISTANCE : ManhattanDist.MANHATTEN_DISTANCE;
+            ClusterHierarchyBuilder builder = new ClusterHierarchyBuilder(points, dist, new ExecutionMonitor());
+            double[] single = naiveClustering(points, dist, Linkage.SINGLE);
+            assertHeights(single, builder.slink());
+            assertHeights(single, builder.nnChain(Linkage.SINGLE));
+            assertHeights(naiveClustering(points, dist, Linkage.COMPLETE), builder.nnChain(Linkage.COMPLETE));
+            assertHeights(naiveClustering(points, dist, Linkage.AVERAGE), builder.nnChain(Linkage.AVERAGE));
+        }
+    }
+
+    /**
+     * The greedy algorithm, which is used if the distances are not cached, must find the same hierarchy as the
+     * nearest-neighbor chain. Its merges must not be sorted.
+     *
+     * @throws Exception if it fails
+     */
+    @Test
+    public void testGreedyEqualsNNChain() throws Exception {
+        Random random = new Random(7);
+        MinkowskiDist dist = EuclideanDist.EUCLIDEAN_DISTANCE;
+        for (int run = 0; run < 10; run++) {
+            double[][] points = createPoints(random, 2 + random.nextInt(60), 2);
+            if (run % 3 == 0) {
+                points[1][1] = Double.NaN;
+            }
+            ClusterHierarchyBuilder builder = new ClusterHierarchyBuilder(points, dist, new ExecutionMonitor());
+            for (Linkage linkage : new Linkage[]{Linkage.COMPLETE, Linkage.AVERAGE}) {
+                Merges greedy = builder.greedy(linkage);
+                double[] expected = naiveClustering(points, dist, linkage);
+                assertEquals(expected.length, greedy.size());
+                for (int k = 0; k < expected.length; k++) {
+                    assertEquals("Merge " + k, expected[k], greedy.getDistance(k), 1E-4);
+                }
+                Merges nnChain = builder.nnChain(linkage);
+                nnChain.sort();
+                assertEquals(linkage + " hierarchy differs", getMergedClusters(points.length, nnChain),
+                    getMergedClusters(points.length, greedy));
+            }
+        }
+    }
+
+    /** @return the points of the merged cluster of each merge */
+    private static List<Set<Integer>> getMergedClusters(final int pointCount, final Merges merges) {
+        Map<Integer, Set<Integer>> clusters = new HashMap<>();
+        for (int i = 0; i < pointCount; i++) {
+            Set<Integer> c = new HashSet<>();
+            c.add(i);
+            clusters.put(i, c);
+        }
+        List<Set<Integer>> result = new ArrayList<>();
+        for (int k = 0; k < merges.size(); k++) {
+            Set<Integer> first = clusters.remove(merges.getFirst(k));
+            Set<Integer> second = clusters.get(merges.getSecond(k));
+            assertTrue("Unknown cluster in merge " + k, first != null && second != null);
+            second.addAll(first);
+            result.add(new HashSet<>(second));
+        }
+        return result;
+    }
+}
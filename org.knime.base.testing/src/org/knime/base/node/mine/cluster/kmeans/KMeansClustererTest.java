@@ -0,0 +1,142 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.cluster.kmeans;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.cluster.kmeans.KMeansClusterer.Method;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Checks that the accelerated methods of {@link KMeansClusterer} give the same clustering as Lloyd's algorithm.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class KMeansClustererTest {
+
+    private static PointMatrix createPoints(final Random random, final int count, final int dim,
+        final boolean mapped) throws Exception {
+        PointMatrix points = mapped ? new PointMatrix.MappedPointMatrix(count, dim)
+            : new PointMatrix.HeapPointMatrix(count, dim);
+        double[] row = new double[dim];
+        for (int i = 0; i < count; i++) {
+            for (int d = 0; d < dim; d++) {
+                // few distinct values to provoke ties
+                row[d] = d % 2 == 0 ? random.nextInt(4) : random.nextGaussian() * 3 + 10 * random.nextInt(3);
+            }
+            points.setRow(i, row);
+        }
+        return points;
+    }
+
+    private static double[][] firstRows(final PointMatrix points, final int k) {
+        double[][] centers = new double[k][points.getDimension()];
+        for (int c = 0; c < Math.min(k, points.getRowCount()); c++) {
+            points.copyRow(c, centers[c]);
+        }
+        return centers;
+    }
+
+    private static KMeansClusterer run(final PointMatrix points, final int k, final Method method)
+        throws Exception {
+        KMeansClusterer clusterer = new KMeansClusterer(points, firstRows(points, k), new ExecutionMonitor(), method);
+        clusterer.runBatch(50);
+        return clusterer;
+    }
+
+    /**
+     * Compares Hamerly's and Elkan's algorithm with Lloyd's algorithm on heap and mapped matrices.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testMethodsAreEquivalent() throws Exception {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 20; trial++) {
+            int count = 1 + random.nextInt(10000);
+            int dim = 1 + random.nextInt(12);
+            int k = 1 + random.nextInt(15);
+            try (PointMatrix points = createPoints(random, count, dim, trial % 4 == 0)) {
+                KMeansClusterer lloyd = run(points, k, Method.LLOYD);
+                for (Method method : new Method[]{Method.HAMERLY, Method.ELKAN}) {
+                    KMeansClusterer other = run(points, k, method);
+                    assertArrayEquals(method + " assignment", lloyd.getAssignment(), other.getAssignment());
+                    assertArrayEquals(method + " coverage", lloyd.getCoverage(), other.getCoverage());
+                    for (int c = 0; c < k; c++) {
+                        assertArrayEquals(method + " center", lloyd.getCenters()[c], other.getCenters()[c], 1E-9);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the mini-batch clustering assigns every row to a cluster.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testMiniBatch() throws Exception {
+        Random random = new Random(7);
+        try (PointMatrix points = createPoints(random, 20000, 5, false)) {
+            KMeansClusterer clusterer = new KMeansClusterer(points, firstRows(points, 8), new ExecutionMonitor());
+            clusterer.runMiniBatch(500, 100, 17);
+            int sum = 0;
+            for (int coverage : clusterer.getCoverage()) {
+                sum += coverage;
+            }
+            assertEquals(points.getRowCount(), sum);
+            int[] counts = new int[8];
+            for (int a : clusterer.getAssignment()) {
+                counts[a]++;
+            }
+            assertArrayEquals(clusterer.getCoverage(), counts);
+        }
+    }
+}
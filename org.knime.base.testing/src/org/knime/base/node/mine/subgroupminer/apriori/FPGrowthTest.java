@@ -0,0 +1,207 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.subgroupminer.apriori;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.subgroupminer.freqitemset.AssociationRule;
+import org.knime.base.node.mine.subgroupminer.freqitemset.FrequentItemSet;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.data.vector.bitvector.DenseBitVectorCellFactory;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Checks that {@link FPGrowth} finds the same itemsets and association rules as the {@link TIDApriori} on synthetic
+ * basket data.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FPGrowthTest {
+
+    /**
+     * Creates baskets where some items are bought together in patterns, so that there are long frequent itemsets.
+     * The first <code>alwaysItems</code> items are contained in every basket.
+     */
+    private static List<BitVectorValue> createBaskets(final Random random, final int count, final int itemCount,
+        final int alwaysItems) {
+        int[][] patterns = new int[itemCount / 4][];
+        for (int p = 0; p < patterns.length; p++) {
+            patterns[p] = new int[2 + random.nextInt(4)];
+            for (int i = 0; i < patterns[p].length; i++) {
+                patterns[p][i] = alwaysItems + random.nextInt(itemCount - alwaysItems);
+            }
+        }
+        List<BitVectorValue> baskets = new ArrayList<BitVectorValue>(count);
+        for (int t = 0; t < count; t++) {
+            DenseBitVectorCellFactory factory = new DenseBitVectorCellFactory(itemCount);
+            for (int i = 0; i < alwaysItems; i++) {
+                factory.set(i);
+            }
+            // skewed pattern and item popularity
+            int patternCount = random.nextInt(3);
+            for (int p = 0; p < patternCount; p++) {
+                int[] pattern = patterns[(int)(patterns.length * Math.pow(random.nextDouble(), 2))];
+                for (int item : pattern) {
+                    if (random.nextDouble() < 0.9) {
+                        factory.set(item);
+                    }
+                }
+            }
+            int noise = random.nextInt(6);
+            for (int i = 0; i < noise; i++) {
+                factory.set(alwaysItems + (int)((itemCount - alwaysItems) * Math.pow(random.nextDouble(), 1.5)));
+            }
+            baskets.add(factory.createDataCell());
+        }
+        return baskets;
+    }
+
+    private static List<String> toStrings(final List<FrequentItemSet> sets) {
+        List<String> result = new ArrayList<String>(sets.size());
+        for (FrequentItemSet s : sets) {
+            result.add(s.getItems() + " support: " + s.getSupport() + " closed: " + s.isClosed() + " maximal: "
+                + s.isMaximal());
+        }
+        return result;
+    }
+
+    private static List<String> rulesToStrings(final List<AssociationRule> rules) {
+        List<String> result = new ArrayList<String>(rules.size());
+        for (AssociationRule r : rules) {
+            result.add(r.getAntecedent().getItems() + " (" + r.getAntecedent().getSupport() + ") -> "
+                + r.getConsequent().getItems() + " (" + r.getConsequent().getSupport() + ") support: "
+                + r.getSupport() + " confidence: " + r.getConfidence() + " lift: " + r.getLift());
+        }
+        return result;
+    }
+
+    private static void assertSameResults(final AprioriAlgorithm expected, final AprioriAlgorithm actual) {
+        for (FrequentItemSet.Type type : FrequentItemSet.Type.values()) {
+            assertEquals("Different " + type + " itemsets", toStrings(expected.getFrequentItemSets(type)),
+                toStrings(actual.getFrequentItemSets(type)));
+        }
+        for (double confidence : new double[]{0.0, 0.5, 0.9}) {
+            assertEquals("Different rules for confidence " + confidence,
+                rulesToStrings(expected.getAssociationRules(confidence)),
+                rulesToStrings(actual.getAssociationRules(confidence)));
+        }
+    }
+
+    /**
+     * FP-Growth must give exactly the same itemsets and rules as the TID list, with one and with several threads.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSameResultsAsTIDApriori() throws Exception {
+        Random random = new Random(1);
+        for (int alwaysItems : new int[]{0, 2}) {
+            List<BitVectorValue> baskets = createBaskets(random, 300, 40, alwaysItems);
+            for (double minSupport : new double[]{0.02, 0.05, 0.2}) {
+                for (int maxDepth : new int[]{1, 2, 3, 10}) {
+                    TIDApriori expected = new TIDApriori();
+                    expected.findFrequentItemSets(baskets, minSupport, maxDepth, FrequentItemSet.Type.FREE,
+                        new ExecutionMonitor());
+                    for (int threads : new int[]{1, 4}) {
+                        FPGrowth actual = new FPGrowth(threads);
+                        actual.findFrequentItemSets(baskets, minSupport, maxDepth, FrequentItemSet.Type.FREE,
+                            new ExecutionMonitor());
+                        assertSameResults(expected, actual);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Empty transactions and a minimum support no itemset reaches must not fail.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testDegenerateInput() throws Exception {
+        List<BitVectorValue> baskets = new ArrayList<BitVectorValue>();
+        for (int t = 0; t < 10; t++) {
+            DenseBitVectorCellFactory factory = new DenseBitVectorCellFactory(5);
+            if (t % 2 == 0) {
+                factory.set(t % 5);
+            }
+            baskets.add(factory.createDataCell());
+        }
+        for (double minSupport : new double[]{0.1, 0.3, 1.0}) {
+            TIDApriori expected = new TIDApriori();
+            expected.findFrequentItemSets(baskets, minSupport, 3, FrequentItemSet.Type.FREE, new ExecutionMonitor());
+            FPGrowth actual = new FPGrowth(2);
+            actual.findFrequentItemSets(baskets, minSupport, 3, FrequentItemSet.Type.FREE, new ExecutionMonitor());
+            assertSameResults(expected, actual);
+        }
+    }
+
+    /**
+     * Checks the closed itemsets at a low minimum support, where the conditional trees are deep.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testLowSupportClosedItemSets() throws Exception {
+        List<BitVectorValue> baskets = createBaskets(new Random(2), 300, 40, 0);
+        double minSupport = 0.02;
+        int maxDepth = 6;
+
+        TIDApriori tidApriori = new TIDApriori();
+        tidApriori.findFrequentItemSets(baskets, minSupport, maxDepth, FrequentItemSet.Type.CLOSED,
+            new ExecutionMonitor());
+        FPGrowth fpGrowth = new FPGrowth(2);
+        fpGrowth.findFrequentItemSets(baskets, minSupport, maxDepth, FrequentItemSet.Type.CLOSED,
+            new ExecutionMonitor());
+        assertEquals(toStrings(tidApriori.getFrequentItemSets(FrequentItemSet.Type.CLOSED)),
+            toStrings(fpGrowth.getFrequentItemSets(FrequentItemSet.Type.CLOSED)));
+    }
+}
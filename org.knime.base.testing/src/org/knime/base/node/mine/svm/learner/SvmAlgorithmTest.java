@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.svm.learner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.svm.Svm;
+import org.knime.base.node.mine.svm.kernel.Kernel;
+import org.knime.base.node.mine.svm.kernel.KernelFactory;
+import org.knime.base.node.mine.svm.kernel.KernelFactory.KernelType;
+import org.knime.base.node.mine.svm.util.DoubleVector;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Checks that the kernel cache and the shrinking heuristics of {@link SvmAlgorithm} don't change the trained SVM.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class SvmAlgorithmTest {
+
+    private static DoubleVector[] createData(final Random random, final int count) {
+        DoubleVector[] data = new DoubleVector[count];
+        for (int i = 0; i < count; i++) {
+            double[] values = {random.nextGaussian(), random.nextGaussian(), random.nextGaussian()};
+            double noise = 0.3 * random.nextGaussian();
+            String classValue = values[0] * values[0] + values[1] + noise > 0.5 ? "A" : "B";
+            data[i] = new DoubleVector(values, classValue);
+        }
+        return data;
+    }
+
+    private static Kernel createKernel(final KernelType type) {
+        Kernel kernel = KernelFactory.getKernel(type);
+        for (int i = 0; i < kernel.getNumberParameters(); i++) {
+            kernel.setParameter(i, type == KernelType.RBF ? 1.0 : kernel.getDefaultParameter(i));
+        }
+        return kernel;
+    }
+
+    /**
+     * The cache must give exactly the same SVM, even if it can only hold a few rows.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testKernelCache() throws Exception {
+        DoubleVector[] data = createData(new Random(1), 400);
+        for (KernelType type : new KernelType[]{KernelType.RBF, KernelType.Polynomial}) {
+            Kernel kernel = createKernel(type);
+            Svm expected = new SvmAlgorithm(data, "A", kernel, 1.0).run(new ExecutionMonitor());
+            for (long cacheSize : new long[]{10 * 8 * data.length, SvmAlgorithm.DEFAULT_CACHE_SIZE}) {
+                SvmAlgorithm algorithm = new SvmAlgorithm(data, "A", kernel, 1.0, cacheSize, false);
+                Svm actual = algorithm.run(new ExecutionMonitor());
+                assertArrayEquals(expected.getAlphas(), actual.getAlphas(), 0);
+                assertEquals(expected.getThreshold(), actual.getThreshold(), 0);
+                // the cache is released after each run and created again
+                actual = algorithm.run(new ExecutionMonitor());
+                assertArrayEquals(expected.getAlphas(), actual.getAlphas(), 0);
+            }
+        }
+    }
+
+    /**
+     * Shrinking must converge to a solution within the optimization tolerance.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testShrinking() throws Exception {
+        DoubleVector[] data = createData(new Random(2), 400);
+        Kernel kernel = createKernel(KernelType.RBF);
+        Svm expected = new SvmAlgorithm(data, "A", kernel, 1.0).run(new ExecutionMonitor());
+        Svm actual = new SvmAlgorithm(data, "A", kernel, 1.0, SvmAlgorithm.DEFAULT_CACHE_SIZE, true)
+            .run(new ExecutionMonitor());
+        assertEquals(expected.getThreshold(), actual.getThreshold(), 1e-2);
+        for (DoubleVector v : data) {
+            assertEquals(expected.distance(v), actual.distance(v), 1e-2);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.knime.base.data.aggregation.AggregationMethods;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.GlobalSettings.AggregationContext;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.workflow.SingleNodeContainer;
+
+/**
+ * Checks that the {@link HashGroupByTable} computes the same groups as the sort based {@link BigGroupByTable}, with
+ * and without (simulated) low memory conditions.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HashGroupByTableTest {
+
+    private static final int NR_ROWS = 3000;
+
+    private static final List<String> GROUP_COLS = Arrays.asList("str", "int");
+
+    /** Order dependent methods first, as they would reveal rows aggregated in the wrong order. */
+    private static final String[] METHODS = {"First", "Last", "List", "Concatenate_V2.4", "Sum_V2.5.2", "Count"};
+
+    private static final String[] AGGR_COLS = {"val", "val", "val", "txt", "val", "val"};
+
+    private static ExecutionContext EXEC_CONTEXT;
+
+    private static BufferedDataTable INPUT;
+
+    /**
+     * Creates the input table with two group columns that contain missing values.
+     *
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        EXEC_CONTEXT = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(new GroupByNodeFactory()),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, new HashMap<Integer, ContainerTable>());
+        final DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("str", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("val", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("txt", StringCell.TYPE).createSpec());
+        final Random random = new Random(42);
+        final BufferedDataContainer dc = EXEC_CONTEXT.createDataContainer(spec);
+        for (int i = 0; i < NR_ROWS; i++) {
+            final DataCell str = random.nextInt(20) == 0 ? DataType.getMissingCell()
+                : new StringCell(Character.toString((char)('a' + random.nextInt(20))));
+            final DataCell integer =
+                random.nextInt(20) == 0 ? DataType.getMissingCell() : new IntCell(random.nextInt(15));
+            final DataCell val = random.nextInt(10) == 0 ? DataType.getMissingCell() : new IntCell(random.nextInt());
+            dc.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), str, integer, val, new StringCell("r" + i)));
+        }
+        dc.close();
+        INPUT = dc.getTable();
+    }
+
+    /**
+     * Discards the input table.
+     */
+    @AfterClass
+    public static void tearDownAfterClass() {
+        EXEC_CONTEXT.clearTable(INPUT);
+        INPUT = null;
+        EXEC_CONTEXT = null;
+    }
+
+    /**
+     * Compares the groups without retaining the row order.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSameGroupsAsSortBased() throws Exception {
+        final List<List<DataCell>> expected = getRows(new BigGroupByTable(EXEC_CONTEXT, INPUT, GROUP_COLS,
+            createAggregators(), createGlobalSettings(), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME,
+            false));
+        final List<List<DataCell>> actual = getRows(new HashGroupByTable(EXEC_CONTEXT, INPUT, GROUP_COLS,
+            createAggregators(), createGlobalSettings(), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME,
+            false));
+        assertSameGroups(expected, actual);
+        assertTrue("Groups with missing values expected",
+            actual.stream().anyMatch(row -> row.get(0).isMissing() && row.get(1).isMissing()));
+    }
+
+    /**
+     * Compares the groups if the row order is retained, in which case the groups must be in the order of their first
+     * occurrence in the input table.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRetainOrder() throws Exception {
+        final List<List<DataCell>> expected = getRows(new BigGroupByTable(EXEC_CONTEXT, INPUT, GROUP_COLS,
+            createAggregators(), createGlobalSettings(), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME,
+            true));
+        final List<List<DataCell>> actual = getRows(new HashGroupByTable(EXEC_CONTEXT, INPUT, GROUP_COLS,
+            createAggregators(), createGlobalSettings(), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME,
+            true));
+        assertEquals("Different groups or group order", expected, actual);
+
+        final Set<List<DataCell>> firstOccurrence = new LinkedHashSet<>();
+        for (final DataRow row : INPUT) {
+            firstOccurrence.add(Arrays.asList(row.getCell(0), row.getCell(1)));
+        }
+        final List<List<DataCell>> groupOrder = new ArrayList<>();
+        for (final List<DataCell> row : actual) {
+            groupOrder.add(row.subList(0, 2));
+        }
+        assertEquals("Groups not in order of first occurrence", new ArrayList<>(firstOccurrence), groupOrder);
+    }
+
+    /**
+     * Simulates low memory conditions, which evicts partitions on all levels, and compares the groups.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEviction() throws Exception {
+        final List<List<DataCell>> expected = getRows(new BigGroupByTable(EXEC_CONTEXT, INPUT, GROUP_COLS,
+            createAggregators(), createGlobalSettings(), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME,
+            false));
+        for (final boolean retainOrder : new boolean[]{false, true}) {
+            final HashGroupByTable table = new HashGroupByTable(EXEC_CONTEXT, INPUT, GROUP_COLS, createAggregators(),
+                createGlobalSettings(), false, ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder) {
+                @Override
+                MemoryActionIndicator createMemoryIndicator() {
+                    final int[] calls = new int[1];
+                    return () -> ++calls[0] % 97 == 0;
+                }
+            };
+            assertSameGroups(expected, getRows(table));
+        }
+    }
+
+    private static ColumnAggregator[] createAggregators() {
+        final ColumnAggregator[] aggregators = new ColumnAggregator[METHODS.length];
+        for (int i = 0; i < METHODS.length; i++) {
+            aggregators[i] = new ColumnAggregator(INPUT.getDataTableSpec().getColumnSpec(AGGR_COLS[i]),
+                AggregationMethods.getMethod4Id(METHODS[i]));
+        }
+        return aggregators;
+    }
+
+    private static GlobalSettings createGlobalSettings() {
+        return GlobalSettings.builder().setGroupColNames(GROUP_COLS).setMaxUniqueValues(NR_ROWS)
+            .setValueDelimiter(GlobalSettings.STANDARD_DELIMITER).setDataTableSpec(INPUT.getDataTableSpec())
+            .setNoOfRows(INPUT.size()).setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+    }
+
+    /** @return the cells of all result rows (without the row keys, which are not part of the contract) */
+    private static List<List<DataCell>> getRows(final GroupByTable table) {
+        final BufferedDataTable result = table.getBufferedTable();
+        final List<List<DataCell>> rows = new ArrayList<>();
+        for (final DataRow row : result) {
+            final List<DataCell> cells = new ArrayList<>();
+            for (final DataCell cell : row) {
+                cells.add(cell);
+            }
+            rows.add(cells);
+        }
+        EXEC_CONTEXT.clearTable(result);
+        return rows;
+    }
+
+    private static void assertSameGroups(final List<List<DataCell>> expected, final List<List<DataCell>> actual) {
+        assertEquals("Different number of groups", expected.size(), actual.size());
+        final Set<List<DataCell>> expectedSet = new HashSet<>(expected);
+        for (final List<DataCell> row : actual) {
+            assertTrue("Unexpected group " + row, expectedSet.contains(row));
+        }
+    }
+}
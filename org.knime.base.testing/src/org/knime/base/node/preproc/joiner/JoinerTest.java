@@ -404,6 +404,37 @@ public void testSortPartitionsFullOuterJoin() throws Exception {
         compareTables(reference, test);
     }
 
+    /**
+     * Checks whether a full outer join that probes the partitions in parallel gives the same result as the sequential
+     * join, also when the number of partitions must be increased due to low memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelFullOuterJoin() throws Exception {
+        Joiner2Settings settingsRef = createReferenceSettings("Data");
+        settingsRef.setJoinMode(JoinMode.FullOuterJoin);
+
+        Joiner2Settings settingsTest = createReferenceSettings("Data");
+        settingsTest.setJoinMode(JoinMode.FullOuterJoin);
+
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(5000, 2), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(8000, 2), m_exec);
+
+        // run joiner with reference settings
+        Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+        BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+        // run joiner with test settings
+        Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+        joinerTest.setParallelism(4);
+        joinerTest.setRowsAddedBeforeOOM(1000);
+        joinerTest.setNumBitsInitial(0);
+        joinerTest.setNumBitsMaximal(6);
+        BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+        compareTables(reference, test);
+    }
+
 
     private Joiner2Settings createReferenceSettings(final String col) {
         Joiner2Settings settingsRef = new Joiner2Settings();
@@ -0,0 +1,128 @@
+/*
+ * -------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------- *
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.knime.core.node.CanceledExecutionException;
+
+import junit.framework.TestCase;
+
+/**
+ * This testcase checks if the vp tree implementation is correct by comparing it with a brute force search and the
+ * k-d tree.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class VPTreeTest extends TestCase {
+    /**
+     * Tests the search in various vp trees.
+     *
+     * @throws CanceledExecutionException if the tree building is canceled
+     */
+    public void testSearch() throws CanceledExecutionException {
+        final Random rand = new Random(0);
+        for (int i = 0; i < 300; i++) {
+            final int size = rand.nextInt(1000) + 1;
+            final int dimensions = rand.nextInt(50) + 1;
+            final int neighbours = rand.nextInt(size) + 1;
+            final int bucketSize = rand.nextInt(16) + 1;
+            // patterns on a coarse grid contain many duplicates and ties
+            singleTest(rand, size, dimensions, neighbours, bucketSize, rand.nextBoolean());
+        }
+    }
+
+    private static void singleTest(final Random rand, final int size, final int dimensions, final int neighbours,
+        final int bucketSize, final boolean grid) throws CanceledExecutionException {
+        VPTreeBuilder<Integer> vpBuilder = new VPTreeBuilder<Integer>(dimensions);
+        KDTreeBuilder<Integer> kdBuilder = new KDTreeBuilder<Integer>(dimensions);
+
+        final double[] query = createPattern(rand, dimensions, grid);
+        final List<double[]> patterns = new ArrayList<double[]>();
+        for (int i = 0; i < size; i++) {
+            final double[] pattern = createPattern(rand, dimensions, grid);
+            patterns.add(pattern);
+            vpBuilder.addPattern(pattern, i);
+            kdBuilder.addPattern(pattern, i);
+        }
+
+        // brute force: sort by distance and index
+        final double[] distances = new double[size];
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            distances[i] = VPTree.distance(patterns.get(i), query);
+            order[i] = i;
+        }
+        Arrays.sort(order, (o1, o2) -> distances[o1] != distances[o2] ? Double.compare(distances[o1], distances[o2])
+            : Integer.compare(o1, o2));
+        int expectedSize = neighbours;
+        while ((expectedSize < size) && (distances[order[expectedSize]] == distances[order[neighbours - 1]])) {
+            expectedSize++;
+        }
+
+        List<NearestNeighbour<Integer>> vpResults =
+            vpBuilder.buildTree(bucketSize, null).getKNearestNeighbours(query, neighbours);
+        List<NearestNeighbour<Integer>> kdResults =
+            kdBuilder.buildTree(bucketSize).getKNearestNeighbours(query, neighbours);
+        assertEquals(expectedSize, vpResults.size());
+        assertEquals(expectedSize, kdResults.size());
+        for (int i = 0; i < expectedSize; i++) {
+            assertEquals(order[i], vpResults.get(i).getData());
+            assertEquals(order[i], kdResults.get(i).getData());
+            assertEquals(Math.sqrt(distances[order[i]]), vpResults.get(i).getDistance(), 0);
+        }
+    }
+
+    private static double[] createPattern(final Random rand, final int dimensions, final boolean grid) {
+        final double[] pattern = new double[dimensions];
+        for (int k = 0; k < dimensions; k++) {
+            pattern[k] = grid ? rand.nextInt(3) : 120 * (rand.nextDouble() - 0.5);
+        }
+        return pattern;
+    }
+}
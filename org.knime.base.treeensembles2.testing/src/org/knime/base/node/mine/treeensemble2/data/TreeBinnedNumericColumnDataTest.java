@@ -0,0 +1,200 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.apache.commons.math.random.RandomData;
+import org.junit.Test;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DefaultDataIndexManager;
+import org.knime.base.node.mine.treeensemble2.data.memberships.RootDataMemberships;
+import org.knime.base.node.mine.treeensemble2.learner.NumericSplitCandidate;
+import org.knime.base.node.mine.treeensemble2.model.AbstractTreeEnsembleModel.TreeType;
+import org.knime.base.node.mine.treeensemble2.model.TreeNodeNumericCondition;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration.ColumnSamplingMode;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration.SplitCriterion;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DoubleCell;
+
+/**
+ * Tests for {@link TreeBinnedNumericColumnData}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TreeBinnedNumericColumnDataTest {
+
+    private static TreeBinnedNumericColumnData createBinnedColumnData(final TreeEnsembleLearnerConfiguration config,
+        final double[] data, final int maxNrBins) {
+        DataColumnSpec colSpec = new DataColumnSpecCreator("test-col", DoubleCell.TYPE).createSpec();
+        TreeBinnedNumericColumnDataCreator colCreator = new TreeBinnedNumericColumnDataCreator(colSpec, maxNrBins);
+        for (int i = 0; i < data.length; i++) {
+            final RowKey key = RowKey.createRowKey((long)i);
+            if (Double.isNaN(data[i])) {
+                colCreator.add(key, new MissingCell(null));
+            } else {
+                colCreator.add(key, new DoubleCell(data[i]));
+            }
+        }
+        TreeBinnedNumericColumnData col = colCreator.createColumnData(0, config);
+        col.getMetaData().setAttributeIndex(0);
+        return col;
+    }
+
+    /**
+     * Tests the assignment of values to equal frequency bins.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBinning() throws Exception {
+        TreeEnsembleLearnerConfiguration config = new TreeEnsembleLearnerConfiguration(true);
+        double[] data = TreeNumericColumnDataTest.asDataArray("10, 9, 8, 7, 6, 5, 4, 3, 2, 1, NaN");
+        TreeBinnedNumericColumnData col = createBinnedColumnData(config, data, 4);
+        assertEquals(4, col.getNrBins());
+        assertEquals(10, col.getLengthNonMissing());
+        assertEquals(true, col.containsMissingValues());
+        double[] expected = TreeNumericColumnDataTest.asDataArray("2, 2, 5, 5, 5, 7, 7, 10, 10, 10, NaN");
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Unexpected value at sorted index " + i, expected[i], col.getSorted(i), 0.0);
+        }
+        // equal values never end up in different bins
+        data = TreeNumericColumnDataTest.asDataArray("1, 1, 1, 1, 1, 1, 2, 3");
+        col = createBinnedColumnData(config, data, 2);
+        assertEquals(2, col.getNrBins());
+        assertEquals(1.0, col.getSorted(5), 0.0);
+        assertEquals(3.0, col.getSorted(6), 0.0);
+        // one bin per distinct value if there are few distinct values
+        col = createBinnedColumnData(config, data, 3);
+        assertEquals(3, col.getNrBins());
+        assertEquals(2.0, col.getSorted(6), 0.0);
+    }
+
+    /**
+     * Same data as in {@link TreeNumericColumnDataTest#testCalcBestSplitRegression()}, the histogram based split
+     * search must find the same splits as long as each value has its own bin. The larger child is searched first, its
+     * histogram is derived from its parent and the smaller sibling, which is scanned on demand.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCalcBestSplitRegression() throws Exception {
+        String dataCSV = "1,2,3,4,5,6,7,8,9,10";
+        String targetCSV = "1,5,4,4.3,6.5,6.5,4,3,3,4";
+        TreeEnsembleLearnerConfiguration config = new TreeEnsembleLearnerConfiguration(true);
+        config.setColumnSamplingMode(ColumnSamplingMode.None);
+        config.setNrNumericHistogramBins(TreeEnsembleLearnerConfiguration.MAX_NUMERIC_HISTOGRAM_BINS);
+        RandomData rd = config.createRandomData();
+        TreeTargetNumericColumnData target = TestDataGenerator.createNumericTargetColumn(targetCSV);
+        TreeBinnedNumericColumnData attribute =
+            createBinnedColumnData(config, TreeNumericColumnDataTest.asDataArray(dataCSV), 256);
+        TreeData data = new TreeData(new TreeAttributeColumnData[]{attribute}, target, TreeType.Ordinary);
+        double[] weights = new double[10];
+        Arrays.fill(weights, 1.0);
+        DataMemberships rootMem = new RootDataMemberships(weights, data, new DefaultDataIndexManager(data));
+        NumericSplitCandidate firstSplit =
+            attribute.calcBestSplitRegression(rootMem, target.getPriors(rootMem, config), target, rd);
+        assertEquals(10.885444, firstSplit.getGainValue(), 1e-5);
+        TreeNodeNumericCondition[] firstConditions = firstSplit.getChildConditions();
+        assertEquals(1.5, firstConditions[0].getSplitValue(), 0);
+
+        BitSet inLeftChild = attribute.updateChildMemberships(firstConditions[0], rootMem);
+        BitSet inRightChild = attribute.updateChildMemberships(firstConditions[1], rootMem);
+        BitSet expectedInRightChild = new BitSet(10);
+        expectedInRightChild.set(1, 10);
+        assertEquals(expectedInRightChild, inRightChild);
+        DataMemberships[] childMems = rootMem.createChildrenMemberships(new BitSet[]{inLeftChild, inRightChild});
+        DataMemberships leftMem = childMems[0];
+        DataMemberships rightMem = childMems[1];
+        NumericSplitCandidate secondSplit =
+            attribute.calcBestSplitRegression(rightMem, target.getPriors(rightMem, config), target, rd);
+        assertEquals(6.883555, secondSplit.getGainValue(), 1e-5);
+        assertEquals(6.5, secondSplit.getChildConditions()[0].getSplitValue(), 0);
+        assertNull(attribute.calcBestSplitRegression(leftMem, target.getPriors(leftMem, config), target, rd));
+    }
+
+    /**
+     * Same data as in {@link TreeNumericColumnDataTest#testCalcBestSplitClassification()}.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCalcBestSplitClassification() throws Exception {
+        TreeEnsembleLearnerConfiguration config = new TreeEnsembleLearnerConfiguration(false);
+        config.setColumnSamplingMode(ColumnSamplingMode.None);
+        config.setSplitCriterion(SplitCriterion.Gini);
+        final double[] data = TreeNumericColumnDataTest.asDataArray("60,70,75,85, 90, 95, 100,120,125,220");
+        final String[] target = TreeNumericColumnDataTest.asStringArray("No,No,No,Yes,Yes,Yes,No, No, No, No");
+        RandomData rd = config.createRandomData();
+        TreeBinnedNumericColumnData columnData = createBinnedColumnData(config, data, 256);
+        TreeTargetNominalColumnData targetData = TestDataGenerator.createNominalTargetColumn(target);
+        TreeData treeData = new TreeData(new TreeAttributeColumnData[]{columnData}, targetData, TreeType.Ordinary);
+        double[] rowWeights = new double[data.length];
+        Arrays.fill(rowWeights, 1.0);
+        DataMemberships dataMemberships =
+            new RootDataMemberships(rowWeights, treeData, new DefaultDataIndexManager(treeData));
+        ClassificationPriors priors = targetData.getDistribution(rowWeights, config);
+        NumericSplitCandidate splitCandidate =
+            columnData.calcBestSplitClassification(dataMemberships, priors, targetData, rd);
+        assertEquals(0.12, splitCandidate.getGainValue(), 0.00001);
+        assertEquals((95.0 + 100.0) / 2.0, splitCandidate.getChildConditions()[0].getSplitValue(), 0.0);
+
+        BitSet inChild = columnData.updateChildMemberships(splitCandidate.getChildConditions()[0], dataMemberships);
+        DataMemberships childMemberships = dataMemberships.createChildMemberships(inChild);
+        NumericSplitCandidate childSplitCandidate = columnData.calcBestSplitClassification(childMemberships,
+            targetData.getDistribution(childMemberships, config), targetData, rd);
+        assertEquals(0.5, childSplitCandidate.getGainValue(), 0.00001);
+        assertEquals((75.0 + 85.0) / 2.0, childSplitCandidate.getChildConditions()[0].getSplitValue(), 0.0);
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.learner;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.apache.commons.math.random.RandomData;
+import org.junit.Test;
+import org.knime.base.node.mine.treeensemble2.data.TestDataGenerator;
+import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnData;
+import org.knime.base.node.mine.treeensemble2.data.TreeData;
+import org.knime.base.node.mine.treeensemble2.data.TreeTargetColumnData;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DefaultDataIndexManager;
+import org.knime.base.node.mine.treeensemble2.model.AbstractTreeModel;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.base.node.mine.treeensemble2.sample.row.DefaultRowSample;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Tests that trees learned in parallel within a single tree (see {@link AbstractTreeLearner#setThreadPool}) do not
+ * depend on the number of threads.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelTreeLearnerTest {
+
+    private static final int NR_ROWS = 5000;
+
+    private static final int NR_COLS = 4;
+
+    private static final long SEED = 42;
+
+    /**
+     * Learns a regression tree with pools of different size.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRegressionTreeIndependentOfParallelism() throws Exception {
+        final TreeEnsembleLearnerConfiguration config = createConfig(true);
+        final TestDataGenerator dataGen = new TestDataGenerator(config);
+        final Random random = new Random(SEED);
+        final double[][] values = createAttributeValues(random);
+        final String[] target = new String[NR_ROWS];
+        for (int i = 0; i < NR_ROWS; i++) {
+            target[i] = Double.toString(3 * values[0][i] - values[1][i] * values[2][i] + random.nextGaussian());
+        }
+        final TreeData data = createData(dataGen, values,
+            TestDataGenerator.createNumericTargetColumn(String.join(",", target)));
+        final String sequential = learn(config, data, 1, true);
+        assertEquals("Tree differs for 4 threads", sequential, learn(config, data, 4, true));
+        assertEquals("Tree differs for 2 threads", sequential, learn(config, data, 2, true));
+    }
+
+    /**
+     * Learns a classification tree with pools of different size.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testClassificationTreeIndependentOfParallelism() throws Exception {
+        final TreeEnsembleLearnerConfiguration config = createConfig(false);
+        final TestDataGenerator dataGen = new TestDataGenerator(config);
+        final Random random = new Random(SEED);
+        final double[][] values = createAttributeValues(random);
+        final String[] target = new String[NR_ROWS];
+        for (int i = 0; i < NR_ROWS; i++) {
+            final double v = values[0][i] + values[3][i] + 0.3 * random.nextGaussian();
+            target[i] = v < 0.7 ? "A" : v < 1.2 ? "B" : "C";
+        }
+        final TreeData data = createData(dataGen, values, TestDataGenerator.createNominalTargetColumn(target));
+        final String sequential = learn(config, data, 1, false);
+        assertEquals("Tree differs for 4 threads", sequential, learn(config, data, 4, false));
+    }
+
+    private static TreeEnsembleLearnerConfiguration createConfig(final boolean isRegression) throws Exception {
+        final TreeEnsembleLearnerConfiguration config = new TreeEnsembleLearnerConfiguration(isRegression);
+        config.setMaxLevels(8);
+        config.setSeed(SEED);
+        return config;
+    }
+
+    private static double[][] createAttributeValues(final Random random) {
+        final double[][] values = new double[NR_COLS][NR_ROWS];
+        for (int c = 0; c < NR_COLS; c++) {
+            for (int i = 0; i < NR_ROWS; i++) {
+                // few distinct values to provoke ties
+                values[c][i] = random.nextInt(50) / 50.0;
+            }
+        }
+        return values;
+    }
+
+    private static TreeData createData(final TestDataGenerator dataGen, final double[][] values,
+        final TreeTargetColumnData target) {
+        final TreeAttributeColumnData[] cols = new TreeAttributeColumnData[NR_COLS];
+        for (int c = 0; c < NR_COLS; c++) {
+            cols[c] = dataGen.createNumericAttributeColumnData(values[c], "col" + c, c);
+        }
+        return dataGen.createTreeData(target, cols);
+    }
+
+    private static String learn(final TreeEnsembleLearnerConfiguration config, final TreeData data,
+        final int parallelism, final boolean isRegression) throws Exception {
+        final RandomData rd = TreeEnsembleLearnerConfiguration.createRandomData(SEED);
+        final DefaultDataIndexManager indexManager = new DefaultDataIndexManager(data);
+        final TreeNodeSignatureFactory signatureFactory = new TreeNodeSignatureFactory();
+        final DefaultRowSample rowSample = new DefaultRowSample(data.getNrRows());
+        final AbstractTreeLearner learner = isRegression
+            ? new TreeLearnerRegression(config, data, indexManager, signatureFactory, rd, rowSample)
+            : new TreeLearnerClassification(config, data, indexManager, signatureFactory, rd, rowSample);
+        final ThreadPool pool = new ThreadPool(parallelism);
+        try {
+            learner.setThreadPool(pool);
+            final AbstractTreeModel<?> model = learner.learnSingleTree(new ExecutionMonitor(), rd);
+            return model.getRootNode().toString();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.learner.gradientboosting;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.node.mine.treeensemble2.data.TestDataGenerator;
+import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnData;
+import org.knime.base.node.mine.treeensemble2.data.TreeData;
+import org.knime.base.node.mine.treeensemble2.data.TreeTargetColumnData;
+import org.knime.base.node.mine.treeensemble2.model.GradientBoostedTreesModel;
+import org.knime.base.node.mine.treeensemble2.model.MultiClassGradientBoostedTreesModel;
+import org.knime.base.node.mine.treeensemble2.node.gradientboosting.learner.GradientBoostingLearnerConfiguration;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests that gradient boosted trees learned with the same seed are identical, although the trees are grown in
+ * parallel.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class GradientBoostedTreesLearnerDeterminismTest {
+
+    private static final int NR_ROWS = 2000;
+
+    private static final int NR_COLS = 6;
+
+    private static final long SEED = 42;
+
+    /**
+     * Learns a regression model twice with the same seed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRegressionSameSeedSameModel() throws Exception {
+        final GradientBoostingLearnerConfiguration config = createConfig(true);
+        final TestDataGenerator dataGen = new TestDataGenerator(config);
+        final Random random = new Random(SEED);
+        final double[][] values = createAttributeValues(random);
+        final String[] target = new String[NR_ROWS];
+        for (int i = 0; i < NR_ROWS; i++) {
+            target[i] = Double.toString(3 * values[0][i] - values[1][i] * values[2][i] + random.nextGaussian());
+        }
+        final TreeData data = createData(dataGen, values,
+            TestDataGenerator.createNumericTargetColumn(String.join(",", target)));
+
+        final GradientBoostedTreesModel first =
+            (GradientBoostedTreesModel)new MGradientBoostedTreesLearner(config, data).learn(new ExecutionMonitor());
+        final GradientBoostedTreesModel second =
+            (GradientBoostedTreesModel)new MGradientBoostedTreesLearner(config, data).learn(new ExecutionMonitor());
+        assertEquals("Different number of trees", first.getNrModels(), second.getNrModels());
+        assertEquals("Different initial value", first.getInitialValue(), second.getInitialValue(), 0.0);
+        for (int i = 0; i < first.getNrModels(); i++) {
+            assertEquals("Tree " + i + " differs", first.getTreeModel(i).getRootNode().toString(),
+                second.getTreeModel(i).getRootNode().toString());
+        }
+        assertEquals("Coefficients differ", first.getCoeffientMaps(), second.getCoeffientMaps());
+    }
+
+    /**
+     * Learns a multi class classification model twice with the same seed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testClassificationSameSeedSameModel() throws Exception {
+        final GradientBoostingLearnerConfiguration config = createConfig(false);
+        final TestDataGenerator dataGen = new TestDataGenerator(config);
+        final Random random = new Random(SEED);
+        final double[][] values = createAttributeValues(random);
+        final String[] target = new String[NR_ROWS];
+        for (int i = 0; i < NR_ROWS; i++) {
+            final double v = values[0][i] + values[3][i] + 0.3 * random.nextGaussian();
+            target[i] = v < 0.7 ? "A" : v < 1.2 ? "B" : "C";
+        }
+        final TreeData data = createData(dataGen, values, TestDataGenerator.createNominalTargetColumn(target));
+
+        final MultiClassGradientBoostedTreesModel first =
+            new LKGradientBoostedTreesLearner(config, data).learn(new ExecutionMonitor());
+        final MultiClassGradientBoostedTreesModel second =
+            new LKGradientBoostedTreesLearner(config, data).learn(new ExecutionMonitor());
+        assertEquals("Different number of levels", first.getNrLevels(), second.getNrLevels());
+        assertEquals("Different number of classes", first.getNrClasses(), second.getNrClasses());
+        for (int l = 0; l < first.getNrLevels(); l++) {
+            for (int c = 0; c < first.getNrClasses(); c++) {
+                assertEquals("Tree " + l + "/" + c + " differs", first.getModel(l, c).getRootNode().toString(),
+                    second.getModel(l, c).getRootNode().toString());
+                assertEquals("Coefficients " + l + "/" + c + " differ", first.getCoefficientMap(l, c),
+                    second.getCoefficientMap(l, c));
+            }
+        }
+    }
+
+    private static GradientBoostingLearnerConfiguration createConfig(final boolean isRegression) throws Exception {
+        final GradientBoostingLearnerConfiguration config = new GradientBoostingLearnerConfiguration(isRegression);
+        config.setNrModels(10);
+        config.setMaxLevels(6);
+        // sample rows and columns so that the random numbers matter
+        config.setDataFractionPerTree(0.7);
+        config.setUseDifferentAttributesAtEachNode(true);
+        config.setSeed(SEED);
+        return config;
+    }
+
+    private static double[][] createAttributeValues(final Random random) {
+        final double[][] values = new double[NR_COLS][NR_ROWS];
+        for (int c = 0; c < NR_COLS; c++) {
+            for (int i = 0; i < NR_ROWS; i++) {
+                // few distinct values to provoke ties
+                values[c][i] = random.nextInt(50) / 50.0;
+            }
+        }
+        return values;
+    }
+
+    private static TreeData createData(final TestDataGenerator dataGen, final double[][] values,
+        final TreeTargetColumnData target) {
+        final TreeAttributeColumnData[] cols = new TreeAttributeColumnData[NR_COLS];
+        for (int c = 0; c < NR_COLS; c++) {
+            cols[c] = dataGen.createNumericAttributeColumnData(values[c], "col" + c, c);
+        }
+        return dataGen.createTreeData(target, cols);
+    }
+}
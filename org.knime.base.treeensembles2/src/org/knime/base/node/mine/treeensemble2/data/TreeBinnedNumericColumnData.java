@@ -0,0 +1,630 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.data;
+
+import java.util.BitSet;
+
+import org.apache.commons.math.random.RandomData;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
+import org.knime.base.node.mine.treeensemble2.learner.IImpurity;
+import org.knime.base.node.mine.treeensemble2.learner.NumericSplitCandidate;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration.MissingValueHandling;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Numeric attribute column whose values are discretized into at most
+ * {@link TreeEnsembleLearnerConfiguration#MAX_NUMERIC_HISTOGRAM_BINS} quantile bins. Split search does not iterate
+ * the sorted column but builds a histogram of the target per bin and only evaluates the bin boundaries as split
+ * candidates. The histograms of the smaller children of a node are scanned, the histogram of the largest child is
+ * derived from the histogram of its parent minus the histograms of its siblings.
+ *
+ * <p>
+ * The values returned by {@link #getSorted(int)} are the largest values of the respective bins, split values are
+ * placed between two adjacent (non-empty) bins, hence the partitioning during learning is consistent with the one
+ * obtained when applying the model to the original values.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class TreeBinnedNumericColumnData extends TreeNumericColumnData {
+
+    /** Bin index for each position in the sorted column (only non-missing positions). */
+    private final byte[] m_sortedBins;
+
+    /** Bin index for each row in the original data, undefined for missing values. */
+    private final byte[] m_binsInOriginalOrder;
+
+    /** Rows in the original data with a missing value. */
+    private final BitSet m_missingRows;
+
+    private final double[] m_binMin;
+
+    private final double[] m_binMax;
+
+    private final int m_lengthNonMissing;
+
+    private final boolean m_containsMissingValues;
+
+    /** Histograms of the nodes that are currently learned (weak keys, entries vanish with the nodes). */
+    private final Cache<DataMemberships, NodeHistogram> m_histograms =
+        CacheBuilder.newBuilder().weakKeys().build();
+
+    TreeBinnedNumericColumnData(final TreeNumericColumnMetaData metaData,
+        final TreeEnsembleLearnerConfiguration configuration, final byte[] sortedBins,
+        final int[] originalIndexInColumnList, final double[] binMin, final double[] binMax,
+        final boolean containsMissingValues) {
+        super(metaData, configuration, originalIndexInColumnList);
+        m_sortedBins = sortedBins;
+        m_binMin = binMin;
+        m_binMax = binMax;
+        m_lengthNonMissing = sortedBins.length;
+        m_containsMissingValues = containsMissingValues;
+        m_binsInOriginalOrder = new byte[originalIndexInColumnList.length];
+        m_missingRows = new BitSet(originalIndexInColumnList.length);
+        for (int i = 0; i < originalIndexInColumnList.length; i++) {
+            if (i < m_lengthNonMissing) {
+                m_binsInOriginalOrder[originalIndexInColumnList[i]] = sortedBins[i];
+            } else {
+                m_missingRows.set(originalIndexInColumnList[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bins
+     */
+    public int getNrBins() {
+        return m_binMax.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Returns the largest value of the bin the value at <b>index</b> falls into, or {@link Double#NaN} for missing
+     * values.
+     */
+    @Override
+    public double getSorted(final int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("A negative index is not allowed.");
+        } else if (index >= getOriginalIndicesInColumnList().length) {
+            throw new IndexOutOfBoundsException("The index is too large.");
+        }
+        return index < m_lengthNonMissing ? m_binMax[m_sortedBins[index] & 0xFF] : Double.NaN;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int getFirstIndexWithValue(final double value) {
+        int low = 0;
+        int high = m_lengthNonMissing;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (getSorted(mid) < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLengthNonMissing() {
+        return m_lengthNonMissing;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsMissingValues() {
+        return m_containsMissingValues;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NumericSplitCandidate calcBestSplitClassification(final DataMemberships dataMemberships,
+        final ClassificationPriors targetPriors, final TreeTargetNominalColumnData targetColumn, final RandomData rd) {
+        final TreeEnsembleLearnerConfiguration config = getConfiguration();
+        final boolean useXGBoostMissingValueHandling = config.getMissingValueHandling() == MissingValueHandling.XGBoost;
+        final int minChildNodeSize = config.getMinChildSize();
+        final int targetCounts = targetColumn.getMetaData().getValues().length;
+        final NodeHistogram histogram = getHistogram(dataMemberships, targetColumn, targetCounts, 0.0);
+        final int nrBins = getNrBins();
+        final double[] binWeights = histogram.m_weights;
+        final double[] classWeights = histogram.m_classWeights;
+
+        final double missingWeight = binWeights[nrBins];
+        final double[] missingTargetCounts = new double[targetCounts];
+        System.arraycopy(classWeights, nrBins * targetCounts, missingTargetCounts, 0, targetCounts);
+        final boolean branchContainsMissingValues = missingWeight > 0.0;
+
+        final double totalSumWeight = targetPriors.getNrRecords();
+        final IImpurity impurityCriterion = targetPriors.getImpurityCriterion();
+        final double[] targetCountsLeftOfSplit = new double[targetCounts];
+        final double[] targetCountsRightOfSplit = TreeNominalColumnData
+            .subtractMissingClassCounts(targetPriors.getDistribution(), missingTargetCounts);
+        double sumWeightsLeftOfSplit = 0.0;
+        double sumWeightsRightOfSplit = totalSumWeight - missingWeight;
+        // all values in branch are missing
+        if (sumWeightsRightOfSplit == 0) {
+            return null;
+        }
+        final double priorImpurity = useXGBoostMissingValueHandling || !branchContainsMissingValues
+            ? targetPriors.getPriorImpurity()
+            : impurityCriterion.getPartitionImpurity(targetCountsRightOfSplit, sumWeightsRightOfSplit);
+
+        final double[] partitionImpurities = new double[2];
+        final double[] partitionWeights = new double[2];
+        final double[] bestPartitionWeights = new double[2];
+        double bestGain = Double.NEGATIVE_INFINITY;
+        double bestGainValueForSplit = Double.NEGATIVE_INFINITY;
+        double bestSplit = Double.NEGATIVE_INFINITY;
+        boolean missingsGoLeft = true;
+
+        int bin = nextNonEmptyBin(binWeights, -1);
+        int nextBin;
+        // only the boundaries between two non-empty bins are valid split points
+        while (bin >= 0 && (nextBin = nextNonEmptyBin(binWeights, bin)) >= 0) {
+            final int offset = bin * targetCounts;
+            for (int c = 0; c < targetCounts; c++) {
+                targetCountsLeftOfSplit[c] += classWeights[offset + c];
+                targetCountsRightOfSplit[c] -= classWeights[offset + c];
+            }
+            sumWeightsLeftOfSplit += binWeights[bin];
+            sumWeightsRightOfSplit -= binWeights[bin];
+            if (sumWeightsLeftOfSplit >= minChildNodeSize && sumWeightsRightOfSplit >= minChildNodeSize) {
+                double postSplitImpurity;
+                boolean tempMissingsGoLeft = false;
+                if (branchContainsMissingValues && useXGBoostMissingValueHandling) {
+                    // send all missing values left
+                    partitionImpurities[0] = impurityCriterion.getPartitionImpurity(
+                        plus(targetCountsLeftOfSplit, missingTargetCounts), sumWeightsLeftOfSplit + missingWeight);
+                    partitionImpurities[1] =
+                        impurityCriterion.getPartitionImpurity(targetCountsRightOfSplit, sumWeightsRightOfSplit);
+                    partitionWeights[0] = sumWeightsLeftOfSplit + missingWeight;
+                    partitionWeights[1] = sumWeightsRightOfSplit;
+                    final double missingsLeftImpurity =
+                        impurityCriterion.getPostSplitImpurity(partitionImpurities, partitionWeights, totalSumWeight);
+                    // send all missing values right
+                    partitionImpurities[0] =
+                        impurityCriterion.getPartitionImpurity(targetCountsLeftOfSplit, sumWeightsLeftOfSplit);
+                    partitionImpurities[1] = impurityCriterion.getPartitionImpurity(
+                        plus(targetCountsRightOfSplit, missingTargetCounts), sumWeightsRightOfSplit + missingWeight);
+                    final double missingsRightImpurity = impurityCriterion.getPostSplitImpurity(partitionImpurities,
+                        new double[]{sumWeightsLeftOfSplit, sumWeightsRightOfSplit + missingWeight}, totalSumWeight);
+                    if (missingsLeftImpurity < missingsRightImpurity) {
+                        postSplitImpurity = missingsLeftImpurity;
+                        tempMissingsGoLeft = true;
+                    } else {
+                        postSplitImpurity = missingsRightImpurity;
+                        partitionWeights[0] = sumWeightsLeftOfSplit;
+                        partitionWeights[1] = sumWeightsRightOfSplit + missingWeight;
+                    }
+                } else {
+                    partitionImpurities[0] =
+                        impurityCriterion.getPartitionImpurity(targetCountsLeftOfSplit, sumWeightsLeftOfSplit);
+                    partitionImpurities[1] =
+                        impurityCriterion.getPartitionImpurity(targetCountsRightOfSplit, sumWeightsRightOfSplit);
+                    partitionWeights[0] = sumWeightsLeftOfSplit;
+                    partitionWeights[1] = sumWeightsRightOfSplit;
+                    postSplitImpurity =
+                        impurityCriterion.getPostSplitImpurity(partitionImpurities, partitionWeights, totalSumWeight);
+                }
+                if (postSplitImpurity < priorImpurity) {
+                    // absolute gain is used for the comparison, see TreeNumericColumnData
+                    final double gain = priorImpurity - postSplitImpurity;
+                    final boolean randomTieBreaker = gain == bestGain ? rd.nextInt(0, 1) == 1 : false;
+                    if (gain > bestGain || randomTieBreaker) {
+                        System.arraycopy(partitionWeights, 0, bestPartitionWeights, 0, 2);
+                        bestGainValueForSplit = impurityCriterion.getGain(priorImpurity, postSplitImpurity,
+                            bestPartitionWeights, totalSumWeight);
+                        bestGain = gain;
+                        bestSplit = getSplitValue(bin, nextBin);
+                        missingsGoLeft = branchContainsMissingValues ? tempMissingsGoLeft
+                            : sumWeightsLeftOfSplit > sumWeightsRightOfSplit;
+                    }
+                }
+            }
+            bin = nextBin;
+        }
+
+        if (bestGainValueForSplit < 0.0) {
+            return null;
+        }
+        return createSplitCandidate(dataMemberships, bestSplit, bestGainValueForSplit, branchContainsMissingValues,
+            useXGBoostMissingValueHandling, missingsGoLeft);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NumericSplitCandidate calcBestSplitRegression(final DataMemberships dataMemberships,
+        final RegressionPriors targetPriors, final TreeTargetNumericColumnData targetColumn, final RandomData rd) {
+        final TreeEnsembleLearnerConfiguration config = getConfiguration();
+        final boolean useXGBoostMissingValueHandling = config.getMissingValueHandling() == MissingValueHandling.XGBoost;
+        final int minChildNodeSize = config.getMinChildSize();
+        final double scale = getFixedPointScale(targetColumn);
+        final NodeHistogram histogram = getHistogram(dataMemberships, targetColumn, 1, scale);
+        final int nrBins = getNrBins();
+        final double[] binWeights = histogram.m_weights;
+        final long[] binYSums = histogram.m_ySums;
+
+        final double missingWeight = binWeights[nrBins];
+        final double missingY = binYSums[nrBins] / scale;
+        final boolean branchContainsMissingValues = missingWeight > 0.0;
+
+        long fixedYSumTotal = 0L;
+        double nrRecordsTotal = 0.0;
+        for (int b = 0; b < nrBins; b++) {
+            fixedYSumTotal += binYSums[b];
+            nrRecordsTotal += binWeights[b];
+        }
+        // all values in the current branch are missing
+        if (nrRecordsTotal == 0) {
+            return null;
+        }
+        final double ySumTotal = fixedYSumTotal / scale;
+        final double criterionTotal = useXGBoostMissingValueHandling
+            ? (ySumTotal + missingY) * (ySumTotal + missingY) / (nrRecordsTotal + missingWeight)
+            : ySumTotal * ySumTotal / nrRecordsTotal;
+
+        long fixedYSumLeft = 0L;
+        double nrRecordsLeft = 0.0;
+        double nrRecordsRight = nrRecordsTotal;
+        double bestSplit = Double.NEGATIVE_INFINITY;
+        double bestImprovement = 0.0;
+        boolean missingsGoLeft = true;
+
+        int bin = nextNonEmptyBin(binWeights, -1);
+        int nextBin;
+        // only the boundaries between two non-empty bins are valid split points
+        while (bin >= 0 && (nextBin = nextNonEmptyBin(binWeights, bin)) >= 0) {
+            fixedYSumLeft += binYSums[bin];
+            nrRecordsLeft += binWeights[bin];
+            nrRecordsRight -= binWeights[bin];
+            if (nrRecordsLeft >= minChildNodeSize && nrRecordsRight >= minChildNodeSize) {
+                final double ySumLeft = fixedYSumLeft / scale;
+                final double ySumRight = (fixedYSumTotal - fixedYSumLeft) / scale;
+                boolean tempMissingsGoLeft = true;
+                double childrenSquaredSum;
+                if (branchContainsMissingValues && useXGBoostMissingValueHandling) {
+                    final double missingsLeft =
+                        ((ySumLeft + missingY) * (ySumLeft + missingY) / (nrRecordsLeft + missingWeight))
+                            + (ySumRight * ySumRight / nrRecordsRight);
+                    final double missingsRight = (ySumLeft * ySumLeft / nrRecordsLeft)
+                        + ((ySumRight + missingY) * (ySumRight + missingY) / (nrRecordsRight + missingWeight));
+                    if (missingsLeft >= missingsRight) {
+                        childrenSquaredSum = missingsLeft;
+                    } else {
+                        childrenSquaredSum = missingsRight;
+                        tempMissingsGoLeft = false;
+                    }
+                } else {
+                    childrenSquaredSum =
+                        (ySumLeft * ySumLeft / nrRecordsLeft) + (ySumRight * ySumRight / nrRecordsRight);
+                }
+                final double criterion = childrenSquaredSum - criterionTotal;
+                final boolean randomTieBreaker = criterion == bestImprovement ? rd.nextInt(0, 1) == 1 : false;
+                if (criterion > bestImprovement || randomTieBreaker) {
+                    bestImprovement = criterion;
+                    bestSplit = getSplitValue(bin, nextBin);
+                    missingsGoLeft =
+                        branchContainsMissingValues ? tempMissingsGoLeft : nrRecordsLeft >= nrRecordsRight;
+                }
+            }
+            bin = nextBin;
+        }
+
+        if (bestImprovement > 0.0) {
+            return createSplitCandidate(dataMemberships, bestSplit, bestImprovement, branchContainsMissingValues,
+                useXGBoostMissingValueHandling, missingsGoLeft);
+        }
+        return null;
+    }
+
+    private NumericSplitCandidate createSplitCandidate(final DataMemberships dataMemberships, final double splitValue,
+        final double gainValue, final boolean branchContainsMissingValues,
+        final boolean useXGBoostMissingValueHandling, final boolean missingsGoLeft) {
+        if (useXGBoostMissingValueHandling) {
+            return new NumericSplitCandidate(this, splitValue, gainValue, new BitSet(),
+                missingsGoLeft ? NumericSplitCandidate.MISSINGS_GO_LEFT : NumericSplitCandidate.MISSINGS_GO_RIGHT);
+        }
+        final BitSet missedRows = new BitSet();
+        if (branchContainsMissingValues) {
+            final int[] originalIndices = dataMemberships.getOriginalIndices();
+            for (int i = 0; i < originalIndices.length; i++) {
+                if (m_missingRows.get(originalIndices[i])) {
+                    missedRows.set(i);
+                }
+            }
+        }
+        return new NumericSplitCandidate(this, splitValue, gainValue, missedRows, NumericSplitCandidate.NO_MISSINGS);
+    }
+
+    private double getSplitValue(final int leftBin, final int rightBin) {
+        final double left = m_binMax[leftBin];
+        if (getConfiguration().isUseAverageSplitPoints()) {
+            return left + 0.5 * (m_binMin[rightBin] - left);
+        }
+        return left;
+    }
+
+    private static int nextNonEmptyBin(final double[] binWeights, final int bin) {
+        // the last entry holds the missing values
+        for (int b = bin + 1; b < binWeights.length - 1; b++) {
+            if (binWeights[b] > 0.0) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private static double[] plus(final double[] a, final double[] b) {
+        final double[] sum = new double[a.length];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = a[i] + b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Target values of regression problems are accumulated as fixed point numbers so that histograms derived via
+     * subtraction are identical to the ones obtained by scanning the data. The scale is chosen such that the sum over
+     * all rows (with the maximal row weight) cannot overflow.
+     */
+    private static double getFixedPointScale(final TreeTargetNumericColumnData targetColumn) {
+        final double bound = targetColumn.getMaxAbsValue() * Byte.MAX_VALUE * 2.0 * targetColumn.getNrRows();
+        if (!(bound > 0.0) || Double.isInfinite(bound)) {
+            return 1.0;
+        }
+        return Math.scalb(1.0, 62 - Math.getExponent(bound) - 1);
+    }
+
+    /**
+     * Returns the histogram for the rows in <b>dataMemberships</b>. If the histogram of the parent is known and the
+     * children of the parent were created together, the smaller children are scanned and the histogram of the largest
+     * child is obtained via subtraction. Otherwise the histogram is derived if all siblings have been scanned already,
+     * and computed if not.
+     */
+    private NodeHistogram getHistogram(final DataMemberships dataMemberships, final TreeTargetColumnData targetColumn,
+        final int nrClasses, final double scale) {
+        final NodeHistogram cached = getCachedHistogram(dataMemberships, targetColumn);
+        if (cached != null) {
+            return cached;
+        }
+        final DataMemberships parent = dataMemberships.getParent();
+        final NodeHistogram parentHistogram = parent == null ? null : getCachedHistogram(parent, targetColumn);
+        if (parentHistogram == null) {
+            final NodeHistogram histogram = computeHistogram(dataMemberships, targetColumn, nrClasses, scale);
+            m_histograms.put(dataMemberships, histogram);
+            return histogram;
+        }
+        final DataMemberships[] siblings = dataMemberships.getSiblings();
+        if (siblings != null && getLargest(siblings) == dataMemberships) {
+            for (DataMemberships sibling : siblings) {
+                if (sibling != dataMemberships) {
+                    getChildHistogram(parentHistogram, sibling, targetColumn, nrClasses, scale);
+                }
+            }
+        }
+        return getChildHistogram(parentHistogram, dataMemberships, targetColumn, nrClasses, scale);
+    }
+
+    /**
+     * Returns the histogram of a child of the node with the histogram <b>parentHistogram</b>. It is derived if the
+     * histograms of all its siblings have been added to the parent, otherwise it is computed and added.
+     */
+    private NodeHistogram getChildHistogram(final NodeHistogram parentHistogram, final DataMemberships child,
+        final TreeTargetColumnData targetColumn, final int nrClasses, final double scale) {
+        final NodeHistogram cached = getCachedHistogram(child, targetColumn);
+        if (cached != null) {
+            return cached;
+        }
+        NodeHistogram histogram = parentHistogram.deriveRemainingChild(child.getRowCount());
+        final boolean derived = histogram != null;
+        if (!derived) {
+            histogram = computeHistogram(child, targetColumn, nrClasses, scale);
+        }
+        synchronized (parentHistogram) {
+            // siblings may be learned in parallel, the histogram of a child must be added to its parent only once
+            final NodeHistogram concurrent = getCachedHistogram(child, targetColumn);
+            if (concurrent != null) {
+                return concurrent;
+            }
+            if (!derived) {
+                parentHistogram.addChild(histogram);
+            }
+            m_histograms.put(child, histogram);
+        }
+        return histogram;
+    }
+
+    private NodeHistogram getCachedHistogram(final DataMemberships dataMemberships,
+        final TreeTargetColumnData targetColumn) {
+        final NodeHistogram cached = m_histograms.getIfPresent(dataMemberships);
+        return cached != null && cached.m_target == targetColumn ? cached : null;
+    }
+
+    /** @return the first of the given nodes with the most rows */
+    private static DataMemberships getLargest(final DataMemberships[] nodes) {
+        DataMemberships largest = null;
+        int maxRows = -1;
+        for (DataMemberships node : nodes) {
+            final int rows = node.getRowCount();
+            if (rows > maxRows) {
+                maxRows = rows;
+                largest = node;
+            }
+        }
+        return largest;
+    }
+
+    private NodeHistogram computeHistogram(final DataMemberships dataMemberships,
+        final TreeTargetColumnData targetColumn, final int nrClasses, final double scale) {
+        final int[] originalIndices = dataMemberships.getOriginalIndices();
+        final double[] rowWeights = dataMemberships.getRowWeights();
+        final int missingBin = getNrBins();
+        final NodeHistogram histogram =
+            new NodeHistogram(targetColumn, originalIndices.length, missingBin + 1, nrClasses);
+        final double[] weights = histogram.m_weights;
+        if (targetColumn instanceof TreeTargetNumericColumnData) {
+            final TreeTargetNumericColumnData numericTarget = (TreeTargetNumericColumnData)targetColumn;
+            final long[] ySums = histogram.m_ySums;
+            for (int i = 0; i < originalIndices.length; i++) {
+                final int row = originalIndices[i];
+                final int bin = m_missingRows.get(row) ? missingBin : m_binsInOriginalOrder[row] & 0xFF;
+                weights[bin] += rowWeights[i];
+                ySums[bin] += Math.round(rowWeights[i] * numericTarget.getValueFor(row) * scale);
+            }
+        } else {
+            final TreeTargetNominalColumnData nominalTarget = (TreeTargetNominalColumnData)targetColumn;
+            final double[] classWeights = histogram.m_classWeights;
+            for (int i = 0; i < originalIndices.length; i++) {
+                final int row = originalIndices[i];
+                final int bin = m_missingRows.get(row) ? missingBin : m_binsInOriginalOrder[row] & 0xFF;
+                weights[bin] += rowWeights[i];
+                classWeights[bin * nrClasses + nominalTarget.getValueFor(row)] += rowWeights[i];
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Per bin weights and target statistics of the rows in a tree node. The last bin holds the missing values.
+     * Regression histograms hold the (fixed point) weighted sum of the target, classification histograms the weight
+     * per class.
+     */
+    private static final class NodeHistogram {
+
+        private final TreeTargetColumnData m_target;
+
+        private final int m_nrRows;
+
+        private final double[] m_weights;
+
+        private final long[] m_ySums;
+
+        private final double[] m_classWeights;
+
+        /** Sum of the histograms of the children that have been scanned, guarded by this. */
+        private NodeHistogram m_childrenSum;
+
+        private int m_childrenRows;
+
+        private NodeHistogram(final TreeTargetColumnData target, final int nrRows, final int nrBins,
+            final int nrClasses) {
+            m_target = target;
+            m_nrRows = nrRows;
+            m_weights = new double[nrBins];
+            if (target instanceof TreeTargetNumericColumnData) {
+                m_ySums = new long[nrBins];
+                m_classWeights = null;
+            } else {
+                m_ySums = null;
+                m_classWeights = new double[nrBins * nrClasses];
+            }
+        }
+
+        private int getNrClasses() {
+            return m_classWeights == null ? 1 : m_classWeights.length / m_weights.length;
+        }
+
+        private synchronized void addChild(final NodeHistogram child) {
+            if (m_childrenSum == null) {
+                m_childrenSum = new NodeHistogram(m_target, 0, m_weights.length, getNrClasses());
+            }
+            m_childrenRows += child.m_nrRows;
+            final NodeHistogram sum = m_childrenSum;
+            for (int i = 0; i < m_weights.length; i++) {
+                sum.m_weights[i] += child.m_weights[i];
+            }
+            if (m_ySums != null) {
+                for (int i = 0; i < m_ySums.length; i++) {
+                    sum.m_ySums[i] += child.m_ySums[i];
+                }
+            } else {
+                for (int i = 0; i < m_classWeights.length; i++) {
+                    sum.m_classWeights[i] += child.m_classWeights[i];
+                }
+            }
+        }
+
+        /**
+         * @return the histogram of the child with <b>nrRows</b> rows if all its siblings have been added already,
+         *         otherwise null
+         */
+        private synchronized NodeHistogram deriveRemainingChild(final int nrRows) {
+            final NodeHistogram sum = m_childrenSum;
+            if (sum == null || m_nrRows - m_childrenRows != nrRows) {
+                return null;
+            }
+            final NodeHistogram child = new NodeHistogram(m_target, nrRows, m_weights.length, getNrClasses());
+            // row weights are integral, hence the differences are exact
+            for (int i = 0; i < m_weights.length; i++) {
+                child.m_weights[i] = m_weights[i] - sum.m_weights[i];
+            }
+            if (m_ySums != null) {
+                for (int i = 0; i < m_ySums.length; i++) {
+                    child.m_ySums[i] = m_ySums[i] - sum.m_ySums[i];
+                }
+            } else {
+                for (int i = 0; i < m_classWeights.length; i++) {
+                    child.m_classWeights[i] = m_classWeights[i] - sum.m_classWeights[i];
+                }
+            }
+            return child;
+        }
+    }
+
+}
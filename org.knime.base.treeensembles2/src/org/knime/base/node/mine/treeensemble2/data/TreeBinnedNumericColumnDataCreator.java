@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.treeensemble2.data;
+
+import java.util.Arrays;
+
+import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowKey;
+
+/**
+ * Creates {@link TreeBinnedNumericColumnData} objects. The non-missing values are sorted and assigned to (roughly)
+ * equal frequency bins, equal values always end up in the same bin. If the column has no more distinct values than
+ * bins, each distinct value gets its own bin.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class TreeBinnedNumericColumnDataCreator implements TreeAttributeColumnDataCreator {
+
+    private final DataColumnSpec m_column;
+
+    private final int m_maxNrBins;
+
+    private float[] m_values = new float[1024];
+
+    private int m_size = 0;
+
+    private int m_numMissing = 0;
+
+    TreeBinnedNumericColumnDataCreator(final DataColumnSpec column, final int maxNrBins) {
+        if (maxNrBins < 2 || maxNrBins > TreeEnsembleLearnerConfiguration.MAX_NUMERIC_HISTOGRAM_BINS) {
+            throw new IllegalArgumentException("Invalid number of bins: " + maxNrBins);
+        }
+        m_column = column;
+        m_maxNrBins = maxNrBins;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean acceptsMissing() {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void add(final RowKey rowKey, final DataCell cell) {
+        if (m_size == m_values.length) {
+            m_values = Arrays.copyOf(m_values, m_values.length * 2);
+        }
+        if (cell.isMissing()) {
+            m_values[m_size++] = Float.NaN;
+            m_numMissing++;
+        } else {
+            m_values[m_size++] = (float)((DoubleValue)cell).getDoubleValue();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNrAttributes() {
+        return 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TreeBinnedNumericColumnData createColumnData(final int attributeIndex,
+        final TreeEnsembleLearnerConfiguration configuration) {
+        final int length = m_size;
+        final int numNonMissing = length - m_numMissing;
+        // sort (value, index) pairs encoded as longs; missing values are appended in row order
+        final long[] keys = new long[numNonMissing];
+        final int[] sortIndex = new int[length];
+        int nonMissing = 0;
+        int missing = numNonMissing;
+        for (int i = 0; i < length; i++) {
+            final float value = m_values[i];
+            if (Float.isNaN(value)) {
+                sortIndex[missing++] = i;
+            } else {
+                keys[nonMissing++] = ((long)toSortableBits(value) << 32) | i;
+            }
+        }
+        Arrays.sort(keys);
+        final float[] sortedValues = new float[numNonMissing];
+        int nrDistinct = 0;
+        for (int i = 0; i < numNonMissing; i++) {
+            final int index = (int)keys[i];
+            sortIndex[i] = index;
+            sortedValues[i] = m_values[index];
+            if (i == 0 || sortedValues[i] != sortedValues[i - 1]) {
+                nrDistinct++;
+            }
+        }
+        m_values = null;
+
+        final byte[] sortedBins = new byte[numNonMissing];
+        final double[] binMin = new double[Math.min(nrDistinct, m_maxNrBins)];
+        final double[] binMax = new double[binMin.length];
+        int bin = -1;
+        for (int i = 0; i < numNonMissing; i++) {
+            final boolean valueChanged = i == 0 || sortedValues[i] != sortedValues[i - 1];
+            // a new bin starts with the first distinct value beyond the current bin's quantile
+            if (valueChanged && (bin < 0 || (nrDistinct <= m_maxNrBins
+                || (bin < m_maxNrBins - 1 && i >= (long)(bin + 1) * numNonMissing / m_maxNrBins)))) {
+                bin++;
+                binMin[bin] = sortedValues[i];
+            }
+            sortedBins[i] = (byte)bin;
+            binMax[bin] = sortedValues[i];
+        }
+        final int nrBins = bin + 1;
+        final TreeNumericColumnMetaData metaData = new TreeNumericColumnMetaData(m_column.getName());
+        return new TreeBinnedNumericColumnData(metaData, configuration, sortedBins, sortIndex,
+            Arrays.copyOf(binMin, nrBins), Arrays.copyOf(binMax, nrBins), m_numMissing > 0);
+    }
+
+    /** Maps the float to an int whose (signed) natural order corresponds to the order of the float values. */
+    private static int toSortableBits(final float value) {
+        final int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+}
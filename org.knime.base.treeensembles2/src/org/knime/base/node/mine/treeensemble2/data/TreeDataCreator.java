@@ -118,7 +118,12 @@ public TreeDataCreator(final TreeEnsembleLearnerConfiguration configuration, fin
                 m_attrColCreators[i] = new TreeNominalColumnDataCreator(col);
                 treeType = TreeType.Ordinary;
             } else if (colType.isCompatible(DoubleValue.class)) {
-                m_attrColCreators[i] = new TreeOrdinaryNumericColumnDataCreator(col);
+                final int nrHistogramBins = configuration.getNrNumericHistogramBins();
+                if (nrHistogramBins == TreeEnsembleLearnerConfiguration.NUMERIC_HISTOGRAM_BINS_UNDEFINED) {
+                    m_attrColCreators[i] = new TreeOrdinaryNumericColumnDataCreator(col);
+                } else {
+                    m_attrColCreators[i] = new TreeBinnedNumericColumnDataCreator(col, nrHistogramBins);
+                }
                 treeType = TreeType.Ordinary;
             } else if (colType.isCompatible(BitVectorValue.class)) {
                 m_attrColCreators[i] = new TreeBitVectorColumnDataCreator(col);
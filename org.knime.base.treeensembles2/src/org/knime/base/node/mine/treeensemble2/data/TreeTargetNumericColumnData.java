@@ -65,6 +65,8 @@ public final class TreeTargetNumericColumnData extends TreeTargetColumnData {
 
     private final double[] m_data;
 
+    private volatile double m_maxAbsValue = Double.NaN;
+
     /**
      * Standard constructor for this class.
      *
@@ -92,6 +94,22 @@ public double getValueFor(final int row) {
         return m_data[row];
     }
 
+    /**
+     * @return the largest absolute value in the target column (computed on first access)
+     * @since 3.7
+     */
+    public double getMaxAbsValue() {
+        double maxAbsValue = m_maxAbsValue;
+        if (Double.isNaN(maxAbsValue)) {
+            maxAbsValue = 0.0;
+            for (final double d : m_data) {
+                maxAbsValue = Math.max(maxAbsValue, Math.abs(d));
+            }
+            m_maxAbsValue = maxAbsValue;
+        }
+        return maxAbsValue;
+    }
+
     /**
      * Calculates the priors for regression based on the provided <b>rowWeights</b> (it is recommended to use the
      * alternative method that uses DataMemberships for efficiency)
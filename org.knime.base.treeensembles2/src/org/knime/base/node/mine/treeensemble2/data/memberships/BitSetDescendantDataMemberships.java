@@ -49,7 +49,8 @@
 package org.knime.base.node.mine.treeensemble2.data.memberships;
 
 import java.util.BitSet;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -58,13 +59,29 @@
 public class BitSetDescendantDataMemberships implements DataMemberships {
 
     private final RootDataMemberships m_root;
+    private final DataMemberships m_parent;
     private final BitSet m_included;
-    private final HashMap<Integer, ColumnMemberships> m_cachedColumnMemberships;
+    /** All children of the parent including this one, set if they were created together. */
+    private DataMemberships[] m_siblings;
+    private final Map<Integer, ColumnMemberships> m_cachedColumnMemberships;
 
     public BitSetDescendantDataMemberships(final RootDataMemberships root, final BitSet included) {
+        this(root, null, included);
+    }
+
+    /**
+     * @param root the memberships of the root node
+     * @param parent the memberships of the parent node (may be <code>null</code>)
+     * @param included the rows (indices in the root) that are contained in this node
+     * @since 3.7
+     */
+    public BitSetDescendantDataMemberships(final RootDataMemberships root, final DataMemberships parent,
+        final BitSet included) {
         m_root = root;
+        m_parent = parent;
         m_included = included;
-        m_cachedColumnMemberships = new HashMap<Integer, ColumnMemberships>();
+        // concurrent as the split candidates of a node may be searched in parallel (one column per thread)
+        m_cachedColumnMemberships = new ConcurrentHashMap<Integer, ColumnMemberships>();
     }
 
     /**
@@ -95,12 +112,8 @@ public double[] getRowWeights() {
      */
     @Override
     public ColumnMemberships getColumnMemberships(final int index) {
-        ColumnMemberships colMem = m_cachedColumnMemberships.get(index);
-        if (colMem == null) {
-            colMem = m_root.descendantGetColumnMemberships(index, m_included);
-            m_cachedColumnMemberships.put(index, colMem);
-        }
-        return colMem;
+        return m_cachedColumnMemberships.computeIfAbsent(index,
+            i -> m_root.descendantGetColumnMemberships(i, m_included));
     }
 
     /**
@@ -124,7 +137,35 @@ public int[] getOriginalIndices() {
      */
     @Override
     public DataMemberships createChildMemberships(final BitSet inChild) {
-        return m_root.createDescendantMemberships(inChild);
+        return m_root.createDescendantMemberships(this, inChild);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataMemberships[] createChildrenMemberships(final BitSet[] inChildren) {
+        return m_root.createDescendantMemberships(this, inChildren);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataMemberships getParent() {
+        return m_parent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataMemberships[] getSiblings() {
+        return m_siblings == null ? null : m_siblings.clone();
+    }
+
+    void setSiblings(final DataMemberships[] siblings) {
+        m_siblings = siblings;
     }
 
 
@@ -100,4 +100,39 @@ public interface DataMemberships {
      */
     int getRowCountInRoot();
 
+    /**
+     * @return the DataMemberships object this object was created from via
+     *         {@link #createChildMemberships(BitSet)} or <code>null</code> if unknown (e.g. for the root)
+     * @since 3.7
+     */
+    default DataMemberships getParent() {
+        return null;
+    }
+
+    /**
+     * Creates the DataMemberships objects of all children of a split at once, so that the children know each other
+     * (see {@link #getSiblings()}).
+     *
+     * @param inChildren one BitSet per child marking the rows contained in it (see
+     *            {@link #createChildMemberships(BitSet)})
+     * @return the children in the order of <b>inChildren</b>
+     * @since 3.7
+     */
+    default DataMemberships[] createChildrenMemberships(final BitSet[] inChildren) {
+        final DataMemberships[] children = new DataMemberships[inChildren.length];
+        for (int i = 0; i < inChildren.length; i++) {
+            children[i] = createChildMemberships(inChildren[i]);
+        }
+        return children;
+    }
+
+    /**
+     * @return all children of the parent (including this object) if they were created via
+     *         {@link #createChildrenMemberships(BitSet[])}, otherwise <code>null</code>
+     * @since 3.7
+     */
+    default DataMemberships[] getSiblings() {
+        return null;
+    }
+
 }
@@ -232,11 +232,30 @@ public DataMemberships createChildMemberships(final BitSet inChild) {
 //            return createChildRootMemberships(inChild);
 //        }
 
-        return createDescendantMemberships(inChild);
+        return createDescendantMemberships(this, inChild);
     }
 
-    DataMemberships createDescendantMemberships(final BitSet inDescendant) {
-        return new BitSetDescendantDataMemberships(this, inDescendant);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataMemberships[] createChildrenMemberships(final BitSet[] inChildren) {
+        return createDescendantMemberships(this, inChildren);
+    }
+
+    DataMemberships[] createDescendantMemberships(final DataMemberships parent, final BitSet[] inDescendants) {
+        final DataMemberships[] descendants = new DataMemberships[inDescendants.length];
+        for (int i = 0; i < inDescendants.length; i++) {
+            descendants[i] = new BitSetDescendantDataMemberships(this, parent, inDescendants[i]);
+        }
+        for (DataMemberships descendant : descendants) {
+            ((BitSetDescendantDataMemberships)descendant).setSiblings(descendants);
+        }
+        return descendants;
+    }
+
+    DataMemberships createDescendantMemberships(final DataMemberships parent, final BitSet inDescendant) {
+        return new BitSetDescendantDataMemberships(this, parent, inDescendant);
         //        final int descendantSize = inDescendant.cardinality();
         //        final int[] indicesInRoot = new int[descendantSize];
         //        int index = 0;
@@ -47,15 +47,28 @@
  */
 package org.knime.base.node.mine.treeensemble2.learner;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.apache.commons.math.random.RandomData;
+import org.knime.base.node.mine.treeensemble2.data.TreeAttributeColumnData;
 import org.knime.base.node.mine.treeensemble2.data.TreeData;
+import org.knime.base.node.mine.treeensemble2.data.memberships.DataMemberships;
 import org.knime.base.node.mine.treeensemble2.data.memberships.IDataIndexManager;
 import org.knime.base.node.mine.treeensemble2.model.AbstractTreeModel;
 import org.knime.base.node.mine.treeensemble2.node.learner.TreeEnsembleLearnerConfiguration;
+import org.knime.base.node.mine.treeensemble2.sample.column.ColumnSample;
 import org.knime.base.node.mine.treeensemble2.sample.column.ColumnSampleStrategy;
 import org.knime.base.node.mine.treeensemble2.sample.row.RowSample;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
 
 /**
  *
@@ -63,6 +76,9 @@
  */
 public abstract class AbstractTreeLearner {
 
+    /** Minimum number of rows in a tree node for its split search and subtrees to be run in separate tasks. */
+    static final int MIN_ROWS_FOR_FORK = 1000;
+
     private final TreeEnsembleLearnerConfiguration m_config;
 
     private final TreeData m_data;
@@ -77,6 +93,8 @@ public abstract class AbstractTreeLearner {
 
     private final TreeNodeSignatureFactory m_signatureFactory;
 
+    private ThreadPool m_threadPool;
+
     /**
      * @param config
      * @param data
@@ -139,6 +157,220 @@ final TreeNodeSignatureFactory getSignatureFactory() {
         return m_signatureFactory;
     }
 
+    /**
+     * Sets the pool that is used to search split candidates and to grow sibling subtrees in parallel within a single
+     * tree. If no pool is set (the default) the tree is learned sequentially in the calling thread. When learning in
+     * parallel, each node derives its own random data object from its parent's so that the learned tree only depends
+     * on the seed and not on the number of threads in the pool.
+     *
+     * @param threadPool the pool (usually a sub pool of {@link org.knime.core.node.KNIMEConstants#GLOBAL_THREAD_POOL})
+     *            or <code>null</code> to learn sequentially
+     * @since 3.7
+     */
+    public final void setThreadPool(final ThreadPool threadPool) {
+        m_threadPool = threadPool;
+    }
+
+    /**
+     * @return the pool used to learn the tree in parallel or <code>null</code> if the tree is learned sequentially
+     * @since 3.7
+     */
+    public final ThreadPool getThreadPool() {
+        return m_threadPool;
+    }
+
+    /**
+     * Calculates the best split of each of the given columns. The columns are evaluated in separate tasks if the node
+     * is big enough, otherwise <code>null</code> is returned and the caller is expected to evaluate the columns itself
+     * (in order to preserve the sequence of random numbers of the sequential implementation).
+     *
+     * @param columns the columns to evaluate
+     * @param dataMemberships the rows in the current node
+     * @param rd random data of the current node, used to derive one random data object per column
+     * @param splitFunction calculates the best split for a column
+     * @return the split candidates in the order of <b>columns</b> (elements may be <code>null</code>) or
+     *         <code>null</code> if the node is not forked
+     * @throws CanceledExecutionException if the computation was canceled
+     */
+    final SplitCandidate[] forkSplitSearch(final List<TreeAttributeColumnData> columns,
+        final DataMemberships dataMemberships, final RandomData rd, final ColumnSplitFunction splitFunction)
+        throws CanceledExecutionException {
+        if (!isForkNode(dataMemberships) || columns.size() < 2) {
+            return null;
+        }
+        final List<ForkedTask<SplitCandidate>> tasks = new ArrayList<ForkedTask<SplitCandidate>>(columns.size());
+        for (TreeAttributeColumnData col : columns) {
+            final RandomData colRd =
+                TreeEnsembleLearnerConfiguration.createRandomData(rd.nextLong(Long.MIN_VALUE, Long.MAX_VALUE));
+            tasks.add(new ForkedTask<SplitCandidate>(() -> splitFunction.calcBestSplit(col, colRd)));
+        }
+        return joinAll(tasks, new SplitCandidate[tasks.size()]);
+    }
+
+    /**
+     * Builds the child nodes of a node. If the tree is learned in parallel, each child gets its own random data object
+     * and the children of big nodes are built in separate tasks, each of them working on a copy of the forbidden
+     * column set.
+     *
+     * @param childNodes the array to fill
+     * @param parentMemberships the rows in the parent node
+     * @param forbiddenColumnSet the columns that must not be split further
+     * @param rd the random data object of the parent node
+     * @param builder builds a single child node
+     * @throws CanceledExecutionException if the computation was canceled
+     */
+    final <N> void buildChildNodes(final N[] childNodes, final DataMemberships parentMemberships,
+        final BitSet forbiddenColumnSet, final RandomData rd, final ChildNodeBuilder<N> builder)
+        throws CanceledExecutionException {
+        if (m_threadPool == null) {
+            for (int i = 0; i < childNodes.length; i++) {
+                childNodes[i] = builder.buildChildNode(i, forbiddenColumnSet, rd);
+            }
+            return;
+        }
+        final RandomData[] childRds = new RandomData[childNodes.length];
+        for (int i = 0; i < childRds.length; i++) {
+            childRds[i] =
+                TreeEnsembleLearnerConfiguration.createRandomData(rd.nextLong(Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        if (!isForkNode(parentMemberships) || childNodes.length < 2) {
+            for (int i = 0; i < childNodes.length; i++) {
+                childNodes[i] = builder.buildChildNode(i, forbiddenColumnSet, childRds[i]);
+            }
+            return;
+        }
+        final List<ForkedTask<N>> tasks = new ArrayList<ForkedTask<N>>(childNodes.length);
+        for (int i = 0; i < childNodes.length; i++) {
+            final int childIndex = i;
+            // the first child is built in this thread and can use the set of the parent
+            final BitSet childForbiddenColumnSet = i == 0 ? forbiddenColumnSet : (BitSet)forbiddenColumnSet.clone();
+            tasks.add(new ForkedTask<N>(
+                () -> builder.buildChildNode(childIndex, childForbiddenColumnSet, childRds[childIndex])));
+        }
+        joinAll(tasks, childNodes);
+    }
+
+    /**
+     * Enqueues all but the first task in the pool, runs the first one in the calling thread and waits for the others.
+     * Tasks that haven't been started by the pool when their result is needed are run in the calling thread, tasks
+     * running in the pool are waited for invisibly (see {@link ThreadPool#runInvisible(Callable)}), hence nested tasks
+     * don't block the threads of the pool.
+     */
+    private <T> T[] joinAll(final List<ForkedTask<T>> tasks, final T[] results) throws CanceledExecutionException {
+        try {
+            for (int i = 1; i < tasks.size(); i++) {
+                tasks.get(i).enqueue(m_threadPool);
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                results[i] = tasks.get(i).join();
+            }
+            return results;
+        } finally {
+            // tasks not started yet are not needed anymore if one of the tasks failed
+            for (ForkedTask<T> task : tasks) {
+                task.claim();
+            }
+        }
+    }
+
+    private boolean isForkNode(final DataMemberships dataMemberships) {
+        return m_threadPool != null && dataMemberships.getRowCount() >= MIN_ROWS_FOR_FORK;
+    }
+
+    /** A task that is either run by the thread pool or - if it hasn't been started when its result is needed - by
+     * the waiting thread. */
+    private static final class ForkedTask<T> implements Callable<T> {
+
+        private final NodeCallable<T> m_callable;
+
+        /** Set by the thread that runs the computation. */
+        private final AtomicBoolean m_claimed = new AtomicBoolean();
+
+        private Future<T> m_future;
+
+        ForkedTask(final NodeCallable<T> callable) {
+            m_callable = callable;
+        }
+
+        void enqueue(final ThreadPool pool) {
+            m_future = pool.enqueue(this);
+        }
+
+        /** @return true if the computation hasn't been claimed by another thread before */
+        boolean claim() {
+            return m_claimed.compareAndSet(false, true);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public T call() throws CanceledExecutionException {
+            return claim() ? m_callable.call() : null;
+        }
+
+        /** Runs the computation in the calling thread if it hasn't been started yet, otherwise waits for it. */
+        T join() throws CanceledExecutionException {
+            if (claim()) {
+                return m_callable.call();
+            }
+            try {
+                return ParallelTasks.waitFor(m_future);
+            } catch (ExecutionException e) {
+                // node callables throw no other checked exceptions
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @param columnSample the columns sampled for the current node
+     * @param forbiddenColumnSet the columns that must not be split further
+     * @return the sampled columns that are not forbidden
+     */
+    final List<TreeAttributeColumnData> getSplitColumns(final ColumnSample columnSample,
+        final BitSet forbiddenColumnSet) {
+        final List<TreeAttributeColumnData> columns = new ArrayList<TreeAttributeColumnData>(columnSample.getNumCols());
+        for (TreeAttributeColumnData col : columnSample) {
+            if (!forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
+                columns.add(col);
+            }
+        }
+        return columns;
+    }
+
+    /** A computation on a tree node that may be canceled. */
+    @FunctionalInterface
+    interface NodeCallable<T> {
+        /**
+         * @return the result of the computation
+         * @throws CanceledExecutionException if canceled
+         */
+        T call() throws CanceledExecutionException;
+    }
+
+    /** Calculates the best split of a single attribute column. */
+    @FunctionalInterface
+    interface ColumnSplitFunction {
+        /**
+         * @param column the column to evaluate
+         * @param rd the random data to use for tie breaking
+         * @return the best split or <code>null</code>
+         */
+        SplitCandidate calcBestSplit(TreeAttributeColumnData column, RandomData rd);
+    }
+
+    /** Builds a single child node. */
+    @FunctionalInterface
+    interface ChildNodeBuilder<N> {
+        /**
+         * @param childIndex the index of the child
+         * @param forbiddenColumnSet the forbidden column set to use for the subtree
+         * @param rd the random data object to use for the subtree
+         * @return the child node
+         * @throws CanceledExecutionException if canceled
+         */
+        N buildChildNode(int childIndex, BitSet forbiddenColumnSet, RandomData rd) throws CanceledExecutionException;
+    }
+
     /**
      * Learns a single decision tree model
      *
@@ -50,6 +50,7 @@
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Comparator;
+import java.util.List;
 
 import org.apache.commons.math.random.RandomData;
 import org.knime.base.node.mine.treeensemble2.data.ClassificationPriors;
@@ -112,7 +113,7 @@ private TreeModelClassification learnSingleTreeRecursive(final ExecutionMonitor
         final ColumnSample rootColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(rootSignature);
         TreeNodeClassification rootNode = null;
         rootNode = buildTreeNode(exec, 0, rootDataMemberships, rootColumnSample, rootSignature, targetPriors,
-            forbiddenColumnSet);
+            forbiddenColumnSet, getRandomData());
         assert forbiddenColumnSet.cardinality() == 0;
         rootNode.setTreeNodeCondition(TreeNodeTrueCondition.INSTANCE);
         return new TreeModelClassification(rootNode);
@@ -121,7 +122,7 @@ private TreeModelClassification learnSingleTreeRecursive(final ExecutionMonitor
     private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final int currentDepth,
         final DataMemberships dataMemberships, final ColumnSample columnSample,
         final TreeNodeSignature treeNodeSignature, final ClassificationPriors targetPriors,
-        final BitSet forbiddenColumnSet) throws CanceledExecutionException {
+        final BitSet forbiddenColumnSet, final RandomData rd) throws CanceledExecutionException {
         final TreeData data = getData();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         exec.checkCanceled();
@@ -133,29 +134,31 @@ private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final
         int attributeIndex = -1;
         if (useSurrogates) {
             SplitCandidate[] candidates = findBestSplitsClassification(currentDepth, dataMemberships, columnSample,
-                treeNodeSignature, targetPriors, forbiddenColumnSet);
+                treeNodeSignature, targetPriors, forbiddenColumnSet, rd);
             if (candidates == null) {
                 return new TreeNodeClassification(treeNodeSignature, targetPriors, config);
             }
             SurrogateSplit surrogateSplit =
-                Surrogates.learnSurrogates(dataMemberships, candidates[0], data, columnSample, config, getRandomData());
-            childConditions = surrogateSplit.getChildConditions();
+                Surrogates.learnSurrogates(dataMemberships, candidates[0], data, columnSample, config, rd);
+            final TreeNodeCondition[] surrogateConditions = surrogateSplit.getChildConditions();
+            childConditions = surrogateConditions;
             BitSet[] childMarkers = surrogateSplit.getChildMarkers();
             childNodes = new TreeNodeClassification[2];
-            for (int i = 0; i < 2; i++) {
-                DataMemberships childMemberships = dataMemberships.createChildMemberships(childMarkers[i]);
-                ClassificationPriors childTargetPriors = targetColumn.getDistribution(childMemberships, config);
+            final DataMemberships[] childMemberships = dataMemberships.createChildrenMemberships(childMarkers);
+            buildChildNodes(childNodes, dataMemberships, forbiddenColumnSet, rd, (i, childForbiddenColumnSet, childRd) -> {
+                ClassificationPriors childTargetPriors = targetColumn.getDistribution(childMemberships[i], config);
                 TreeNodeSignature childSignature =
                     getSignatureFactory().getChildSignatureFor(treeNodeSignature, (byte)i);
                 ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample,
-                    childSignature, childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(childConditions[i]);
-            }
+                TreeNodeClassification childNode = buildTreeNode(exec, currentDepth + 1, childMemberships[i],
+                    childColumnSample, childSignature, childTargetPriors, childForbiddenColumnSet, childRd);
+                childNode.setTreeNodeCondition(surrogateConditions[i]);
+                return childNode;
+            });
         } else {
             // handle non surrogate case
             SplitCandidate bestSplit = findBestSplitClassification(currentDepth, dataMemberships, columnSample,
-                treeNodeSignature, targetPriors, forbiddenColumnSet);
+                treeNodeSignature, targetPriors, forbiddenColumnSet, rd);
             if (bestSplit == null) {
                 return new TreeNodeClassification(treeNodeSignature, targetPriors, config);
             }
@@ -164,26 +167,31 @@ private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final
             markAttributeAsForbidden = !bestSplit.canColumnBeSplitFurther();
             forbiddenColumnSet.set(attributeIndex, markAttributeAsForbidden);
 
-            childConditions = bestSplit.getChildConditions();
+            final TreeNodeCondition[] splitConditions = bestSplit.getChildConditions();
+            childConditions = splitConditions;
             childNodes = new TreeNodeClassification[childConditions.length];
             if (childConditions.length > Short.MAX_VALUE) {
                 throw new RuntimeException(
                     "Too many children when splitting " + "attribute " + bestSplit.getColumnData()
                         + " (maximum supported: " + Short.MAX_VALUE + "): " + childConditions.length);
             }
-            // Build child nodes
+            // Build child nodes, memberships are computed upfront as updateChildMemberships iterates the parent's
+            // memberships
+            final BitSet[] childMarkers = new BitSet[childConditions.length];
             for (int i = 0; i < childConditions.length; i++) {
-                DataMemberships childMemberships = null;
-                TreeNodeCondition cond = childConditions[i];
-                childMemberships =
-                    dataMemberships.createChildMemberships(splitColumn.updateChildMemberships(cond, dataMemberships));
-                ClassificationPriors childTargetPriors = targetColumn.getDistribution(childMemberships, config);
+                childMarkers[i] = splitColumn.updateChildMemberships(childConditions[i], dataMemberships);
+            }
+            final DataMemberships[] childMemberships = dataMemberships.createChildrenMemberships(childMarkers);
+            buildChildNodes(childNodes, dataMemberships, forbiddenColumnSet, rd, (i, childForbiddenColumnSet, childRd) -> {
+                TreeNodeCondition cond = splitConditions[i];
+                ClassificationPriors childTargetPriors = targetColumn.getDistribution(childMemberships[i], config);
                 TreeNodeSignature childSignature = treeNodeSignature.createChildSignature((byte)i);
                 ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample,
-                    childSignature, childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(cond);
-            }
+                TreeNodeClassification childNode = buildTreeNode(exec, currentDepth + 1, childMemberships[i],
+                    childColumnSample, childSignature, childTargetPriors, childForbiddenColumnSet, childRd);
+                childNode.setTreeNodeCondition(cond);
+                return childNode;
+            });
         }
         if (markAttributeAsForbidden) {
             forbiddenColumnSet.set(attributeIndex, false);
@@ -204,9 +212,9 @@ private TreeNodeClassification buildTreeNode(final ExecutionMonitor exec, final
      */
     private SplitCandidate[] findBestSplitsClassification(final int currentDepth, final DataMemberships dataMemberships,
         final ColumnSample columnSample, final TreeNodeSignature treeNodeSignature,
-        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet) {
+        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet, final RandomData rd)
+        throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         //        final ColumnSampleStrategy colSamplingStrategy = getColSamplingStrategy();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         final int maxLevels = config.getMaxLevels();
@@ -242,12 +250,12 @@ public int compare(final SplitCandidate o1, final SplitCandidate o2) {
 
         };
         ArrayList<SplitCandidate> candidates = new ArrayList<SplitCandidate>(columnSample.getNumCols());
-        for (TreeAttributeColumnData col : columnSample) {
-            if (forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
-                continue;
-            }
-            SplitCandidate currentColSplit =
-                col.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
+        final List<TreeAttributeColumnData> columns = getSplitColumns(columnSample, forbiddenColumnSet);
+        final SplitCandidate[] forkedSplits = forkSplitSearch(columns, dataMemberships, rd,
+            (col, colRd) -> col.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, colRd));
+        for (int i = 0; i < columns.size(); i++) {
+            SplitCandidate currentColSplit = forkedSplits != null ? forkedSplits[i]
+                : columns.get(i).calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
             if (currentColSplit != null) {
                 candidates.add(currentColSplit);
             }
@@ -261,9 +269,9 @@ public int compare(final SplitCandidate o1, final SplitCandidate o2) {
 
     private SplitCandidate findBestSplitClassification(final int currentDepth, final DataMemberships dataMemberships,
         final ColumnSample columnSample, final TreeNodeSignature treeNodeSignature,
-        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet) {
+        final ClassificationPriors targetPriors, final BitSet forbiddenColumnSet, final RandomData rd)
+        throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         //        final ColumnSampleStrategy colSamplingStrategy = getColSamplingStrategy();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         final int maxLevels = config.getMaxLevels();
@@ -288,12 +296,12 @@ private SplitCandidate findBestSplitClassification(final int currentDepth, final
             return rootColumn.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
         }
         double bestGainValue = 0.0;
-        for (TreeAttributeColumnData col : columnSample) {
-            if (forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
-                continue;
-            }
-            final SplitCandidate currentColSplit =
-                col.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
+        final List<TreeAttributeColumnData> columns = getSplitColumns(columnSample, forbiddenColumnSet);
+        final SplitCandidate[] forkedSplits = forkSplitSearch(columns, dataMemberships, rd,
+            (col, colRd) -> col.calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, colRd));
+        for (int i = 0; i < columns.size(); i++) {
+            final SplitCandidate currentColSplit = forkedSplits != null ? forkedSplits[i]
+                : columns.get(i).calcBestSplitClassification(dataMemberships, targetPriors, targetColumn, rd);
             if (currentColSplit != null) {
                 final double currentGain = currentColSplit.getGainValue();
                 final boolean tiebreaker = currentGain == bestGainValue ? (rd.nextInt(0, 1) == 0) : false;
@@ -122,8 +122,8 @@ public TreeModelRegression learnSingleTree(final ExecutionMonitor exec, final Ra
         }
         final TreeNodeSignature rootSignature = TreeNodeSignature.ROOT_SIGNATURE;
         final ColumnSample rootColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(rootSignature);
-        TreeNodeRegression rootNode = buildTreeNode(exec, 0, rootDataMemberships, rootColumnSample, getSignatureFactory().getRootSignature(),
-            targetPriors, forbiddenColumnSet);
+        TreeNodeRegression rootNode = buildTreeNode(exec, 0, rootDataMemberships, rootColumnSample,
+            getSignatureFactory().getRootSignature(), targetPriors, forbiddenColumnSet, getRandomData());
         assert forbiddenColumnSet.cardinality() == 0;
         rootNode.setTreeNodeCondition(TreeNodeTrueCondition.INSTANCE);
         if (isGradientBoosting) {
@@ -134,9 +134,8 @@ public TreeModelRegression learnSingleTree(final ExecutionMonitor exec, final Ra
 
     private SplitCandidate findBestSplitRegression(final int currentDepth, final DataMemberships dataMemberships, final ColumnSample columnSample,
         final RegressionPriors targetPriors,
-        final BitSet forbiddenColumnSet) {
+        final BitSet forbiddenColumnSet, final RandomData rd) throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         final int maxLevels = config.getMaxLevels();
         if (maxLevels != TreeEnsembleLearnerConfiguration.MAX_LEVEL_INFINITE && currentDepth >= maxLevels) {
@@ -159,12 +158,12 @@ private SplitCandidate findBestSplitRegression(final int currentDepth, final Dat
             return rootColumn.calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, rd);
         } else {
             double bestGainValue = 0.0;
-            for (TreeAttributeColumnData col : columnSample) {
-                if (forbiddenColumnSet.get(col.getMetaData().getAttributeIndex())) {
-                    continue;
-                }
-                SplitCandidate currentColSplit =
-                    col.calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, rd);
+            final List<TreeAttributeColumnData> columns = getSplitColumns(columnSample, forbiddenColumnSet);
+            final SplitCandidate[] forkedSplits = forkSplitSearch(columns, dataMemberships, rd,
+                (col, colRd) -> col.calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, colRd));
+            for (int i = 0; i < columns.size(); i++) {
+                SplitCandidate currentColSplit = forkedSplits != null ? forkedSplits[i]
+                    : columns.get(i).calcBestSplitRegression(dataMemberships, targetPriors, targetColumn, rd);
                 if (currentColSplit != null) {
                     double gainValue = currentColSplit.getGainValue();
                     if (gainValue > bestGainValue) {
@@ -232,13 +231,13 @@ public int compare(final SplitCandidate arg0, final SplitCandidate arg1) {
 
     private TreeNodeRegression buildTreeNode(final ExecutionMonitor exec, final int currentDepth,
         final DataMemberships dataMemberships, final ColumnSample columnSample, final TreeNodeSignature treeNodeSignature,
-        final RegressionPriors targetPriors, final BitSet forbiddenColumnSet) throws CanceledExecutionException {
+        final RegressionPriors targetPriors, final BitSet forbiddenColumnSet, final RandomData rd)
+        throws CanceledExecutionException {
         final TreeData data = getData();
-        final RandomData rd = getRandomData();
         final TreeEnsembleLearnerConfiguration config = getConfig();
         exec.checkCanceled();
         final SplitCandidate candidate =
-            findBestSplitRegression(currentDepth, dataMemberships, columnSample, targetPriors, forbiddenColumnSet);
+            findBestSplitRegression(currentDepth, dataMemberships, columnSample, targetPriors, forbiddenColumnSet, rd);
         if (candidate == null) {
             if (config instanceof GradientBoostingLearnerConfiguration) {
                 TreeNodeRegression leaf =
@@ -254,43 +253,51 @@ private TreeNodeRegression buildTreeNode(final ExecutionMonitor exec, final int
         TreeNodeRegression[] childNodes;
         if (useSurrogates) {
             SurrogateSplit surrogateSplit = Surrogates.learnSurrogates(dataMemberships, candidate, data, columnSample, config, rd);
-            childConditions = surrogateSplit.getChildConditions();
+            final TreeNodeCondition[] surrogateConditions = surrogateSplit.getChildConditions();
+            childConditions = surrogateConditions;
             BitSet[] childMarkers = surrogateSplit.getChildMarkers();
             assert childMarkers[0].cardinality() + childMarkers[1].cardinality() == dataMemberships.getRowCount(): "Sum of rows in children does not add up to number of rows in parent.";
             childNodes = new TreeNodeRegression[2];
-            for (int i = 0; i < 2; i++) {
-                DataMemberships childMemberships = dataMemberships.createChildMemberships(childMarkers[i]);
+            final DataMemberships[] childMemberships = dataMemberships.createChildrenMemberships(childMarkers);
+            buildChildNodes(childNodes, dataMemberships, forbiddenColumnSet, rd, (i, childForbiddenColumnSet, childRd) -> {
                 TreeNodeSignature childSignature = getSignatureFactory().getChildSignatureFor(treeNodeSignature, (byte)i);
                 ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships, config);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample, childSignature,
-                    childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(childConditions[i]);
-            }
+                RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships[i], config);
+                TreeNodeRegression childNode = buildTreeNode(exec, currentDepth + 1, childMemberships[i],
+                    childColumnSample, childSignature, childTargetPriors, childForbiddenColumnSet, childRd);
+                childNode.setTreeNodeCondition(surrogateConditions[i]);
+                return childNode;
+            });
         } else {
             SplitCandidate bestSplit = candidate;
             TreeAttributeColumnData splitColumn = bestSplit.getColumnData();
             final int attributeIndex = splitColumn.getMetaData().getAttributeIndex();
             boolean markAttributeAsForbidden = !bestSplit.canColumnBeSplitFurther();
             forbiddenColumnSet.set(attributeIndex, markAttributeAsForbidden);
-            childConditions = bestSplit.getChildConditions();
+            final TreeNodeCondition[] splitConditions = bestSplit.getChildConditions();
+            childConditions = splitConditions;
             if (childConditions.length > Short.MAX_VALUE) {
                 throw new RuntimeException(
                     "Too many children when splitting " + "attribute " + bestSplit.getColumnData()
                         + " (maximum supported: " + Short.MAX_VALUE + "): " + childConditions.length);
             }
             childNodes = new TreeNodeRegression[childConditions.length];
+            // child memberships are computed upfront as updateChildMemberships iterates the parent's memberships
+            final BitSet[] childMarkers = new BitSet[childConditions.length];
             for (int i = 0; i < childConditions.length; i++) {
-                TreeNodeCondition cond = childConditions[i];
-                DataMemberships childMemberships =
-                    dataMemberships.createChildMemberships(splitColumn.updateChildMemberships(cond, dataMemberships));
-                RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships, config);
+                childMarkers[i] = splitColumn.updateChildMemberships(childConditions[i], dataMemberships);
+            }
+            final DataMemberships[] childMemberships = dataMemberships.createChildrenMemberships(childMarkers);
+            buildChildNodes(childNodes, dataMemberships, forbiddenColumnSet, rd, (i, childForbiddenColumnSet, childRd) -> {
+                TreeNodeCondition cond = splitConditions[i];
+                RegressionPriors childTargetPriors = targetColumn.getPriors(childMemberships[i], config);
                 TreeNodeSignature childSignature = treeNodeSignature.createChildSignature((byte)i);
                 ColumnSample childColumnSample = getColSamplingStrategy().getColumnSampleForTreeNode(childSignature);
-                childNodes[i] = buildTreeNode(exec, currentDepth + 1, childMemberships, childColumnSample, childSignature,
-                    childTargetPriors, forbiddenColumnSet);
-                childNodes[i].setTreeNodeCondition(cond);
-            }
+                TreeNodeRegression childNode = buildTreeNode(exec, currentDepth + 1, childMemberships[i],
+                    childColumnSample, childSignature, childTargetPriors, childForbiddenColumnSet, childRd);
+                childNode.setTreeNodeCondition(cond);
+                return childNode;
+            });
             if (markAttributeAsForbidden) {
                 forbiddenColumnSet.set(attributeIndex, false);
             }
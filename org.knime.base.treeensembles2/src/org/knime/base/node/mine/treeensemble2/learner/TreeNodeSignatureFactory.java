@@ -100,23 +100,16 @@ public TreeNodeSignature getRootSignature() {
      */
     public synchronized TreeNodeSignature getChildSignatureFor(final TreeNodeSignature parentSignature, final byte childIndex) {
         List<TreeNodeSignature> knownChildren = m_knownSignatures.get(parentSignature);
-        // case that the child signature does not exist yet
-        if (knownChildren.size() <= childIndex) {
-            TreeNodeSignature childSignature = parentSignature.createChildSignature(childIndex);
-            knownChildren.add(childIndex, childSignature);
-            return childSignature;
-        } else {
-            // there are already signatures registered for parent
-            TreeNodeSignature childSignature = knownChildren.get(childIndex);
-            // Unlikely but possible case that a signature with larger childIndex already exists
-            // but not the signature we currently want to get
-            // (unlikely because we usually build the children in order)
-            if (childSignature == null) {
-                childSignature = parentSignature.createChildSignature(childIndex);
-                knownChildren.add(childIndex, childSignature);
-            }
-            return childSignature;
+        // the children of a node may be requested in any order if they are built in parallel
+        while (knownChildren.size() <= childIndex) {
+            knownChildren.add(null);
         }
+        TreeNodeSignature childSignature = knownChildren.get(childIndex);
+        if (childSignature == null) {
+            childSignature = parentSignature.createChildSignature(childIndex);
+            knownChildren.set(childIndex, childSignature);
+        }
+        return childSignature;
     }
 
 
@@ -145,6 +145,9 @@ public MultiClassGradientBoostedTreesModel learn(final ExecutionMonitor exec)
         }
 
         exec.setMessage("Learn trees");
+        // shared by the trees of all classes to parallelize the split search within each tree (unless the node was
+        // created before that changed the model)
+        final ThreadPool treePool = getConfig().isParallelTreeGrowing() ? tp.createSubPool() : null;
         for (int i = 0; i < nrModels; i++) {
             final Semaphore semaphore = new Semaphore(procCount);
             final ArrayList<Map<TreeNodeSignature, Double>> classCoefficientMaps =
@@ -169,7 +172,7 @@ public MultiClassGradientBoostedTreesModel learn(final ExecutionMonitor exec)
                 final ExecutionMonitor subExec = exec.createSubProgress(0.0);
                 semaphore.acquire();
                 treeCoefficientMapPairs[j] = tp.enqueue(new TreeLearnerCallable(rdSingle, probs[j], actual[j], subExec,
-                    numClasses, previousFunctions[j], semaphore, learnThrowableRef, signatureFactory));
+                    numClasses, previousFunctions[j], semaphore, learnThrowableRef, signatureFactory, treePool));
             }
             for (int j = 0; j < numClasses; j++) {
                 checkThrowable(learnThrowableRef);
@@ -222,9 +225,12 @@ private class TreeLearnerCallable implements Callable<Pair<TreeModelRegression,
 
         private final TreeNodeSignatureFactory m_signatureFactory;
 
+        private final ThreadPool m_treePool;
+
         public TreeLearnerCallable(final RandomData rd, final double[] probs, final TreeData actual,
             final ExecutionMonitor subExec, final int numClasses, final double[] previousFunction,
-            final Semaphore releaseSemaphore, final AtomicReference<Throwable> learnThrowableRef, final TreeNodeSignatureFactory signatureFactory) {
+            final Semaphore releaseSemaphore, final AtomicReference<Throwable> learnThrowableRef, final TreeNodeSignatureFactory signatureFactory,
+            final ThreadPool treePool) {
             m_rd = rd;
             m_probs = probs;
             m_actual = actual;
@@ -234,6 +240,7 @@ public TreeLearnerCallable(final RandomData rd, final double[] probs, final Tree
             m_releaseSemaphore = releaseSemaphore;
             m_learnThrowableRef = learnThrowableRef;
             m_signatureFactory = signatureFactory;
+            m_treePool = treePool;
         }
 
         /**
@@ -252,6 +259,7 @@ public Pair<TreeModelRegression, Map<TreeNodeSignature, Double>> call() throws E
                 final RowSample rowSample = getRowSampler().createRowSample(m_rd);
                 final TreeLearnerRegression treeLearner =
                     new TreeLearnerRegression(getConfig(), pseudoResiduals, getIndexManager(), m_signatureFactory, m_rd, rowSample);
+                treeLearner.setThreadPool(m_treePool);
                 final TreeModelRegression tree = treeLearner.learnSingleTree(m_subExec, m_rd);
                 final Map<TreeNodeSignature, Double> coefficientMap =
                     calculateCoefficientMap(tree, pseudoResiduals, m_numClasses);
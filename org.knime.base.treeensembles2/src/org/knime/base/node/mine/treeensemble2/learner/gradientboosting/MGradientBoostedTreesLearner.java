@@ -70,6 +70,8 @@
 import org.knime.base.node.mine.treeensemble2.sample.row.RowSample;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
 
 import com.google.common.math.IntMath;
 import com.google.common.primitives.Doubles;
@@ -118,6 +120,10 @@ public AbstractGradientBoostingModel learn(final ExecutionMonitor exec) throws C
         }
         exec.setMessage("Learning model");
         TreeData residualData;
+        // the trees are learned one after the other, so parallelize the split search within each tree (unless the
+        // node was created before that changed the model)
+        final ThreadPool treePool =
+            getConfig().isParallelTreeGrowing() ? KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool() : null;
         for (int i = 0; i < nrModels; i++) {
             final double[] residuals = new double[actualTarget.getNrRows()];
             for (int j = 0; j < actualTarget.getNrRows(); j++) {
@@ -134,6 +140,7 @@ public AbstractGradientBoostingModel learn(final ExecutionMonitor exec) throws C
             final RowSample rowSample = getRowSampler().createRowSample(rdSingle);
             final TreeLearnerRegression treeLearner =
                 new TreeLearnerRegression(getConfig(), residualData, getIndexManager(), signatureFactory, rdSingle, rowSample);
+            treeLearner.setThreadPool(treePool);
             final TreeModelRegression tree = treeLearner.learnSingleTree(exec, rdSingle);
             final Map<TreeNodeSignature, Double> coefficientMap = calcCoefficientMap(residuals, quantile, tree);
             adaptPreviousPrediction(previousPrediction, tree, coefficientMap);
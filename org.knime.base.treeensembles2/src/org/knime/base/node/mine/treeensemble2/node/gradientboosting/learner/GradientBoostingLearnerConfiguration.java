@@ -66,6 +66,9 @@ public class GradientBoostingLearnerConfiguration extends TreeEnsembleLearnerCon
 
     private static final String KEY_ALPHA_FRACTION = "alphaFraction";
 
+    /** Added in 3.7, missing in older workflows whose trees are grown sequentially. */
+    private static final String KEY_PARALLEL_TREE_GROWING = "parallelTreeGrowing";
+
     /**
      * Default learning rate (0.1)
      */
@@ -80,6 +83,8 @@ public class GradientBoostingLearnerConfiguration extends TreeEnsembleLearnerCon
 
     private double m_alphaFraction = DEF_ALPHA_FRACTION;
 
+    private boolean m_parallelTreeGrowing = true;
+
     /**
      * @param isRegression
      */
@@ -127,6 +132,26 @@ public void setAlpha(final double alphaFraction) {
         m_alphaFraction = alphaFraction;
     }
 
+    /**
+     * @return whether the nodes of each tree are grown in parallel. Parallel growing draws the random numbers per
+     *         node, so the model differs from the one learned sequentially with the same seed.
+     * @since 3.7
+     */
+    public boolean isParallelTreeGrowing() {
+        return m_parallelTreeGrowing;
+    }
+
+    /**
+     * Sets whether the nodes of each tree are grown in parallel. Enabled by default, but disabled for nodes created
+     * before 3.7 so that they keep learning the same model.
+     *
+     * @param parallelTreeGrowing whether to grow the trees in parallel
+     * @since 3.7
+     */
+    public void setParallelTreeGrowing(final boolean parallelTreeGrowing) {
+        m_parallelTreeGrowing = parallelTreeGrowing;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -135,6 +160,7 @@ public void save(final NodeSettingsWO settings) {
         super.save(settings);
         settings.addDouble(KEY_LEARNINGRATE, m_learningRate);
         settings.addDouble(KEY_ALPHA_FRACTION, m_alphaFraction);
+        settings.addBoolean(KEY_PARALLEL_TREE_GROWING, m_parallelTreeGrowing);
     }
 
     /**
@@ -166,6 +192,10 @@ public void loadInDialog(final NodeSettingsRO settings, final DataTableSpec inSp
         m_learningRate = settings.getDouble(KEY_LEARNINGRATE, DEF_LEARNINGRATE);
 
         m_alphaFraction = settings.getDouble(KEY_ALPHA_FRACTION, DEF_ALPHA_FRACTION);
+
+        // settings of new nodes are empty, settings of nodes created before 3.7 lack the key
+        m_parallelTreeGrowing =
+            settings.getBoolean(KEY_PARALLEL_TREE_GROWING, !settings.containsKey(KEY_LEARNINGRATE));
     }
 
     /**
@@ -176,6 +206,8 @@ public void loadInModel(final NodeSettingsRO settings) throws InvalidSettingsExc
         super.loadInModel(settings);
         m_learningRate = settings.getDouble(KEY_LEARNINGRATE);
         m_alphaFraction = settings.getDouble(KEY_ALPHA_FRACTION);
+        // added in 3.7
+        m_parallelTreeGrowing = settings.getBoolean(KEY_PARALLEL_TREE_GROWING, false);
     }
 
 }
@@ -70,6 +70,9 @@ public class GradientBoostingClassificationLearnerNodeDialogPane extends NodeDia
     private final OptionsPanel m_optionsPanel;
     private final AdvancedOptionsPanel m_advancedOptionsPanel;
 
+    /** Not shown in the dialog, kept so that nodes created before 3.7 keep growing their trees sequentially. */
+    private boolean m_parallelTreeGrowing = true;
+
     /**
      *  */
     public GradientBoostingClassificationLearnerNodeDialogPane() {
@@ -86,6 +89,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSetti
         GradientBoostingLearnerConfiguration cfg = new GradientBoostingLearnerConfiguration(false);
         m_optionsPanel.saveSettings(cfg);
         m_advancedOptionsPanel.saveSettings(cfg);
+        cfg.setParallelTreeGrowing(m_parallelTreeGrowing);
         cfg.save(settings);
     }
 
@@ -98,6 +102,7 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSp
         cfg.loadInDialog(settings, inSpec);
         m_optionsPanel.loadSettingsFrom(inSpec, cfg);
         m_advancedOptionsPanel.loadSettings(cfg);
+        m_parallelTreeGrowing = cfg.isParallelTreeGrowing();
     }
 
 }
@@ -117,6 +117,10 @@ public class AdvancedOptionsPanel extends JPanel {
 
     private final JCheckBox m_useBinaryNominalSplitsChecker;
 
+    private final JCheckBox m_useHistogramSplitsChecker;
+
+    private final JSpinner m_nrHistogramBinsSpinner;
+
     private final JSpinner m_alphaFractionSpinner;
 
     private final JComboBox<MissingValueHandling> m_missingValueHandlingComboBox;
@@ -220,6 +224,17 @@ public void actionPerformed(final ActionEvent e) {
         m_useAverageSplitPointsChecker = new JCheckBox("Use mid point splits (only for numeric attributes)");
         m_useBinaryNominalSplitsChecker = new JCheckBox("Use binary splits for nominal columns");
         m_missingValueHandlingComboBox = new JComboBox<MissingValueHandling>(MissingValueHandling.values());
+        m_nrHistogramBinsSpinner = new JSpinner(new SpinnerNumberModel(
+            TreeEnsembleLearnerConfiguration.MAX_NUMERIC_HISTOGRAM_BINS, 2,
+            TreeEnsembleLearnerConfiguration.MAX_NUMERIC_HISTOGRAM_BINS, 1));
+        m_useHistogramSplitsChecker = new JCheckBox("Use histogram splits (only for numeric attributes), bins ");
+        m_useHistogramSplitsChecker.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(final ItemEvent e) {
+                m_nrHistogramBinsSpinner.setEnabled(m_useHistogramSplitsChecker.isSelected());
+            }
+        });
+        m_nrHistogramBinsSpinner.setEnabled(false);
 
         initPanel();
     }
@@ -259,6 +274,14 @@ private void initPanel() {
         add(m_useBinaryNominalSplitsChecker, gbc);
         gbc.gridwidth = 1;
 
+        gbc.gridx = 0;
+        gbc.gridy += 1;
+        gbc.weightx = 0.0;
+        add(m_useHistogramSplitsChecker, gbc);
+        gbc.gridx = 1;
+        add(m_nrHistogramBinsSpinner, gbc);
+        gbc.gridx = 0;
+
         gbc.gridy += 1;
         gbc.gridwidth = 2;
         add(new JLabel("Missing value handling"), gbc);
@@ -395,6 +418,12 @@ public void loadSettings(final GradientBoostingLearnerConfiguration cfg) {
         m_alphaFractionSpinner.setValue(cfg.getAlpha());
         m_useAverageSplitPointsChecker.setSelected(cfg.isUseAverageSplitPoints());
         m_useBinaryNominalSplitsChecker.setSelected(cfg.isUseBinaryNominalSplits());
+        final int nrHistogramBins = cfg.getNrNumericHistogramBins();
+        final boolean useHistogramSplits =
+            nrHistogramBins != TreeEnsembleLearnerConfiguration.NUMERIC_HISTOGRAM_BINS_UNDEFINED;
+        m_useHistogramSplitsChecker.setSelected(useHistogramSplits);
+        m_nrHistogramBinsSpinner.setValue(
+            useHistogramSplits ? nrHistogramBins : TreeEnsembleLearnerConfiguration.MAX_NUMERIC_HISTOGRAM_BINS);
         m_missingValueHandlingComboBox.setSelectedItem(cfg.getMissingValueHandling());
 
         double dataFrac = cfg.getDataFractionPerTree();
@@ -451,6 +480,8 @@ public void saveSettings(final GradientBoostingLearnerConfiguration cfg) throws
         cfg.setAlpha((Double)m_alphaFractionSpinner.getValue());
         cfg.setUseAverageSplitPoints(m_useAverageSplitPointsChecker.isSelected());
         cfg.setUseBinaryNominalSplits(m_useBinaryNominalSplitsChecker.isSelected());
+        cfg.setNrNumericHistogramBins(m_useHistogramSplitsChecker.isSelected()
+            ? (Integer)m_nrHistogramBinsSpinner.getValue() : TreeEnsembleLearnerConfiguration.NUMERIC_HISTOGRAM_BINS_UNDEFINED);
         final MissingValueHandling missValHandling = (MissingValueHandling)m_missingValueHandlingComboBox.getSelectedItem();
         if (missValHandling == MissingValueHandling.Surrogate && !m_useBinaryNominalSplitsChecker.isSelected()) {
             throw new InvalidSettingsException("Surrogate missing value handling can only be used if binary nominal splits are enabled.");
@@ -69,6 +69,9 @@ public class GradientBoostingRegressionLearnerNodeDialogPane extends NodeDialogP
     private final OptionsPanel m_optionsPanel;
     private final AdvancedOptionsPanel m_advancedOptionsPanel;
 
+    /** Not shown in the dialog, kept so that nodes created before 3.7 keep growing their trees sequentially. */
+    private boolean m_parallelTreeGrowing = true;
+
     /**
      *  */
     public GradientBoostingRegressionLearnerNodeDialogPane() {
@@ -85,6 +88,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) throws InvalidSetti
         GradientBoostingLearnerConfiguration cfg = new GradientBoostingLearnerConfiguration(true);
         m_optionsPanel.saveSettings(cfg);
         m_advancedOptionsPanel.saveSettings(cfg);
+        cfg.setParallelTreeGrowing(m_parallelTreeGrowing);
         cfg.save(settings);
     }
 
@@ -97,6 +101,7 @@ protected void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSp
         cfg.loadInDialog(settings, inSpec);
         m_optionsPanel.loadSettingsFrom(inSpec, cfg);
         m_advancedOptionsPanel.loadSettings(cfg);
+        m_parallelTreeGrowing = cfg.isParallelTreeGrowing();
     }
 
 }
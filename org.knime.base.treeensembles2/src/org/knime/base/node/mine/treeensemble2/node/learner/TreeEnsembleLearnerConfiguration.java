@@ -115,6 +115,8 @@ public class TreeEnsembleLearnerConfiguration {
 
     private static final String KEY_USE_BINARY_NOMINAL_SPLITS = "useBinaryNominalSplits";
 
+    private static final String KEY_NR_NUMERIC_HISTOGRAM_BINS = "nrNumericHistogramBins";
+
     private static final String KEY_SPLIT_CRITERION = "splitCriterion";
 
     private static final String KEY_MISSING_VALUE_HANDLING = "missingValueHandling";
@@ -287,6 +289,21 @@ public enum ColumnSamplingMode {
 
     private static final MissingValueHandling DEF_MISSING_VALUE_HANDLING = MissingValueHandling.XGBoost;
 
+    /**
+     * Value for {@link #getNrNumericHistogramBins()} indicating that splits on numeric attributes are searched on the
+     * exact (sorted) values rather than on histograms.
+     *
+     * @since 3.7
+     */
+    public static final int NUMERIC_HISTOGRAM_BINS_UNDEFINED = -1;
+
+    /**
+     * Maximum number of histogram bins per numeric attribute (bin indices are stored as bytes).
+     *
+     * @since 3.7
+     */
+    public static final int MAX_NUMERIC_HISTOGRAM_BINS = 256;
+
     private String m_targetColumn;
 
     private Long m_seed = System.currentTimeMillis();
@@ -316,6 +333,8 @@ public enum ColumnSamplingMode {
 
     private boolean m_useBinaryNominalSplits = DEF_BINARY_NOMINAL_SPLITS;
 
+    private int m_nrNumericHistogramBins = NUMERIC_HISTOGRAM_BINS_UNDEFINED;
+
     private SplitCriterion m_splitCriterion;
 
     private MissingValueHandling m_missingValueHandling = DEF_MISSING_VALUE_HANDLING;
@@ -675,6 +694,30 @@ public void setUseAverageSplitPoints(final boolean useAverageSplitPoints) {
         m_useAverageSplitPoints = useAverageSplitPoints;
     }
 
+    /**
+     * @return the maximum number of (quantile) bins numeric attributes are discretized into for histogram based split
+     *         search or {@link #NUMERIC_HISTOGRAM_BINS_UNDEFINED} if splits are searched on the exact values
+     * @since 3.7
+     */
+    public int getNrNumericHistogramBins() {
+        return m_nrNumericHistogramBins;
+    }
+
+    /**
+     * @param nrNumericHistogramBins the maximum number of bins in [2, {@link #MAX_NUMERIC_HISTOGRAM_BINS}] or
+     *            {@link #NUMERIC_HISTOGRAM_BINS_UNDEFINED} to search splits on the exact values
+     * @throws InvalidSettingsException if the value is out of bounds
+     * @since 3.7
+     */
+    public void setNrNumericHistogramBins(final int nrNumericHistogramBins) throws InvalidSettingsException {
+        if (nrNumericHistogramBins != NUMERIC_HISTOGRAM_BINS_UNDEFINED
+            && (nrNumericHistogramBins < 2 || nrNumericHistogramBins > MAX_NUMERIC_HISTOGRAM_BINS)) {
+            throw new InvalidSettingsException("Number of histogram bins must be in [2, "
+                + MAX_NUMERIC_HISTOGRAM_BINS + "]: " + nrNumericHistogramBins);
+        }
+        m_nrNumericHistogramBins = nrNumericHistogramBins;
+    }
+
     /**
      * @return true if binary splits for nominal columns is selected
      */
@@ -815,6 +858,7 @@ public void save(final NodeSettingsWO settings) {
         settings.addString(KEY_MISSING_VALUE_HANDLING, m_missingValueHandling.name());
         settings.addBoolean(KEY_USE_AVERAGE_SPLIT_POINTS, m_useAverageSplitPoints);
         settings.addBoolean(KEY_USE_BINARY_NOMINAL_SPLITS, m_useBinaryNominalSplits);
+        settings.addInt(KEY_NR_NUMERIC_HISTOGRAM_BINS, m_nrNumericHistogramBins);
         settings.addString(KEY_FINGERPRINT_COLUMN, m_fingerprintColumn);
         //        m_columnFilterConfig = new DataColumnSpecFilterConfiguration(KEY_COLUMN_FILTER_CONFIG);
         m_columnFilterConfig.saveConfiguration(settings);
@@ -890,6 +934,9 @@ public void loadInModel(final NodeSettingsRO settings) throws InvalidSettingsExc
         }
         setUseAverageSplitPoints(settings.getBoolean(KEY_USE_AVERAGE_SPLIT_POINTS));
         setUseBinaryNominalSplits(settings.getBoolean(KEY_USE_BINARY_NOMINAL_SPLITS, false));
+        // added in 3.7
+        setNrNumericHistogramBins(
+            settings.getInt(KEY_NR_NUMERIC_HISTOGRAM_BINS, NUMERIC_HISTOGRAM_BINS_UNDEFINED));
         setFingerprintColumn(settings.getString(KEY_FINGERPRINT_COLUMN));
         m_columnFilterConfig.loadConfigurationInModel(settings);
         //        setIncludeAllColumns(settings.getBoolean(KEY_INCLUDE_ALL_COLUMNS));
@@ -1074,6 +1121,12 @@ public void loadInDialog(final NodeSettingsRO settings, final DataTableSpec inSp
         m_splitCriterion = splitCriterion;
         m_useAverageSplitPoints = settings.getBoolean(KEY_USE_AVERAGE_SPLIT_POINTS, DEF_AVERAGE_SPLIT_POINTS);
         m_useBinaryNominalSplits = settings.getBoolean(KEY_USE_BINARY_NOMINAL_SPLITS, DEF_BINARY_NOMINAL_SPLITS);
+        try {
+            setNrNumericHistogramBins(
+                settings.getInt(KEY_NR_NUMERIC_HISTOGRAM_BINS, NUMERIC_HISTOGRAM_BINS_UNDEFINED));
+        } catch (InvalidSettingsException e) {
+            m_nrNumericHistogramBins = NUMERIC_HISTOGRAM_BINS_UNDEFINED;
+        }
 
         String missingValueHandlingS =
             settings.getString(KEY_MISSING_VALUE_HANDLING, DEF_MISSING_VALUE_HANDLING.name());
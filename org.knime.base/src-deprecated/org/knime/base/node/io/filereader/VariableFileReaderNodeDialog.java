@@ -1558,7 +1558,7 @@ public void run() {
                                     .createSettingsFrom(getAvailableFlowVariables());
                     FileReaderNodeSettings newSettings =
                             FileAnalyzer.analyze(sWithLoc,
-                                    m_analysisExecMonitor);
+                                    m_analysisExecMonitor, true);
 
                     if (m_analysisExecMonitor.wasInterrupted()) {
                         // if the code stopped us, do nothing more
@@ -1576,6 +1576,12 @@ public void run() {
                                     + "are based on a partial file analysis "
                                     + "only! Please verify.");
                         }
+                    } else if (newSettings != null
+                            && !newSettings.analyzeUsedAllRows()) {
+                        // large files are analyzed from samples only
+                        setAnalWarningText("WARNING: suggested settings "
+                                + "are based on a sample of the file "
+                                + "only! Please verify the column types.");
                     } else {
                         setAnalWarningText("");
                     }
@@ -52,6 +52,7 @@
 import java.net.URL;
 
 import org.knime.base.node.io.filereader.FileAnalyzer;
+import org.knime.base.node.io.filereader.FileReaderException;
 import org.knime.base.node.io.filereader.FileReaderExecutionMonitor;
 import org.knime.base.node.io.filereader.FileReaderNodeSettings;
 import org.knime.base.node.io.filereader.FileTable;
@@ -126,12 +127,28 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         final ExecutionContext exec) throws Exception {
 
         FileTable fTable = createFileTable(exec);
-        try {
-            BufferedDataTable table = exec.createBufferedDataTable(fTable, exec.createSubExecutionContext(0.0));
-            return new BufferedDataTable[] {table};
-        } finally {
-            // fix AP-6127
-            fTable.dispose();
+        while (true) {
+            FileTable nextTable;
+            try {
+                BufferedDataTable table = exec.createBufferedDataTable(fTable, exec.createSubExecutionContext(0.0));
+                return new BufferedDataTable[] {table};
+            } catch (FileReaderException fre) {
+                // the column types may have been guessed from a part of the file only - widen instead of failing
+                if (!(fTable.getFileReaderSettings() instanceof FileReaderNodeSettings)) {
+                    throw fre;
+                }
+                FileReaderNodeSettings settings = (FileReaderNodeSettings)fTable.getFileReaderSettings();
+                if (!FileAnalyzer.widenColumnTypes(settings, fre, exec.createSubProgress(0.0))) {
+                    throw fre;
+                }
+                exec.setMessage("Reading file again (" + fre.getMessage() + ")");
+                nextTable = new FileTable(settings.createDataTableSpec(), settings,
+                    exec.createSubExecutionContext(0.0));
+            } finally {
+                // fix AP-6127
+                fTable.dispose();
+            }
+            fTable = nextTable;
         }
     }
 
@@ -212,9 +229,9 @@ public void progressChanged(final NodeProgressEvent pe) {
             });
             fileReaderExec.setShortCutLines(limitAnalysisCount);
             fileReaderExec.setExecuteCanceled();
-            settings = FileAnalyzer.analyze(settings, fileReaderExec);
+            settings = FileAnalyzer.analyze(settings, fileReaderExec, true);
         } else {
-            settings = FileAnalyzer.analyze(settings, analyseExec);
+            settings = FileAnalyzer.analyze(settings, analyseExec, true);
         }
         SettingsStatus status = settings.getStatusOfSettings();
         if (status.getNumOfErrors() > 0) {
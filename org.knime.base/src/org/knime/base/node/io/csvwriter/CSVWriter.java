@@ -51,17 +51,27 @@
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.knime.base.node.io.csvwriter.FileWriterSettings.quoteMode;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.streamable.DataTableRowInput;
 import org.knime.core.node.streamable.RowInput;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Class to write a {@link org.knime.core.data.DataTable} to an output stream.
@@ -70,12 +80,27 @@
  */
 public class CSVWriter extends BufferedWriter {
 
+    /** The number of rows formatted at once when writing in parallel. */
+    static final int BATCH_SIZE = 1024;
+
+    private static final int NOT_APPENDED = 0;
+
+    private static final int APPENDED = 1;
+
+    /* appended without replacing the decimal separator, because the value contains it already */
+    private static final int APPENDED_SEPARATOR_CONTAINED = 2;
+
     private final FileWriterSettings m_settings;
 
     private String m_lastWarning;
 
     private String m_newLine;
 
+    private int m_formatThreads = 1;
+
+    /* set per write call: numbers may be appended directly (see appendNumber) */
+    private boolean m_appendNumbers;
+
     /**
      * Creates a new writer with default settings.
      *
@@ -138,6 +163,27 @@ protected FileWriterSettings getSettings() {
         return m_settings;
     }
 
+    /**
+     * Sets the number of threads that format rows concurrently. With more than one thread, the rows are formatted in
+     * batches by threads of the global thread pool, while the calling thread reads the rows and writes the formatted
+     * batches in their original order. The output is the same as written by a single thread.
+     *
+     * @param threads the number of threads, 1 (the default) formats the rows in the calling thread
+     * @since 3.7
+     */
+    public void setNumberOfFormatThreads(final int threads) {
+        m_formatThreads = Math.max(1, threads);
+    }
+
+    /**
+     * @return the number of threads formatting rows concurrently
+     * @see #setNumberOfFormatThreads(int)
+     * @since 3.7
+     */
+    public int getNumberOfFormatThreads() {
+        return m_formatThreads;
+    }
+
     /**
      * Writes <code>table</code> with current settings.
      *
@@ -198,13 +244,29 @@ public void write(final RowInput input, final ExecutionMonitor exec)
             newLine();
         } // end of if write column names
 
+        final boolean[] isNumerical = new boolean[colCount];
+        for (int c = 0; c < colCount; c++) {
+            DataType type = inSpec.getColumnSpec(c).getType();
+            isNumerical[c] = type.isCompatible(DoubleValue.class);
+        }
+        // numbers are appended directly, if they are written as they are
+        final quoteMode mode = m_settings.getQuoteMode();
+        m_appendNumbers = getClass() == CSVWriter.class && mode != quoteMode.ALWAYS
+                && (mode != quoteMode.IF_NEEDED || m_settings.getColSeparator().length() > 0);
+
         // write each row of the data
-        int i = 0;
         long rowCnt = -1;
         if (input instanceof DataTableRowInput) {
             rowCnt = ((DataTableRowInput)input).getRowCount();
         }
+        if (m_formatThreads > 1 && (rowCnt < 0 || rowCnt > BATCH_SIZE)) {
+            writeRowsParallel(input, isNumerical, rowCnt, exec);
+            return;
+        }
 
+        int i = 0;
+        StringBuilder line = new StringBuilder();
+        char[] lineChars = new char[0];
         DataRow row;
         while ((row = input.poll()) != null) {
 
@@ -223,60 +285,212 @@ public void write(final RowInput input, final ExecutionMonitor exec)
             // Check if execution was canceled !
             exec.checkCanceled();
 
-            // write the columns
-            first = true;
-            // first, the row id
-            if (m_settings.writeRowID()) {
-                write(quoteString(row.getKey().getString(), false));
-                first = false;
+            line.setLength(0);
+            String warning = appendRow(row, isNumerical, i, line);
+            if (m_lastWarning == null) {
+                m_lastWarning = warning;
+            }
+            if (lineChars.length < line.length()) {
+                lineChars = new char[line.length()];
             }
-            // now all data cells
-            for (int c = 0; c < colCount; c++) {
+            line.getChars(0, line.length(), lineChars, 0);
+            write(lineChars, 0, line.length());
+            i++;
+        }
 
-                DataCell colValue = row.getCell(c);
-                if (!first) {
-                    write(m_settings.getColSeparator());
+    }
+
+    /*
+     * The rows are polled (and written) by the calling thread in batches, which are formatted concurrently. At most
+     * twice as many batches as threads are in progress at any time.
+     */
+    private void writeRowsParallel(final RowInput input, final boolean[] isNumerical, final long rowCnt,
+        final ExecutionMonitor exec) throws IOException, CanceledExecutionException, InterruptedException {
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_formatThreads);
+        final int maxPending = 2 * m_formatThreads;
+        final LinkedList<Future<FormattedBatch>> pending = new LinkedList<>();
+        long rowsPolled = 0;
+        long rowsWritten = 0;
+        try {
+            DataRow row = input.poll();
+            while (row != null || !pending.isEmpty()) {
+                while (row != null && pending.size() < maxPending) {
+                    final DataRow[] batch = new DataRow[BATCH_SIZE];
+                    int size = 0;
+                    while (row != null && size < BATCH_SIZE) {
+                        batch[size++] = row;
+                        row = input.poll();
+                    }
+                    final int batchSize = size;
+                    final long firstRow = rowsPolled;
+                    pending.add(pool.enqueue(() -> formatBatch(batch, batchSize, isNumerical, firstRow)));
+                    rowsPolled += batchSize;
                 }
-                first = false;
+                final FormattedBatch formatted = waitFor(pending.removeFirst());
+                write(formatted.m_chars, 0, formatted.m_chars.length);
+                if (m_lastWarning == null) {
+                    m_lastWarning = formatted.m_warning;
+                }
+                rowsWritten += formatted.m_rowCount;
 
-                if (colValue.isMissing()) {
-                    // never quote missing patterns.
-                    write(m_settings.getMissValuePattern());
+                String msg = "Writing row " + rowsWritten + " (\"" + formatted.m_lastRowKey + "\")";
+                if (rowCnt <= 0) {
+                    exec.setMessage(msg);
                 } else {
-                    boolean isNumerical = false;
-                    DataType type = inSpec.getColumnSpec(c).getType();
-                    String strVal = colValue.toString();
+                    exec.setProgress(rowsWritten / (double)rowCnt, msg + " of " + rowCnt);
+                }
+                exec.checkCanceled();
+            }
+        } finally {
+            pending.stream().forEach(f -> f.cancel(true));
+        }
+    }
 
-                    if (type.isCompatible(DoubleValue.class)) {
-                        isNumerical = true;
-                    }
-                    if (isNumerical
-                            && (m_settings.getDecimalSeparator() != '.')) {
-                        // use the new separator only if it is not already
-                        // contained in the value.
-                        if (strVal.indexOf(m_settings.getDecimalSeparator())
-                                < 0) {
-                            strVal =
-                                    replaceDecimalSeparator(strVal, m_settings
-                                            .getDecimalSeparator());
-                        } else {
-                            if (m_lastWarning == null) {
-                                m_lastWarning = "Specified decimal separator ('"
-                                    + m_settings.getDecimalSeparator() + "') is"
-                                    + " contained in the numerical value. "
-                                    + "Not replacing decimal separator (e.g. "
-                                    + "in row #" + i + " column #" + c + ").";
-                            }
-                        }
+    private FormattedBatch formatBatch(final DataRow[] batch, final int size, final boolean[] isNumerical,
+        final long firstRow) {
+        final StringBuilder out = new StringBuilder(size * 16 * (isNumerical.length + 1));
+        String warning = null;
+        for (int r = 0; r < size; r++) {
+            String w = appendRow(batch[r], isNumerical, firstRow + r, out);
+            if (warning == null) {
+                warning = w;
+            }
+        }
+        final char[] chars = new char[out.length()];
+        out.getChars(0, chars.length, chars, 0);
+        return new FormattedBatch(chars, size, batch[size - 1].getKey().toString(), warning);
+    }
+
+    private static FormattedBatch waitFor(final Future<FormattedBatch> future)
+            throws IOException, CanceledExecutionException {
+        try {
+            return ParallelTasks.waitFor(future);
+        } catch (ExecutionException e) {
+            throw new IOException("Formatting rows failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Appends the row (followed by a line feed) as it is written to the file.
+     *
+     * @param row the row to append
+     * @param isNumerical for each column, if it is compatible to double values
+     * @param rowIndex the index of the row in the table, used in warnings only
+     * @param out to append to
+     * @return a warning if the decimal separator couldn't be replaced in a value, null otherwise
+     */
+    private String appendRow(final DataRow row, final boolean[] isNumerical, final long rowIndex,
+        final StringBuilder out) {
+        String warning = null;
+        boolean first = true;
+        // first, the row id
+        if (m_settings.writeRowID()) {
+            out.append(quoteString(row.getKey().getString(), false));
+            first = false;
+        }
+        // now all data cells
+        for (int c = 0; c < isNumerical.length; c++) {
+
+            DataCell colValue = row.getCell(c);
+            if (!first) {
+                out.append(m_settings.getColSeparator());
+            }
+            first = false;
+
+            if (colValue.isMissing()) {
+                // never quote missing patterns.
+                out.append(m_settings.getMissValuePattern());
+                continue;
+            }
+            final int appended = appendNumber(colValue, isNumerical[c], out);
+            if (appended == NOT_APPENDED) {
+                String strVal = colValue.toString();
+
+                if (isNumerical[c]
+                        && (m_settings.getDecimalSeparator() != '.')) {
+                    // use the new separator only if it is not already
+                    // contained in the value.
+                    if (strVal.indexOf(m_settings.getDecimalSeparator())
+                            < 0) {
+                        strVal =
+                                replaceDecimalSeparator(strVal, m_settings
+                                        .getDecimalSeparator());
+                    } else if (warning == null) {
+                        warning = createDecimalSeparatorWarning(rowIndex, c);
                     }
-                    write(quoteString(strVal, isNumerical));
+                }
+                out.append(quoteString(strVal, isNumerical[c]));
+            } else if (appended == APPENDED_SEPARATOR_CONTAINED && warning == null) {
+                warning = createDecimalSeparatorWarning(rowIndex, c);
+            }
+        }
+        out.append(m_newLine);
+        return warning;
+    }
 
+    private String createDecimalSeparatorWarning(final long rowIndex, final int c) {
+        return "Specified decimal separator ('"
+            + m_settings.getDecimalSeparator() + "') is"
+            + " contained in the numerical value. "
+            + "Not replacing decimal separator (e.g. "
+            + "in row #" + rowIndex + " column #" + c + ").";
+    }
+
+    /*
+     * Appends int, long, and double values without creating a string first (the builder formats them exactly like
+     * the cells' toString methods). Returns NOT_APPENDED, if the value must be written the regular way - if it needs
+     * quotes or separator replacement, or if it is not one of these numbers.
+     */
+    private int appendNumber(final DataCell cell, final boolean isNumerical, final StringBuilder out) {
+        if (!m_appendNumbers || !isNumerical) {
+            return NOT_APPENDED;
+        }
+        final int start = out.length();
+        final Class<?> cellClass = cell.getClass();
+        if (cellClass == DoubleCell.class) {
+            out.append(((DoubleCell)cell).getDoubleValue());
+        } else if (cellClass == IntCell.class) {
+            out.append(((IntCell)cell).getIntValue());
+        } else if (cellClass == LongCell.class) {
+            out.append(((LongCell)cell).getLongValue());
+        } else {
+            return NOT_APPENDED;
+        }
+
+        int result = APPENDED;
+        final char decSep = m_settings.getDecimalSeparator();
+        if (decSep != '.') {
+            // same as replaceDecimalSeparator: only replace a single dot
+            int dotIdx = -1;
+            int dots = 0;
+            for (int i = start; i < out.length() && result == APPENDED; i++) {
+                char ch = out.charAt(i);
+                if (ch == decSep) {
+                    result = APPENDED_SEPARATOR_CONTAINED;
+                } else if (ch == '.') {
+                    dotIdx = i;
+                    dots++;
                 }
             }
-            newLine();
-            i++;
+            if (result == APPENDED && dots == 1) {
+                out.setCharAt(dotIdx, decSep);
+            }
         }
 
+        // quoteString returns numbers unchanged, unless they contain the separator or equal the missing pattern
+        final String sep = m_settings.getColSeparator();
+        boolean unchanged = sep.isEmpty() || m_settings.getQuoteMode() == quoteMode.STRINGS
+                || out.indexOf(sep, start) < 0;
+        if (unchanged && m_settings.getQuoteMode() == quoteMode.IF_NEEDED) {
+            String missing = m_settings.getMissValuePattern();
+            unchanged = out.length() - start != missing.length() || out.indexOf(missing, start) != start;
+        }
+        if (!unchanged) {
+            // let the regular formatting do it
+            out.setLength(start);
+            return NOT_APPENDED;
+        }
+        return result;
     }
 
     /**
@@ -479,4 +693,22 @@ public String getLastWarningMessage() {
     public void newLine() throws IOException {
         write(m_newLine);
     }
+
+    /** The characters of formatted rows, plus what is needed for progress and warnings. */
+    private static final class FormattedBatch {
+        private final char[] m_chars;
+
+        private final int m_rowCount;
+
+        private final String m_lastRowKey;
+
+        private final String m_warning;
+
+        FormattedBatch(final char[] chars, final int rowCount, final String lastRowKey, final String warning) {
+            m_chars = chars;
+            m_rowCount = rowCount;
+            m_lastRowKey = lastRowKey;
+            m_warning = warning;
+        }
+    }
 }
@@ -76,6 +76,7 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
@@ -102,6 +103,14 @@ public class CSVWriterNodeModel extends NodeModel {
     private static final NodeLogger LOGGER =
             NodeLogger.getLogger(CSVWriterNodeModel.class);
 
+    /* large buffers keep the number of (possibly compressing) write calls low */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    private static final int FORMAT_THREADS = Integer.getInteger(KNIMEConstants.PROPERTY_CSVWRITER_THREADS,
+        Runtime.getRuntime().availableProcessors());
+
     private FileWriterNodeSettings m_settings;
 
     /**
@@ -285,15 +294,16 @@ private BufferedDataTable[] doIt(final BufferedDataTable data, final RowInput in
         writerSettings.setWriteColumnHeader(writeColHeader);
 
         if (m_settings.isGzipOutput()) {
-            tempOut = new GZIPOutputStream(tempOut);
+            tempOut = new GZIPOutputStream(tempOut, GZIP_BUFFER_SIZE);
         }
-        tempOut = new BufferedOutputStream(tempOut);
+        tempOut = new BufferedOutputStream(tempOut, OUTPUT_BUFFER_SIZE);
         Charset charSet = Charset.defaultCharset();
         String encoding = writerSettings.getCharacterEncoding();
         if (encoding != null) {
             charSet = Charset.forName(encoding);
         }
         CSVWriter tableWriter = new CSVWriter(new OutputStreamWriter(tempOut, charSet), writerSettings);
+        tableWriter.setNumberOfFormatThreads(FORMAT_THREADS);
         // write the comment header, if we are supposed to
         String tableName;
         if (input == null) {
@@ -105,6 +105,12 @@ public NodeDialogPane createNodeDialogPane() {
             protected boolean runWithoutConfigure() {
                 return true;
             }
+
+            /** {@inheritDoc} */
+            @Override
+            protected boolean showPartitioning() {
+                return true;
+            }
         };
     }
 
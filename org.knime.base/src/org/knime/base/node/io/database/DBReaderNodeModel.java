@@ -52,6 +52,7 @@
 import java.sql.SQLException;
 
 import org.apache.commons.lang.exception.ExceptionUtils;
+import org.knime.base.node.io.database.util.DBReaderDialogPane;
 import org.knime.base.util.flowvariable.FlowVariableProvider;
 import org.knime.base.util.flowvariable.FlowVariableResolver;
 import org.knime.core.data.DataTableSpec;
@@ -72,6 +73,7 @@
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
 import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
 import org.knime.core.node.port.database.reader.DBReader;
+import org.knime.core.node.port.database.reader.DBReaderImpl;
 import org.knime.core.node.streamable.StreamableOperatorInternals;
 import org.knime.core.node.workflow.CredentialsProvider;
 
@@ -85,6 +87,11 @@ class DBReaderNodeModel extends NodeModel implements FlowVariableProvider {
 
     private DataTableSpec m_lastSpec = null;
 
+    /* The column used to read the query in partitions, null if it is read with a single statement. */
+    private String m_partitionColumn = null;
+
+    private int m_partitionCount = 1;
+
     /* Flag that is true if the node is just about to be executed in streaming mode.
      * It is set true in the computeFinalOutputSpecs-method to guarantee that the
      * configure-method returns a non-null data table spec
@@ -144,6 +151,9 @@ protected PortObject[] execute(final PortObject[] inData,
     protected BufferedDataTable getResultTable(final ExecutionContext exec, final PortObject[] inData, final DBReader load)
         throws CanceledExecutionException, SQLException, InvalidSettingsException {
         CredentialsProvider cp = getCredentialsProvider();
+        if (m_partitionColumn != null && load instanceof DBReaderImpl) {
+            ((DBReaderImpl)load).setPartitioning(m_partitionColumn, m_partitionCount);
+        }
         final BufferedDataTable result = load.createTable(exec, cp);
         return result;
     }
@@ -377,6 +387,11 @@ protected void validateSettings(final NodeSettingsRO settings)
 
         DatabaseQueryConnectionSettings s = new DatabaseQueryConnectionSettings();
         s.validateConnection(settings, getCredentialsProvider());
+
+        // added in 3.7
+        if (settings.getInt(DBReaderDialogPane.CFG_PARTITION_COUNT, 1) < 1) {
+            throw new InvalidSettingsException("The number of partitions must be at least 1.");
+        }
     }
 
     /**
@@ -386,6 +401,9 @@ protected void validateSettings(final NodeSettingsRO settings)
     protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         boolean settingsChanged = m_settings.loadValidatedConnection(settings, getCredentialsProvider());
+        // added in 3.7
+        m_partitionColumn = settings.getString(DBReaderDialogPane.CFG_PARTITION_COLUMN, null);
+        m_partitionCount = settings.getInt(DBReaderDialogPane.CFG_PARTITION_COUNT, 1);
 
         if (settingsChanged || (m_settings.getQuery() == null) || m_settings.getQuery().isEmpty()) {
             setLastSpec(null);
@@ -398,6 +416,8 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
     @Override
     protected void saveSettingsTo(final NodeSettingsWO settings) {
         m_settings.saveConnection(settings);
+        settings.addString(DBReaderDialogPane.CFG_PARTITION_COLUMN, m_partitionColumn);
+        settings.addInt(DBReaderDialogPane.CFG_PARTITION_COUNT, m_partitionCount);
     }
 
     /**
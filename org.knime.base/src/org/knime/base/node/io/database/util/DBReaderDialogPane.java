@@ -48,6 +48,7 @@
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
+import java.awt.FlowLayout;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -59,12 +60,16 @@
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JEditorPane;
+import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JSplitPane;
+import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingWorker;
 import javax.swing.text.JTextComponent;
 
@@ -91,6 +96,21 @@
  */
 public class DBReaderDialogPane extends NodeDialogPane {
 
+    /**
+     * Config key for the name of the column used to read the query in partitions, <code>null</code> or empty if the
+     * query is read with a single statement.
+     *
+     * @since 3.7
+     */
+    public static final String CFG_PARTITION_COLUMN = "partition_column";
+
+    /**
+     * Config key for the number of partitions the query is read in.
+     *
+     * @since 3.7
+     */
+    public static final String CFG_PARTITION_COUNT = "partition_count";
+
     private boolean m_showConnectionPanel;
 
     private final DBDialogPane m_connectionPane = new DBDialogPane(false);
@@ -105,6 +125,10 @@ public class DBReaderDialogPane extends NodeDialogPane {
     private final JCheckBox m_configureBox = new JCheckBox(
             "Run SQL query only during execute, skips configure");
 
+    private final JTextField m_partitionColumn = new JTextField(15);
+
+    private final JSpinner m_partitionCount = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+
     private static final NodeLogger LOGGER =
             NodeLogger.getLogger(DBReaderDialogPane.class);
 
@@ -188,11 +212,25 @@ protected void doneWithContext() {
 
         JPanel configurePanel = new JPanel(new BorderLayout());
         configurePanel.add(scrollPane, BorderLayout.CENTER);
+        JPanel optionsPanel = new JPanel(new BorderLayout());
         if (runWithoutConfigure()) {
             m_configureBox.setToolTipText(
                     "Returns an empty spec during configure.");
-            configurePanel.add(m_configureBox, BorderLayout.SOUTH);
+            optionsPanel.add(m_configureBox, BorderLayout.NORTH);
+        }
+        if (showPartitioning()) {
+            final JPanel partitionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            partitionPanel.setBorder(BorderFactory.createTitledBorder(" Partitioned Reading "));
+            m_partitionColumn.setToolTipText(
+                "Numeric or date column whose value range is split into partitions read in parallel, "
+                    + "leave empty to read the query with a single statement.");
+            partitionPanel.add(new JLabel("Partition column: "));
+            partitionPanel.add(m_partitionColumn);
+            partitionPanel.add(new JLabel("  Number of partitions: "));
+            partitionPanel.add(m_partitionCount);
+            optionsPanel.add(partitionPanel, BorderLayout.SOUTH);
         }
+        configurePanel.add(optionsPanel, BorderLayout.SOUTH);
         JPanel allPanel = new JPanel(new BorderLayout());
 
         allPanel.add(m_connectionPane, BorderLayout.NORTH);
@@ -249,6 +287,14 @@ protected boolean runWithoutConfigure() {
         return false;
     }
 
+    /**
+     * @return false (default), or true if the options to read the query in partitions should be visible.
+     * @since 3.7
+     */
+    protected boolean showPartitioning() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void loadSettingsFrom(final NodeSettingsRO settings,
@@ -281,6 +327,11 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         if (runWithoutConfigure()) {
             m_configureBox.setSelected(!s.getValidateQuery());
         }
+        // read partitioning
+        if (showPartitioning()) {
+            m_partitionColumn.setText(settings.getString(CFG_PARTITION_COLUMN, ""));
+            m_partitionCount.setValue(Math.min(1000, Math.max(1, settings.getInt(CFG_PARTITION_COUNT, 1))));
+        }
 
         m_upstreamConnectionSettings = null;
         for (PortObjectSpec pos : specs) {
@@ -335,6 +386,11 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
             s.setValidateQuery(!m_configureBox.isSelected());
         }
         s.saveConnection(settings);
+        if (showPartitioning()) {
+            final String column = m_partitionColumn.getText().trim();
+            settings.addString(CFG_PARTITION_COLUMN, column.isEmpty() ? null : column);
+            settings.addInt(CFG_PARTITION_COUNT, (Integer)m_partitionCount.getValue());
+        }
 
         if (m_showConnectionPanel) {
             m_connectionPane.saveSettingsTo(settings, getCredentialsProvider());
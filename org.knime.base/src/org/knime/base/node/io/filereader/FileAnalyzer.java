@@ -48,15 +48,22 @@
 package org.knime.base.node.io.filereader;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 
 import org.knime.base.node.util.BufferedFileReader;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnDomainCreator;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataType;
@@ -64,11 +71,14 @@
 import org.knime.core.data.IntValue;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.data.def.StringCell;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.tableview.TableContentModel;
+import org.knime.core.util.FileUtil;
 import org.knime.core.util.tokenizer.Comment;
 import org.knime.core.util.tokenizer.Delimiter;
 import org.knime.core.util.tokenizer.Quote;
@@ -101,6 +111,19 @@ public final class FileAnalyzer {
 
     private static final double COLHDR_SUB = 0.05;
 
+    /**
+     * Large local files are not read entirely, but in this many blocks spread across the file (plus its beginning and
+     * its end). See {@link KNIMEConstants#PROPERTY_FILEREADER_ANALYSIS_SAMPLES}.
+     */
+    private static final int SAMPLE_BLOCKS =
+        Integer.getInteger(KNIMEConstants.PROPERTY_FILEREADER_ANALYSIS_SAMPLES, 64);
+
+    /** The number of bytes read in each sampled block (and at the end of the file). */
+    static final int SAMPLE_BLOCK_SIZE = 64 * 1024;
+
+    /** The number of bytes read from the beginning of a sampled file. Contains headers and the first rows. */
+    static final int SAMPLE_HEAD_SIZE = 1024 * 1024;
+
     /** The node logger for this class. */
     private static final NodeLogger LOGGER = NodeLogger.getLogger(FileAnalyzer.class);
 
@@ -125,6 +148,28 @@ private FileAnalyzer() {
      */
     public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSettings, final ExecutionMonitor exec)
         throws IOException {
+        return analyze(userSettings, exec, false);
+    }
+
+    /**
+     * Tries to guess FileReader settings for the passed data file, see
+     * {@link #analyze(FileReaderNodeSettings, ExecutionMonitor)}. Optionally, large local files are not analyzed
+     * entirely, but only their beginning, their end and blocks spread across them. The column types guessed from the
+     * sample may be too narrow for values in other parts of the file. Callers that sample must catch the
+     * {@link FileReaderException} thrown while reading the file, widen the column types with
+     * {@link #widenColumnTypes(FileReaderNodeSettings, FileReaderException, ExecutionMonitor)} and read it again.
+     *
+     * @param userSettings containing the URL of the file to examine and settings that should be used and considered
+     *            fixed.
+     * @param exec used to check for cancellations and to report progress. Could be null.
+     * @param sampleLargeFiles if true, large files are analyzed by looking at samples of them only
+     * @return settings that supposably provide more or less useful results. It will always be a non-null object - but
+     *         may not contain any settings if guessing was just too hard.
+     * @throws IOException if there was an error reading from the URL
+     * @since 3.7
+     */
+    public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSettings, final ExecutionMonitor exec,
+        final boolean sampleLargeFiles) throws IOException {
         if (userSettings.getDataFileLocation() == null) {
             throw new IllegalArgumentException("Must specify a valid file location for the file analyzer");
         }
@@ -163,6 +208,15 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
                 result.setCharsetUserSet(true);
             }
 
+            // the time spent on large files is bounded by looking at samples only
+            byte[] sample = sampleLargeFiles
+                ? readSample(result, userSettings.isQuoteUserSet() ? userSettings.getAllQuotes() : null, SAMPLE_BLOCKS)
+                : null;
+            if (sample != null) {
+                result.setAnalysisSample(sample);
+                result.setAnalyzeUsedAllRows(false);
+            }
+
             ExecutionMonitor subExec = execMon.createSubProgress(COMMENT_SUB);
             if (!userSettings.isCommentUserSet()) {
                 // only guess comment patterns if user didn't provide any
@@ -276,10 +330,294 @@ public static FileReaderNodeSettings analyze(final FileReaderNodeSettings userSe
 
         } catch (InterruptedExecutionException iee) {
             return null;
+        } finally {
+            // the returned settings read the entire file again
+            result.setAnalysisSample(null);
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Reads the beginning, the end, and the specified number of blocks spread evenly across the data file, if it is a
+     * large uncompressed local file. Each block is cut down to the complete records it contains, so that the
+     * concatenation of all blocks can be tokenized like a (much shorter) file. Rows are sampled in the order they
+     * appear in the file. If line feeds are allowed in quoted values, a line feed only ends a record if it is not
+     * inside quotes. As that depends on everything before it, only the beginning of the file is sampled then (as many
+     * bytes as all blocks together) - and it can't be sampled at all if the quotes are not known yet.
+     *
+     * @param settings the settings with data file location and character set
+     * @param quotes the quotes set by the user, null if they are not known (but guessed later)
+     * @param blocks the number of blocks to read between the beginning and the end of the file
+     * @return the sampled lines, or null if the file should be read entirely
+     */
+    static byte[] readSample(final FileReaderNodeSettings settings, final List<Quote> quotes, final int blocks) {
+        if (blocks <= 0 || settings.getMaximumNumberOfRowsToRead() >= 0
+            || !hasSingleByteLineEnds(settings.getCharsetName())) {
+            return null;
+        }
+        final boolean quotedLineFeeds = settings.allowLFinQuotes() && (quotes == null || !quotes.isEmpty());
+        if (quotedLineFeeds && (quotes == null || !hasSingleByteQuotes(quotes))) {
+            return null;
+        }
+        File file;
+        try {
+            file = FileUtil.getFileFromURL(settings.getDataFileLocation());
+        } catch (IllegalArgumentException e) {
+            // not a local file
+            return null;
+        }
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        final long fileSize = file.length();
+        final long sampleSize = SAMPLE_HEAD_SIZE + (blocks + 1L) * SAMPLE_BLOCK_SIZE;
+        if (fileSize <= 2 * sampleSize) {
+            // reading it entirely doesn't take much longer
+            return null;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] magic = new byte[4];
+            in.readFully(magic);
+            if (isCompressed(magic)) {
+                return null;
+            }
+
+            if (quotedLineFeeds) {
+                // blocks in the middle of the file can't be aligned to records without scanning everything before them
+                long end = lastRecordEnd(in, sampleSize, quotes);
+                if (end <= 0) {
+                    return null;
+                }
+                LOGGER.debug("Line feeds in quoted values are allowed, analyzing the first " + end
+                    + " bytes of file '" + file + "' only");
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int)end);
+                copy(in, 0, end, out);
+                return out.toByteArray();
+            }
+
+            // the end of the head, start and end of each block (spread over the part between the head and the tail),
+            // and the start of the tail - all in ascending order
+            final long start = SAMPLE_HEAD_SIZE;
+            final long range = fileSize - SAMPLE_BLOCK_SIZE - start;
+            long[] positions = new long[2 * blocks + 2];
+            positions[0] = SAMPLE_HEAD_SIZE;
+            for (int b = 0; b < blocks; b++) {
+                positions[2 * b + 1] = start + range * b / blocks;
+                positions[2 * b + 2] = positions[2 * b + 1] + SAMPLE_BLOCK_SIZE;
+            }
+            positions[positions.length - 1] = fileSize - SAMPLE_BLOCK_SIZE;
+            long[] recordStarts = alignToLines(in, positions, fileSize);
+
+            long headEnd = recordStarts[0];
+            if (headEnd < 0 || headEnd > 2 * SAMPLE_HEAD_SIZE) {
+                // no line breaks - or lines too long to sample
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int)sampleSize);
+            copy(in, 0, headEnd, out);
+
+            // the blocks start and end somewhere in a record, take the complete records in between only
+            long last = headEnd;
+            for (int b = 0; b < blocks; b++) {
+                long from = Math.max(recordStarts[2 * b + 1], last);
+                long to = recordStarts[2 * b + 2];
+                if (recordStarts[2 * b + 1] >= 0 && to > from && to - from <= 4 * SAMPLE_BLOCK_SIZE) {
+                    copy(in, from, to, out);
+                    last = to;
+                }
+            }
+
+            // the end of the file, which may not end with a line break
+            long from = Math.max(recordStarts[recordStarts.length - 1], last);
+            if (recordStarts[recordStarts.length - 1] >= 0) {
+                copy(in, from, fileSize, out);
+            }
+            return out.toByteArray();
+        } catch (IOException ioe) {
+            LOGGER.debug("Unable to sample file '" + file + "', analyzing it entirely: " + ioe.getMessage(), ioe);
+            return null;
+        }
+    }
+
+    /*
+     * Returns for each position the offset behind the first line feed at or after it - or -1, if there is none within
+     * one block.
+     */
+    private static long[] alignToLines(final RandomAccessFile in, final long[] positions, final long fileSize)
+        throws IOException {
+        long[] result = new long[positions.length];
+        byte[] block = new byte[SAMPLE_BLOCK_SIZE];
+        for (int p = 0; p < positions.length; p++) {
+            int length = (int)Math.min(block.length, fileSize - positions[p]);
+            in.seek(positions[p]);
+            in.readFully(block, 0, length);
+            int lf = indexOf(block, length, '\n');
+            result[p] = lf < 0 ? -1 : positions[p] + lf + 1;
         }
+        return result;
+    }
 
+    /*
+     * Returns the offset behind the last line feed within the first bytes of the file that is not inside a quoted
+     * value - or -1, if there is none. Quotes are tracked the same way the tokenizer does (except that quotes in
+     * comments are not ignored, as comments are not known yet).
+     */
+    private static long lastRecordEnd(final RandomAccessFile in, final long limit, final List<Quote> quotes)
+        throws IOException {
+        final int numQuotes = quotes.size();
+        final int[] lefts = new int[numQuotes];
+        final int[] rights = new int[numQuotes];
+        final int[] escapes = new int[numQuotes];
+        for (int q = 0; q < numQuotes; q++) {
+            Quote quote = quotes.get(q);
+            lefts[q] = quote.getLeft().charAt(0);
+            rights[q] = quote.getRight().charAt(0);
+            escapes[q] = quote.hasEscapeChar() ? quote.getEscape() : -1;
+        }
+
+        long result = -1;
+        byte[] buffer = new byte[SAMPLE_BLOCK_SIZE];
+        in.seek(0);
+        long offset = 0;
+        int quote = -1;
+        boolean escaped = false;
+        int read;
+        while (offset < limit && (read = in.read(buffer, 0, (int)Math.min(buffer.length, limit - offset))) > 0) {
+            for (int i = 0; i < read; i++) {
+                int c = buffer[i];
+                if (quote >= 0) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == escapes[quote]) {
+                        escaped = true;
+                    } else if (c == rights[quote]) {
+                        quote = -1;
+                    }
+                } else if (c == '\n') {
+                    result = offset + i + 1;
+                } else {
+                    for (int q = 0; q < numQuotes; q++) {
+                        if (c == lefts[q]) {
+                            quote = q;
+                            break;
+                        }
+                    }
+                }
+            }
+            offset += read;
+        }
         return result;
+    }
+
+    /* Quotes can only be tracked on byte level if they consist of a single ASCII character. */
+    private static boolean hasSingleByteQuotes(final List<Quote> quotes) {
+        for (Quote quote : quotes) {
+            if (quote.getLeft().length() != 1 || quote.getRight().length() != 1 || quote.getLeft().charAt(0) >= 0x80
+                || quote.getRight().charAt(0) >= 0x80 || (quote.hasEscapeChar() && quote.getEscape() >= 0x80)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void copy(final RandomAccessFile in, final long from, final long to,
+        final ByteArrayOutputStream out) throws IOException {
+        byte[] buffer = new byte[(int)Math.min(SAMPLE_BLOCK_SIZE, to - from)];
+        in.seek(from);
+        for (long pos = from; pos < to;) {
+            int length = (int)Math.min(buffer.length, to - pos);
+            in.readFully(buffer, 0, length);
+            out.write(buffer, 0, length);
+            pos += length;
+        }
+    }
+
+    /*
+     * Blocks are aligned to line breaks on byte level - that only works if the line feed character is encoded in one
+     * byte which doesn't occur in any other character (that excludes UTF-16 and UTF-32 for instance).
+     */
+    private static boolean hasSingleByteLineEnds(final String charsetName) {
+        try {
+            Charset cs = charsetName == null ? Charset.defaultCharset() : Charset.forName(charsetName);
+            return Arrays.equals("\n".getBytes(cs), new byte[]{'\n'})
+                && Arrays.equals("A\n".getBytes(cs), new byte[]{'A', '\n'});
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /* gzip and zip files are decompressed by the reader and can't be sampled at byte positions. */
+    private static boolean isCompressed(final byte[] head) {
+        return (head[0] == (byte)0x1f && head[1] == (byte)0x8b)
+            || (head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4);
+    }
+
+    private static int indexOf(final byte[] bytes, final int length, final char c) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Widens the type of the column containing a value that can't be read with the type the analyzer guessed, if the
+     * types were guessed from a part of the file only (see
+     * {@link #analyze(FileReaderNodeSettings, ExecutionMonitor, boolean)}). Integer and long columns become double
+     * columns, double columns become string columns. Types set by the user are never changed. The file is not read
+     * again to find all values that don't fit the guessed types (that would take as long as reading it), callers read
+     * it again with the widened type and widen again if reading fails in another column or value.
+     *
+     * @param settings the settings returned by the analyzer and used to read the file, will be modified
+     * @param fre the exception thrown while reading the file
+     * @param exec to check for cancellations. Could be null.
+     * @return true if the type of the column was changed and the file should be read again, false, if the exception
+     *         can't be fixed by widening column types
+     * @throws CanceledExecutionException if the execution was canceled
+     * @since 3.7
+     */
+    public static boolean widenColumnTypes(final FileReaderNodeSettings settings, final FileReaderException fre,
+        final ExecutionMonitor exec) throws CanceledExecutionException {
+        if (exec != null) {
+            exec.checkCanceled();
+        }
+        int errCol = fre.getErrorColumnIndex();
+        Vector<ColProperty> colProps = settings.getColumnProperties();
+        if (settings.analyzeUsedAllRows() || colProps == null || errCol < 0 || errCol >= colProps.size()
+            || !isWidenable(colProps.get(errCol))) {
+            return false;
+        }
+
+        ColProperty cProp = colProps.get(errCol);
+        DataType newType = widen(cProp.getColumnSpec().getType());
+        LOGGER.info("Type of column '" + cProp.getColumnSpec().getName() + "' was guessed from a part of the file only,"
+            + " changing it to " + newType + " (" + fre.getMessage() + ")");
+        if (newType.equals(StringCell.TYPE)) {
+            // must not apply the number format to strings
+            cProp.setFormatParameter(null);
+            cProp.setReadPossibleValuesFromFile(true);
+        }
+        cProp.changeColumnType(newType);
+        // the bounds (if any) were of the old type
+        cProp.changeDomain(new DataColumnDomainCreator().createDomain());
+        return true;
+    }
+
+    /* Only types guessed by the analyzer are widened - integer, long and double columns. */
+    private static boolean isWidenable(final ColProperty cProp) {
+        if (cProp == null || cProp.getUserSettings()) {
+            return false;
+        }
+        DataType type = cProp.getColumnSpec().getType();
+        return type.equals(IntCell.TYPE) || type.equals(LongCell.TYPE) || type.equals(DoubleCell.TYPE);
+    }
 
+    private static DataType widen(final DataType type) {
+        return type.equals(DoubleCell.TYPE) ? StringCell.TYPE : DoubleCell.TYPE;
     }
 
     /**
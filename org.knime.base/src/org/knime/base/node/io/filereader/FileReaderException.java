@@ -66,6 +66,8 @@ public class FileReaderException extends RuntimeException {
 
     private String m_detailsMsg;
 
+    private int m_column = -1;
+
     /**
      * Always provide a good user message why things go wrong.
      *
@@ -112,6 +114,24 @@ public int getErrorLineNumber() {
         return m_lineNumber;
     }
 
+    /**
+     * Sets the index of the column (in the file, including skipped columns) whose value could not be read.
+     *
+     * @param column the column index
+     */
+    void setErrorColumnIndex(final int column) {
+        m_column = column;
+    }
+
+    /**
+     * @return the index of the column (in the file, including skipped columns) whose value could not be converted
+     *         into the column's type. -1 if the error was not caused by a single value.
+     * @since 3.7
+     */
+    public int getErrorColumnIndex() {
+        return m_column;
+    }
+
     /**
      * Sets an additional message.
      *
@@ -1524,7 +1524,7 @@ public void run() {
                     // analyze the file now.
                     FileReaderNodeSettings newSettings =
                             FileAnalyzer.analyze(userSettings,
-                                    m_analysisExecMonitor);
+                                    m_analysisExecMonitor, true);
 
                     if (m_analysisExecMonitor.wasInterrupted()) {
                         // if the code stopped us, do nothing more
@@ -1542,6 +1542,12 @@ public void run() {
                                     + "are based on a partial file analysis "
                                     + "only! Please verify.");
                         }
+                    } else if (newSettings != null
+                            && !newSettings.analyzeUsedAllRows()) {
+                        // large files are analyzed from samples only
+                        setAnalWarningText("WARNING: suggested settings "
+                                + "are based on a sample of the file "
+                                + "only! Please verify the column types.");
                     } else {
                         setAnalWarningText("");
                     }
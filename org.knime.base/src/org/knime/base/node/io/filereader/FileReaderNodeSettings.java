@@ -47,6 +47,7 @@
  */
 package org.knime.base.node.io.filereader;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -59,6 +60,7 @@
 
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.knime.base.node.util.BufferedFileReader;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -118,6 +120,9 @@ public class FileReaderNodeSettings extends FileReaderSettings {
 
     private boolean m_analyzedAllRows;
 
+    // the parts of the file the analyzer looks at, if it doesn't read all of it
+    private byte[] m_analysisSample;
+
     /**
      * Creates a new settings object for the file reader note and initializes it
      * from the config object passed. If <code>null</code> is passed default
@@ -839,6 +844,31 @@ void setAnalyzeUsedAllRows(final boolean val) {
         m_analyzedAllRows = val;
     }
 
+    /**
+     * Sets the bytes (complete lines taken from different parts of the data
+     * file) the {@link FileAnalyzer} examines instead of the entire file. While
+     * set, {@link #createNewInputReader()} reads from the sample. The sample is
+     * not stored when the settings are saved, nor copied into clones.
+     *
+     * @param sample the sampled lines, or <code>null</code> to read from the
+     *            data file again
+     */
+    void setAnalysisSample(final byte[] sample) {
+        m_analysisSample = sample;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedFileReader createNewInputReader() throws IOException {
+        if (m_analysisSample != null) {
+            return BufferedFileReader.createNewReader(
+                    new ByteArrayInputStream(m_analysisSample), getCharsetName());
+        }
+        return super.createNewInputReader();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -84,6 +84,9 @@ public class FileReaderSettings extends TokenizerSettings {
     private static final Duration DEFAULT_CONNECT_TIMEOUT =
         Duration.ofMillis(Integer.getInteger(KNIMEConstants.PROPERTY_URL_TIMEOUT, 1000));
 
+    private static final int DEFAULT_PARSER_THREADS = Integer.getInteger(KNIMEConstants.PROPERTY_FILEREADER_THREADS,
+        Runtime.getRuntime().availableProcessors());
+
     /** The node logger for this class. */
     private static final NodeLogger LOGGER =
             NodeLogger.getLogger(FileReaderSettings.class);
@@ -168,6 +171,9 @@ public class FileReaderSettings extends TokenizerSettings {
 
     private Duration m_connectTimeout;
 
+    // number of threads used to parse the file. Not stored in the config.
+    private int m_parserThreads;
+
     /**
      * This will be used if the file has not row headers and no row prefix is
      * set.
@@ -263,6 +269,8 @@ public FileReaderSettings(final FileReaderSettings clonee) {
         m_charsetName = clonee.m_charsetName;
 
         m_connectTimeout = clonee.m_connectTimeout;
+
+        m_parserThreads = clonee.m_parserThreads;
     }
 
     // initializes private members. Needs to be called from two constructors.
@@ -293,6 +301,7 @@ private void init() {
 
         m_connectTimeout = DEFAULT_CONNECT_TIMEOUT;
 
+        m_parserThreads = DEFAULT_PARSER_THREADS;
     }
 
     /**
@@ -1226,6 +1235,29 @@ public void setConnectTimeout(final Duration value){
         m_connectTimeout = value != null ? value : DEFAULT_CONNECT_TIMEOUT;
     }
 
+    /**
+     * Returns the number of threads used to parse the file. If larger than one, the file is split into chunks at row
+     * boundaries that are tokenized concurrently (as far as the tokenizer settings permit a safe split).
+     *
+     * @return the number of parser threads
+     * @see KNIMEConstants#PROPERTY_FILEREADER_THREADS
+     * @since 3.7
+     */
+    public int getNumberOfParserThreads() {
+        return m_parserThreads;
+    }
+
+    /**
+     * Sets the number of threads used to parse the file. This value is not stored with the settings, it defaults to
+     * the value of the {@link KNIMEConstants#PROPERTY_FILEREADER_THREADS} property.
+     *
+     * @param threads the number of threads, 1 (or less) parses the file sequentially
+     * @since 3.7
+     */
+    public void setNumberOfParserThreads(final int threads) {
+        m_parserThreads = threads;
+    }
+
     /**
      * Method to check consistency and completeness of the current settings. It
      * will return a {@link SettingsStatus} object which contains info, warning
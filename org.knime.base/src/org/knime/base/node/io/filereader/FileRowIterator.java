@@ -45,6 +45,7 @@
 package org.knime.base.node.io.filereader;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.util.HashMap;
 import java.util.NoSuchElementException;
 
@@ -72,11 +73,30 @@
  */
 class FileRowIterator extends CloseableRowIterator {
 
-    /* The tokenizer reads the next token from the input stream. */
+    /* The tokenizer reads the next token from the input stream. Null if the
+     * rows are read by the parallel reader or the simple tokenizer. */
     private final Tokenizer m_tokenizer;
 
+    /* Reads the tokens instead of the tokenizer if the settings only contain
+     * single character delimiters and quotes, otherwise null. */
+    private final SimpleTokenizer m_simpleTokenizer;
+
+    /* creates the cells from the tokens of the simple tokenizer (if set) */
+    private final TokenCellParser m_cellParser;
+
+    /* Null if this iterator only reads a chunk of the file. */
     private final BufferedFileReader m_source;
 
+    /* Reads the rows if the file is parsed in parallel, otherwise null. */
+    private final ParallelFileRowReader m_parallelReader;
+
+    /* The number of lines of the file before the chunk read by this iterator,
+     * -1 if this iterator reads the entire file. */
+    private final int m_lineOffset;
+
+    /* set by #createRowHeader in chunk mode */
+    private boolean m_lastRowHeaderMissing;
+
     // keep a reference for the filereader settings.
     private final FileReaderSettings m_frSettings;
 
@@ -137,6 +157,34 @@ class FileRowIterator extends CloseableRowIterator {
     FileRowIterator(final FileReaderSettings frSettings,
             final DataTableSpec tableSpec, final boolean[] skipColumns,
             final ExecutionContext exec) throws IOException {
+        this(frSettings, tableSpec, skipColumns, exec,
+            frSettings.createNewInputReader(), null, -1);
+    }
+
+    /**
+     * Creates an iterator reading the rows of a chunk of the file (used by the
+     * {@link ParallelFileRowReader}). The rows returned have the row header
+     * read from the file as key (or an empty string if the file has no row
+     * headers), row IDs are created by the iterator reading the entire file.
+     *
+     * @param frSettings object containing the wheres and hows to read the data
+     * @param tableSpec the spec defining the structure of the rows to create
+     * @param skipColumns see above
+     * @param chunk the characters of the chunk. Must start at the beginning of
+     *            a row.
+     * @param lineOffset the number of lines in the file before the chunk (used
+     *            for error messages)
+     */
+    FileRowIterator(final FileReaderSettings frSettings,
+            final DataTableSpec tableSpec, final boolean[] skipColumns,
+            final Reader chunk, final int lineOffset) {
+        this(frSettings, tableSpec, skipColumns, null, null, chunk, lineOffset);
+    }
+
+    private FileRowIterator(final FileReaderSettings frSettings,
+            final DataTableSpec tableSpec, final boolean[] skipColumns,
+            final ExecutionContext exec, final BufferedFileReader source,
+            final Reader chunk, final int lineOffset) {
 
         if (skipColumns.length < tableSpec.getNumColumns()) {
             throw new IllegalArgumentException("The number of columns can't"
@@ -160,16 +208,39 @@ class FileRowIterator extends CloseableRowIterator {
         m_exec = exec;
         m_lastReport = 0;
 
-        m_source = m_frSettings.createNewInputReader();
-        m_tokenizer = new Tokenizer(m_source);
+        m_source = source;
+        m_lineOffset = lineOffset;
+        if (source != null
+                && ParallelFileRowReader.isApplicable(frSettings, source.getFileSize())) {
+            m_tokenizer = null;
+            m_simpleTokenizer = null;
+            m_parallelReader = new ParallelFileRowReader(source, frSettings,
+                    tableSpec, skipColumns);
+        } else if (SimpleTokenizer.isApplicable(frSettings)) {
+            m_tokenizer = null;
+            m_simpleTokenizer = new SimpleTokenizer(
+                    source != null ? source : chunk, frSettings);
+            m_parallelReader = null;
+        } else {
+            m_tokenizer = new Tokenizer(source != null ? source : chunk);
+            m_simpleTokenizer = null;
+            m_parallelReader = null;
 
-        // set the tokenizer related settings in the tokenizer
-        m_tokenizer.setSettings(frSettings);
+            // set the tokenizer related settings in the tokenizer
+            m_tokenizer.setSettings(frSettings);
+        }
 
         // cell factory used to create the cells of each row
         m_cellFactory = new DataCellFactory();
         m_cellFactory.setDecimalSeparator(frSettings.getDecimalSeparator());
         m_cellFactory.setThousandsSeparator(frSettings.getThousandsSeparator());
+        if (m_simpleTokenizer != null) {
+            m_cellParser = new TokenCellParser(tableSpec.getNumColumns(),
+                    frSettings.getDecimalSeparator(),
+                    frSettings.getThousandsSeparator());
+        } else {
+            m_cellParser = null;
+        }
 
         m_rowNumber = 1;
         if (m_frSettings.getMaximumNumberOfRowsToRead() < 0) {
@@ -204,7 +275,15 @@ class FileRowIterator extends CloseableRowIterator {
         // if the column headers are stored in the data file, we must read
         // them (the first line) and discard them (if they are actually used
         // from the file they should have been stored in the table spec).
-        if (frSettings.getFileHasColumnHeaders()) {
+        // The parallel reader does this when reading the first chunk.
+        if (frSettings.getFileHasColumnHeaders() && m_simpleTokenizer != null) {
+            if (hasNext()) {
+                m_simpleTokenizer.nextToken();
+                while (!m_simpleTokenizer.isRowDelimiter()) {
+                    m_simpleTokenizer.nextToken();
+                }
+            }
+        } else if (frSettings.getFileHasColumnHeaders() && m_parallelReader == null) {
             if (hasNext()) { // call this first to eat up empty lines
                 String token = m_tokenizer.nextToken();
                 while (!frSettings.isRowDelimiter(token, m_tokenizer.lastTokenWasQuoted())) {
@@ -220,7 +299,9 @@ class FileRowIterator extends CloseableRowIterator {
      */
     @Override
     protected void finalize() throws Throwable {
-        m_source.close();
+        if (m_source != null) {
+            m_source.close();
+        }
         super.finalize();
     }
 
@@ -232,6 +313,12 @@ protected void finalize() throws Throwable {
      * {@link #next()} after disposing of the iterator has undefined behavior.
      */
     public void dispose() {
+        if (m_parallelReader != null) {
+            m_parallelReader.close();
+        }
+        if (m_source == null) {
+            return;
+        }
         try {
             m_source.close();
         } catch (IOException ioe) {
@@ -256,6 +343,23 @@ public boolean hasNext() {
         if (m_exceptionThrown) {
             // after we've thrown an exception don't even try to read more.
             result = false;
+        } else if (m_parallelReader != null) {
+            result = m_parallelReader.hasNext();
+        } else if (m_simpleTokenizer != null) {
+            // same as below: eat all empty lines
+            while (true) {
+                if (!m_simpleTokenizer.nextToken()) {
+                    result = false;
+                    break;
+                }
+                if (m_frSettings.getIgnoreEmtpyLines()
+                        && m_simpleTokenizer.isRowDelimiter()) {
+                    continue;
+                }
+                m_simpleTokenizer.pushBack();
+                result = true;
+                break;
+            }
         } else {
 
             String token;
@@ -292,7 +396,7 @@ public boolean hasNext() {
         }
 
         if (!result) {
-            m_tokenizer.closeSourceStream();
+            closeSourceStream();
         }
         return result;
     }
@@ -302,6 +406,12 @@ public boolean hasNext() {
      */
     @Override
     public DataRow next() {
+        if (m_parallelReader != null) {
+            return nextFromParallelReader();
+        }
+        if (m_simpleTokenizer != null) {
+            return nextFromSimpleTokenizer();
+        }
         int rowLength = m_tableSpec.getNumColumns();
         int colsToRead = m_skipColumns.length;
 
@@ -332,9 +442,9 @@ public DataRow next() {
             rowHeader = createRowHeader(m_rowNumber - 1);
         } catch (TokenizerException fte) {
             throw prepareForException(fte.getMessage() + " (line: "
-                    + m_tokenizer.getLineNumber() + " source: '"
-                    + m_frSettings.getDataFileLocation() + "')", m_tokenizer
-                    .getLineNumber(), "ERR", row);
+                    + getLineNumber() + " source: '"
+                    + m_frSettings.getDataFileLocation() + "')",
+                    getLineNumber(), "ERR", row);
         }
         // we made sure before that there is at least one token in the stream
         assert rowHeader != null;
@@ -347,9 +457,9 @@ public DataRow next() {
                 token = m_tokenizer.nextToken();
             } catch (TokenizerException fte) {
                 throw prepareForException(fte.getMessage() + " (line: "
-                        + m_tokenizer.getLineNumber() + " (" + rowHeader
+                        + getLineNumber() + " (" + rowHeader
                         + ") source: '" + m_frSettings.getDataFileLocation()
-                        + "')", m_tokenizer.getLineNumber(), rowHeader, row);
+                        + "')", getLineNumber(), rowHeader, row);
             }
             if (token != null) {
                 // remember the delimiter of the last token before the EOF
@@ -395,7 +505,7 @@ public DataRow next() {
             lastTokenWasDelimited = false;
         }
 
-        int lineNr = m_tokenizer.getLineNumber();
+        int lineNr = getLineNumber();
         if ((lineNr > 0) && (token != null) && (token.equals("\n"))) {
             lineNr--;
         }
@@ -460,18 +570,243 @@ public DataRow next() {
         }
         m_rowNumber++;
 
-        // report progress
-        // only if an execution context exists an if the underlying
-        // URL is a file whose size can be determined
+        reportProgress();
+        return new DefaultRow(rowHeader, row);
+    } // next()
+
+    /*
+     * next() if the tokens are read by the simple tokenizer. Same as next(),
+     * but the cells are created from the characters of the tokens - strings
+     * are only created for row headers, string cells and tokens that can't be
+     * parsed directly.
+     */
+    private DataRow nextFromSimpleTokenizer() {
+        final SimpleTokenizer tokenizer = m_simpleTokenizer;
+        int rowLength = m_tableSpec.getNumColumns();
+        int colsToRead = m_skipColumns.length;
+
+        // false like 'token == null' in next(): before the first or at the EOF
+        boolean hasToken = false;
+        boolean isMissingCell;
+        String rowHeader;
+        DataCell[] row = new DataCell[rowLength];
+
+        if (!hasNext()) {
+            throw new NoSuchElementException(
+                    "The row iterator proceeded beyond the last line of '"
+                            + m_frSettings.getDataFileLocation().toString()
+                            + "'.");
+        }
+        int readCols = 0;
+        int createdCols = 0;
+
+        try {
+            rowHeader = createRowHeader(m_rowNumber - 1);
+        } catch (TokenizerException fte) {
+            throw prepareForException(fte.getMessage() + " (line: "
+                    + getLineNumber() + " source: '"
+                    + m_frSettings.getDataFileLocation() + "')",
+                    getLineNumber(), "ERR", row);
+        }
+        assert rowHeader != null;
+        boolean lastTokenWasDelimited = false;
+
+        while (readCols < colsToRead) {
+
+            try {
+                hasToken = tokenizer.nextToken();
+            } catch (TokenizerException fte) {
+                throw prepareForException(fte.getMessage() + " (line: "
+                        + getLineNumber() + " (" + rowHeader
+                        + ") source: '" + m_frSettings.getDataFileLocation()
+                        + "')", getLineNumber(), rowHeader, row);
+            }
+            if (hasToken) {
+                lastTokenWasDelimited = tokenizer.lastTokenWasDelimited();
+            }
+            if (tokenizer.isRowDelimiter()) {
+                // line ended early.
+                tokenizer.pushBack();
+                break;
+            }
+            if (tokenizer.getLength() == 0 && !tokenizer.lastTokenWasQuoted()) {
+                isMissingCell = true;
+            } else {
+                isMissingCell = tokenizer.contentEquals(
+                        m_frSettings.getMissingValueOfColumn(readCols));
+            }
+            if (!m_skipColumns[readCols]) {
+                DataType type = m_tableSpec.getColumnSpec(createdCols).getType();
+                String formatParameter = m_frSettings
+                        .getFormatParameterForColumn(readCols).orElse(null);
+                DataCell cell = null;
+                if (isMissingCell) {
+                    cell = DataType.getMissingCell();
+                } else if (formatParameter == null) {
+                    cell = m_cellParser.createCell(type, createdCols,
+                            tokenizer.getChars(), tokenizer.getLength());
+                }
+                if (cell == null) {
+                    cell = createNewDataCellOfType(type, tokenizer.getToken(),
+                            false, formatParameter, rowHeader, row);
+                }
+                row[createdCols] = cell;
+                createdCols++;
+            }
+            readCols++;
+        }
+
+        // bug4262, see next()
+        if (!hasToken && readCols == colsToRead - 1 && lastTokenWasDelimited) {
+            if (!m_skipColumns[readCols]) {
+                row[createdCols++] = DataType.getMissingCell();
+            }
+            lastTokenWasDelimited = false;
+        }
+
+        int lineNr = getLineNumber();
+        if ((lineNr > 0) && hasToken && tokenizer.contentEquals("\n")) {
+            lineNr--;
+        }
+        if (m_frSettings.getSupportShortLines()) {
+            while (createdCols < rowLength) {
+                row[createdCols++] = DataType.getMissingCell();
+            }
+        } else {
+            if (createdCols < rowLength) {
+                FileReaderException ex =
+                        prepareForException("Too few data elements "
+                                + "(line: " + lineNr + " (" + rowHeader
+                                + "), source: '"
+                                + m_frSettings.getDataFileLocation() + "')",
+                                lineNr, rowHeader, row);
+                if (m_frSettings.getColumnNumDeterminingLineNumber() >= 0) {
+                    ex.setDetailsMessage("The number of columns was "
+                            + "determined by the entries above line no."
+                            + m_frSettings.getColumnNumDeterminingLineNumber());
+                }
+                throw ex;
+            }
+        }
+
+        tokenizer.nextToken();
+        if (!tokenizer.isRowDelimiter()) {
+            lastTokenWasDelimited = tokenizer.lastTokenWasDelimited();
+        }
+
+        if (m_frSettings.ignoreEmptyTokensAtEndOfRow()) {
+            lastTokenWasDelimited = false;
+
+            while (!tokenizer.isRowDelimiter() && tokenizer.getLength() == 0
+                    && !tokenizer.lastTokenWasQuoted()) {
+                try {
+                    tokenizer.nextToken();
+                } catch (TokenizerException fte) {
+                    throw prepareForException(fte.getMessage() + "(line: "
+                            + lineNr + " (" + rowHeader + "), source: '"
+                            + m_frSettings.getDataFileLocation() + "')",
+                            lineNr, rowHeader, row);
+                }
+            }
+        }
+        if (!tokenizer.isRowDelimiter() || lastTokenWasDelimited) {
+            FileReaderException ex =
+                    prepareForException("Too many data elements " + "(line: "
+                            + lineNr + " (" + rowHeader + "), source: '"
+                            + m_frSettings.getDataFileLocation() + "')",
+                            lineNr, rowHeader, row);
+            if (m_frSettings.getColumnNumDeterminingLineNumber() >= 0) {
+                ex.setDetailsMessage("The number of columns was "
+                        + "determined by line no."
+                        + m_frSettings.getColumnNumDeterminingLineNumber());
+            }
+            throw ex;
+        }
+        m_rowNumber++;
+
+        reportProgress();
+        return new DefaultRow(rowHeader, row);
+    }
+
+    /*
+     * next() if the rows are read by the parallel reader. Creates the row ID
+     * for the row read and rethrows the exception of a faulty row.
+     */
+    private DataRow nextFromParallelReader() {
+        if (!hasNext()) {
+            throw new NoSuchElementException(
+                    "The row iterator proceeded beyond the last line of '"
+                            + m_frSettings.getDataFileLocation().toString()
+                            + "'.");
+        }
+        DataRow row;
+        try {
+            row = m_parallelReader.next();
+        } catch (RuntimeException e) {
+            m_exceptionThrown = true;
+            closeSourceStream();
+            throw e;
+        }
+        String rowHeader = createRowID(row.getKey().getString(),
+                m_parallelReader.lastRowHeaderWasMissing(), m_rowNumber - 1);
+        m_rowNumber++;
+
+        reportProgress();
+        return new DefaultRow(rowHeader, row);
+    }
+
+    /*
+     * Reports the progress to the execution context - only if one exists and
+     * if the underlying URL is a file whose size can be determined.
+     */
+    private void reportProgress() {
+        if (m_exec == null || m_source == null) {
+            return;
+        }
         double readBytes = m_source.getNumberOfBytesRead();
-        if (m_exec != null && m_source.getFileSize() > 0
+        if (m_source.getFileSize() > 0
                 && readBytes / PROGRESS_JUNK_SIZE > m_lastReport) {
             // assert readBytes <= m_frSettings.getDataFileSize();
             m_exec.setProgress(readBytes / m_source.getFileSize());
             m_lastReport++;
         }
-        return new DefaultRow(rowHeader, row);
-    } // next()
+    }
+
+    /*
+     * The line number in the file of the tokenizer's current position.
+     */
+    private int getLineNumber() {
+        int lineNumber = m_simpleTokenizer != null
+                ? m_simpleTokenizer.getLineNumber() : m_tokenizer.getLineNumber();
+        if (m_lineOffset > 0) {
+            return lineNumber + m_lineOffset;
+        }
+        return lineNumber;
+    }
+
+    private void closeSourceStream() {
+        if (m_parallelReader != null) {
+            m_parallelReader.close();
+            try {
+                m_source.close();
+            } catch (IOException ioe) {
+                // then don't close it
+            }
+        } else if (m_simpleTokenizer != null) {
+            m_simpleTokenizer.closeSourceStream();
+        } else {
+            m_tokenizer.closeSourceStream();
+        }
+    }
+
+    /**
+     * @return true, if the row returned by the last call to {@link #next()}
+     *         had no (or an empty, unquoted) row header in the file. Only set
+     *         if this iterator reads a chunk of a file.
+     */
+    boolean lastRowHeaderWasMissing() {
+        return m_lastRowHeaderMissing;
+    }
 
     /**
      * The method creates a default {@link DataCell} of the type passed in, and
@@ -522,14 +857,24 @@ private DataCell createNewDataCellOfType(final DataType type,
         // create an error message
         String errorMsg = m_cellFactory.getErrorMessage();
         errorMsg +=
-                " In line " + m_tokenizer.getLineNumber() + " (" + rowHeader
+                " In line " + getLineNumber() + " (" + rowHeader
                         + ") at column #" + errCol + " ('"
                         + m_tableSpec.getColumnSpec(errCol).getName() + "').";
 
         // create a data row showing where things went
         // wrong, and close the stream
-        throw prepareForException(errorMsg, m_tokenizer.getLineNumber(),
+        FileReaderException ex = prepareForException(errorMsg, getLineNumber(),
                 rowHeader, row);
+        // the index in the file counts the skipped columns, too
+        int fileCol = -1;
+        for (int c = 0, readCols = -1; c < m_skipColumns.length; c++) {
+            if (!m_skipColumns[c] && ++readCols == errCol) {
+                fileCol = c;
+                break;
+            }
+        }
+        ex.setErrorColumnIndex(fileCol);
+        throw ex;
 
     } // createNewDataCellOfType(Class,String,boolean)
 
@@ -553,7 +898,19 @@ private String createRowHeader(final int rowNumber) {
         // if there is a row header in the file we must read it - independend
         // of if we are going to use it or not.
         String fileHeader = null;
-        if (m_frSettings.getFileHasRowHeaders()) {
+        boolean quoted = false;
+        if (m_frSettings.getFileHasRowHeaders() && m_simpleTokenizer != null) {
+            if (!m_simpleTokenizer.nextToken()) {
+                return null; // seen EOF
+            }
+            if (m_simpleTokenizer.isRowDelimiter()) {
+                m_simpleTokenizer.pushBack();
+                fileHeader = "";
+            } else {
+                fileHeader = m_simpleTokenizer.getToken();
+                quoted = m_simpleTokenizer.lastTokenWasQuoted();
+            }
+        } else if (m_frSettings.getFileHasRowHeaders()) {
             // read it away.
             fileHeader = m_tokenizer.nextToken();
             if (fileHeader == null) {
@@ -566,12 +923,30 @@ private String createRowHeader(final int rowNumber) {
                 m_tokenizer.pushBack();
                 fileHeader = "";
             }
+            quoted = m_tokenizer.lastTokenWasQuoted();
+        }
+
+        boolean headerMissing = fileHeader != null && fileHeader.equals("")
+                && !quoted;
+        if (m_source == null) {
+            // reading a chunk: the row ID depends on the row number and the
+            // IDs of all previous rows, the reader of the file creates it.
+            m_lastRowHeaderMissing = headerMissing;
+            return fileHeader == null ? "" : fileHeader;
         }
+        return createRowID(fileHeader, headerMissing, rowNumber);
+    }
 
+    /*
+     * Creates the row ID from the row header read from the file (ignored if
+     * the row header prefix is set).
+     */
+    private String createRowID(final String fileHeader,
+            final boolean headerMissing, final int rowNumber) {
         if (m_rowHeaderPrefix == null) {
             assert fileHeader != null;
             String newRowHeader;
-            if (fileHeader.equals("") && !m_tokenizer.lastTokenWasQuoted()) {
+            if (headerMissing) {
                 // seems we got a missing row delimiter. Let's build one.
                 newRowHeader = DataType.getMissingCell().toString() + rowNumber;
             } else {
@@ -652,7 +1027,7 @@ private FileReaderException prepareForException(final String msg,
          * the exception.
          */
         m_exceptionThrown = true;
-        m_tokenizer.closeSourceStream();
+        closeSourceStream();
 
         DataCell[] errCells = new DataCell[cellsRead.length];
         System.arraycopy(cellsRead, 0, errCells, 0, errCells.length);
@@ -695,7 +1070,7 @@ public boolean iteratorEndedEarly() {
      *         with more than one entry
      */
     public boolean zippedSourceHasMoreEntries() {
-        return m_source.hasMoreZipEntries();
+        return m_source != null && m_source.hasMoreZipEntries();
     }
 
     /**
@@ -703,7 +1078,7 @@ public boolean zippedSourceHasMoreEntries() {
      *         read. Null if not a ZIP source.
      */
     public String getZipEntryName() {
-        return m_source.getZipEntryName();
+        return m_source != null ? m_source.getZipEntryName() : null;
     }
 
 
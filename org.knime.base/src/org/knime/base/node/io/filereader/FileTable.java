@@ -222,6 +222,14 @@ public DataTableSpec getDataTableSpec() {
         return m_tableSpec;
     }
 
+    /**
+     * @return the settings the file is read with
+     * @since 3.7
+     */
+    public FileReaderSettings getFileReaderSettings() {
+        return m_frSettings;
+    }
+
     /**
      * Method to check consistency and completeness of the current settings. It
      * will return a {@link SettingsStatus} object which contains info, warning
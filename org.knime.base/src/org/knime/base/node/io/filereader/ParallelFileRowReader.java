@@ -0,0 +1,683 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.tokenizer.Comment;
+import org.knime.core.util.tokenizer.Delimiter;
+import org.knime.core.util.tokenizer.Quote;
+
+/**
+ * Reads the rows of a file in parallel. The characters of the source are cut into chunks at row boundaries by a
+ * (cheap) sequential scan that keeps track of quotes, comments and line continuations. The chunks are then tokenized
+ * and converted into rows concurrently, each by a {@link FileRowIterator} of its own, and handed out in the original
+ * order. Row IDs are not created here, the calling iterator creates them from the row headers read (see
+ * {@link #lastRowHeaderWasMissing()}), as they depend on the row number and on the IDs of all previous rows.
+ * <p>
+ * A file can only be split if a line feed is a row delimiter and none of the other patterns contain one. Use
+ * {@link #isApplicable(FileReaderSettings, long)} to check the settings before creating an instance.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ParallelFileRowReader {
+
+    /** The size (in characters) of the first chunk, following chunks double in size up to the max. */
+    static final int INITIAL_CHUNK_SIZE = 1 << 16;
+
+    /** The maximum size (in characters) of a chunk (except for single rows exceeding it). */
+    static final int MAX_CHUNK_SIZE = 1 << 22;
+
+    /* Smaller files are not worth the overhead. The size is unknown (0) for some sources, we split those anyway. */
+    private static final long MIN_FILE_SIZE = 1 << 20;
+
+    private static final char LF = '\n';
+
+    private static final char CR = '\r';
+
+    private final ChunkScanner m_scanner;
+
+    /* settings for the chunk that contains the beginning of the file */
+    private final FileReaderSettings m_firstChunkSettings;
+
+    /* settings for all other chunks (no lines to skip, no column headers) */
+    private final FileReaderSettings m_chunkSettings;
+
+    private final DataTableSpec m_tableSpec;
+
+    private final boolean[] m_skipColumns;
+
+    private final ThreadPool m_pool;
+
+    private final int m_maxPending;
+
+    private final LinkedList<Future<ParsedChunk>> m_pending = new LinkedList<>();
+
+    private int m_chunkCount;
+
+    private ParsedChunk m_current;
+
+    private int m_currentRow;
+
+    private boolean m_lastRowHeaderMissing;
+
+    private boolean m_closed;
+
+    /**
+     * @param source the characters of the file, the reader is not closed by this object
+     * @param frSettings the settings to read the file with
+     * @param tableSpec the spec of the rows to create
+     * @param skipColumns the columns of the file not to include in the rows
+     * @see FileRowIterator
+     */
+    ParallelFileRowReader(final Reader source, final FileReaderSettings frSettings, final DataTableSpec tableSpec,
+        final boolean[] skipColumns) {
+        m_scanner = new ChunkScanner(source, frSettings);
+        m_firstChunkSettings = new FileReaderSettings(frSettings);
+        m_firstChunkSettings.setMaximumNumberOfRowsToRead(-1);
+        m_chunkSettings = new FileReaderSettings(m_firstChunkSettings);
+        m_chunkSettings.setSkipFirstLines(0);
+        m_chunkSettings.setFileHasColumnHeaders(false);
+        m_tableSpec = tableSpec;
+        m_skipColumns = skipColumns;
+        final int threads = frSettings.getNumberOfParserThreads();
+        m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(threads);
+        m_maxPending = 2 * threads;
+    }
+
+    /**
+     * Checks whether files read with the given settings can be split at line feeds without changing the result.
+     *
+     * @param frSettings the settings to check
+     * @param fileSize the size of the file in bytes, 0 if unknown
+     * @return true, if the file should be parsed by an instance of this class
+     */
+    static boolean isApplicable(final FileReaderSettings frSettings, final long fileSize) {
+        if (frSettings.getNumberOfParserThreads() <= 1 || (fileSize > 0 && fileSize < MIN_FILE_SIZE)) {
+            return false;
+        }
+        final String lf = String.valueOf(LF);
+        if (!frSettings.isRowDelimiter(lf, false)) {
+            return false;
+        }
+        for (Delimiter d : frSettings.getAllDelimiters()) {
+            if (!d.getDelimiter().equals(lf) && d.getDelimiter().indexOf(LF) >= 0) {
+                return false;
+            }
+        }
+        for (Quote q : frSettings.getAllQuotes()) {
+            if (q.getLeft().indexOf(LF) >= 0 || q.getRight().indexOf(LF) >= 0
+                || (q.hasEscapeChar() && q.getEscape() == LF)) {
+                return false;
+            }
+        }
+        for (Comment c : frSettings.getAllComments()) {
+            if (c.getBegin().indexOf(LF) >= 0 || (!c.getEnd().equals(lf) && c.getEnd().indexOf(LF) >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true, if there is another row - or an exception that is thrown by the next call to {@link #next()}
+     */
+    boolean hasNext() {
+        while (!m_closed && (m_current == null || !m_current.hasMore(m_currentRow))) {
+            fillPending();
+            if (m_pending.isEmpty()) {
+                m_current = null;
+                return false;
+            }
+            m_current = waitFor(m_pending.removeFirst());
+            m_currentRow = 0;
+        }
+        return !m_closed;
+    }
+
+    /**
+     * Returns the next row. Its key is the row header as read from the file (or an empty string if the file has no
+     * row headers).
+     *
+     * @return the next row
+     * @throws RuntimeException the exception the parsing of the chunk failed with, thrown at the position of the
+     *             faulty row
+     */
+    DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        if (m_currentRow == m_current.m_rows.size()) {
+            // hasNext() only returns true in this case if the chunk failed
+            throw m_current.m_exception;
+        }
+        m_lastRowHeaderMissing = m_current.m_missingRowHeaders.get(m_currentRow);
+        return m_current.m_rows.get(m_currentRow++);
+    }
+
+    /**
+     * @return true, if the row returned by the last call to {@link #next()} had no (or an empty, unquoted) row header
+     *         in the file
+     */
+    boolean lastRowHeaderWasMissing() {
+        return m_lastRowHeaderMissing;
+    }
+
+    /** Cancels all pending chunks. Does not close the underlying source. */
+    void close() {
+        m_closed = true;
+        m_current = null;
+        m_pending.stream().forEach(f -> f.cancel(true));
+        m_pending.clear();
+    }
+
+    /* Cuts new chunks from the source and queues them until enough of them are pending. The chunk size is
+     * increased gradually so that the first rows are available quickly (e.g. in the dialog's preview). */
+    private void fillPending() {
+        while (m_pending.size() < m_maxPending) {
+            final int chunkSize = (int)Math.min(MAX_CHUNK_SIZE, (long)INITIAL_CHUNK_SIZE << Math.min(m_chunkCount, 16));
+            final Chunk chunk = m_scanner.nextChunk(chunkSize);
+            if (chunk == null) {
+                return;
+            }
+            final FileReaderSettings settings = m_chunkCount == 0 ? m_firstChunkSettings : m_chunkSettings;
+            m_pending.add(m_pool.enqueue(() -> parse(chunk, settings)));
+            m_chunkCount++;
+        }
+    }
+
+    private ParsedChunk parse(final Chunk chunk, final FileReaderSettings settings) {
+        final ParsedChunk result = new ParsedChunk();
+        try {
+            final FileRowIterator it = new FileRowIterator(settings, m_tableSpec, m_skipColumns,
+                new CharArrayReader(chunk.m_data), chunk.m_lineOffset);
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                if (it.lastRowHeaderWasMissing()) {
+                    result.m_missingRowHeaders.set(result.m_rows.size());
+                }
+                result.m_rows.add(row);
+            }
+        } catch (RuntimeException e) {
+            // the sequential reader stops at the first error, too
+            result.m_exception = e;
+        }
+        return result;
+    }
+
+    private ParsedChunk waitFor(final Future<ParsedChunk> future) {
+        boolean success = false;
+        try {
+            final ParsedChunk chunk = ParallelTasks.waitFor(future);
+            success = true;
+            return chunk;
+        } catch (CanceledExecutionException | ExecutionException e) {
+            throw new FileReaderException("Reading the file was interrupted.");
+        } finally {
+            if (!success) {
+                close();
+            }
+        }
+    }
+
+    /** A piece of the source that starts at the beginning of a row and ends after a row delimiter (or at EOF). */
+    static final class Chunk {
+        private final char[] m_data;
+
+        private final int m_lineOffset;
+
+        Chunk(final char[] data, final int lineOffset) {
+            m_data = data;
+            m_lineOffset = lineOffset;
+        }
+
+        /** @return the characters of the chunk */
+        String getText() {
+            return new String(m_data);
+        }
+
+        /** @return the number of lines in the source before this chunk */
+        int getLineOffset() {
+            return m_lineOffset;
+        }
+    }
+
+    private static final class ParsedChunk {
+        private final List<DataRow> m_rows = new ArrayList<>();
+
+        private final BitSet m_missingRowHeaders = new BitSet();
+
+        private RuntimeException m_exception;
+
+        boolean hasMore(final int row) {
+            return row < m_rows.size() || (row == m_rows.size() && m_exception != null);
+        }
+    }
+
+    /**
+     * Cuts the characters read from a source into chunks. It follows the tokenizer's precedence of the patterns
+     * (line continuation, comments, delimiters, quotes) to only cut behind line feeds that end a row. If in doubt
+     * (e.g. the line feeds following a comment, that are swallowed if the comment was all the token contained) it
+     * does not cut. The first lines to skip and the line containing the column headers always go into the first
+     * chunk.
+     */
+    static final class ChunkScanner {
+
+        private enum State {
+            NORMAL, QUOTED, COMMENT
+        }
+
+        private final Reader m_source;
+
+        private final String[] m_commentBegins;
+
+        private final Comment[] m_comments;
+
+        private final String[] m_delimiters;
+
+        private final Quote[] m_quotes;
+
+        private final String[] m_quoteBegins;
+
+        private final char[] m_whiteSpaces;
+
+        private final char[] m_delimiterStarts;
+
+        private final int m_lineContChar;
+
+        private final boolean m_allowLFinQuotes;
+
+        private final int m_lookahead;
+
+        private char[] m_buffer = new char[2 * INITIAL_CHUNK_SIZE];
+
+        /* the beginning of the current chunk in the buffer */
+        private int m_start;
+
+        /* the next character to scan */
+        private int m_pos;
+
+        /* the end of the valid characters in the buffer */
+        private int m_end;
+
+        private boolean m_eof;
+
+        private State m_state = State.NORMAL;
+
+        private Comment m_comment;
+
+        /* the position of the begin pattern of the current comment */
+        private int m_commentStart;
+
+        private Quote m_quote;
+
+        private long m_linesToSkip;
+
+        private int m_rowEndsToSkip;
+
+        /* the number of line feeds scanned so far */
+        private int m_lines;
+
+        private int m_chunkStartLine;
+
+        /* true if the last character scanned was a line feed ending a row */
+        private boolean m_rowEnded;
+
+        /* false if the current token contains characters, true if it possibly doesn't */
+        private boolean m_tokenMayBeEmpty = true;
+
+        /* true after a comment that causes the tokenizer to swallow the following line feeds */
+        private boolean m_swallowLineFeeds;
+
+        /**
+         * @param source to read the characters from
+         * @param settings the tokenizer settings
+         */
+        ChunkScanner(final Reader source, final FileReaderSettings settings) {
+            m_source = source;
+            m_comments = settings.getAllComments().toArray(new Comment[0]);
+            m_commentBegins = Arrays.stream(m_comments).map(Comment::getBegin).toArray(String[]::new);
+            m_delimiters = settings.getAllDelimiters().stream().map(Delimiter::getDelimiter).toArray(String[]::new);
+            m_quotes = settings.getAllQuotes().toArray(new Quote[0]);
+            m_quoteBegins = Arrays.stream(m_quotes).map(Quote::getLeft).toArray(String[]::new);
+            final StringBuilder ws = new StringBuilder();
+            settings.getAllWhiteSpaces().stream().filter(w -> !w.isEmpty()).forEach(w -> ws.append(w.charAt(0)));
+            m_whiteSpaces = ws.toString().toCharArray();
+            final StringBuilder delimStarts = new StringBuilder();
+            Arrays.stream(m_delimiters).filter(d -> !d.isEmpty()).forEach(d -> delimStarts.append(d.charAt(0)));
+            m_delimiterStarts = delimStarts.toString().toCharArray();
+            final String lineCont = settings.getLineContinuationCharacter();
+            m_lineContChar = lineCont == null || lineCont.isEmpty() ? -1 : lineCont.charAt(0);
+            m_allowLFinQuotes = settings.allowLFinQuotes();
+            int maxLength = 3; // line continuation (or escape char) + CR + LF
+            for (String p : m_commentBegins) {
+                maxLength = Math.max(maxLength, p.length());
+            }
+            for (Comment c : m_comments) {
+                maxLength = Math.max(maxLength, c.getEnd().length());
+            }
+            for (String d : m_delimiters) {
+                maxLength = Math.max(maxLength, d.length());
+            }
+            for (Quote q : m_quotes) {
+                maxLength = Math.max(maxLength, Math.max(q.getLeft().length(), q.getRight().length()));
+            }
+            m_lookahead = maxLength;
+            m_linesToSkip = settings.getSkipFirstLines();
+            m_rowEndsToSkip = settings.getFileHasColumnHeaders() ? 1 : 0;
+        }
+
+        /**
+         * Reads the next chunk from the source. It is cut at the first row boundary after the specified number of
+         * characters.
+         *
+         * @param minSize the minimum number of characters of the chunk (unless the end of the source is reached)
+         * @return the next chunk or null, if the end of the source was reached
+         */
+        Chunk nextChunk(final int minSize) {
+            while (true) {
+                if (!m_eof && m_end - m_pos < m_lookahead) {
+                    fill();
+                    continue;
+                }
+                if (m_pos >= m_end) {
+                    return m_pos == m_start ? null : cut();
+                }
+                if (isRowBoundary()) {
+                    if (m_rowEndsToSkip > 0) {
+                        m_rowEndsToSkip--;
+                    } else if (m_pos - m_start >= minSize) {
+                        return cut();
+                    }
+                }
+                scan();
+            }
+        }
+
+        private Chunk cut() {
+            final Chunk result = new Chunk(Arrays.copyOfRange(m_buffer, m_start, m_pos), m_chunkStartLine);
+            m_start = m_pos;
+            m_chunkStartLine = m_lines;
+            return result;
+        }
+
+        private void fill() {
+            if (m_end == m_buffer.length) {
+                if (m_start > 0) {
+                    System.arraycopy(m_buffer, m_start, m_buffer, 0, m_end - m_start);
+                    m_pos -= m_start;
+                    m_end -= m_start;
+                    m_commentStart -= m_start;
+                    m_start = 0;
+                } else {
+                    m_buffer = Arrays.copyOf(m_buffer, 2 * m_buffer.length);
+                }
+            }
+            try {
+                final int read = m_source.read(m_buffer, m_end, m_buffer.length - m_end);
+                if (read < 0) {
+                    m_eof = true;
+                } else {
+                    m_end += read;
+                }
+            } catch (IOException ioe) {
+                // same as the tokenizer: an I/O error ends the file
+                m_eof = true;
+            }
+        }
+
+        /* the tokenizer is at the start of a new row at the current position (and nothing is combined with the
+         * previous row delimiter) */
+        private boolean isRowBoundary() {
+            if (!m_rowEnded || m_state != State.NORMAL || m_linesToSkip > 0) {
+                return false;
+            }
+            final char c = m_buffer[m_pos];
+            if (c == LF || c == CR) {
+                return false;
+            }
+            for (char d : m_delimiterStarts) {
+                if (c == d) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /* scans the character(s) at the current position and advances it */
+        private void scan() {
+            final char c = m_buffer[m_pos];
+            m_rowEnded = false;
+            if (c == LF) {
+                m_lines++;
+            }
+            if (m_linesToSkip > 0) {
+                if (c == LF) {
+                    m_linesToSkip--;
+                }
+                m_pos++;
+                return;
+            }
+            switch (m_state) {
+                case COMMENT:
+                    scanComment(c);
+                    break;
+                case QUOTED:
+                    scanQuoted(c);
+                    break;
+                default:
+                    scanNormal(c);
+            }
+        }
+
+        private void scanNormal(final char c) {
+            if (c == m_lineContChar && lineFeedLength(m_pos + 1) > 0) {
+                m_lines++;
+                m_pos += 1 + lineFeedLength(m_pos + 1);
+                m_swallowLineFeeds = false;
+                return;
+            }
+            if (c == LF) {
+                m_rowEnded = !m_swallowLineFeeds;
+                m_tokenMayBeEmpty = true;
+                m_pos++;
+                return;
+            }
+            if (c == CR) {
+                // part of a CR+LF - or an ordinary character, then the tokenizer adds it to the token
+                m_tokenMayBeEmpty = false;
+                m_pos++;
+                return;
+            }
+            m_swallowLineFeeds = false;
+            int idx = match(m_commentBegins);
+            if (idx >= 0) {
+                m_comment = m_comments[idx];
+                m_swallowLineFeeds = m_tokenMayBeEmpty || m_comment.returnAsSeparateToken();
+                if (m_comment.returnAsSeparateToken()) {
+                    // the comment ends the token and is returned as token of its own
+                    m_tokenMayBeEmpty = true;
+                } else if (m_comment.includeInToken()) {
+                    m_tokenMayBeEmpty = false;
+                }
+                m_state = State.COMMENT;
+                m_commentStart = m_pos;
+                m_pos += m_commentBegins[idx].length();
+                return;
+            }
+            idx = match(m_delimiters);
+            if (idx >= 0) {
+                m_tokenMayBeEmpty = true;
+                m_pos += m_delimiters[idx].length();
+                return;
+            }
+            idx = match(m_quoteBegins);
+            if (idx >= 0) {
+                m_quote = m_quotes[idx];
+                m_state = State.QUOTED;
+                m_pos += m_quoteBegins[idx].length();
+                return;
+            }
+            if (!isWhiteSpace(c)) {
+                m_tokenMayBeEmpty = false;
+            }
+            m_pos++;
+        }
+
+        private void scanComment(final char c) {
+            final String end = m_comment.getEnd();
+            if (end.equals(String.valueOf(LF)) && c == LF) {
+                // the tokenizer pushes back the LF, it's read as delimiter (unless swallowed)
+                m_lines--;
+                m_state = State.NORMAL;
+                return;
+            }
+            m_pos++;
+            // like the tokenizer, this also finds end patterns overlapping the begin pattern (e.g. "/*/")
+            final int endStart = m_pos - end.length();
+            if (endStart >= m_commentStart && matchesAt(end, endStart)) {
+                m_state = State.NORMAL;
+            }
+        }
+
+        private void scanQuoted(final char c) {
+            if (c == m_lineContChar && lineFeedLength(m_pos + 1) > 0) {
+                m_lines++;
+                m_pos += 1 + lineFeedLength(m_pos + 1);
+                return;
+            }
+            if (c == LF && !m_allowLFinQuotes) {
+                // the tokenizer fails here, the row isn't going to be read anyway
+                m_state = State.NORMAL;
+                m_pos++;
+                return;
+            }
+            if (m_quote.hasEscapeChar() && c == m_quote.getEscape()) {
+                m_tokenMayBeEmpty = false;
+                m_pos++;
+                final int lfLength = lineFeedLength(m_pos);
+                if (lfLength > 0) {
+                    m_lines++;
+                    m_pos += lfLength;
+                } else if (m_pos < m_end) {
+                    m_pos++;
+                }
+                return;
+            }
+            if (matches(m_quote.getRight())) {
+                m_state = State.NORMAL;
+                m_pos += m_quote.getRight().length();
+                return;
+            }
+            m_tokenMayBeEmpty = false;
+            m_pos++;
+        }
+
+        /* the number of characters of the line feed (LF or CR+LF) at the given position, 0 if there is none */
+        private int lineFeedLength(final int pos) {
+            if (pos < m_end && m_buffer[pos] == LF) {
+                return 1;
+            }
+            if (pos + 1 < m_end && m_buffer[pos] == CR && m_buffer[pos + 1] == LF) {
+                return 2;
+            }
+            return 0;
+        }
+
+        private boolean isWhiteSpace(final char c) {
+            for (char w : m_whiteSpaces) {
+                if (c == w) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /* returns the index of the shortest pattern matching at the current position, -1 if none matches */
+        private int match(final String[] patterns) {
+            int result = -1;
+            for (int i = 0; i < patterns.length; i++) {
+                if (matches(patterns[i])
+                    && (result < 0 || patterns[i].length() < patterns[result].length())) {
+                    result = i;
+                }
+            }
+            return result;
+        }
+
+        private boolean matches(final String pattern) {
+            return matchesAt(pattern, m_pos);
+        }
+
+        private boolean matchesAt(final String pattern, final int pos) {
+            final int length = pattern.length();
+            if (length == 0 || pos + length > m_end) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (m_buffer[pos + i] != pattern.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
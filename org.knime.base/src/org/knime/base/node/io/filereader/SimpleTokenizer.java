@@ -0,0 +1,552 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.knime.core.util.tokenizer.Delimiter;
+import org.knime.core.util.tokenizer.Quote;
+import org.knime.core.util.tokenizer.Tokenizer;
+import org.knime.core.util.tokenizer.TokenizerException;
+
+/**
+ * A tokenizer for the common case of single character delimiters and quotes, without comments and line
+ * continuations. It splits the stream exactly like the {@link Tokenizer} does with the same settings, but reads the
+ * characters block-wise into an array and keeps the current token in a reused character buffer - it doesn't create a
+ * string per token. The {@link FileRowIterator} uses it (see {@link #isApplicable(FileReaderSettings)}) and creates
+ * the cells directly from the characters of the token (see {@link TokenCellParser}).
+ * <p>
+ * Delimiters returned as token must be row delimiters, they are reported through {@link #isRowDelimiter()}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class SimpleTokenizer {
+
+    private static final int EOF = -1;
+
+    /* no character pushed back */
+    private static final int NONE = -2;
+
+    private static final char LF = '\n';
+
+    private static final char CR = '\r';
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /* character types, a character can be of multiple types - the first one in this list wins. */
+    private static final byte DELIM = 1;
+
+    private static final byte QUOTE = 2;
+
+    private static final byte WSCHAR = 4;
+
+    /* line feeds and carriage returns (if not special anyway) are handled like ordinary chars - but counted or
+     * swallowed by read() */
+    private static final byte NEWLINE = 8;
+
+    private final Reader m_source;
+
+    private final char[] m_buffer = new char[BUFFER_SIZE];
+
+    private int m_pos;
+
+    private int m_limit;
+
+    private boolean m_eof;
+
+    /* true, if the next character in the buffer was looked at after reading a CR */
+    private boolean m_lookedAhead;
+
+    /* a character read but put back (after looking ahead), or NONE */
+    private int m_putBack = NONE;
+
+    /* indexed by character, only up to the largest special character */
+    private final byte[] m_charType;
+
+    private final boolean[] m_returnDelim;
+
+    private final boolean[] m_combineDelim;
+
+    /* the escape char of quotes started by the index char, or NONE */
+    private final int[] m_escape;
+
+    private final boolean m_allowLFinQuotes;
+
+    private final long m_linesToSkip;
+
+    private long m_linesSkipped;
+
+    /* like the tokenizer's, starts with one */
+    private int m_lineNo = 1;
+
+    private char[] m_token = new char[64];
+
+    private int m_length;
+
+    /* false, if EOF was read without a token */
+    private boolean m_hasToken;
+
+    private boolean m_quoted;
+
+    private boolean m_delimited;
+
+    private boolean m_rowDelimiter;
+
+    /* a delimiter to return as next token, or NONE */
+    private int m_pendingDelimiter = NONE;
+
+    private boolean m_pushedBack;
+
+    /**
+     * Checks if the settings only contain patterns this tokenizer supports.
+     *
+     * @param frSettings the settings to check
+     * @return true, if files read with these settings can be tokenized by an instance of this class
+     */
+    static boolean isApplicable(final FileReaderSettings frSettings) {
+        if (frSettings.getCombineMultipleDelimiters() || !frSettings.getAllComments().isEmpty()
+            || frSettings.getLineContinuationCharacter() != null) {
+            return false;
+        }
+        for (Delimiter d : frSettings.getAllDelimiters()) {
+            if (d.getDelimiter().length() != 1 || d.includeInToken()
+                || d.returnAsToken() != frSettings.isRowDelimiter(d.getDelimiter(), false)) {
+                return false;
+            }
+        }
+        boolean[] leftQuotes = new boolean[Character.MAX_VALUE + 1];
+        for (Quote q : frSettings.getAllQuotes()) {
+            if (q.getLeft().length() != 1 || !q.getLeft().equals(q.getRight()) || q.getDontRemoveFlag()
+                || leftQuotes[q.getFirstCharOfLeft()]) {
+                return false;
+            }
+            if (q.hasEscapeChar()
+                && (q.getEscape() == q.getFirstCharOfLeft() || q.getEscape() == LF || q.getEscape() == CR)) {
+                return false;
+            }
+            leftQuotes[q.getFirstCharOfLeft()] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a new tokenizer reading from the source. Only call with settings this tokenizer supports.
+     *
+     * @param source the characters to tokenize, closed after the EOF was read
+     * @param frSettings the settings to tokenize with
+     * @see #isApplicable(FileReaderSettings)
+     */
+    SimpleTokenizer(final Reader source, final FileReaderSettings frSettings) {
+        assert isApplicable(frSettings);
+        m_source = source;
+        int maxChar = CR;
+        for (Delimiter d : frSettings.getAllDelimiters()) {
+            maxChar = Math.max(maxChar, d.getFirstChar());
+        }
+        for (Quote q : frSettings.getAllQuotes()) {
+            maxChar = Math.max(maxChar, q.getFirstCharOfLeft());
+        }
+        for (String ws : frSettings.getAllWhiteSpaces()) {
+            maxChar = Math.max(maxChar, ws.charAt(0));
+        }
+        m_charType = new byte[maxChar + 1];
+        m_returnDelim = new boolean[maxChar + 1];
+        m_combineDelim = new boolean[maxChar + 1];
+        m_escape = new int[maxChar + 1];
+        Arrays.fill(m_escape, NONE);
+        m_charType[LF] = NEWLINE;
+        m_charType[CR] = NEWLINE;
+        for (Delimiter d : frSettings.getAllDelimiters()) {
+            char c = d.getFirstChar();
+            m_charType[c] |= DELIM;
+            m_returnDelim[c] = d.returnAsToken();
+            m_combineDelim[c] = d.combineConsecutiveDelims();
+        }
+        for (Quote q : frSettings.getAllQuotes()) {
+            char c = q.getFirstCharOfLeft();
+            m_charType[c] |= QUOTE;
+            if (q.hasEscapeChar()) {
+                m_escape[c] = q.getEscape();
+            }
+        }
+        for (String ws : frSettings.getAllWhiteSpaces()) {
+            m_charType[ws.charAt(0)] |= WSCHAR;
+        }
+        m_allowLFinQuotes = frSettings.allowLFinQuotes();
+        m_linesToSkip = frSettings.getSkipFirstLines();
+    }
+
+    /**
+     * Reads the next token from the stream. The content of the token is then available through
+     * {@link #getChars()} and {@link #getLength()}, or as string through {@link #getToken()}.
+     *
+     * @return false, if no more token can be read (at the EOF)
+     * @throws TokenizerException if a quoted string contains a line feed and that is not allowed
+     * @see Tokenizer#nextToken()
+     */
+    boolean nextToken() throws TokenizerException {
+        if (m_pushedBack) {
+            m_pushedBack = false;
+            return m_hasToken;
+        }
+        m_hasToken = true;
+        m_quoted = false;
+        m_delimited = false;
+        if (m_pendingDelimiter != NONE) {
+            m_token[0] = (char)m_pendingDelimiter;
+            m_length = 1;
+            m_rowDelimiter = true;
+            m_pendingDelimiter = NONE;
+            return true;
+        }
+        while (m_linesSkipped < m_linesToSkip) {
+            int c = read();
+            if (c == EOF) {
+                break;
+            }
+            if (c == LF) {
+                m_linesSkipped++;
+            }
+        }
+        m_length = 0;
+        m_rowDelimiter = false;
+
+        final byte[] charType = m_charType;
+        int lastEndQuoteIdx = -1;
+        int c = read();
+        while (c != EOF) {
+            int ctype = c < charType.length ? charType[c] : 0;
+            if (ctype == 0) {
+                append((char)c);
+                appendOrdinaryChars();
+                c = read();
+                continue;
+            }
+            if ((ctype & DELIM) != 0) {
+                if (m_combineDelim[c]) {
+                    int next;
+                    while ((next = read()) == c) {
+                        // swallow it
+                    }
+                    putBack(next);
+                }
+                cutOffWhiteSpaces(lastEndQuoteIdx);
+                if (m_returnDelim[c]) {
+                    m_pendingDelimiter = c;
+                } else {
+                    m_delimited = true;
+                }
+                break;
+            }
+            if ((ctype & QUOTE) != 0) {
+                readQuotedString((char)c);
+                lastEndQuoteIdx = m_length - 1;
+                m_quoted = true;
+                c = read();
+                continue;
+            }
+            if ((ctype & WSCHAR) != 0 && m_length == 0) {
+                c = read();
+                continue;
+            }
+            append((char)c);
+            c = read();
+        }
+
+        if (c == EOF) {
+            closeSourceStream();
+            cutOffWhiteSpaces(lastEndQuoteIdx);
+            if (m_length == 0) {
+                m_hasToken = false;
+            }
+        }
+        return m_hasToken;
+    }
+
+    /*
+     * Appends all characters following in the buffer that need no special treatment.
+     */
+    private void appendOrdinaryChars() {
+        if (m_putBack != NONE) {
+            return;
+        }
+        final char[] buffer = m_buffer;
+        final byte[] charType = m_charType;
+        final int start = m_pos;
+        int pos = start;
+        while (pos < m_limit) {
+            char c = buffer[pos];
+            if (c < charType.length && charType[c] != 0) {
+                break;
+            }
+            pos++;
+        }
+        if (pos > start) {
+            ensureCapacity(m_length + pos - start);
+            System.arraycopy(buffer, start, m_token, m_length, pos - start);
+            m_length += pos - start;
+            m_pos = pos;
+        }
+    }
+
+    /*
+     * Reads the characters up to the closing quote (which is swallowed, like the opening one). A closing quote
+     * preceded by the escape char doesn't end the quoted string.
+     */
+    private void readQuotedString(final char quote) throws TokenizerException {
+        final int escape = m_escape[quote];
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                return;
+            }
+            if (c == LF && !m_allowLFinQuotes) {
+                m_pendingDelimiter = NONE;
+                throw new TokenizerException("New line in quoted string"
+                    + " (or closing quote missing). In line " + (m_lineNo - 1) + ".");
+            }
+            if (c == escape) {
+                c = translateEscChar(c);
+            } else if (c == quote) {
+                return;
+            }
+            append((char)c);
+        }
+    }
+
+    /*
+     * Reads the character following the escape character and returns the character it stands for.
+     */
+    private int translateEscChar(final int escChar) {
+        int c = read();
+        if (c == EOF) {
+            return escChar;
+        } else if (c == 't') {
+            return '\t';
+        } else if (c == 'n') {
+            return LF;
+        } else {
+            return c;
+        }
+    }
+
+    /*
+     * Strips off whitespaces from the end of the token, but not at or before the specified index.
+     */
+    private void cutOffWhiteSpaces(final int index) {
+        while (m_length - 1 > index && isWhiteSpace(m_token[m_length - 1])) {
+            m_length--;
+        }
+    }
+
+    private boolean isWhiteSpace(final char c) {
+        return c < m_charType.length && (m_charType[c] & WSCHAR) != 0;
+    }
+
+    private void append(final char c) {
+        if (m_length == m_token.length) {
+            ensureCapacity(m_length + 1);
+        }
+        m_token[m_length++] = c;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > m_token.length) {
+            m_token = Arrays.copyOf(m_token, Math.max(capacity, 2 * m_token.length));
+        }
+    }
+
+    /*
+     * Reads the next character from the buffer. A CR immediately followed by a LF is swallowed. Counts the lines.
+     */
+    private int read() {
+        int c;
+        if (m_putBack != NONE) {
+            c = m_putBack;
+            m_putBack = NONE;
+        } else {
+            if (m_pos == m_limit && !fillBuffer()) {
+                return EOF;
+            }
+            // like the tokenizer, don't look at the char after a CR that was seen when looking ahead
+            final boolean lookAhead = !m_lookedAhead;
+            m_lookedAhead = false;
+            c = m_buffer[m_pos++];
+            if (c == CR && lookAhead && (m_pos < m_limit || fillBuffer())) {
+                if (m_buffer[m_pos] == LF) {
+                    c = LF;
+                    m_pos++;
+                } else {
+                    m_lookedAhead = true;
+                }
+            }
+        }
+        if (c == LF) {
+            m_lineNo++;
+        }
+        return c;
+    }
+
+    /* the next call to read() returns the character again */
+    private void putBack(final int c) {
+        assert m_putBack == NONE;
+        m_putBack = c;
+        if (c == LF) {
+            m_lineNo--;
+        }
+    }
+
+    /*
+     * Reads the next characters from the source. Must only be called if the current buffer is consumed. Returns false
+     * at the EOF.
+     */
+    private boolean fillBuffer() {
+        if (m_eof) {
+            return false;
+        }
+        try {
+            int read = m_source.read(m_buffer, 0, m_buffer.length);
+            if (read > 0) {
+                m_pos = 0;
+                m_limit = read;
+                return true;
+            }
+        } catch (IOException ioe) {
+            // like the tokenizer: treat it as end of file
+        }
+        m_eof = true;
+        return false;
+    }
+
+    /**
+     * After a call to this method the next call to {@link #nextToken()} returns the last token again.
+     */
+    void pushBack() {
+        m_pushedBack = true;
+    }
+
+    /**
+     * @return the characters of the last token (in the range 0 to {@link #getLength()}), the array is reused
+     */
+    char[] getChars() {
+        return m_token;
+    }
+
+    /**
+     * @return the number of characters of the last token
+     */
+    int getLength() {
+        return m_length;
+    }
+
+    /**
+     * @return the last token as string
+     */
+    String getToken() {
+        return new String(m_token, 0, m_length);
+    }
+
+    /**
+     * @param str the string to compare the token with, can be null
+     * @return true, if the last token consists of the characters of the string
+     */
+    boolean contentEquals(final String str) {
+        if (str == null || str.length() != m_length) {
+            return false;
+        }
+        for (int i = 0; i < m_length; i++) {
+            if (str.charAt(i) != m_token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true, if the last token is a row delimiter (or no token was read at the EOF)
+     */
+    boolean isRowDelimiter() {
+        return m_rowDelimiter || !m_hasToken;
+    }
+
+    /**
+     * @return true, if the last token was quoted
+     * @see Tokenizer#lastTokenWasQuoted()
+     */
+    boolean lastTokenWasQuoted() {
+        return m_quoted;
+    }
+
+    /**
+     * @return true, if the last token was ended by a delimiter that is not returned as token
+     * @see Tokenizer#lastTokenWasDelimited()
+     */
+    boolean lastTokenWasDelimited() {
+        return m_delimited;
+    }
+
+    /**
+     * @return the number of the current line (one plus the number of line feeds read so far)
+     */
+    int getLineNumber() {
+        return m_lineNo;
+    }
+
+    /**
+     * Closes the source, discarding all characters not read yet.
+     */
+    void closeSourceStream() {
+        m_pos = m_limit;
+        m_putBack = NONE;
+        m_eof = true;
+        try {
+            m_source.close();
+        } catch (IOException ioe) {
+            // okay, then don't close it.
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.io.filereader;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Creates cells of the basic types directly from the characters of a token read by the {@link SimpleTokenizer}.
+ * Numbers are only parsed here if the conversion is trivially exact (plain digits, no exponent, no thousands
+ * separator), for all other tokens {@link #createCell(DataType, int, char[], int)} returns <code>null</code> and the
+ * caller must use the {@link DataCellFactory}, which also creates the error messages. String cells are cached per
+ * column, so that repeated nominal values share one cell, until the column turns out to have too many different
+ * values.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TokenCellParser {
+
+    /* size of the string cell cache of one column, must be a power of two */
+    private static final int CACHE_SIZE = 1 << 10;
+
+    /* the cache of a column is dropped if, after this many lookups, less than a quarter of the lookups hit */
+    private static final int CACHE_PROBATION = 4 * CACHE_SIZE;
+
+    /* 2^53, larger mantissas can't be converted exactly */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /* the powers of ten that are exactly representable as double */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private final char m_decimalSeparator;
+
+    private final boolean m_hasThousandsSeparator;
+
+    private final StringCell[][] m_stringCaches;
+
+    private final int[] m_lookups;
+
+    private final int[] m_hits;
+
+    /**
+     * @param numColumns the number of columns cells are created for
+     * @param decimalSeparator the decimal separator of floating point numbers
+     * @param thousandsSeparator the separator of groups of thousands, '\0' if not set
+     */
+    TokenCellParser(final int numColumns, final char decimalSeparator, final char thousandsSeparator) {
+        m_decimalSeparator = decimalSeparator;
+        m_hasThousandsSeparator = thousandsSeparator != '\0';
+        m_stringCaches = new StringCell[numColumns][];
+        for (int i = 0; i < numColumns; i++) {
+            m_stringCaches[i] = new StringCell[CACHE_SIZE];
+        }
+        m_lookups = new int[numColumns];
+        m_hits = new int[numColumns];
+    }
+
+    /**
+     * Creates a cell from the characters of a token.
+     *
+     * @param type the type of the cell to create
+     * @param column the index of the column the cell is created for
+     * @param chars the characters of the token
+     * @param length the number of characters of the token
+     * @return the new cell, or <code>null</code> if the type is not supported or the token is not in a trivial format
+     */
+    DataCell createCell(final DataType type, final int column, final char[] chars, final int length) {
+        if (StringCell.TYPE.equals(type)) {
+            return createStringCell(column, chars, length);
+        } else if (IntCell.TYPE.equals(type)) {
+            if (!isInteger(chars, length, 10)) {
+                return null;
+            }
+            long value = parseDigits(chars, length);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                return null;
+            }
+            return new IntCell((int)value);
+        } else if (LongCell.TYPE.equals(type)) {
+            if (!isInteger(chars, length, 18)) {
+                return null;
+            }
+            return new LongCell(parseDigits(chars, length));
+        } else if (DoubleCell.TYPE.equals(type)) {
+            return m_hasThousandsSeparator ? null : createDoubleCell(chars, length);
+        }
+        return null;
+    }
+
+    /*
+     * True, if the chars are an optional sign followed by 1 to maxDigits digits.
+     */
+    private static boolean isInteger(final char[] chars, final int length, final int maxDigits) {
+        int start = length > 0 && (chars[0] == '-' || chars[0] == '+') ? 1 : 0;
+        if (length == start || length - start > maxDigits) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            if (chars[i] < '0' || chars[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Parses a string accepted by isInteger.
+     */
+    private static long parseDigits(final char[] chars, final int length) {
+        boolean negative = chars[0] == '-';
+        int start = negative || chars[0] == '+' ? 1 : 0;
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            value = 10 * value + (chars[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /*
+     * Creates a double cell from an optional sign, digits and an optional decimal separator followed by more digits.
+     * The mantissa and the power of ten are exact doubles then, and so is their (correctly rounded) quotient.
+     */
+    private DataCell createDoubleCell(final char[] chars, final int length) {
+        boolean negative = length > 0 && chars[0] == '-';
+        int i = length > 0 && (negative || chars[0] == '+') ? 1 : 0;
+        long mantissa = 0;
+        int digits = 0;
+        boolean hasDigit = false;
+        int fractionDigits = -1;
+        for (; i < length; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                if ((mantissa > 0 || c != '0') && ++digits > 18) {
+                    return null;
+                }
+                mantissa = 10 * mantissa + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == m_decimalSeparator && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return null;
+            }
+        }
+        if (!hasDigit || mantissa >= MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length) {
+            return null;
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return new DoubleCell(negative ? -value : value);
+    }
+
+    /*
+     * Returns the cached cell with the same string - or a new one (which is then cached).
+     */
+    private DataCell createStringCell(final int column, final char[] chars, final int length) {
+        StringCell[] cache = m_stringCaches[column];
+        if (cache == null) {
+            return new StringCell(new String(chars, 0, length));
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        int lookups = ++m_lookups[column];
+        StringCell cell = cache[index];
+        if (cell != null && contentEquals(cell.getStringValue(), chars, length)) {
+            m_hits[column]++;
+            return cell;
+        }
+        cell = new StringCell(new String(chars, 0, length));
+        if (lookups >= CACHE_PROBATION && m_hits[column] < lookups / 4) {
+            // mostly distinct values: caching doesn't pay off
+            m_stringCaches[column] = null;
+        } else {
+            cache[index] = cell;
+        }
+        return cell;
+    }
+
+    private static boolean contentEquals(final String str, final char[] chars, final int length) {
+        if (str.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (str.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
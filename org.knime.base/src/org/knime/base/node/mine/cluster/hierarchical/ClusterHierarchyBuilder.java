@@ -0,0 +1,500 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.cluster.hierarchical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.knime.base.node.mine.cluster.hierarchical.HierarchicalClusterNodeModel.Linkage;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.MinkowskiDist;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Computes the merges of an agglomerative hierarchical clustering in O(n&sup2;) time. Single linkage uses SLINK, which
+ * computes the distances on the fly and only needs linear memory. Complete and average linkage use the
+ * nearest-neighbor chain algorithm, which works on a distance matrix that is computed in parallel and updated with the
+ * Lance-Williams formula after each merge.
+ *
+ * <p>
+ * If the distance matrix is not cached (or doesn't fit into memory), complete and average linkage fall back to the
+ * greedy algorithm that recomputes the linkage distances of all cluster pairs in each step. It needs O(n&sup3;) time
+ * but only linear memory.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ClusterHierarchyBuilder {
+
+    /** Minimum number of vector entries processed by one task, smaller jobs are done in the calling thread. */
+    private static final int MIN_WORK_PER_TASK = 1 << 16;
+
+    private final double[][] m_points;
+
+    private final MinkowskiDist m_distance;
+
+    private final ExecutionMonitor m_exec;
+
+    private final int m_maxThreads;
+
+    private ThreadPool m_pool;
+
+    /**
+     * @param points the data points, missing values are represented by {@link Double#NaN}
+     * @param distance the distance function
+     * @param exec for progress and cancellation
+     */
+    ClusterHierarchyBuilder(final double[][] points, final MinkowskiDist distance, final ExecutionMonitor exec) {
+        m_points = points;
+        m_distance = distance;
+        m_exec = exec;
+        m_maxThreads = Math.max(1, KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads());
+    }
+
+    /**
+     * Returns the approximate number of bytes needed for the distance matrix of the given number of points.
+     *
+     * @param pointCount the number of points
+     * @return the memory requirement in bytes
+     */
+    static long getDistanceMatrixBytes(final int pointCount) {
+        // float entries of the lower triangle plus array headers
+        return 4L * pointCount * (pointCount - 1) / 2 + 16L * pointCount;
+    }
+
+    /**
+     * @param pointCount the number of points
+     * @return whether the distance matrix is likely to fit into the available heap space
+     */
+    static boolean isDistanceMatrixAffordable(final int pointCount) {
+        final Runtime runtime = Runtime.getRuntime();
+        final long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return getDistanceMatrixBytes(pointCount) < available;
+    }
+
+    /**
+     * Single linkage clustering using SLINK (R. Sibson, 1973).
+     *
+     * @return the merges
+     * @throws CanceledExecutionException if canceled
+     */
+    Merges slink() throws CanceledExecutionException {
+        final int n = m_points.length;
+        final int[] pi = new int[n];
+        final double[] lambda = new double[n];
+        final double[] m = new double[n];
+        for (int i = 0; i < n; i++) {
+            reportProgress(i, n);
+            pi[i] = i;
+            lambda[i] = Double.POSITIVE_INFINITY;
+            computeDistances(i, m);
+            for (int j = 0; j < i; j++) {
+                final int p = pi[j];
+                if (lambda[j] >= m[j]) {
+                    m[p] = Math.min(m[p], lambda[j]);
+                    lambda[j] = m[j];
+                    pi[j] = i;
+                } else {
+                    m[p] = Math.min(m[p], m[j]);
+                }
+            }
+            for (int j = 0; j < i; j++) {
+                if (lambda[j] >= lambda[pi[j]]) {
+                    pi[j] = i;
+                }
+            }
+        }
+        return Merges.fromPointerRepresentation(pi, lambda);
+    }
+
+    /**
+     * Clustering that merges the two closest clusters in each step, computing their linkage distance from the
+     * distances of all their points. This is the algorithm the node used before the O(n&sup2;) algorithms were
+     * introduced, it finds the same hierarchy (with the same tie breaking) and doesn't need the distance matrix.
+     *
+     * @param linkage the linkage
+     * @return the merges in the order they were made, already with the cluster indices of {@link Merges#sort()}
+     *         (they must not be sorted again)
+     * @throws CanceledExecutionException if canceled
+     */
+    Merges greedy(final Linkage linkage) throws CanceledExecutionException {
+        final int n = m_points.length;
+        // the points of the current clusters and the cluster indices (see Merges), in the order of their creation
+        final List<int[]> clusters = new ArrayList<int[]>(n);
+        final List<Integer> clusterIndices = new ArrayList<Integer>(n);
+        for (int i = 0; i < n; i++) {
+            clusters.add(new int[]{i});
+            clusterIndices.add(i);
+        }
+        final Merges merges = new Merges(Math.max(0, n - 1));
+        for (int step = 0; step < n - 1; step++) {
+            m_exec.checkCanceled();
+            m_exec.setProgress(step / (double)(n - 1));
+            float min = Float.MAX_VALUE;
+            int first = -1;
+            int second = -1;
+            for (int i = 0; i < clusters.size(); i++) {
+                for (int j = i + 1; j < clusters.size(); j++) {
+                    final float d = getLinkageDistance(clusters.get(i), clusters.get(j), linkage);
+                    if (d < min || first < 0) {
+                        min = d;
+                        first = i;
+                        second = j;
+                    }
+                }
+            }
+            merges.add(clusterIndices.get(first), clusterIndices.get(second), min);
+            final int[] firstPoints = clusters.get(first);
+            final int[] secondPoints = clusters.get(second);
+            final int[] merged = Arrays.copyOf(firstPoints, firstPoints.length + secondPoints.length);
+            System.arraycopy(secondPoints, 0, merged, firstPoints.length, secondPoints.length);
+            // the merged cluster is appended, second > first
+            final int mergedIndex = clusterIndices.get(second);
+            clusters.remove(second);
+            clusters.remove(first);
+            clusterIndices.remove(second);
+            clusterIndices.remove(first);
+            clusters.add(merged);
+            clusterIndices.add(mergedIndex);
+        }
+        return merges;
+    }
+
+    /** The linkage distance of the two clusters, computed in float precision like the distance matrix entries. */
+    private float getLinkageDistance(final int[] first, final int[] second, final Linkage linkage) {
+        float result = linkage == Linkage.SINGLE ? Float.MAX_VALUE : 0;
+        for (int a : first) {
+            for (int b : second) {
+                final float d = (float)m_distance.calcDistance(m_points[a], m_points[b]);
+                switch (linkage) {
+                    case SINGLE:
+                        result = Math.min(result, d);
+                        break;
+                    case COMPLETE:
+                        result = Math.max(result, d);
+                        break;
+                    default:
+                        result += d;
+                }
+            }
+        }
+        return linkage == Linkage.AVERAGE ? result / (first.length * second.length) : result;
+    }
+
+    /**
+     * Clustering using the nearest-neighbor chain algorithm on the full distance matrix. Valid for all linkages that
+     * satisfy the reducibility property, which includes single, complete and average linkage.
+     *
+     * @param linkage the linkage
+     * @return the merges
+     * @throws CanceledExecutionException if canceled
+     */
+    Merges nnChain(final Linkage linkage) throws CanceledExecutionException {
+        final int n = m_points.length;
+        final float[][] dist = computeDistanceMatrix(m_exec.createSubProgress(0.5));
+        final ExecutionMonitor mergeExec = m_exec.createSubProgress(0.5);
+        final int[] size = new int[n];
+        Arrays.fill(size, 1);
+        // doubly linked list of the active clusters
+        final int[] next = new int[n];
+        final int[] prev = new int[n];
+        for (int i = 0; i < n; i++) {
+            next[i] = i + 1 < n ? i + 1 : -1;
+            prev[i] = i - 1;
+        }
+        int head = n > 0 ? 0 : -1;
+        final int[] chain = new int[n];
+        int chainLength = 0;
+        final Merges merges = new Merges(Math.max(0, n - 1));
+        for (int step = 0; step < n - 1; step++) {
+            mergeExec.checkCanceled();
+            mergeExec.setProgress(step / (double)(n - 1));
+            if (chainLength == 0) {
+                chain[chainLength++] = head;
+            }
+            int a;
+            int b;
+            while (true) {
+                a = chain[chainLength - 1];
+                final int previous = chainLength >= 2 ? chain[chainLength - 2] : -1;
+                // prefer the previous chain element on ties, otherwise the chain may cycle
+                b = previous;
+                float min = previous >= 0 ? get(dist, a, previous) : Float.POSITIVE_INFINITY;
+                for (int x = head; x >= 0; x = next[x]) {
+                    if (x != a) {
+                        final float d = get(dist, a, x);
+                        if (d < min || b < 0) {
+                            min = d;
+                            b = x;
+                        }
+                    }
+                }
+                if (b == previous) {
+                    break;
+                }
+                chain[chainLength++] = b;
+            }
+            // a and b are reciprocal nearest neighbors
+            chainLength -= 2;
+            merges.add(a, b, get(dist, a, b));
+            // remove a, the merged cluster is kept at position b
+            if (prev[a] >= 0) {
+                next[prev[a]] = next[a];
+            } else {
+                head = next[a];
+            }
+            if (next[a] >= 0) {
+                prev[next[a]] = prev[a];
+            }
+            final int sizeA = size[a];
+            final int sizeB = size[b];
+            for (int x = head; x >= 0; x = next[x]) {
+                if (x != b) {
+                    final float da = get(dist, a, x);
+                    final float db = get(dist, b, x);
+                    final float d;
+                    switch (linkage) {
+                        case SINGLE:
+                            d = Math.min(da, db);
+                            break;
+                        case COMPLETE:
+                            d = Math.max(da, db);
+                            break;
+                        default:
+                            d = (float)(((double)sizeA * da + (double)sizeB * db) / (sizeA + sizeB));
+                    }
+                    set(dist, b, x, d);
+                }
+            }
+            size[b] = sizeA + sizeB;
+        }
+        return merges;
+    }
+
+    private static float get(final float[][] dist, final int i, final int j) {
+        return i > j ? dist[i][j] : dist[j][i];
+    }
+
+    private static void set(final float[][] dist, final int i, final int j, final float value) {
+        if (i > j) {
+            dist[i][j] = value;
+        } else {
+            dist[j][i] = value;
+        }
+    }
+
+    /**
+     * Computes the lower triangle of the distance matrix in parallel.
+     *
+     * @param exec for progress and cancellation
+     * @return the matrix, row <code>i</code> contains the distances to the points <code>0</code> to <code>i-1</code>
+     * @throws CanceledExecutionException if canceled
+     */
+    float[][] computeDistanceMatrix(final ExecutionMonitor exec) throws CanceledExecutionException {
+        final int n = m_points.length;
+        final float[][] dist = new float[n][];
+        final int dim = n > 0 ? Math.max(1, m_points[0].length) : 1;
+        final long work = (long)n * n / 2 * dim;
+        final int taskCount = (int)Math.max(1, Math.min(m_maxThreads, work / MIN_WORK_PER_TASK));
+        runParallel(taskCount, task -> {
+            // rows are assigned round robin as their length increases
+            for (int i = task; i < n; i += taskCount) {
+                if (task == 0) {
+                    exec.checkCanceled();
+                    exec.setProgress(i * (double)i / ((double)n * n));
+                }
+                final double[] point = m_points[i];
+                final float[] row = new float[i];
+                for (int j = 0; j < i; j++) {
+                    row[j] = (float)m_distance.calcDistance(point, m_points[j]);
+                }
+                dist[i] = row;
+            }
+        });
+        return dist;
+    }
+
+    /** Fills the first <code>i</code> entries of the array with the distances of point <code>i</code>. */
+    private void computeDistances(final int i, final double[] m) throws CanceledExecutionException {
+        final double[] point = m_points[i];
+        final long work = (long)i * Math.max(1, point.length);
+        final int taskCount = (int)Math.max(1, Math.min(m_maxThreads, work / MIN_WORK_PER_TASK));
+        final int chunk = (i + taskCount - 1) / taskCount;
+        runParallel(taskCount, task -> {
+            final int end = Math.min(i, (task + 1) * chunk);
+            for (int j = task * chunk; j < end; j++) {
+                m[j] = m_distance.calcDistance(m_points[j], point);
+            }
+        });
+    }
+
+    private void reportProgress(final int i, final int n) throws CanceledExecutionException {
+        if ((i & 0xFF) == 0) {
+            m_exec.checkCanceled();
+            m_exec.setProgress(i * (double)i / ((double)n * n));
+        }
+    }
+
+    /** Runs the tasks in the thread pool, task 0 runs in the calling thread. */
+    private void runParallel(final int taskCount, final ParallelTasks.Task task) throws CanceledExecutionException {
+        if (taskCount > 1 && m_pool == null) {
+            m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_maxThreads);
+        }
+        ParallelTasks.runParallel(m_pool, taskCount, task);
+    }
+
+    /**
+     * The merges of a clustering. Each merge joins the clusters containing the points {@link #getFirst(int)} and
+     * {@link #getSecond(int)}. After {@link #sort()} the merges are in the order of increasing distance and both
+     * indices identify the clusters directly: the point index of a cluster is the second index of the merge that
+     * created it (or the point itself for a singleton cluster).
+     */
+    static final class Merges {
+
+        private final int[] m_first;
+
+        private final int[] m_second;
+
+        private final double[] m_dist;
+
+        private int m_size;
+
+        /** @param capacity the maximum number of merges */
+        Merges(final int capacity) {
+            m_first = new int[capacity];
+            m_second = new int[capacity];
+            m_dist = new double[capacity];
+        }
+
+        /** Converts the pointer representation as created by SLINK. */
+        static Merges fromPointerRepresentation(final int[] pi, final double[] lambda) {
+            final Merges merges = new Merges(Math.max(0, pi.length - 1));
+            for (int i = 0; i < pi.length; i++) {
+                if (pi[i] != i) {
+                    merges.add(i, pi[i], lambda[i]);
+                }
+            }
+            return merges;
+        }
+
+        void add(final int first, final int second, final double dist) {
+            m_first[m_size] = first;
+            m_second[m_size] = second;
+            m_dist[m_size] = dist;
+            m_size++;
+        }
+
+        /**
+         * Sorts the merges by distance (keeping the order of equal distances) and replaces the point indices by the
+         * cluster indices.
+         */
+        void sort() {
+            final Integer[] order = new Integer[m_size];
+            for (int k = 0; k < m_size; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, Comparator.comparingDouble(k -> m_dist[k]));
+            final int[] first = m_first.clone();
+            final int[] second = m_second.clone();
+            final double[] dist = m_dist.clone();
+            // union-find, each root is the index of the cluster it represents
+            final int[] parent = new int[m_first.length + 1];
+            for (int i = 0; i < parent.length; i++) {
+                parent[i] = i;
+            }
+            for (int k = 0; k < m_size; k++) {
+                final int o = order[k];
+                final int a = find(parent, first[o]);
+                final int b = find(parent, second[o]);
+                parent[a] = b;
+                m_first[k] = a;
+                m_second[k] = b;
+                m_dist[k] = dist[o];
+            }
+        }
+
+        private static int find(final int[] parent, final int i) {
+            int x = i;
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        /** @return the number of merges */
+        int size() {
+            return m_size;
+        }
+
+        /**
+         * @param k the merge index
+         * @return the index of the first cluster
+         */
+        int getFirst(final int k) {
+            return m_first[k];
+        }
+
+        /**
+         * @param k the merge index
+         * @return the index of the second cluster, which is also the index of the merged cluster
+         */
+        int getSecond(final int k) {
+            return m_second[k];
+        }
+
+        /**
+         * @param k the merge index
+         * @return the distance of the two clusters
+         */
+        double getDistance(final int k) {
+            return m_dist[k];
+        }
+    }
+}
@@ -153,36 +153,26 @@ public DataRow[] getAllDataRows() {
     }
 
     /**
-     * Puts all data rows of a node in a vector if the node is a leaf. Otherwise
-     * the method is invoked with the nodes child nodes. This is a recursive
-     * tree traversing method.
+     * Puts all data rows of a node in a vector, the rows of the first sub
+     * node before the rows of the second one. The tree is traversed with an
+     * explicit stack as it may be very deep (e.g. single linkage chains).
      *
      * @param clusterNode the node to get the data rows from.
      * @param rowVector the vector to store the found data rows in.
      */
     private void getDataRows(final DendrogramNode clusterNode,
             final List<DataRow> rowVector) {
-
-        // rekursives auslesen aller data rows
-        DendrogramNode subNode1 = clusterNode.getFirstSubnode();
-        DendrogramNode subNode2 = clusterNode.getSecondSubnode();
-
-        if (subNode1.isLeaf()) {
-
-            rowVector.add(subNode1.getLeafDataPoint());
-        } else {
-
-            getDataRows(subNode1, rowVector);
-        }
-
-        if (subNode2.isLeaf()) {
-
-            rowVector.add(subNode2.getLeafDataPoint());
-        } else {
-
-            getDataRows(subNode2, rowVector);
+        List<DendrogramNode> stack = new ArrayList<DendrogramNode>();
+        stack.add(clusterNode);
+        while (!stack.isEmpty()) {
+            DendrogramNode node = stack.remove(stack.size() - 1);
+            if (node.isLeaf()) {
+                rowVector.add(node.getLeafDataPoint());
+            } else {
+                stack.add(node.getSecondSubnode());
+                stack.add(node.getFirstSubnode());
+            }
         }
-
     }
 
     /**
@@ -207,10 +197,13 @@ public Iterator<ClusterNode> iterator() {
     public int getLeafCount() {
         if (m_isLeaf) {
             return 1;
-        } else {
-            return getFirstSubnode().getLeafCount()
-                    + getSecondSubnode().getLeafCount();
         }
+        int count = 0;
+        for (Iterator<ClusterNode> it = new LeafIterator(); it.hasNext();) {
+            it.next();
+            count++;
+        }
+        return count;
     }
 
     /**
@@ -244,13 +237,21 @@ public boolean isLeaf() {
      * {@inheritDoc}
      */
     public double getMaxDistance() {
-        if ((getFirstSubnode() == null) && (getSecondSubnode() == null)) {
-            return m_dist;
+        double max = Double.NEGATIVE_INFINITY;
+        List<ClusterNode> stack = new ArrayList<ClusterNode>();
+        stack.add(this);
+        while (!stack.isEmpty()) {
+            ClusterNode node = stack.remove(stack.size() - 1);
+            if ((node.getFirstSubnode() == null)
+                    && (node.getSecondSubnode() == null)) {
+                max = Math.max(max, node.m_dist);
+            } else {
+                max = Math.max(max, node.getDist());
+                stack.add(node.getFirstSubnode());
+                stack.add(node.getSecondSubnode());
+            }
         }
-        double dist1 = getFirstSubnode().getMaxDistance();
-        double dist2 = getSecondSubnode().getMaxDistance();
-        double dist3 = Math.max(dist1, dist2);
-        return Math.max(dist3, getDist());
+        return max;
     }
 
     /**
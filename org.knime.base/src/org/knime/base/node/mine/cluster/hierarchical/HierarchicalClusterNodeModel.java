@@ -50,15 +50,18 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.knime.base.node.mine.cluster.hierarchical.ClusterHierarchyBuilder.Merges;
 import org.knime.base.node.mine.cluster.hierarchical.distfunctions.DistanceFunction;
 import org.knime.base.node.mine.cluster.hierarchical.distfunctions.EuclideanDist;
 import org.knime.base.node.mine.cluster.hierarchical.distfunctions.ManhattanDist;
+import org.knime.base.node.mine.cluster.hierarchical.distfunctions.MinkowskiDist;
 import org.knime.base.node.util.DataArray;
 import org.knime.base.node.util.DefaultDataArray;
 import org.knime.base.node.viz.plotter.DataProvider;
-import org.knime.base.util.HalfFloatMatrix;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -164,7 +167,7 @@ public enum Linkage {
     private final SettingsModelString m_distFunctionName =
         HierarchicalClusterNodeDialog.createSettingsDistanceFunction();
 
-    private DistanceFunction m_distFunction;
+    private MinkowskiDist m_distFunction;
 
     private DataArray m_dataArray;
 
@@ -215,10 +218,6 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] data,
         }
 
         BufferedDataTable inputData = data[0];
-        if (inputData.size() > 65500) {
-            throw new RuntimeException("At most 65,500 patterns can be clustered");
-        }
-
 
         DataTable outputData = null;
 
@@ -232,97 +231,60 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] data,
         // generate initial clustering
         // which means that every data point is one cluster
         List<ClusterNode> clusters = initClusters(inputData, exec);
+        // compute all merges first, they are replayed below to build the
+        // cluster tree, the fusion table and the output table
+        Merges merges = computeMerges(createPoints(clusters,
+                selectedColIndices), exec.createSubExecutionContext(0.8));
         // store the distance per each fusion step
         DataContainer fusionCont = exec.createDataContainer(createFusionSpec());
         int iterationStep = 0;
 
-        final HalfFloatMatrix cache;
-        if (m_cacheDistances.getBooleanValue()) {
-            cache = new HalfFloatMatrix((int) inputData.size(), false);
-            cache.fill(Float.NaN);
-        } else {
-            cache = null;
-        }
-
-        double max = inputData.size();
         // the number of clusters at the beginning is equal to the number
         // of data rows (each row is a cluster)
         int numberDataRows = clusters.size();
-
-        while (clusters.size() > 1) {
+        // the cluster with the point index i (see Merges), null if merged
+        ClusterNode[] clusterNodes =
+                clusters.toArray(new ClusterNode[numberDataRows]);
+        // current clusters in the order of their creation (ClusterNode
+        // has identity semantics)
+        Set<ClusterNode> currentClusters =
+                new LinkedHashSet<ClusterNode>(clusters);
+        ExecutionContext mergeExec = exec.createSubExecutionContext(0.2);
+
+        for (int k = 0; k < merges.size(); k++) {
             // checks if number clusters to generate output table is reached
-            if (m_numClustersForOutput.getIntValue() == clusters.size()) {
-                outputData = createResultTable(inputData, clusters, exec);
+            if (m_numClustersForOutput.getIntValue()
+                    == currentClusters.size()) {
+                outputData = createResultTable(inputData,
+                        new ArrayList<ClusterNode>(currentClusters), exec);
             }
-            exec.setProgress((numberDataRows - clusters.size())
-                    / (double)numberDataRows, clusters.size()
-                    + " clusters left to merge.");
+            mergeExec.checkCanceled();
             iterationStep++;
-            exec.setProgress(iterationStep / max, "Iteration " + iterationStep
-                    + ", " + clusters.size() + " clusters remaining");
-
-            // calculate distance between all clusters
-            float currentSmallestDist = Float.MAX_VALUE;
-            ClusterNode currentClosestCluster1 = null;
-            ClusterNode currentClosestCluster2 = null;
-
-            // subprogress for loop
-            double availableProgress = (1.0 / numberDataRows);
-            ExecutionContext subexec =
-                    exec.createSubExecutionContext(availableProgress);
-            for (int i = 0; i < clusters.size(); i++) {
-                exec.checkCanceled();
-                ClusterNode node1 = clusters.get(i);
-                for (int j = i + 1; j < clusters.size(); j++) {
-                    final float dist;
-                    ClusterNode node2 = clusters.get(j);
-
-                    // call the chosen function to calculate the distance
-                    // between two clusters. At the moment is single linkage
-                    // and average linkage supported.
-                    if (m_linkageType.getStringValue().equals(Linkage.SINGLE.name())) {
-                        dist = calculateSingleLinkageDist(node1, node2, cache,
-                                selectedColIndices);
-                    } else if (m_linkageType.getStringValue().equals(Linkage.AVERAGE.name())) {
-                        dist = calculateAverageLinkageDist(node1, node2, cache,
-                                selectedColIndices);
-                    } else {
-                        dist = calculateCompleteLinkageDist(node1, node2, cache,
-                                selectedColIndices);
-                    }
-
-                    if (dist < currentSmallestDist) {
-                        currentClosestCluster1 = node1;
-                        currentClosestCluster2 = node2;
-                        currentSmallestDist = dist;
-                    }
-                }
-            }
-            subexec.setProgress(1.0);
-            // make one cluster of the two closest
-            ClusterNode newNode =
-                    new ClusterNode(currentClosestCluster1,
-                            currentClosestCluster2, currentSmallestDist);
-            clusters.remove(currentClosestCluster1);
-            clusters.remove(currentClosestCluster2);
+            mergeExec.setProgress(iterationStep / (double)numberDataRows,
+                    "Iteration " + iterationStep + ", "
+                    + currentClusters.size() + " clusters remaining");
 
-            clusters.add(newNode);
+            // make one cluster of the two closest
+            ClusterNode node1 = clusterNodes[merges.getFirst(k)];
+            ClusterNode node2 = clusterNodes[merges.getSecond(k)];
+            ClusterNode newNode = new ClusterNode(node1, node2,
+                    (float)merges.getDistance(k));
+            currentClusters.remove(node1);
+            currentClusters.remove(node2);
+            currentClusters.add(newNode);
+            clusterNodes[merges.getFirst(k)] = null;
+            clusterNodes[merges.getSecond(k)] = newNode;
 
             // store the distance per each fusion step
             fusionCont.addRowToTable(new DefaultRow(
             // row key
-                    Integer.toString(clusters.size()),
+                    Integer.toString(currentClusters.size()),
                     // x-axis scatter plotter
-                    new IntCell(clusters.size()),
+                    new IntCell(currentClusters.size()),
                     // y-axis scatter plotter
                     new DoubleCell(newNode.getDist())));
-
-            // // print number clusters and their data points
-            // LOGGER.debug("Iteration " + iterationStep + ":");
-            // LOGGER.debug(" Number Clusters: " + clusters.size());
-            // printClustersDataRows(clusters);
-
         }
+        clusters = new ArrayList<ClusterNode>(currentClusters);
         if (clusters.size() > 0) {
             m_rootNode = clusters.get(0);
 
@@ -342,6 +304,59 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] data,
                 exec)};
     }
 
+    /**
+     * Computes the merges depending on the linkage. Single linkage uses
+     * SLINK. Complete and average linkage use the nearest-neighbor chain on
+     * the cached distance matrix, or the greedy algorithm (which needs
+     * O(n&sup3;) time) if the distances are not cached or the matrix doesn't
+     * fit into memory. All of them find the same hierarchy as the greedy
+     * algorithm up to ties, i.e. nearly equal distances may be merged in a
+     * different order.
+     */
+    private Merges computeMerges(final double[][] points,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        ClusterHierarchyBuilder builder =
+                new ClusterHierarchyBuilder(points, m_distFunction, exec);
+        Linkage linkage = Linkage.valueOf(m_linkageType.getStringValue());
+        Merges merges;
+        if (linkage == Linkage.SINGLE) {
+            merges = builder.slink();
+        } else if (!m_cacheDistances.getBooleanValue()) {
+            return builder.greedy(linkage);
+        } else if (!ClusterHierarchyBuilder.isDistanceMatrixAffordable(
+                points.length)) {
+            long mb = ClusterHierarchyBuilder.getDistanceMatrixBytes(
+                    points.length) >> 20;
+            setWarningMessage("Distance matrix (about " + mb + "MB) doesn't "
+                    + "fit into memory, distances are not cached");
+            return builder.greedy(linkage);
+        } else {
+            merges = builder.nnChain(linkage);
+        }
+        merges.sort();
+        return merges;
+    }
+
+    /**
+     * Extracts the values of the selected columns, missing values are
+     * represented by {@link Double#NaN}.
+     */
+    private static double[][] createPoints(final List<ClusterNode> clusters,
+            final int[] selectedColIndices) {
+        double[][] points = new double[clusters.size()][];
+        for (int i = 0; i < points.length; i++) {
+            DataRow row = clusters.get(i).getLeafDataPoint();
+            double[] point = new double[selectedColIndices.length];
+            for (int c = 0; c < point.length; c++) {
+                DataCell cell = row.getCell(selectedColIndices[c]);
+                point[c] = cell.isMissing() || !(cell instanceof DoubleValue)
+                        ? Double.NaN : ((DoubleValue)cell).getDoubleValue();
+            }
+            points[i] = point;
+        }
+        return points;
+    }
+
     private DataTableSpec createFusionSpec() {
         DataColumnSpecCreator creatorX =
                 new DataColumnSpecCreator("Nr. of Clusters", IntCell.TYPE);
@@ -362,119 +377,6 @@ public final void reset() {
         m_fusionTable = null;
     }
 
-    /*
-     * Calculates the distance via the single linkage paradigm. That means two
-     * clusters have the distance of its closest data rows
-     *
-     */
-    private float calculateSingleLinkageDist(final ClusterNode node1,
-            final ClusterNode node2, final HalfFloatMatrix cache,
-            final int[] selectedColIndices) {
-        float minDist = Float.MAX_VALUE;
-
-        for (ClusterNode node1Leaf : node1.leafs()) {
-            final DataRow row1 = node1Leaf.getLeafDataPoint();
-            final int row1Index = node1Leaf.getRowIndex();
-            for (ClusterNode node2Leaf : node2.leafs()) {
-                final DataRow row2 = node2Leaf.getLeafDataPoint();
-                final int row2Index = node2Leaf.getRowIndex();
-
-                float f = Float.NaN;
-                if (cache != null) {
-                    f = cache.get(row1Index, row2Index);
-                    if (Float.isNaN(f)) {
-                        f =
-                                (float)m_distFunction.calcDistance(row1, row2,
-                                        selectedColIndices);
-                        cache.set(row1Index, row2Index, f);
-                    }
-                } else {
-                    f =
-                            (float)m_distFunction.calcDistance(row1, row2,
-                                    selectedColIndices);
-                }
-                minDist = Math.min(minDist, f);
-            }
-        }
-
-        return minDist;
-    }
-
-    /*
-     * Calculates the distance via the complete linkage paradigm. That means two
-     * clusters have the distance of its farest data rows
-     *
-     */
-    private float calculateCompleteLinkageDist(final ClusterNode node1,
-            final ClusterNode node2, final HalfFloatMatrix cache,
-            final int[] selectedColIndices) {
-        float maxDist = 0;
-
-        for (ClusterNode node1Leaf : node1.leafs()) {
-            final DataRow row1 = node1Leaf.getLeafDataPoint();
-            final int row1Index = node1Leaf.getRowIndex();
-            for (ClusterNode node2Leaf : node2.leafs()) {
-                final DataRow row2 = node2Leaf.getLeafDataPoint();
-                final int row2Index = node2Leaf.getRowIndex();
-
-                float f = Float.NaN;
-                if (cache != null) {
-                    f = cache.get(row1Index, row2Index);
-                    if (Float.isNaN(f)) {
-                        f =
-                                (float)m_distFunction.calcDistance(row1, row2,
-                                        selectedColIndices);
-                        cache.set(row1Index, row2Index, f);
-                    }
-                } else {
-                    f =
-                            (float)m_distFunction.calcDistance(row1, row2,
-                                    selectedColIndices);
-                }
-                maxDist = Math.max(maxDist, f);
-            }
-        }
-
-        return maxDist;
-    }
-
-    /*
-     * Calculates the distance via the average linkage paradigm. That means two
-     * clusters have the distance of the average distance of all their member
-     * data rows.
-     */
-    private float calculateAverageLinkageDist(final ClusterNode node1,
-            final ClusterNode node2, final HalfFloatMatrix cache,
-            final int[] selectedColIndices) {
-        float sumDist = 0;
-
-        for (ClusterNode node1Leaf : node1.leafs()) {
-            final DataRow row1 = node1Leaf.getLeafDataPoint();
-            final int row1Index = node1Leaf.getRowIndex();
-            for (ClusterNode node2Leaf : node2.leafs()) {
-                final DataRow row2 = node2Leaf.getLeafDataPoint();
-                final int row2Index = node2Leaf.getRowIndex();
-
-                float f = Float.NaN;
-                if (cache != null) {
-                    f = cache.get(row1Index, row2Index);
-                    if (Float.isNaN(f)) {
-                        f = (float)m_distFunction.calcDistance(row1, row2,
-                                        selectedColIndices);
-                        cache.set(row1Index, row2Index, f);
-                    }
-                } else {
-                    f = (float)m_distFunction.calcDistance(row1, row2,
-                                    selectedColIndices);
-                }
-                sumDist += f;
-            }
-        }
-
-        // divide by the number pairewise distances
-        return sumDist / (node1.getLeafCount() * node2.getLeafCount());
-    }
-
     /**
      * Creates number of data rows clusters as initial clustering.
      *
@@ -103,6 +103,39 @@ public double calcDistance(final DataRow firstDataRow,
         
         return Math.pow(sumPowDist, (double)1 / (double)m_p);
     }
+
+    /**
+     * Calculates the Minkowski distance between two vectors. Missing values
+     * are represented by {@link Double#NaN} and skipped, just as missing cells
+     * in {@link #calcDistance(DataRow, DataRow, int[])}.
+     *
+     * @param first the first vector
+     * @param second the second vector, same length as the first one
+     * @return the distance of the two vectors
+     * @since 3.7
+     */
+    public double calcDistance(final double[] first, final double[] second) {
+        double sumPowDist = 0;
+        for (int i = 0; i < first.length; i++) {
+            double dist = Math.abs(first[i] - second[i]);
+            if (Double.isNaN(dist)) {
+                continue;
+            }
+            if (m_p == 1) {
+                sumPowDist += dist;
+            } else if (m_p == 2) {
+                sumPowDist += dist * dist;
+            } else {
+                sumPowDist += Math.pow(dist, m_p);
+            }
+        }
+        if (m_p == 1) {
+            return sumPowDist;
+        } else if (m_p == 2) {
+            return Math.sqrt(sumPowDist);
+        }
+        return Math.pow(sumPowDist, (double)1 / (double)m_p);
+    }
     
     /**
      * @param o The object to compare with.
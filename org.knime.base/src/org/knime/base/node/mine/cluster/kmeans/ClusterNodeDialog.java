@@ -88,11 +88,14 @@ public class ClusterNodeDialog extends DefaultNodeSettingsPane {
         DialogComponentBoolean enableHilite = new DialogComponentBoolean(
             new SettingsModelBoolean(ClusterNodeModel.CFG_ENABLE_HILITE, false),
             "Enable Hilite Mapping");
+        DialogComponentNumber miniBatchSize = new DialogComponentNumber(
+            ClusterNodeModel.createMiniBatchSizeModel(), "mini-batch size (0 = use all rows): ", 1000);
 
         addDialogComponent(nrOfClusters);
         addDialogComponent(maxNrOfIterations);
         addDialogComponent(columnFilter);
         addDialogComponent(enableHilite);
+        addDialogComponent(miniBatchSize);
         setDefaultTabTitle("K-Means Properties");
     }
 }
@@ -128,6 +128,13 @@ public class ClusterNodeModel extends NodeModel {
     /** Config key for the used columns. */
     public static final String CFG_COLUMNS = "cfgColmns";
 
+    /** Config key for the mini-batch size, 0 for the batch algorithm.
+     * @since 3.7 */
+    public static final String CFG_MINI_BATCH_SIZE = "miniBatchSize";
+
+    /** Seed for drawing the mini-batches, fixed for reproducible results. */
+    private static final long MINI_BATCH_SEED = 17;
+
     private static final String SETTINGS_FILE_NAME = "kMeansInternalSettings";
 
     private static final String CFG_COVERAGE = "clusterCoverage";
@@ -168,6 +175,8 @@ public class ClusterNodeModel extends NodeModel {
 
     private final SettingsModelBoolean m_enableHilite = new SettingsModelBoolean(CFG_ENABLE_HILITE, false);
 
+    private final SettingsModelIntegerBounded m_miniBatchSize = createMiniBatchSizeModel();
+
     private ClusterViewData m_viewData;
 
     private boolean m_pmmlInEnabled;
@@ -195,6 +204,13 @@ public class ClusterNodeModel extends NodeModel {
     }
 
 
+    /**
+     * @return the settings model for the mini-batch size
+     */
+    static SettingsModelIntegerBounded createMiniBatchSizeModel() {
+        return new SettingsModelIntegerBounded(CFG_MINI_BATCH_SIZE, 0, 0, Integer.MAX_VALUE);
+    }
+
     /**
      * @return cluster centers' hilite handler
      */
@@ -243,6 +259,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
         m_nrMaxIterations.saveSettingsTo(settings);
         m_usedColumns.saveSettingsTo(settings);
         m_enableHilite.saveSettingsTo(settings);
+        m_miniBatchSize.saveSettingsTo(settings);
     }
 
     /**
@@ -267,6 +284,10 @@ protected void validateSettings(final NodeSettingsRO settings) throws InvalidSet
         } catch (InvalidSettingsException ise) {
             // do nothing: problably an old workflow
         }
+        // added in 3.7
+        if (settings.containsKey(CFG_MINI_BATCH_SIZE)) {
+            m_miniBatchSize.validateSettings(settings);
+        }
     }
 
     /**
@@ -290,6 +311,12 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws I
         } else {
             m_enableHilite.setBooleanValue(false);
         }
+        // added in 3.7
+        if (settings.containsKey(CFG_MINI_BATCH_SIZE)) {
+            m_miniBatchSize.loadSettingsFrom(settings);
+        } else {
+            m_miniBatchSize.setIntValue(0);
+        }
         try {
             m_usedColumns.loadSettingsFrom(settings);
         } catch (InvalidSettingsException ise) {
@@ -316,66 +343,20 @@ protected PortObject[] execute(final PortObject[] data, final ExecutionContext e
         double[][] clusters = initializeClusters(inData);
 
         // also keep counts of how many patterns fall in a specific cluster
-        int[] clusterCoverage = new int[m_nrOfClusters.getIntValue()];
-
-        // --------- create clusters --------------
-        // reserve space for cluster center updates (do batch update!)
-        double[][] delta = new double[m_nrOfClusters.getIntValue()][];
-        for (int c = 0; c < m_nrOfClusters.getIntValue(); c++) {
-            delta[c] = new double[m_dimension - m_nrIgnoredColumns];
-        }
-
-        // main loop - until clusters stop changing or maxNrIterations reached
-        int currentIteration = 0;
-        boolean finished = false;
-        while ((!finished) && (currentIteration < m_nrMaxIterations.getIntValue())) {
-            exec.checkCanceled();
-            exec.setProgress((double)currentIteration / (double)m_nrMaxIterations.getIntValue(),
-                                 "Iteration " + currentIteration);
-            // initialize counts and cluster-deltas
-            for (int c = 0; c < m_nrOfClusters.getIntValue(); c++) {
-                clusterCoverage[c] = 0;
-                delta[c] = new double[m_dimension - m_nrIgnoredColumns];
-                int deltaPos = 0;
-                for (int i = 0; i < m_dimension; i++) {
-                    if (!m_ignoreColumn[i]) {
-                        delta[c][deltaPos++] = 0.0;
-                    }
-                }
-            }
-            // assume that we are done (i.e. clusters have stopped changing)
-            finished = true;
-            RowIterator rowIt = inData.iterator(); // first training example
-            while (rowIt.hasNext()) {
-                DataRow currentRow = rowIt.next();
-                int winner = findClosestPrototypeFor(currentRow, clusters);
-                if (winner >= 0) {
-                    // update winning cluster centers delta
-                    int deltaPos = 0;
-                    for (int i = 0; i < m_dimension; i++) {
-                        DataCell currentCell = currentRow.getCell(i);
-                        if (!m_ignoreColumn[i]) {
-                            if (!currentCell.isMissing()) {
-                                delta[winner][deltaPos] += ((DoubleValue)(currentCell)).getDoubleValue();
-                            } else {
-                                throw new Exception("Missing Values not (yet) allowed in k-Means.");
-                            }
-                            deltaPos++;
-                        }
-                    }
-                    clusterCoverage[winner]++;
-                } else {
-                    // we didn't find any winner - very odd
-                    assert (winner >= 0); // let's report this during
-                    // debugging!
-                    // otherwise just don't reproduce result
-                    throw new IllegalStateException("No winner found: " + winner);
-                }
+        int[] clusterCoverage;
+        // the cluster of each row w.r.t. the final cluster centers
+        int[] assignment;
+        try (PointMatrix points = loadPoints(inData, exec.createSubProgress(0.1))) {
+            KMeansClusterer clusterer = new KMeansClusterer(points, clusters, exec.createSubProgress(0.8));
+            if (m_miniBatchSize.getIntValue() > 0) {
+                clusterer.runMiniBatch(m_miniBatchSize.getIntValue(), m_nrMaxIterations.getIntValue(),
+                    MINI_BATCH_SEED);
+            } else {
+                clusterer.runBatch(m_nrMaxIterations.getIntValue());
             }
-            // update cluster centers
-            finished = updateClusterCenters(clusterCoverage, clusters, delta);
-            currentIteration++;
-        } // while(!finished & nrIt<maxNrIt)
+            clusterCoverage = clusterer.getCoverage();
+            assignment = clusterer.getAssignment();
+        }
         // create list of feature names
         int k = 0;  // index of not-ignored columns
         int j = 0;  // index of column
@@ -389,8 +370,9 @@ protected PortObject[] execute(final PortObject[] data, final ExecutionContext e
         } while (j < m_dimension);
         // create output container and also mapping for HiLiteing
         BufferedDataContainer labeledInput = exec.createDataContainer(createAppendedSpec(spec));
+        int rowIndex = 0;
         for (DataRow row : inData) {
-            int winner = findClosestPrototypeFor(row, clusters);
+            int winner = assignment[rowIndex++];
             DataCell cell = new StringCell(CLUSTER + winner);
             labeledInput.addRowToTable(new AppendedColumnRow(row, cell));
             if (m_enableHilite.getBooleanValue()) {
@@ -444,31 +426,43 @@ protected PortObject[] execute(final PortObject[] data, final ExecutionContext e
         }
      }
 
-    private boolean updateClusterCenters(final int[] clusterCoverage,
-                                        final double[][] clusters,
-                                        final double[][] delta) {
-        boolean finished = true;
-        for (int c = 0; c < m_nrOfClusters.getIntValue(); c++) {
-            if (clusterCoverage[c] > 0) {
-                // only update clusters who do cover some pattern:
+    /**
+     * Reads the values of the used columns into a matrix, so that the table is only read once.
+     *
+     * @throws Exception if the table contains missing values
+     */
+    private PointMatrix loadPoints(final BufferedDataTable inData, final ExecutionMonitor exec) throws Exception {
+        if (inData.size() > Integer.MAX_VALUE) {
+            throw new Exception("At most " + Integer.MAX_VALUE + " rows can be clustered");
+        }
+        final int rowCount = (int)inData.size();
+        final PointMatrix points = PointMatrix.create(rowCount, m_dimension - m_nrIgnoredColumns);
+        boolean success = false;
+        try {
+            final double[] values = new double[points.getDimension()];
+            int rowIndex = 0;
+            for (DataRow row : inData) {
+                exec.checkCanceled();
+                exec.setProgress(rowIndex / (double)rowCount, "Reading row " + rowIndex);
                 int pos = 0;
                 for (int i = 0; i < m_dimension; i++) {
-                    if (m_ignoreColumn[i]) {
-                        continue;
-                    }
-                    // normalize delta by nr of covered patterns
-                    double newValue = delta[c][pos] / clusterCoverage[c];
-                    // compare before assigning the value to make sure we
-                    // don't stop if things have changed substantially
-                    if (Math.abs(clusters[c][pos] - newValue) > 1e-10) {
-                        finished = false;
+                    if (!m_ignoreColumn[i]) {
+                        DataCell currentCell = row.getCell(i);
+                        if (currentCell.isMissing()) {
+                            throw new Exception("Missing Values not (yet) allowed in k-Means.");
+                        }
+                        values[pos++] = ((DoubleValue)currentCell).getDoubleValue();
                     }
-                    clusters[c][pos] = newValue;
-                    pos++;
                 }
+                points.setRow(rowIndex++, values);
+            }
+            success = true;
+            return points;
+        } finally {
+            if (!success) {
+                points.close();
             }
         }
-        return finished;
     }
 
     private double[][] initializeClusters(final DataTable input) {
@@ -501,36 +495,6 @@ private double[][] initializeClusters(final DataTable input) {
         return clusters;
     }
 
-    private int findClosestPrototypeFor(final DataRow row, final double[][] clusters) {
-        // find closest cluster center
-        int winner = -1; // closest cluster so far
-        double winnerDistance = Double.MAX_VALUE; // best distance
-        for (int c = 0; c < m_nrOfClusters.getIntValue(); c++) {
-            double distance = 0.0;
-            int pos = 0;
-            for (int i = 0; i < m_dimension; i++) {
-                DataCell currentCell = row.getCell(i);
-                if (!m_ignoreColumn[i]) {
-                    if (!currentCell.isMissing()) {
-                        assert currentCell.getType().isCompatible(DoubleValue.class);
-                        double d = (clusters[c][pos] - ((DoubleValue)(currentCell)).getDoubleValue());
-                        if (!Double.isNaN(d)) {
-                            distance += d * d;
-                        }
-                    } else {
-                        distance += 0.0; // missing
-                    }
-                    pos++;
-                }
-            }
-            if (distance < winnerDistance) { // found closer cluster
-                winner = c; // make it new winner
-                winnerDistance = distance;
-            }
-        } // for all clusters (find closest one)
-        return winner;
-    }
-
     /**
      * Clears the model.
      *
@@ -0,0 +1,564 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.cluster.kmeans;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * The k-Means algorithm on a {@link PointMatrix}. The batch version assigns the points in parallel and uses the
+ * triangle inequality to skip distance calculations: Hamerly's algorithm keeps one upper and one lower bound per point,
+ * Elkan's algorithm one lower bound per point and center, which pays off for many clusters in high dimensional
+ * spaces. Both find exactly the same assignment as computing all distances (including the choice of the center with
+ * the lower index on ties). If the data contains NaN values, which are ignored in the distance, the bounds don't hold
+ * and all distances are computed.
+ *
+ * <p>
+ * The mini-batch version (Sculley, 2010) updates the centers with small random samples of the data and is much faster
+ * for large data at the cost of a slightly worse clustering.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class KMeansClusterer {
+
+    /** Minimum number of dimensions for Elkan's algorithm. */
+    private static final int ELKAN_MIN_DIMENSION = 100;
+
+    /** Minimum number of clusters for Elkan's algorithm. */
+    private static final int ELKAN_MIN_CLUSTERS = 16;
+
+    /** Relative safety margin of the bounds to compensate rounding errors. */
+    private static final double BOUND_EPSILON = 1E-10;
+
+    /** Maximum number of chunks the blocks are distributed to; the sums are reduced in chunk order. */
+    private static final int MAX_CHUNKS = 64;
+
+    /** How the closest center of each point is found. */
+    enum Method {
+        /** All distances are computed. */
+        LLOYD,
+        /** One lower bound per point. */
+        HAMERLY,
+        /** One lower bound per point and center. */
+        ELKAN;
+    }
+
+    private final PointMatrix m_points;
+
+    private final double[][] m_centers;
+
+    private final int m_k;
+
+    private final int m_dim;
+
+    private final ExecutionMonitor m_exec;
+
+    private final Method m_method;
+
+    private final int m_maxThreads;
+
+    private ThreadPool m_pool;
+
+    private final int[] m_assignment;
+
+    private int[] m_coverage;
+
+    /** Upper bound of the distance of each point to its center. */
+    private double[] m_upper;
+
+    /** Hamerly: lower bound of the distance of each point to its second closest center. */
+    private double[] m_lower;
+
+    /** Elkan: lower bound of the distance of each point to each center, rounded down. */
+    private float[] m_lowerPerCenter;
+
+    /** Distances between the centers, updated in each iteration. */
+    private double[][] m_centerDistances;
+
+    /** Half of the distance of each center to its closest other center. */
+    private double[] m_halfMinCenterDistance;
+
+    /**
+     * @param points the data
+     * @param initialCenters the initial centers, modified during the clustering
+     * @param exec for progress and cancellation
+     */
+    KMeansClusterer(final PointMatrix points, final double[][] initialCenters, final ExecutionMonitor exec) {
+        this(points, initialCenters, exec, chooseMethod(points, initialCenters.length));
+    }
+
+    /**
+     * @param points the data
+     * @param initialCenters the initial centers, modified during the clustering
+     * @param exec for progress and cancellation
+     * @param method the method, {@link Method#LLOYD} is used if the data contains NaN
+     */
+    KMeansClusterer(final PointMatrix points, final double[][] initialCenters, final ExecutionMonitor exec,
+        final Method method) {
+        m_points = points;
+        m_centers = initialCenters;
+        m_k = initialCenters.length;
+        m_dim = points.getDimension();
+        m_exec = exec;
+        m_maxThreads = Math.max(1, KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads());
+        m_assignment = new int[points.getRowCount()];
+        m_method = points.containsNaN() || m_k == 1 ? Method.LLOYD : method;
+    }
+
+    private static Method chooseMethod(final PointMatrix points, final int k) {
+        final Runtime runtime = Runtime.getRuntime();
+        final long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (points.getDimension() >= ELKAN_MIN_DIMENSION && k >= ELKAN_MIN_CLUSTERS
+            && 4L * points.getRowCount() * k < available / 4
+            && (long)points.getRowCount() * k < Integer.MAX_VALUE) {
+            return Method.ELKAN;
+        }
+        return Method.HAMERLY;
+    }
+
+    /** @return the cluster centers */
+    double[][] getCenters() {
+        return m_centers;
+    }
+
+    /**
+     * @return the number of points per cluster in the last training iteration (for the mini-batch version in the
+     *         final assignment)
+     */
+    int[] getCoverage() {
+        return m_coverage;
+    }
+
+    /** @return the index of the closest center for each point */
+    int[] getAssignment() {
+        return m_assignment;
+    }
+
+    /**
+     * Runs the batch k-Means until the centers don't change anymore or the maximum number of iterations is reached
+     * and assigns all points to the final centers.
+     *
+     * @param maxIterations the maximum number of iterations
+     * @return the number of iterations
+     * @throws CanceledExecutionException if canceled
+     */
+    int runBatch(final int maxIterations) throws CanceledExecutionException {
+        initBounds();
+        int iteration = 0;
+        boolean finished = false;
+        while (!finished && iteration < maxIterations) {
+            m_exec.checkCanceled();
+            m_exec.setProgress(iteration / (double)maxIterations, "Iteration " + iteration);
+            final double[][] sums = new double[m_k][m_dim];
+            m_coverage = new int[m_k];
+            assign(iteration == 0, sums, m_coverage);
+            final double[][] oldCenters = copyCenters();
+            finished = updateCenters(sums, m_coverage);
+            updateBounds(oldCenters);
+            iteration++;
+        }
+        if (iteration == 0) {
+            m_coverage = new int[m_k];
+        }
+        // assignment to the final centers
+        assign(iteration == 0, null, null);
+        return iteration;
+    }
+
+    /**
+     * Runs the mini-batch k-Means and assigns all points to the final centers.
+     *
+     * @param batchSize the number of points per mini-batch
+     * @param iterations the number of mini-batches
+     * @param seed the seed for drawing the samples
+     * @throws CanceledExecutionException if canceled
+     */
+    void runMiniBatch(final int batchSize, final int iterations, final long seed) throws CanceledExecutionException {
+        final int n = m_points.getRowCount();
+        final Random random = new Random(seed);
+        final long[] perCenterCount = new long[m_k];
+        final double[][] batch = new double[batchSize][m_dim];
+        final int[] batchAssignment = new int[batchSize];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            m_exec.checkCanceled();
+            m_exec.setProgress(iteration / (double)iterations, "Iteration " + iteration);
+            for (int j = 0; j < batchSize; j++) {
+                m_points.copyRow(random.nextInt(n), batch[j]);
+            }
+            final int taskCount = (int)Math.max(1, Math.min(m_maxThreads, (long)batchSize * m_k * m_dim / (1 << 16)));
+            final int chunk = (batchSize + taskCount - 1) / taskCount;
+            runParallel(taskCount, task -> {
+                final int end = Math.min(batchSize, (task + 1) * chunk);
+                for (int j = task * chunk; j < end; j++) {
+                    batchAssignment[j] = findClosest(batch[j], 0);
+                }
+            });
+            // gradient step with per-center learning rate
+            boolean changed = false;
+            for (int j = 0; j < batchSize; j++) {
+                final int c = batchAssignment[j];
+                final double eta = 1.0 / ++perCenterCount[c];
+                final double[] center = m_centers[c];
+                for (int d = 0; d < m_dim; d++) {
+                    final double newValue = (1 - eta) * center[d] + eta * batch[j][d];
+                    changed |= Math.abs(center[d] - newValue) > 1e-10;
+                    center[d] = newValue;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        m_coverage = new int[m_k];
+        initBounds();
+        assign(true, null, m_coverage);
+    }
+
+    private void initBounds() {
+        final int n = m_points.getRowCount();
+        m_upper = m_method == Method.LLOYD ? null : new double[n];
+        m_lower = m_method == Method.HAMERLY ? new double[n] : null;
+        m_lowerPerCenter = m_method == Method.ELKAN ? new float[n * m_k] : null;
+    }
+
+    private double[][] copyCenters() {
+        final double[][] copy = new double[m_k][];
+        for (int c = 0; c < m_k; c++) {
+            copy[c] = m_centers[c].clone();
+        }
+        return copy;
+    }
+
+    /** Same as in the former implementation: empty clusters keep their center. */
+    private boolean updateCenters(final double[][] sums, final int[] coverage) {
+        boolean finished = true;
+        for (int c = 0; c < m_k; c++) {
+            if (coverage[c] > 0) {
+                for (int d = 0; d < m_dim; d++) {
+                    final double newValue = sums[c][d] / coverage[c];
+                    if (Math.abs(m_centers[c][d] - newValue) > 1e-10) {
+                        finished = false;
+                    }
+                    m_centers[c][d] = newValue;
+                }
+            }
+        }
+        return finished;
+    }
+
+    /** Adapts the bounds to the movement of the centers. */
+    private void updateBounds(final double[][] oldCenters) throws CanceledExecutionException {
+        if (m_method == Method.LLOYD) {
+            return;
+        }
+        final double[] move = new double[m_k];
+        int maxMover = 0;
+        for (int c = 0; c < m_k; c++) {
+            move[c] = Math.sqrt(distanceSq(oldCenters[c], 0, m_centers[c])) * (1 + BOUND_EPSILON);
+            if (move[c] > move[maxMover]) {
+                maxMover = c;
+            }
+        }
+        double secondMove = 0;
+        for (int c = 0; c < m_k; c++) {
+            if (c != maxMover) {
+                secondMove = Math.max(secondMove, move[c]);
+            }
+        }
+        final double maxMove = move[maxMover];
+        final int mostMoved = maxMover;
+        final double secondMaxMove = secondMove;
+        final int n = m_points.getRowCount();
+        final int chunkCount = getChunkCount();
+        final int taskCount = Math.min(m_maxThreads, chunkCount);
+        runParallel(taskCount, task -> {
+            for (int chunk = task; chunk < chunkCount; chunk += taskCount) {
+                final int from = PointMatrix.getBlockStart(getFirstBlock(chunk));
+                final int to = Math.min(n, PointMatrix.getBlockStart(getFirstBlock(chunk + 1)));
+                for (int i = from; i < to; i++) {
+                    final int a = m_assignment[i];
+                    m_upper[i] = (m_upper[i] + move[a]) * (1 + BOUND_EPSILON);
+                    if (m_method == Method.HAMERLY) {
+                        m_lower[i] = (m_lower[i] - (a == mostMoved ? secondMaxMove : maxMove)) * (1 - BOUND_EPSILON);
+                    } else {
+                        final int offset = i * m_k;
+                        for (int c = 0; c < m_k; c++) {
+                            m_lowerPerCenter[offset + c] =
+                                roundDown((m_lowerPerCenter[offset + c] - move[c]) * (1 - BOUND_EPSILON));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static float roundDown(final double value) {
+        final float f = (float)value;
+        return f > value ? Math.nextDown(f) : f;
+    }
+
+    private int getChunkCount() {
+        return Math.min(MAX_CHUNKS, m_points.getBlockCount());
+    }
+
+    /** Blocks are distributed evenly to the chunks, independent of the number of threads. */
+    private int getFirstBlock(final int chunk) {
+        return (int)((long)chunk * m_points.getBlockCount() / getChunkCount());
+    }
+
+    /**
+     * Assigns all points to their closest center.
+     *
+     * @param initial whether the bounds are not yet initialized (all distances are computed)
+     * @param sums the array to add the points to their center's sum, may be null
+     * @param coverage the array to count the points per center, may be null
+     */
+    private void assign(final boolean initial, final double[][] sums, final int[] coverage)
+        throws CanceledExecutionException {
+        if (m_method != Method.LLOYD) {
+            updateCenterDistances();
+        }
+        final int chunkCount = getChunkCount();
+        final double[][][] chunkSums = sums == null ? null : new double[chunkCount][][];
+        final int[][] chunkCoverage = coverage == null ? null : new int[chunkCount][];
+        final int taskCount = Math.min(m_maxThreads, chunkCount);
+        runParallel(taskCount, task -> {
+            final double[] buffer = new double[PointMatrix.BLOCK_ROWS * m_dim];
+            for (int chunk = task; chunk < chunkCount; chunk += taskCount) {
+                final double[][] localSums = sums == null ? null : new double[m_k][m_dim];
+                final int[] localCoverage = coverage == null ? null : new int[m_k];
+                for (int b = getFirstBlock(chunk); b < getFirstBlock(chunk + 1); b++) {
+                    if (task == 0) {
+                        m_exec.checkCanceled();
+                    }
+                    final double[] values = m_points.getBlock(b, buffer);
+                    final int start = PointMatrix.getBlockStart(b);
+                    for (int r = 0, rows = m_points.getBlockRowCount(b); r < rows; r++) {
+                        final int i = start + r;
+                        final int offset = r * m_dim;
+                        final int a = initial || m_method == Method.LLOYD ? assignFull(values, offset, i)
+                            : m_method == Method.HAMERLY ? assignHamerly(values, offset, i)
+                                : assignElkan(values, offset, i);
+                        if (localSums != null) {
+                            final double[] sum = localSums[a];
+                            for (int d = 0; d < m_dim; d++) {
+                                sum[d] += values[offset + d];
+                            }
+                        }
+                        if (localCoverage != null) {
+                            localCoverage[a]++;
+                        }
+                    }
+                }
+                if (chunkSums != null) {
+                    chunkSums[chunk] = localSums;
+                }
+                if (chunkCoverage != null) {
+                    chunkCoverage[chunk] = localCoverage;
+                }
+            }
+        });
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            for (int c = 0; c < m_k; c++) {
+                if (sums != null) {
+                    for (int d = 0; d < m_dim; d++) {
+                        sums[c][d] += chunkSums[chunk][c][d];
+                    }
+                }
+                if (coverage != null) {
+                    coverage[c] += chunkCoverage[chunk][c];
+                }
+            }
+        }
+    }
+
+    /** Computes all distances and initializes the bounds. */
+    private int assignFull(final double[] values, final int offset, final int i) {
+        int winner = -1;
+        double winnerDistance = Double.MAX_VALUE;
+        double second = Double.MAX_VALUE;
+        for (int c = 0; c < m_k; c++) {
+            final double distance = distanceSq(values, offset, m_centers[c]);
+            if (m_method == Method.ELKAN) {
+                m_lowerPerCenter[i * m_k + c] = roundDown(Math.sqrt(distance) * (1 - BOUND_EPSILON));
+            }
+            if (distance < winnerDistance) {
+                second = winnerDistance;
+                winner = c;
+                winnerDistance = distance;
+            } else if (distance < second) {
+                second = distance;
+            }
+        }
+        if (winner < 0) {
+            throw new IllegalStateException("No winner found: " + winner);
+        }
+        if (m_method != Method.LLOYD) {
+            m_upper[i] = Math.sqrt(winnerDistance) * (1 + BOUND_EPSILON);
+        }
+        if (m_method == Method.HAMERLY) {
+            m_lower[i] = Math.sqrt(second) * (1 - BOUND_EPSILON);
+        }
+        m_assignment[i] = winner;
+        return winner;
+    }
+
+    private int assignHamerly(final double[] values, final int offset, final int i) {
+        final int a = m_assignment[i];
+        final double bound = Math.max(m_halfMinCenterDistance[a], m_lower[i]);
+        if (m_upper[i] < bound) {
+            return a;
+        }
+        m_upper[i] = Math.sqrt(distanceSq(values, offset, m_centers[a])) * (1 + BOUND_EPSILON);
+        if (m_upper[i] < bound) {
+            return a;
+        }
+        return assignFull(values, offset, i);
+    }
+
+    private int assignElkan(final double[] values, final int offset, final int i) {
+        int a = m_assignment[i];
+        double upper = m_upper[i];
+        if (upper < m_halfMinCenterDistance[a]) {
+            return a;
+        }
+        final float[] lower = m_lowerPerCenter;
+        final int lowerOffset = i * m_k;
+        boolean isTight = false;
+        double upperSq = Double.NaN;
+        for (int c = 0; c < m_k; c++) {
+            if (c == a || upper < lower[lowerOffset + c] || upper < 0.5 * m_centerDistances[a][c]) {
+                continue;
+            }
+            if (!isTight) {
+                upperSq = distanceSq(values, offset, m_centers[a]);
+                upper = Math.sqrt(upperSq) * (1 + BOUND_EPSILON);
+                lower[lowerOffset + a] = roundDown(Math.sqrt(upperSq) * (1 - BOUND_EPSILON));
+                isTight = true;
+                if (upper < lower[lowerOffset + c] || upper < 0.5 * m_centerDistances[a][c]) {
+                    continue;
+                }
+            }
+            final double distSq = distanceSq(values, offset, m_centers[c]);
+            lower[lowerOffset + c] = roundDown(Math.sqrt(distSq) * (1 - BOUND_EPSILON));
+            // same tie breaking as computing all distances in ascending order
+            if (distSq < upperSq || (distSq == upperSq && c < a)) {
+                a = c;
+                upperSq = distSq;
+                upper = Math.sqrt(distSq) * (1 + BOUND_EPSILON);
+            }
+        }
+        m_upper[i] = upper;
+        m_assignment[i] = a;
+        return a;
+    }
+
+    /**
+     * Finds the closest center, on ties the one with the lower index.
+     *
+     * @param values the array containing the point
+     * @param offset the offset of the point in the array
+     * @return the index of the closest center
+     */
+    private int findClosest(final double[] values, final int offset) {
+        int winner = -1;
+        double winnerDistance = Double.MAX_VALUE;
+        for (int c = 0; c < m_k; c++) {
+            final double distance = distanceSq(values, offset, m_centers[c]);
+            if (distance < winnerDistance) {
+                winner = c;
+                winnerDistance = distance;
+            }
+        }
+        if (winner < 0) {
+            throw new IllegalStateException("No winner found: " + winner);
+        }
+        return winner;
+    }
+
+    /** Squared Euclidean distance, ignoring NaN differences (as the former implementation). */
+    private double distanceSq(final double[] values, final int offset, final double[] center) {
+        double distance = 0.0;
+        for (int d = 0; d < m_dim; d++) {
+            final double diff = center[d] - values[offset + d];
+            if (!Double.isNaN(diff)) {
+                distance += diff * diff;
+            }
+        }
+        return distance;
+    }
+
+    private void updateCenterDistances() {
+        if (m_centerDistances == null) {
+            m_centerDistances = new double[m_k][m_k];
+            m_halfMinCenterDistance = new double[m_k];
+        }
+        Arrays.fill(m_halfMinCenterDistance, Double.MAX_VALUE);
+        for (int c = 0; c < m_k; c++) {
+            for (int o = c + 1; o < m_k; o++) {
+                // rounded down to be a valid lower bound
+                final double dist = Math.sqrt(distanceSq(m_centers[c], 0, m_centers[o])) * (1 - BOUND_EPSILON);
+                m_centerDistances[c][o] = dist;
+                m_centerDistances[o][c] = dist;
+                m_halfMinCenterDistance[c] = Math.min(m_halfMinCenterDistance[c], 0.5 * dist);
+                m_halfMinCenterDistance[o] = Math.min(m_halfMinCenterDistance[o], 0.5 * dist);
+            }
+        }
+    }
+
+    /** Runs the tasks in the thread pool, task 0 runs in the calling thread. */
+    private void runParallel(final int taskCount, final ParallelTasks.Task task) throws CanceledExecutionException {
+        if (taskCount > 1 && m_pool == null) {
+            m_pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_maxThreads);
+        }
+        ParallelTasks.runParallel(m_pool, taskCount, task);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.cluster.kmeans;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.knime.core.util.FileUtil;
+
+/**
+ * Row-major matrix of doubles holding the data points of the k-Means clustering. The rows are stored in blocks of
+ * {@link #BLOCK_ROWS} rows, which are the unit of parallel processing. Small matrices are kept on the heap, large ones
+ * in a memory-mapped temp file.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+abstract class PointMatrix implements AutoCloseable {
+
+    /** Number of rows per block. */
+    static final int BLOCK_ROWS = 4096;
+
+    private final int m_rowCount;
+
+    private final int m_dimension;
+
+    private boolean m_containsNaN;
+
+    private PointMatrix(final int rowCount, final int dimension) {
+        m_rowCount = rowCount;
+        m_dimension = dimension;
+    }
+
+    /**
+     * Creates a matrix on the heap if it takes less than a quarter of the free heap space, otherwise a memory-mapped
+     * matrix.
+     *
+     * @param rowCount the number of rows
+     * @param dimension the number of columns
+     * @return a new, empty matrix, fill it using {@link #setRow(int, double[])}
+     * @throws IOException if the temp file can't be created
+     */
+    static PointMatrix create(final int rowCount, final int dimension) throws IOException {
+        final Runtime runtime = Runtime.getRuntime();
+        final long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (8L * rowCount * dimension < available / 4) {
+            return new HeapPointMatrix(rowCount, dimension);
+        }
+        return new MappedPointMatrix(rowCount, dimension);
+    }
+
+    /** @return the number of rows */
+    final int getRowCount() {
+        return m_rowCount;
+    }
+
+    /** @return the number of columns */
+    final int getDimension() {
+        return m_dimension;
+    }
+
+    /** @return whether any of the values set so far is {@link Double#NaN} */
+    final boolean containsNaN() {
+        return m_containsNaN;
+    }
+
+    /**
+     * Sets the values of a row. Rows have to be set in ascending order, before any of the read methods is called.
+     *
+     * @param row the row index
+     * @param values the values
+     * @throws IOException if writing to the temp file fails
+     */
+    final void setRow(final int row, final double[] values) throws IOException {
+        for (double v : values) {
+            m_containsNaN |= Double.isNaN(v);
+        }
+        writeRow(row, values);
+    }
+
+    /** @return the number of blocks */
+    final int getBlockCount() {
+        return (m_rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS;
+    }
+
+    /**
+     * @param block the block index
+     * @return the index of the first row of the block
+     */
+    static int getBlockStart(final int block) {
+        return block * BLOCK_ROWS;
+    }
+
+    /**
+     * @param block the block index
+     * @return the number of rows in the block
+     */
+    final int getBlockRowCount(final int block) {
+        return Math.min(BLOCK_ROWS, m_rowCount - getBlockStart(block));
+    }
+
+    /** See {@link #setRow(int, double[])}. */
+    abstract void writeRow(int row, double[] values) throws IOException;
+
+    /**
+     * Returns the rows of a block, row <code>r</code> of the block starts at index <code>r * dimension</code>. This
+     * method may be called concurrently.
+     *
+     * @param block the block index
+     * @param buffer a buffer of size {@link #BLOCK_ROWS} times the dimension which may be used to return the values
+     * @return the values, either the buffer or an internal array which must not be modified
+     */
+    abstract double[] getBlock(int block, double[] buffer);
+
+    /**
+     * Copies the values of a row. This method may be called concurrently.
+     *
+     * @param row the row index
+     * @param dest the array to copy the values to
+     */
+    abstract void copyRow(int row, double[] dest);
+
+    /** Releases the memory and deletes the temp file, if any. */
+    @Override
+    public abstract void close();
+
+    /** Matrix with one array per block. */
+    static final class HeapPointMatrix extends PointMatrix {
+
+        private final double[][] m_blocks;
+
+        HeapPointMatrix(final int rowCount, final int dimension) {
+            super(rowCount, dimension);
+            m_blocks = new double[getBlockCount()][];
+            for (int b = 0; b < m_blocks.length; b++) {
+                m_blocks[b] = new double[getBlockRowCount(b) * dimension];
+            }
+        }
+
+        @Override
+        void writeRow(final int row, final double[] values) {
+            final int dim = getDimension();
+            System.arraycopy(values, 0, m_blocks[row / BLOCK_ROWS], (row % BLOCK_ROWS) * dim, dim);
+        }
+
+        @Override
+        double[] getBlock(final int block, final double[] buffer) {
+            return m_blocks[block];
+        }
+
+        @Override
+        void copyRow(final int row, final double[] dest) {
+            final int dim = getDimension();
+            System.arraycopy(m_blocks[row / BLOCK_ROWS], (row % BLOCK_ROWS) * dim, dest, 0, dim);
+        }
+
+        @Override
+        public void close() {
+            // garbage collected with the instance
+        }
+    }
+
+    /** Matrix in a temp file which is written sequentially and mapped into memory for reading. */
+    static final class MappedPointMatrix extends PointMatrix {
+
+        /** Maximum size of one mapping, must be below 2GB. */
+        private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+        private final File m_file;
+
+        private final RandomAccessFile m_raf;
+
+        private final ByteBuffer m_writeBuffer;
+
+        private DoubleBuffer[] m_blocks;
+
+        MappedPointMatrix(final int rowCount, final int dimension) throws IOException {
+            super(rowCount, dimension);
+            m_file = FileUtil.createTempFile("knime_kmeans", ".bin");
+            m_raf = new RandomAccessFile(m_file, "rw");
+            m_writeBuffer = ByteBuffer.allocate(BLOCK_ROWS * dimension * 8).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        void writeRow(final int row, final double[] values) throws IOException {
+            for (double v : values) {
+                m_writeBuffer.putDouble(v);
+            }
+            if (!m_writeBuffer.hasRemaining() || row == getRowCount() - 1) {
+                m_writeBuffer.flip();
+                final FileChannel channel = m_raf.getChannel();
+                while (m_writeBuffer.hasRemaining()) {
+                    channel.write(m_writeBuffer);
+                }
+                m_writeBuffer.clear();
+            }
+            if (row == getRowCount() - 1) {
+                map();
+            }
+        }
+
+        private void map() throws IOException {
+            final long blockBytes = 8L * BLOCK_ROWS * getDimension();
+            final int blocksPerSegment = (int)Math.max(1, MAX_SEGMENT_BYTES / blockBytes);
+            m_blocks = new DoubleBuffer[getBlockCount()];
+            final FileChannel channel = m_raf.getChannel();
+            for (int first = 0; first < m_blocks.length; first += blocksPerSegment) {
+                final int last = Math.min(m_blocks.length, first + blocksPerSegment);
+                final long offset = first * blockBytes;
+                final long size = (getBlockStart(last - 1) + (long)getBlockRowCount(last - 1)) * getDimension() * 8
+                    - offset;
+                final MappedByteBuffer segment = channel.map(MapMode.READ_ONLY, offset, size);
+                segment.order(ByteOrder.nativeOrder());
+                for (int b = first; b < last; b++) {
+                    final ByteBuffer view = segment.duplicate().order(ByteOrder.nativeOrder());
+                    view.position((int)((b - first) * blockBytes));
+                    view.limit(view.position() + getBlockRowCount(b) * getDimension() * 8);
+                    m_blocks[b] = view.slice().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                }
+            }
+        }
+
+        @Override
+        double[] getBlock(final int block, final double[] buffer) {
+            final DoubleBuffer view = m_blocks[block].duplicate();
+            view.get(buffer, 0, view.remaining());
+            return buffer;
+        }
+
+        @Override
+        void copyRow(final int row, final double[] dest) {
+            final DoubleBuffer view = m_blocks[row / BLOCK_ROWS].duplicate();
+            view.position((row % BLOCK_ROWS) * getDimension());
+            view.get(dest, 0, getDimension());
+        }
+
+        @Override
+        public void close() {
+            m_blocks = null;
+            try {
+                m_raf.close();
+            } catch (IOException e) {
+                // ignore, the file is deleted anyway
+            }
+            if (!m_file.delete()) {
+                m_file.deleteOnExit();
+            }
+        }
+    }
+}
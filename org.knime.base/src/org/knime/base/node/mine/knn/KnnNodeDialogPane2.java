@@ -49,12 +49,14 @@
 import java.awt.Insets;
 
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.border.Border;
 
+import org.knime.base.node.mine.knn.KnnSettings2.SearchIndex;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.NominalValue;
 import org.knime.core.node.InvalidSettingsException;
@@ -82,6 +84,8 @@ public class KnnNodeDialogPane2 extends NodeDialogPane {
 
     private final JCheckBox m_classProbabilities = new JCheckBox();
 
+    private final JComboBox<SearchIndex> m_searchIndex = new JComboBox<SearchIndex>(SearchIndex.values());
+
     private KnnSettings2 m_settings = new KnnSettings2();
 
     /**
@@ -118,6 +122,12 @@ public KnnNodeDialogPane2() {
         c.gridx = 1;
         p.add(m_classProbabilities, c);
 
+        c.gridy++;
+        c.gridx = 0;
+        p.add(new JLabel("Search index   "), c);
+        c.gridx = 1;
+        p.add(m_searchIndex, c);
+
         addTab("Standard settings", p);
     }
 
@@ -137,6 +147,7 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         m_k.setValue(m_settings.k());
         m_weightByDistance.setSelected(m_settings.weightByDistance());
         m_classProbabilities.setSelected(m_settings.outputClassProbabilities());
+        m_searchIndex.setSelectedItem(m_settings.searchIndex());
     }
 
     /**
@@ -149,6 +160,7 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
         m_settings.k(((Number)m_k.getValue()).intValue());
         m_settings.weightByDistance(m_weightByDistance.isSelected());
         m_settings.outputClassProbabilities(m_classProbabilities.isSelected());
+        m_settings.searchIndex((SearchIndex)m_searchIndex.getSelectedItem());
         m_settings.saveSettings(settings);
     }
 }
@@ -53,10 +53,13 @@
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
-import org.knime.base.util.kdtree.KDTree;
+import org.knime.base.node.mine.knn.KnnSettings2.SearchIndex;
 import org.knime.base.util.kdtree.KDTreeBuilder;
 import org.knime.base.util.kdtree.NearestNeighbour;
+import org.knime.base.util.kdtree.NearestNeighbourSearch;
+import org.knime.base.util.kdtree.VPTreeBuilder;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
@@ -75,6 +78,7 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -85,10 +89,14 @@
 import org.knime.core.node.streamable.PortInput;
 import org.knime.core.node.streamable.PortObjectInput;
 import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
 import org.knime.core.node.streamable.StreamableFunction;
 import org.knime.core.node.streamable.StreamableOperator;
 import org.knime.core.util.MutableDouble;
 import org.knime.core.util.MutableInteger;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
 
 /**
  * This is the model for the k Nearest Neighbor node. In contrast to most
@@ -100,6 +108,9 @@
  * @since 3.7
  */
 public class KnnNodeModel2 extends NodeModel {
+    /** The number of test rows that are classified together by one thread while streaming. */
+    private static final int CLASSIFICATION_BATCH_SIZE = 256;
+
     private KnnSettings2 m_settings = new KnnSettings2();
 
     private final Map<DataCell, MutableInteger> m_classDistribution =
@@ -246,7 +257,12 @@ public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final
                  BufferedDataTable trainData = (BufferedDataTable) ((PortObjectInput) inputs[0]).getPortObject();
                  ColumnRearranger c = createRearranger(trainData, (DataTableSpec) inSpecs[1], exec, -1);
                  StreamableFunction func = c.createStreamableFunction(1, 0);
-                 func.runFinal(inputs, outputs, exec);
+                 func.init(exec);
+                 try {
+                     classifyInBatches(func, (RowInput)inputs[1], (RowOutput)outputs[0], exec);
+                 } finally {
+                     func.finish();
+                 }
             }
         };
     }
@@ -267,8 +283,64 @@ public OutputPortRole[] getOutputPortRoles() {
         return new OutputPortRole[]{OutputPortRole.NONDISTRIBUTED};
     }
 
+    /**
+     * Classifies the rows of the test data in batches on a sub pool of the global thread pool. The classified rows are
+     * pushed to the output in the order of the input.
+     */
+    private static void classifyInBatches(final StreamableFunction func, final RowInput input,
+        final RowOutput output, final ExecutionContext exec) throws Exception {
+        final int parallelism = Runtime.getRuntime().availableProcessors();
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(parallelism);
+        // bound the number of pending batches to limit the memory held by the test rows
+        final int maxPending = 2 * parallelism;
+        final List<Future<DataRow[]>> pending = new ArrayList<Future<DataRow[]>>();
+        try {
+            DataRow[] batch = readBatch(input);
+            long count = 0;
+            while (batch.length > 0) {
+                exec.checkCanceled();
+                final DataRow[] currBatch = batch;
+                pending.add(pool.enqueue(() -> {
+                    DataRow[] result = new DataRow[currBatch.length];
+                    for (int i = 0; i < currBatch.length; i++) {
+                        result[i] = func.compute(currBatch[i]);
+                    }
+                    return result;
+                }));
+                count += currBatch.length;
+                while (pending.size() >= maxPending) {
+                    pushBatch(ParallelTasks.waitFor(pending.remove(0)), output);
+                }
+                exec.setMessage("Classified " + count + " rows");
+                batch = readBatch(input);
+            }
+            while (!pending.isEmpty()) {
+                pushBatch(ParallelTasks.waitFor(pending.remove(0)), output);
+            }
+            input.close();
+            output.close();
+        } finally {
+            pending.stream().forEach(f -> f.cancel(true));
+        }
+    }
+
+    private static DataRow[] readBatch(final RowInput input) throws InterruptedException {
+        List<DataRow> batch = new ArrayList<DataRow>(CLASSIFICATION_BATCH_SIZE);
+        DataRow row;
+        while ((batch.size() < CLASSIFICATION_BATCH_SIZE) && ((row = input.poll()) != null)) {
+            batch.add(row);
+        }
+        return batch.toArray(new DataRow[batch.size()]);
+    }
+
+    private static void pushBatch(final DataRow[] rows, final RowOutput output) throws InterruptedException {
+        for (DataRow row : rows) {
+            output.push(row);
+        }
+    }
+
     /*
-     * Creates a column rearranger. NOTE: This call possibly involves heavier calculations since the kd-tree is determined here based on the training data.
+     * Creates a column rearranger. NOTE: This call possibly involves heavier calculations since the search index is determined here based on the training data.
      * @param numRowsTable2 - can be -1 if can't be determined (streaming)
      */
     private ColumnRearranger createRearranger(final BufferedDataTable trainData, final DataTableSpec inSpec2,
@@ -283,7 +355,11 @@ private ColumnRearranger createRearranger(final BufferedDataTable trainData, fin
         Map<Integer, Integer> firstToSecond = new HashMap<Integer, Integer>();
         checkInputTables(new DataTableSpec[]{trainData.getDataTableSpec(), inSpec2}, featureColumns, firstToSecond);
 
-        KDTreeBuilder<DataCell> treeBuilder = new KDTreeBuilder<DataCell>(featureColumns.size());
+        final boolean useKDTree = (m_settings.searchIndex() == SearchIndex.KD_TREE)
+            || ((m_settings.searchIndex() == SearchIndex.AUTO)
+                && (featureColumns.size() <= KnnSettings2.KD_TREE_MAX_DIMENSIONS));
+        KDTreeBuilder<DataCell> kdTreeBuilder = useKDTree ? new KDTreeBuilder<DataCell>(featureColumns.size()) : null;
+        VPTreeBuilder<DataCell> vpTreeBuilder = useKDTree ? null : new VPTreeBuilder<DataCell>(featureColumns.size());
         int count = 0;
         for (DataRow currentRow : trainData) {
             exec.checkCanceled();
@@ -295,7 +371,11 @@ private ColumnRearranger createRearranger(final BufferedDataTable trainData, fin
             } else {
                 DataCell thisClassCell = currentRow.getCell(classColIndex);
                 // and finally add data
-                treeBuilder.addPattern(features, thisClassCell);
+                if (useKDTree) {
+                    kdTreeBuilder.addPattern(features, thisClassCell);
+                } else {
+                    vpTreeBuilder.addPattern(features, thisClassCell);
+                }
 
                 // compute the majority class for breaking possible ties later
                 MutableInteger t = m_classDistribution.get(thisClassCell);
@@ -310,8 +390,14 @@ private ColumnRearranger createRearranger(final BufferedDataTable trainData, fin
         // and now use it to classify the test data...
         DataColumnSpec classColumnSpec = trainData.getDataTableSpec().getColumnSpec(classColIndex);
 
-        exec.setMessage("Building kd-tree");
-        KDTree<DataCell> tree = treeBuilder.buildTree(exec.createSubProgress(0.3));
+        final NearestNeighbourSearch<DataCell> tree;
+        if (useKDTree) {
+            exec.setMessage("Building kd-tree");
+            tree = kdTreeBuilder.buildTree(exec.createSubProgress(0.3));
+        } else {
+            exec.setMessage("Building vp-tree");
+            tree = vpTreeBuilder.buildTree(exec.createSubProgress(0.3));
+        }
 
         if (tree.size() < m_settings.k()) {
             setWarningMessage("There are only " + tree.size() + " patterns in the input table, but " + m_settings.k()
@@ -386,7 +472,7 @@ private ColumnRearranger createRearranger(final DataTableSpec in,
             final DataColumnSpec classColumnSpec,
             final List<Integer> featureColumns,
             final Map<Integer, Integer> firstToSecond,
-            final KDTree<DataCell> tree, final double maxRows) {
+            final NearestNeighbourSearch<DataCell> tree, final double maxRows) {
         ColumnRearranger c = new ColumnRearranger(in);
         String newName = "Class [kNN]";
         while (in.containsName(newName)) {
@@ -425,7 +511,9 @@ public int compare(final DataCell o1, final DataCell o2) {
 
         final DataColumnSpec[] colSpecArray =
                 colSpecs.toArray(new DataColumnSpec[colSpecs.size()]);
-        c.append(new AbstractCellFactory(colSpecArray) {
+        // the classification of a row only reads the tree and the class distribution, so the rows can be
+        // classified concurrently
+        c.append(new AbstractCellFactory(true, colSpecArray) {
 
             /** {@inheritDoc} */
             @Override
@@ -453,7 +541,7 @@ public DataCell[] getCells(final DataRow row) {
     // returns a list where the first value if the winner class, and the
     // following values are the class probabilities (if enabled)
     private List<DataCell> classify(final DataRow row,
-            final KDTree<DataCell> tree, final List<Integer> featureColumns,
+            final NearestNeighbourSearch<DataCell> tree, final List<Integer> featureColumns,
             final Map<Integer, Integer> firstToSecond,
             final DataCell[] allClassValues) {
         double[] features =
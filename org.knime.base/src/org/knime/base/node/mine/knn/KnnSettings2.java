@@ -55,6 +55,42 @@
  * @since 3.7
  */
 public class KnnSettings2 {
+    /**
+     * The index structures that can be used for searching the nearest neighbours.
+     *
+     * @since 3.7
+     */
+    public enum SearchIndex {
+        /** Uses a k-d tree for few dimensions and a vp tree otherwise. */
+        AUTO("Automatic"),
+        /** Uses a k-d tree, which prunes the search well for few dimensions. */
+        KD_TREE("k-d tree"),
+        /** Uses a vantage point tree, which is better suited for many dimensions. */
+        VP_TREE("Vantage point tree");
+
+        private final String m_label;
+
+        SearchIndex(final String label) {
+            m_label = label;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return m_label;
+        }
+    }
+
+    /**
+     * The number of dimensions above which the {@link SearchIndex#AUTO automatic} selection uses a vp tree instead of
+     * a k-d tree.
+     *
+     * @since 3.7
+     */
+    public static final int KD_TREE_MAX_DIMENSIONS = 20;
+
     private String m_classColumn;
 
     private int m_k = 3;
@@ -63,6 +99,8 @@ public class KnnSettings2 {
 
     private boolean m_classProbabilities;
 
+    private SearchIndex m_searchIndex = SearchIndex.AUTO;
+
     /**
      * Set if an additional column containing class probabilities should be
      * appended to the output table.
@@ -128,6 +166,26 @@ public void k(final int k) {
         this.m_k = k;
     }
 
+    /**
+     * Returns the index structure that is used for searching the nearest neighbours.
+     *
+     * @return the search index
+     * @since 3.7
+     */
+    public SearchIndex searchIndex() {
+        return m_searchIndex;
+    }
+
+    /**
+     * Sets the index structure that is used for searching the nearest neighbours.
+     *
+     * @param index the search index
+     * @since 3.7
+     */
+    public void searchIndex(final SearchIndex index) {
+        m_searchIndex = index;
+    }
+
     /**
      * Returns the name of the column with the class labels.
      *
@@ -156,6 +214,7 @@ public void saveSettings(final NodeSettingsWO settings) {
         settings.addInt("k", m_k);
         settings.addBoolean("weightByDistance", m_weightByDistance);
         settings.addBoolean("outputClassProbabilities", m_classProbabilities);
+        settings.addString("searchIndex", m_searchIndex.name());
     }
 
     /**
@@ -173,5 +232,13 @@ public void loadSettings(final NodeSettingsRO settings)
         /* since 2.6 */
         m_classProbabilities = settings.getBoolean("outputClassProbabilities",
                 false);
+
+        /* since 3.7 */
+        String index = settings.getString("searchIndex", SearchIndex.AUTO.name());
+        try {
+            m_searchIndex = SearchIndex.valueOf(index);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidSettingsException("Unknown search index: " + index, ex);
+        }
     }
 }
@@ -0,0 +1,569 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.subgroupminer.apriori;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.base.node.mine.subgroupminer.freqitemset.AssociationRule;
+import org.knime.base.node.mine.subgroupminer.freqitemset.FrequentItemSet;
+import org.knime.core.data.vector.bitvector.BitVectorValue;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * FP-Growth implementation of the {@link AprioriAlgorithm} interface. The
+ * transactions are compressed into an {@link FPTree} and the frequent itemsets
+ * are found by recursively mining conditional trees, thus no candidates are
+ * generated. The conditional trees of the single items are independent of
+ * each other and can be mined in parallel.
+ *
+ * <p>
+ * The results are the same as the ones of the {@link TIDApriori}: the same
+ * itemsets with the same support in the same order, and the same association
+ * rules. This includes that items occurring in every transaction are reported
+ * separately and that free itemsets may contain one item more than the
+ * maximal itemset length. Itemsets which occur in no transaction at all are
+ * never reported, even if the minimum support is 0. Unlike the
+ * {@link TIDApriori} the itemsets don't carry the transaction ids.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FPGrowth implements AprioriAlgorithm {
+
+    private static final NodeLogger LOGGER =
+            NodeLogger.getLogger(FPGrowth.class);
+
+    /** Preorder of the prefix tree, an itemset precedes its supersets. */
+    private static final Comparator<ItemSet> PREORDER =
+            new Comparator<ItemSet>() {
+                @Override
+                public int compare(final ItemSet s1, final ItemSet s2) {
+                    return compareItems(s1.m_items, s2.m_items, -1);
+                }
+            };
+
+    /** Postorder of the prefix tree, an itemset follows its supersets. */
+    private static final Comparator<ItemSet> POSTORDER =
+            new Comparator<ItemSet>() {
+                @Override
+                public int compare(final ItemSet s1, final ItemSet s2) {
+                    return compareItems(s1.m_items, s2.m_items, 1);
+                }
+            };
+
+    private final int m_maxThreads;
+
+    private double m_minSupport;
+
+    private int m_minCount;
+
+    private int m_maxLength;
+
+    private int m_dbsize;
+
+    private int[] m_itemSupport = new int[0];
+
+    private int[] m_rankToItem;
+
+    private List<Integer> m_alwaysFrequentItems = new ArrayList<Integer>();
+
+    private List<ItemSet> m_itemSets = new ArrayList<ItemSet>();
+
+    private List<ItemSet> m_closedItemSets = new ArrayList<ItemSet>();
+
+    private Map<ItemSet, ItemSet> m_index = new HashMap<ItemSet, ItemSet>();
+
+    private int m_idCounter = 0;
+
+    /**
+     * Creates an FP-Growth algorithm mining the conditional trees in the
+     * calling thread only.
+     */
+    public FPGrowth() {
+        this(1);
+    }
+
+    /**
+     * Creates an FP-Growth algorithm mining the conditional trees of different
+     * items in parallel.
+     *
+     * @param maxThreads the maximum number of threads used for mining
+     */
+    public FPGrowth(final int maxThreads) {
+        m_maxThreads = Math.max(1, maxThreads);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void findFrequentItemSets(final List<BitVectorValue> transactions,
+            final double minSupport, final int maxDepth,
+            final FrequentItemSet.Type type, final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        m_minSupport = minSupport;
+        m_maxLength = maxDepth;
+        m_dbsize = transactions.size();
+        m_idCounter = 0;
+        LOGGER.debug("dbsize: " + m_dbsize);
+
+        countItems(transactions, exec.createSubProgress(0.2));
+        m_minCount = findMinCount();
+        int[] itemToRank = rankFrequentItems();
+        LOGGER.debug("found " + m_rankToItem.length + " frequent items");
+        FPTree tree = buildTree(transactions, itemToRank,
+                exec.createSubProgress(0.2));
+        LOGGER.debug("FP-tree has " + tree.getNodeCount() + " nodes");
+
+        ExecutionMonitor mineExec = exec.createSubProgress(0.5);
+        List<ItemSet> itemSets = mine(tree, mineExec);
+        mineExec.setProgress(1.0);
+        exec.setMessage("collecting closed itemsets");
+        Collections.sort(itemSets, PREORDER);
+        m_itemSets = itemSets;
+        findClosedItemSets();
+        exec.setProgress(1.0);
+    }
+
+    private void countItems(final List<BitVectorValue> transactions,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        int[] support = new int[64];
+        int transactionNr = 0;
+        for (BitVectorValue transaction : transactions) {
+            exec.setProgress(transactionNr / (double)m_dbsize,
+                    "counting items. Transaction nr: " + transactionNr);
+            exec.checkCanceled();
+            // this type cast is save since the maximum length was checked in
+            // SubgroupMinerModel2#preprocess
+            for (int item = (int)transaction.nextSetBit(0); item >= 0;
+                item = (int)transaction.nextSetBit(item + 1)) {
+                if (item >= support.length) {
+                    support = Arrays.copyOf(support,
+                            Math.max(item + 1, 2 * support.length));
+                }
+                support[item]++;
+            }
+            transactionNr++;
+        }
+        m_itemSupport = support;
+    }
+
+    /**
+     * Returns the smallest number of transactions which reaches the minimum
+     * support. The relative support is compared the same way as in the
+     * {@link TIDItemSet}, so rounding can't make a difference.
+     */
+    private int findMinCount() {
+        int minCount = Math.max(1,
+                (int)Math.ceil(m_minSupport * m_dbsize) - 1);
+        while (minCount <= m_dbsize && getSupport(minCount) < m_minSupport) {
+            minCount++;
+        }
+        return minCount;
+    }
+
+    /**
+     * Filters the always frequent items which occur in every transaction and
+     * ranks the remaining frequent items by descending support.
+     *
+     * @return the rank of every item or -1 if it is not frequent
+     */
+    private int[] rankFrequentItems() {
+        m_alwaysFrequentItems = new ArrayList<Integer>();
+        List<Integer> frequentItems = new ArrayList<Integer>();
+        for (int item = 0; item < m_itemSupport.length; item++) {
+            if (m_itemSupport[item] == m_dbsize && m_dbsize > 0) {
+                m_alwaysFrequentItems.add(item);
+            } else if (m_itemSupport[item] >= m_minCount) {
+                frequentItems.add(item);
+            }
+        }
+        Collections.sort(frequentItems, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer i1, final Integer i2) {
+                int s1 = m_itemSupport[i1];
+                int s2 = m_itemSupport[i2];
+                if (s1 != s2) {
+                    return s1 > s2 ? -1 : 1;
+                }
+                return i1.compareTo(i2);
+            }
+        });
+        int[] itemToRank = new int[m_itemSupport.length];
+        Arrays.fill(itemToRank, -1);
+        m_rankToItem = new int[frequentItems.size()];
+        for (int rank = 0; rank < m_rankToItem.length; rank++) {
+            m_rankToItem[rank] = frequentItems.get(rank);
+            itemToRank[m_rankToItem[rank]] = rank;
+        }
+        return itemToRank;
+    }
+
+    private FPTree buildTree(final List<BitVectorValue> transactions,
+            final int[] itemToRank, final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        FPTree tree = new FPTree(m_rankToItem.length, m_dbsize);
+        int[] path = new int[m_rankToItem.length];
+        int transactionNr = 0;
+        for (BitVectorValue transaction : transactions) {
+            exec.setProgress(transactionNr / (double)m_dbsize,
+                    "building FP-tree. Transaction nr: " + transactionNr);
+            exec.checkCanceled();
+            int length = 0;
+            for (int item = (int)transaction.nextSetBit(0); item >= 0;
+                item = (int)transaction.nextSetBit(item + 1)) {
+                int rank = itemToRank[item];
+                if (rank >= 0) {
+                    path[length++] = rank;
+                }
+            }
+            if (length > 0) {
+                Arrays.sort(path, 0, length);
+                tree.insert(path, length, 1);
+            }
+            transactionNr++;
+        }
+        return tree;
+    }
+
+    /**
+     * Mines the conditional trees of all items of the passed tree. Each task
+     * takes the next item which is not mined yet, the found itemsets are
+     * sorted afterwards, so the result doesn't depend on the scheduling.
+     */
+    private List<ItemSet> mine(final FPTree tree, final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        // the free itemsets of the prefix tree of the TIDApriori may contain
+        // one item more than the maximal length
+        final int rankCount = tree.getRankCount();
+        final int maxSize = (int)Math.min(m_maxLength + 1L, rankCount);
+        if (maxSize <= 0) {
+            return new ArrayList<ItemSet>();
+        }
+        final AtomicInteger nextRank = new AtomicInteger(0);
+        final AtomicInteger minedRanks = new AtomicInteger(0);
+        final int taskCount = Math.min(m_maxThreads, rankCount);
+        @SuppressWarnings("unchecked")
+        final List<ItemSet>[] results = new List[taskCount];
+        ThreadPool pool =
+                KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_maxThreads);
+        ParallelTasks.runParallel(pool, taskCount, new ParallelTasks.Task() {
+            @Override
+            public void run(final int taskIndex)
+                    throws CanceledExecutionException {
+                List<ItemSet> result = new ArrayList<ItemSet>();
+                int[] suffix = new int[maxSize];
+                for (int rank = nextRank.getAndIncrement(); rank < rankCount;
+                    rank = nextRank.getAndIncrement()) {
+                    exec.checkCanceled();
+                    mineRank(tree, rank, suffix, 0, maxSize, result, exec);
+                    int mined = minedRanks.incrementAndGet();
+                    exec.setProgress(mined / (double)rankCount,
+                            "mining conditional trees. Item nr: " + mined);
+                }
+                results[taskIndex] = result;
+            }
+        });
+        List<ItemSet> itemSets = new ArrayList<ItemSet>();
+        for (List<ItemSet> result : results) {
+            itemSets.addAll(result);
+        }
+        return itemSets;
+    }
+
+    /**
+     * Adds the itemset consisting of the suffix and the passed rank and
+     * recursively all its frequent supersets found in the conditional tree.
+     */
+    private void mineRank(final FPTree tree, final int rank,
+            final int[] suffix, final int suffixLength, final int maxSize,
+            final List<ItemSet> result, final ExecutionMonitor exec)
+            throws CanceledExecutionException {
+        final int support = tree.getSupport(rank);
+        if (support < m_minCount) {
+            return;
+        }
+        suffix[suffixLength] = rank;
+        final int length = suffixLength + 1;
+        int[] items = new int[length];
+        for (int i = 0; i < length; i++) {
+            items[i] = m_rankToItem[suffix[i]];
+        }
+        Arrays.sort(items);
+        result.add(new ItemSet(items, support));
+        if (length < maxSize) {
+            FPTree conditional = tree.createConditionalTree(rank, m_minCount);
+            if (conditional != null) {
+                exec.checkCanceled();
+                for (int r = 0; r < conditional.getRankCount(); r++) {
+                    mineRank(conditional, r, suffix, length, maxSize, result,
+                            exec);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines the closed itemsets, which have no superset with the same
+     * support. As in the {@link TIDApriori}, only itemsets up to the maximal
+     * length are considered. A superset with the same support exists if and
+     * only if an itemset with one more item and the same support exists. The
+     * closed itemsets are ordered like the repository of the
+     * {@link TIDApriori}.
+     */
+    private void findClosedItemSets() {
+        m_index = new HashMap<ItemSet, ItemSet>(
+                Math.max(16, (int)(m_itemSets.size() / 0.75f) + 1));
+        for (ItemSet s : m_itemSets) {
+            m_index.put(s, s);
+        }
+        for (ItemSet s : m_itemSets) {
+            if (s.m_items.length < 2 || s.m_items.length > m_maxLength) {
+                continue;
+            }
+            for (int i = 0; i < s.m_items.length; i++) {
+                ItemSet subset = m_index.get(
+                        new ItemSet(without(s.m_items, i), 0));
+                subset.m_extended = true;
+                if (subset.m_support == s.m_support) {
+                    subset.m_closed = false;
+                }
+            }
+        }
+        m_closedItemSets = new ArrayList<ItemSet>();
+        for (ItemSet s : m_itemSets) {
+            if (s.m_closed && s.m_items.length <= m_maxLength) {
+                m_closedItemSets.add(s);
+            }
+        }
+        Collections.sort(m_closedItemSets, POSTORDER);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FrequentItemSet> getFrequentItemSets(
+            final FrequentItemSet.Type type) {
+        List<FrequentItemSet> freqSets = new ArrayList<FrequentItemSet>();
+        for (Integer item : m_alwaysFrequentItems) {
+            List<Integer> id = new ArrayList<Integer>();
+            id.add(item);
+            freqSets.add(new FrequentItemSet(
+                    Integer.toString(m_idCounter++), id, 1.0));
+        }
+        if (type.equals(FrequentItemSet.Type.FREE)) {
+            for (ItemSet s : m_itemSets) {
+                freqSets.add(toFrequentItemSet(s));
+            }
+        } else if (type.equals(FrequentItemSet.Type.CLOSED)) {
+            for (ItemSet s : m_closedItemSets) {
+                FrequentItemSet set = toFrequentItemSet(s);
+                set.setClosed(true);
+                freqSets.add(set);
+            }
+        } else if (type.equals(FrequentItemSet.Type.MAXIMAL)) {
+            for (ItemSet s : m_closedItemSets) {
+                // a closed set without frequent superset is maximal
+                if (!s.m_extended) {
+                    FrequentItemSet set = toFrequentItemSet(s);
+                    set.setClosed(true);
+                    freqSets.add(set);
+                }
+            }
+        }
+        return freqSets;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AssociationRule> getAssociationRules(final double confidence) {
+        List<AssociationRule> associationRules
+            = new ArrayList<AssociationRule>();
+        // handle always frequent items seperately
+        for (Integer item : m_alwaysFrequentItems) {
+            // create for each item an association
+            // rule with the rest of them in the antecendent
+            // support = dbsize, confidence = 1
+            List<Integer> rest = new ArrayList<Integer>(m_alwaysFrequentItems);
+            rest.remove(item);
+            List<Integer> itemList = new ArrayList<Integer>();
+            itemList.add(item);
+            AssociationRule rule = new AssociationRule(
+                    new FrequentItemSet(Integer.toString(m_idCounter++), rest,
+                        1.0),
+                    new FrequentItemSet(Integer.toString(m_idCounter++),
+                        itemList, 1.0), 1.0, 1.0, 1.0);
+            associationRules.add(rule);
+        }
+        for (ItemSet s : m_closedItemSets) {
+            if (s.m_items.length < 2) {
+                continue;
+            }
+            double oldSupport = getSupport(s.m_support);
+            for (int i = 0; i < s.m_items.length; i++) {
+                int[] sWithoutI = without(s.m_items, i);
+                ItemSet antecedent = m_index.get(new ItemSet(sWithoutI, 0));
+                double newSupport = getSupport(antecedent.m_support);
+                double c = oldSupport / newSupport;
+                if (c >= confidence) {
+                    int item = s.m_items[i];
+                    List<Integer> iList = new ArrayList<Integer>();
+                    iList.add(item);
+                    AssociationRule rule = new AssociationRule(
+                            new FrequentItemSet(
+                                    Integer.toString(m_idCounter++),
+                                    toList(sWithoutI), newSupport),
+                            new FrequentItemSet(
+                                    Integer.toString(m_idCounter++),
+                                    iList, m_itemSupport[item]),
+                            oldSupport, c,
+                            c / m_itemSupport[item] * m_dbsize);
+                    associationRules.add(rule);
+                }
+            }
+        }
+        return associationRules;
+    }
+
+    private double getSupport(final int count) {
+        return (double)count / (double)m_dbsize;
+    }
+
+    private FrequentItemSet toFrequentItemSet(final ItemSet s) {
+        return new FrequentItemSet(Integer.toString(m_idCounter++),
+                toList(s.m_items), getSupport(s.m_support));
+    }
+
+    private static List<Integer> toList(final int[] items) {
+        List<Integer> list = new ArrayList<Integer>(items.length);
+        for (int item : items) {
+            list.add(item);
+        }
+        return list;
+    }
+
+    private static int[] without(final int[] items, final int index) {
+        int[] result = new int[items.length - 1];
+        System.arraycopy(items, 0, result, 0, index);
+        System.arraycopy(items, index + 1, result, index,
+                items.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Compares the sorted items lexicographically, if one is the prefix of
+     * the other the prefix is smaller for <code>prefixOrder</code> -1 and
+     * larger for +1.
+     */
+    private static int compareItems(final int[] items1, final int[] items2,
+            final int prefixOrder) {
+        int length = Math.min(items1.length, items2.length);
+        for (int i = 0; i < length; i++) {
+            if (items1[i] != items2[i]) {
+                return items1[i] < items2[i] ? -1 : 1;
+            }
+        }
+        if (items1.length == items2.length) {
+            return 0;
+        }
+        return items1.length < items2.length ? prefixOrder : -prefixOrder;
+    }
+
+    /**
+     * A frequent itemset with its items in ascending order and its absolute
+     * support. Two itemsets are equal if they contain the same items.
+     */
+    private static final class ItemSet {
+
+        private final int[] m_items;
+
+        private final int m_support;
+
+        private boolean m_closed = true;
+
+        private boolean m_extended = false;
+
+        ItemSet(final int[] items, final int support) {
+            m_items = items;
+            m_support = support;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ItemSet)) {
+                return false;
+            }
+            return Arrays.equals(m_items, ((ItemSet)obj).m_items);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(m_items);
+        }
+    }
+}
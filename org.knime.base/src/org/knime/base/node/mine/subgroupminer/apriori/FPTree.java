@@ -0,0 +1,226 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.mine.subgroupminer.apriori;
+
+import java.util.Arrays;
+
+/**
+ * A compact FP-tree as used by {@link FPGrowth}. The items are represented by
+ * their rank, where rank 0 is the most frequent item. Every transaction is
+ * inserted as a path of ascending ranks starting at the root, transactions
+ * with a common prefix share the nodes of the prefix. The nodes are stored in
+ * parallel primitive arrays and all nodes of one item are chained with node
+ * links starting at the header table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class FPTree {
+
+    private static final int ROOT = 0;
+
+    private static final int NONE = -1;
+
+    private int[] m_rank;
+
+    private int[] m_count;
+
+    private int[] m_parent;
+
+    private int[] m_firstChild;
+
+    private int[] m_sibling;
+
+    private int[] m_nodeLink;
+
+    private int m_nodeCount;
+
+    private final int[] m_head;
+
+    private final int[] m_support;
+
+    /**
+     * Creates an empty tree.
+     *
+     * @param rankCount the number of ranks (items) the tree may contain
+     * @param capacity the expected number of nodes
+     */
+    FPTree(final int rankCount, final int capacity) {
+        int initialCapacity = Math.max(16, capacity);
+        m_rank = new int[initialCapacity];
+        m_count = new int[initialCapacity];
+        m_parent = new int[initialCapacity];
+        m_firstChild = new int[initialCapacity];
+        m_sibling = new int[initialCapacity];
+        m_nodeLink = new int[initialCapacity];
+        m_head = new int[rankCount];
+        Arrays.fill(m_head, NONE);
+        m_support = new int[rankCount];
+        m_rank[ROOT] = NONE;
+        m_parent[ROOT] = NONE;
+        m_firstChild[ROOT] = NONE;
+        m_sibling[ROOT] = NONE;
+        m_nodeLink[ROOT] = NONE;
+        m_nodeCount = 1;
+    }
+
+    /**
+     * Inserts a path into the tree.
+     *
+     * @param ranks the ranks of the path in ascending order, the array may
+     *            be longer than the path
+     * @param length the length of the path
+     * @param count the number of transactions represented by the path
+     */
+    void insert(final int[] ranks, final int length, final int count) {
+        int node = ROOT;
+        for (int i = 0; i < length; i++) {
+            final int rank = ranks[i];
+            int child = m_firstChild[node];
+            while (child != NONE && m_rank[child] != rank) {
+                child = m_sibling[child];
+            }
+            if (child == NONE) {
+                child = createNode(rank, node);
+            }
+            m_count[child] += count;
+            m_support[rank] += count;
+            node = child;
+        }
+    }
+
+    private int createNode(final int rank, final int parent) {
+        if (m_nodeCount == m_rank.length) {
+            int newCapacity = m_rank.length + (m_rank.length >> 1);
+            m_rank = Arrays.copyOf(m_rank, newCapacity);
+            m_count = Arrays.copyOf(m_count, newCapacity);
+            m_parent = Arrays.copyOf(m_parent, newCapacity);
+            m_firstChild = Arrays.copyOf(m_firstChild, newCapacity);
+            m_sibling = Arrays.copyOf(m_sibling, newCapacity);
+            m_nodeLink = Arrays.copyOf(m_nodeLink, newCapacity);
+        }
+        final int node = m_nodeCount++;
+        m_rank[node] = rank;
+        m_count[node] = 0;
+        m_parent[node] = parent;
+        m_firstChild[node] = NONE;
+        m_sibling[node] = m_firstChild[parent];
+        m_firstChild[parent] = node;
+        m_nodeLink[node] = m_head[rank];
+        m_head[rank] = node;
+        return node;
+    }
+
+    /**
+     * @return the number of ranks this tree was created for
+     */
+    int getRankCount() {
+        return m_head.length;
+    }
+
+    /**
+     * @return the number of nodes including the root
+     */
+    int getNodeCount() {
+        return m_nodeCount;
+    }
+
+    /**
+     * @param rank the rank of an item
+     * @return the number of transactions in this tree containing the item
+     */
+    int getSupport(final int rank) {
+        return m_support[rank];
+    }
+
+    /**
+     * Creates the conditional tree of the passed rank, i.e. the tree built
+     * from the prefix paths of all nodes of this rank. Only ranks with at
+     * least the minimum count are kept, the ranks are not renumbered.
+     *
+     * @param rank the rank whose prefix paths are used
+     * @param minCount the minimum number of transactions an item must occur
+     *            in to be kept
+     * @return the conditional tree or <code>null</code> if it would be empty
+     */
+    FPTree createConditionalTree(final int rank, final int minCount) {
+        // the prefix paths only contain smaller ranks
+        int[] support = new int[rank];
+        for (int node = m_head[rank]; node != NONE; node = m_nodeLink[node]) {
+            final int count = m_count[node];
+            for (int p = m_parent[node]; p != ROOT; p = m_parent[p]) {
+                support[m_rank[p]] += count;
+            }
+        }
+        boolean empty = true;
+        for (int r = 0; r < rank && empty; r++) {
+            empty = support[r] < minCount;
+        }
+        if (empty) {
+            return null;
+        }
+        // the shared prefixes usually compress the paths well, the arrays
+        // grow with the nodes that are actually created
+        FPTree tree = new FPTree(rank, 0);
+        int[] path = new int[rank];
+        for (int node = m_head[rank]; node != NONE; node = m_nodeLink[node]) {
+            // collect the path bottom up and insert it top down
+            int length = 0;
+            for (int p = m_parent[node]; p != ROOT; p = m_parent[p]) {
+                if (support[m_rank[p]] >= minCount) {
+                    path[length++] = m_rank[p];
+                }
+            }
+            for (int i = 0, j = length - 1; i < j; i++, j--) {
+                int tmp = path[i];
+                path[i] = path[j];
+                path[j] = tmp;
+            }
+            if (length > 0) {
+                tree.insert(path, length, m_count[node]);
+            }
+        }
+        return tree;
+    }
+}
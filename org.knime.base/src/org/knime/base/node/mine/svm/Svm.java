@@ -296,6 +296,14 @@ public double[] getTargetAlphas() {
         return targetAlpha;
     }
 
+    /**
+     * @return the kernel of the SVM.
+     * @since 3.7
+     */
+    public Kernel getKernel() {
+        return m_kernel;
+    }
+
     /**
      * @return the threshold value b of the SVM.s
      */
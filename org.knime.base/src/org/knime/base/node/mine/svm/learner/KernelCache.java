@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.base.node.mine.svm.learner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.knime.base.node.mine.svm.kernel.Kernel;
+import org.knime.base.node.mine.svm.util.DoubleVector;
+
+/**
+ * Least recently used cache of kernel matrix rows for the {@link SvmAlgorithm}. A row contains the kernel values of
+ * one input vector with all input vectors. The number of cached rows is limited by a memory budget. The diagonal of
+ * the kernel matrix is always kept. A cache is created when the algorithm starts running and released when it ends.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class KernelCache {
+    private final DoubleVector[] m_inputData;
+
+    private final Kernel m_kernel;
+
+    private final double[] m_diagonal;
+
+    private final LinkedHashMap<Integer, double[]> m_rows;
+
+    private long m_hits, m_misses;
+
+    /**
+     * Creates a new kernel cache.
+     *
+     * @param inputData the input vectors
+     * @param kernel the kernel
+     * @param maxBytes the maximum number of bytes used for cached rows, if less than two rows fit into this budget
+     *            no rows are cached at all
+     */
+    KernelCache(final DoubleVector[] inputData, final Kernel kernel, final long maxBytes) {
+        m_inputData = inputData;
+        m_kernel = kernel;
+        m_diagonal = new double[inputData.length];
+        for (int i = 0; i < inputData.length; i++) {
+            m_diagonal[i] = kernel.evaluate(inputData[i], inputData[i]);
+        }
+        final long rowBytes = 8L * Math.max(1, inputData.length);
+        final int maxRows = (int)Math.min(inputData.length, maxBytes / rowBytes);
+        if (maxRows >= 2) {
+            m_rows = new LinkedHashMap<Integer, double[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Integer, double[]> eldest) {
+                    return size() > maxRows;
+                }
+            };
+        } else {
+            m_rows = null;
+        }
+    }
+
+    /**
+     * Returns the kernel value of an input vector with itself.
+     *
+     * @param i the index of the input vector
+     * @return the kernel value
+     */
+    double diagonal(final int i) {
+        return m_diagonal[i];
+    }
+
+    /**
+     * Returns the kernel row of the given input vector, it's computed if it is not in the cache yet.
+     *
+     * @param i the index of the input vector
+     * @return the kernel values of the vector with all input vectors or <code>null</code> if caching is disabled
+     */
+    double[] getRow(final int i) {
+        if (m_rows == null) {
+            return null;
+        }
+        double[] row = m_rows.get(i);
+        if (row == null) {
+            m_misses++;
+            row = new double[m_inputData.length];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = m_kernel.evaluate(m_inputData[i], m_inputData[j]);
+            }
+            m_rows.put(i, row);
+        } else {
+            m_hits++;
+        }
+        return row;
+    }
+
+    /**
+     * Returns the kernel row of the given input vector only if it is in the cache.
+     *
+     * @param i the index of the input vector
+     * @return the kernel values of the vector with all input vectors or <code>null</code> if it's not cached
+     */
+    double[] getCachedRow(final int i) {
+        return m_rows == null ? null : m_rows.get(i);
+    }
+
+    /**
+     * Returns the kernel value of two input vectors. A cached row is used if available, the kernel is evaluated
+     * otherwise.
+     *
+     * @param i the index of the first input vector
+     * @param j the index of the second input vector
+     * @return the kernel value
+     */
+    double evaluate(final int i, final int j) {
+        double[] row = getCachedRow(i);
+        if (row != null) {
+            return row[j];
+        }
+        row = getCachedRow(j);
+        if (row != null) {
+            return row[i];
+        }
+        return m_kernel.evaluate(m_inputData[i], m_inputData[j]);
+    }
+
+    /**
+     * Returns a short summary of the cache usage for debugging.
+     *
+     * @return a summary string
+     */
+    @Override
+    public String toString() {
+        return "Kernel cache: " + (m_rows == null ? 0 : m_rows.size()) + " rows, " + m_hits + " hits, " + m_misses
+            + " misses";
+    }
+}
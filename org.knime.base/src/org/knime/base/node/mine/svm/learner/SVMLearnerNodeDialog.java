@@ -73,6 +73,7 @@
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
 import org.knime.core.node.defaultnodesettings.DialogComponent;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
 import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 import org.knime.core.node.defaultnodesettings.SettingsModelDouble;
@@ -114,6 +115,14 @@ public SVMLearnerNodeDialog() {
                         SVMLearnerNodeModel.DEFAULT_PARAMC),
                 "Overlapping penalty: ", .1));
 
+        this.addDialogComponent(new DialogComponentNumber(
+                SVMLearnerNodeModel.createCacheSizeModel(),
+                "Kernel cache size (MB): ", 10));
+
+        this.addDialogComponent(new DialogComponentBoolean(
+                SVMLearnerNodeModel.createShrinkingModel(),
+                "Use shrinking heuristics"));
+
         JPanel kernelsettingsPanel = new JPanel();
         kernelsettingsPanel.setLayout(new BoxLayout(kernelsettingsPanel,
                 BoxLayout.Y_AXIS));
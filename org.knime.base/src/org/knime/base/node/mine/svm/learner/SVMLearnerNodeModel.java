@@ -86,7 +86,9 @@
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelDouble;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortObjectSpec;
@@ -129,6 +131,18 @@ public class SVMLearnerNodeModel extends NodeModel {
      */
     public static final String CFG_KERNELTYPE = "kernel_type";
 
+    /**
+     * Key to store the memory budget of the kernel cache in MB.
+     * @since 3.7
+     */
+    public static final String CFG_CACHE_SIZE = "kernel_cache_size";
+
+    /**
+     * Key to store whether shrinking is enabled.
+     * @since 3.7
+     */
+    public static final String CFG_SHRINKING = "shrinking";
+
     /** Keys under which to save the parameters. */
     public static final String KEY_CATEG_COUNT = "Category count";
 
@@ -141,6 +155,13 @@ public class SVMLearnerNodeModel extends NodeModel {
     /** Default c parameter. */
     public static final double DEFAULT_PARAMC = 1.0;
 
+    /**
+     * Default memory budget of the kernel cache in MB.
+     * @since 3.7
+     */
+    public static final int DEFAULT_CACHE_SIZE =
+            (int)(SvmAlgorithm.DEFAULT_CACHE_SIZE / (1024 * 1024));
+
     /*
      * The c parameter value.
      */
@@ -153,6 +174,17 @@ public class SVMLearnerNodeModel extends NodeModel {
     private final SettingsModelString m_classcol =
             new SettingsModelString(CFG_CLASSCOL, "");
 
+    /*
+     * The memory budget of the kernel cache in MB.
+     */
+    private final SettingsModelIntegerBounded m_cacheSize =
+            createCacheSizeModel();
+
+    /*
+     * Whether shrinking is enabled.
+     */
+    private final SettingsModelBoolean m_shrinking = createShrinkingModel();
+
     /*
      * The chosen kernel
      */
@@ -196,6 +228,21 @@ public class SVMLearnerNodeModel extends NodeModel {
         return kernelParameters;
     }
 
+    /**
+     * @return the settings model for the memory budget of the kernel cache
+     */
+    static SettingsModelIntegerBounded createCacheSizeModel() {
+        return new SettingsModelIntegerBounded(CFG_CACHE_SIZE,
+                DEFAULT_CACHE_SIZE, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the settings model for the shrinking option
+     */
+    static SettingsModelBoolean createShrinkingModel() {
+        return new SettingsModelBoolean(CFG_SHRINKING, true);
+    }
+
     /**
      *
      */
@@ -294,10 +341,17 @@ protected PortObject[] execute(final PortObject[] inData,
         exec.setMessage("Training SVM");
         final BinarySvmRunnable[] bst =
                 new BinarySvmRunnable[categories.size()];
+        // the binary problems are trained concurrently, so the running ones
+        // share the memory budget of the kernel cache (which is only
+        // allocated while a problem is trained)
+        final long cacheSize = m_cacheSize.getIntValue() * 1024L * 1024L
+                / Math.min(categories.size(),
+                        Runtime.getRuntime().availableProcessors());
         for (int i = 0; i < categories.size(); i++) {
             bst[i] =
                     new BinarySvmRunnable(inputDataArr, categories.get(i),
-                            kernel, m_paramC.getDoubleValue(),
+                            kernel, m_paramC.getDoubleValue(), cacheSize,
+                            m_shrinking.getBooleanValue(),
                             exec.createSubProgress((1.0 / categories.size())));
 
         }
@@ -468,6 +522,18 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
             throws InvalidSettingsException {
         m_paramC.loadSettingsFrom(settings);
         m_classcol.loadSettingsFrom(settings);
+        // since 3.7; the cache doesn't change the result, but shrinking may
+        // slightly change it, so it's disabled for old workflows
+        if (settings.containsKey(CFG_CACHE_SIZE)) {
+            m_cacheSize.loadSettingsFrom(settings);
+        } else {
+            m_cacheSize.setIntValue(DEFAULT_CACHE_SIZE);
+        }
+        if (settings.containsKey(CFG_SHRINKING)) {
+            m_shrinking.loadSettingsFrom(settings);
+        } else {
+            m_shrinking.setBooleanValue(false);
+        }
         if (settings.containsKey(CFG_KERNELTYPE)) {
             m_kernelType =
                     KernelType.valueOf(settings.getString(CFG_KERNELTYPE));
@@ -553,6 +619,8 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
         settings.addString(CFG_KERNELTYPE, m_kernelType.toString());
         m_paramC.saveSettingsTo(settings);
         m_classcol.saveSettingsTo(settings);
+        m_cacheSize.saveSettingsTo(settings);
+        m_shrinking.saveSettingsTo(settings);
         for (Map.Entry<KernelType, Vector<SettingsModelDouble>>
         entry : m_kernelParameters
                 .entrySet()) {
@@ -601,6 +669,12 @@ protected void validateSettings(final NodeSettingsRO settings)
 
         m_paramC.validateSettings(settings);
         m_classcol.validateSettings(settings);
+        if (settings.containsKey(CFG_CACHE_SIZE)) {
+            m_cacheSize.validateSettings(settings);
+        }
+        if (settings.containsKey(CFG_SHRINKING)) {
+            m_shrinking.validateSettings(settings);
+        }
     }
 
     private static final class LearnColumnsAndColumnRearrangerTuple {
@@ -45,6 +45,7 @@
  */
 package org.knime.base.node.mine.svm.learner;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -81,6 +82,13 @@ public class SvmAlgorithm {
      * @since 2.12
      */
     public static final String MAXIMUM_NUMBER_OF_ITERATIONS_REACHED = "Maximum number of iterations reached.";
+
+    /**
+     * The default memory budget for the kernel cache in bytes.
+     * @since 3.7
+     */
+    public static final long DEFAULT_CACHE_SIZE = 100L * 1024 * 1024;
+
     /*
      * NodeLogger for this class.
      */
@@ -103,6 +111,22 @@ public class SvmAlgorithm {
      */
     private Kernel m_kernel;
 
+    /*
+     * the memory budget for cached kernel rows in bytes and the cache of
+     * kernel matrix rows, which only exists while the algorithm runs.
+     */
+    private final long m_cacheSize;
+
+    private KernelCache m_kernelCache;
+
+    /*
+     * whether shrinking is enabled and the examples that are currently
+     * skipped in the loops over all examples.
+     */
+    private final boolean m_shrinking;
+
+    private boolean[] m_shrunk;
+
     /*
      * the C parameter (upper bound for alpha's) -- needed for when the input
      * data is not separable.
@@ -150,6 +174,13 @@ public class SvmAlgorithm {
      */
     private static final double EPSILON = 1.0e-12;
 
+    /*
+     * kernel rows are only computed (and cached) in an optimization step if
+     * at least this fraction of the examples is in I0, otherwise evaluating
+     * the kernel for the examples in I0 only is cheaper.
+     */
+    private static final int ROW_FRACTION = 10;
+
     /**
      * The main constructor.
      *
@@ -163,11 +194,38 @@ public class SvmAlgorithm {
     public SvmAlgorithm(final DoubleVector[] inputData,
             final String positiveClass, final Kernel kernel,
             final double paramC) {
+        this(inputData, positiveClass, kernel, paramC, 0, false);
+    }
+
+    /**
+     * Creates a new algorithm that caches rows of the kernel matrix and
+     * optionally shrinks the problem. Shrinking temporarily excludes examples
+     * at the bounds that clearly satisfy the optimality conditions from the
+     * loops over all examples. Before the algorithm finishes all examples are
+     * checked again.
+     *
+     * @param inputData the input vectors
+     * @param positiveClass the class value for which to consider an input
+     *            vector a 'positive' example. if input vectors have other class
+     *            values, they are considered 'negative'
+     * @param kernel the kernel to use in the algorithm
+     * @param paramC the "C" from the problem constraints
+     * @param cacheSize the memory budget for cached kernel rows in bytes
+     * @param shrinking <code>true</code> if shrinking should be used,
+     *            <code>false</code> otherwise
+     * @since 3.7
+     */
+    public SvmAlgorithm(final DoubleVector[] inputData,
+            final String positiveClass, final Kernel kernel,
+            final double paramC, final long cacheSize,
+            final boolean shrinking) {
         m_inputData = inputData;
         m_positiveClass = positiveClass;
         m_kernel = kernel;
         m_paramC = paramC;
         m_alpha = new double[m_inputData.length];
+        m_cacheSize = cacheSize;
+        m_shrinking = shrinking;
         //See: https://github.com/cran/e1071/blob/R-3.0.3/src/svm.cpp#L567
         m_maxIteration = Math.max(10000000, inputData.length > Integer.MAX_VALUE / 100 ? Integer.MAX_VALUE - 1 : 100*inputData.length);
     }
@@ -215,13 +273,14 @@ private double target(final int i) {
      */
     private double computeSvmOutput(final int i1) {
         double result = 0;
+        final double[] row = m_kernelCache.getCachedRow(i1);
 
         for (int i2 = 0; i2 < m_alpha.length; ++i2) {
             if (!zero(m_alpha[i2])) {
                 double alpha = m_alpha[i2];
                 double targ = target(i2);
-                double kern =
-                        m_kernel.evaluate(m_inputData[i1], m_inputData[i2]);
+                double kern = row != null ? row[i2]
+                        : m_kernel.evaluate(m_inputData[i1], m_inputData[i2]);
                 result += alpha * targ * kern;
             }
         }
@@ -274,6 +333,10 @@ private void updateSets(final int i1, final int i2) {
 
         addToCorrectSet(i1);
         addToCorrectSet(i2);
+        if (m_shrunk != null) {
+            m_shrunk[i1] = false;
+            m_shrunk[i2] = false;
+        }
     }
 
     /**
@@ -366,9 +429,9 @@ private boolean takeStep(final int i1, final int i2) throws MaxIterationsExceede
         if (Math.abs(low - high) < EPSILON) {
             return false;
         }
-        double k11 = m_kernel.evaluate(m_inputData[i1], m_inputData[i1]);
-        double k12 = m_kernel.evaluate(m_inputData[i1], m_inputData[i2]);
-        double k22 = m_kernel.evaluate(m_inputData[i2], m_inputData[i2]);
+        double k11 = m_kernelCache.diagonal(i1);
+        double k12 = m_kernelCache.evaluate(i1, i2);
+        double k22 = m_kernelCache.diagonal(i2);
         //-eta as in the Pratt paper.
         double eta = k11 + k22 - 2.0 * k12; // value of second derivative
         double a2;
@@ -403,17 +466,19 @@ private boolean takeStep(final int i1, final int i2) throws MaxIterationsExceede
         m_alpha[i1] = a1;
         m_alpha[i2] = a2;
         updateSets(i1, i2);
+        final boolean computeRows =
+                (long)m_i0.size() * ROW_FRACTION >= m_inputData.length;
+        final double[] row1 = computeRows ? m_kernelCache.getRow(i1)
+                : m_kernelCache.getCachedRow(i1);
+        final double[] row2 = computeRows ? m_kernelCache.getRow(i2)
+                : m_kernelCache.getCachedRow(i2);
         for (int i : m_i0) {
             if ((i != i1) && (i != i2)) {
-                m_fcache[i] +=
-                        y1
-                                * (a1 - alpha1)
-                                * m_kernel.evaluate(m_inputData[i1],
-                                        m_inputData[i])
-                                + y2
-                                * (a2 - alpha2)
-                                * m_kernel.evaluate(m_inputData[i2],
-                                        m_inputData[i]);
+                final double k1 = row1 != null ? row1[i]
+                        : m_kernel.evaluate(m_inputData[i1], m_inputData[i]);
+                final double k2 = row2 != null ? row2[i]
+                        : m_kernel.evaluate(m_inputData[i2], m_inputData[i]);
+                m_fcache[i] += y1 * (a1 - alpha1) * k1 + y2 * (a2 - alpha2) * k2;
             }
         }
         m_fcache[i1] += y1 * (a1 - alpha1) * k11 + y2 * (a2 - alpha2) * k12;
@@ -465,6 +530,7 @@ private boolean examineExample(final int i2) throws MaxIterationsExceededExcepti
             }
         }
         if (optimality) {
+            shrinkIfPossible(i2, f2);
             return false;
         }
         //TODO why?
@@ -479,6 +545,26 @@ private boolean examineExample(final int i2) throws MaxIterationsExceededExcepti
         return takeStep(i1, i2);
     }
 
+    /**
+     * Shrinks an example that satisfies the optimality conditions if it is at
+     * one of the bounds and cannot be part of a violating pair with the
+     * current offsets. Examples in I1 and I2 may only be paired with
+     * m_iLow, examples in I3 and I4 only with m_iUp.
+     *
+     * @param i the index of the example
+     * @param f the current error of the example
+     */
+    private void shrinkIfPossible(final int i, final double f) {
+        if (m_shrunk == null || m_i0.contains(i)) {
+            return;
+        }
+        if (m_i1.contains(i) || m_i2.contains(i)) {
+            m_shrunk[i] = f > m_bLow;
+        } else {
+            m_shrunk[i] = f < m_bUp;
+        }
+    }
+
     /**
      * Check the amount by which the KKT conditions for the i'th example are
      * violated.
@@ -549,6 +635,7 @@ private void mainAlgorithm(final ExecutionMonitor exec)
         }
         assert m_iUp != -1 : "Input data doesn't contain two classes";
         assert m_iLow != -1 : "Input data doesn't contain two classes";
+        m_shrunk = m_shrinking ? new boolean[m_alpha.length] : null;
         m_fcache[m_iLow] = 1;
         m_fcache[m_iUp] = -1;
 
@@ -583,10 +670,15 @@ private void mainAlgorithm(final ExecutionMonitor exec)
 //                exec.setProgress(progress);
 //            }
             exec.checkCanceled();
+            boolean skipped = false;
             try {
                 numChanged = 0;
                 if (examineAll) {
                     for (int i = 0; i < m_inputData.length; ++i) {
+                        if ((m_shrunk != null) && m_shrunk[i]) {
+                            skipped = true;
+                            continue;
+                        }
                         exec.checkCanceled();
                         if (examineExample(i)) {
                             numChanged++;
@@ -611,11 +703,17 @@ private void mainAlgorithm(final ExecutionMonitor exec)
             }
 
             if (examineAll) {
+                if ((numChanged == 0) && skipped) {
+                    // the shrunk problem is solved, check all examples again
+                    Arrays.fill(m_shrunk, false);
+                    continue;
+                }
                 examineAll = false;
             } else if (numChanged == 0) {
                 examineAll = true;
             }
         }
+        m_shrunk = null;
         exec.setProgress(1.0);
 //        LOGGER.debug("Final KKT Violation: " + kktGlobalViolation());
         final double half = 0.5;
@@ -637,7 +735,13 @@ public Svm run(final ExecutionMonitor exec)
         }
         m_b = 0;
 
-        mainAlgorithm(exec);
+        // the cache (and its diagonal) only takes memory while running
+        m_kernelCache = new KernelCache(m_inputData, m_kernel, m_cacheSize);
+        try {
+            mainAlgorithm(exec);
+        } finally {
+            m_kernelCache = null;
+        }
         int countSupportVectors = 0;
         for (int i = 0; i < m_alpha.length; ++i) {
             if (!zero(m_alpha[i])) {
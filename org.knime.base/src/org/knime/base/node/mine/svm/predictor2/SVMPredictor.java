@@ -49,8 +49,12 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.knime.base.node.mine.svm.Svm;
+import org.knime.base.node.mine.svm.kernel.Kernel;
 import org.knime.base.node.mine.svm.util.DoubleVector;
 import org.knime.base.node.mine.util.PredictorHelper;
 import org.knime.core.data.DataCell;
@@ -62,6 +66,7 @@
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.MissingCell;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.data.container.CellFactory;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.StringCell;
@@ -69,14 +74,28 @@
 
 /**
  * This {@link CellFactory} produces the class values for each
- * input {@link DataRow}.
+ * input {@link DataRow}. The rows are processed concurrently. The kernel
+ * values of a row with support vectors that are shared by several SVMs are
+ * only computed once.
  * <p>Despite being public no official API.
  * @author cebron, University of Konstanz
  */
-public final class SVMPredictor implements CellFactory {
+public final class SVMPredictor extends AbstractCellFactory {
 
     private Svm[] m_svms;
 
+    /* the distinct support vectors of all SVMs, null if the SVMs don't share
+     * the same kernel. */
+    private final DoubleVector[] m_supportVectors;
+
+    /* for each SVM the indices of its support vectors in m_supportVectors. */
+    private final int[][] m_supportVectorIndices;
+
+    /* for each SVM the alphas multiplied by the target value. */
+    private final double[][] m_targetAlphas;
+
+    private final Kernel m_kernel;
+
     private int[] m_colindices;
 
     private final boolean m_appendProbabilities;
@@ -97,6 +116,7 @@ public final class SVMPredictor implements CellFactory {
      * @param probabilitySuffix the suffix for the probability columns.
      */
     public SVMPredictor(final String trainingColumn, final Svm[] svms, final int[] colindices, final String predictionColumnName, final boolean addProbabilities, final String probabilitySuffix) {
+        super(true);
         m_trainingColumn = trainingColumn;
         m_svms = svms;
         m_colindices = colindices;
@@ -104,13 +124,48 @@ public SVMPredictor(final String trainingColumn, final Svm[] svms, final int[] c
         m_appendProbabilities = addProbabilities;
         m_suffix = probabilitySuffix;
 
+        final Kernel kernel = svms.length > 0 ? svms[0].getKernel() : null;
+        boolean sameKernel = true;
+        for (Svm svm : svms) {
+            sameKernel &= svm.getKernel() == kernel;
+        }
+        if (sameKernel) {
+            // support vectors from PMML are identified by their key,
+            // otherwise by identity
+            Map<Object, Integer> supportVectorIds = new HashMap<Object, Integer>();
+            List<DoubleVector> supportVectors = new ArrayList<DoubleVector>();
+            m_supportVectorIndices = new int[svms.length][];
+            m_targetAlphas = new double[svms.length][];
+            for (int i = 0; i < svms.length; i++) {
+                DoubleVector[] svs = svms[i].getSupportVectors();
+                m_supportVectorIndices[i] = new int[svs.length];
+                for (int j = 0; j < svs.length; j++) {
+                    Object id = svs[j].getKey() != null ? svs[j].getKey() : svs[j];
+                    Integer index = supportVectorIds.get(id);
+                    if (index == null) {
+                        index = supportVectors.size();
+                        supportVectorIds.put(id, index);
+                        supportVectors.add(svs[j]);
+                    }
+                    m_supportVectorIndices[i][j] = index;
+                }
+                m_targetAlphas[i] = svms[i].getTargetAlphas();
+            }
+            m_supportVectors = supportVectors.toArray(new DoubleVector[supportVectors.size()]);
+            m_kernel = kernel;
+        } else {
+            m_supportVectors = null;
+            m_supportVectorIndices = null;
+            m_targetAlphas = null;
+            m_kernel = null;
+        }
     }
     /**
      * {@inheritDoc}
      */
     @Override
     public DataCell[] getCells(final DataRow row) {
-        ArrayList<Double> values = new ArrayList<Double>();
+        double[] values = new double[m_colindices.length];
         for (int i = 0; i < m_colindices.length; i++) {
             if (row.getCell(m_colindices[i]).isMissing()) {
                 if (m_appendProbabilities) {
@@ -121,12 +176,13 @@ public DataCell[] getCells(final DataRow row) {
                 return new DataCell[]{DataType.getMissingCell()};
             }
             DoubleValue dv = (DoubleValue) row.getCell(m_colindices[i]);
-            values.add(dv.getDoubleValue());
+            values[i] = dv.getDoubleValue();
         }
-        String classvalue = doPredict(values);
+        double[] distances = computeDistances(new DoubleVector(values, "not_known_yet"));
+        String classvalue = doPredict(distances);
         if (m_appendProbabilities) {
             DataCell[] ret = new DataCell[m_svms.length + 1];
-            double[] probabilities = computeProbabilities(values);
+            double[] probabilities = computeProbabilities(distances);
             assert ret.length == probabilities.length + 1: ret.length + " vs. " + (probabilities.length + 1);
             for (int i = ret.length - 1; i-->0;) {
                 ret[i] = new DoubleCell(probabilities[i]);
@@ -138,17 +194,44 @@ public DataCell[] getCells(final DataRow row) {
     }
 
     /**
-     * @param values
-     * @return
+     * Computes the distances of a vector from the hyperplanes of all SVMs.
+     *
+     * @param vector the vector
+     * @return the distances, in the order of the SVMs
      */
-    private double[] computeProbabilities(final ArrayList<Double> values) {
+    private double[] computeDistances(final DoubleVector vector) {
+        double[] distances = new double[m_svms.length];
+        if (m_supportVectors == null) {
+            for (int i = 0; i < m_svms.length; i++) {
+                distances[i] = m_svms[i].distance(vector);
+            }
+            return distances;
+        }
+        double[] kernelValues = new double[m_supportVectors.length];
+        for (int j = 0; j < kernelValues.length; j++) {
+            kernelValues[j] = m_kernel.evaluate(vector, m_supportVectors[j]);
+        }
+        for (int i = 0; i < m_svms.length; i++) {
+            // same order of summation as in Svm#distance
+            double result = 0;
+            int[] indices = m_supportVectorIndices[i];
+            double[] targetAlphas = m_targetAlphas[i];
+            for (int j = 0; j < indices.length; j++) {
+                result += targetAlphas[j] * kernelValues[indices[j]];
+            }
+            distances[i] = result - m_svms[i].getThreshold();
+        }
+        return distances;
+    }
+
+    /**
+     * @param f the distances from the SVMs' hyperplanes
+     * @return the class probabilities
+     */
+    private double[] computeProbabilities(final double[] f) {
         //Based on Platt: Probabilistic Outputs for SVMs and...
         //and Wu, Lin, Weng: Probability Estimates for Multi-class ...
         // Price et al.: Pairwise neural network classifiers ...
-        double[] f = new double[m_svms.length];
-        for (int i = m_svms.length; i-->0;) {
-            f[i] = m_svms[i].distance(new DoubleVector(values, Integer.toString(i)));
-        }
         //TODO implement when the model contains the proper statistics
 //        double[][] pairwise = new double[m_svms.length][m_svms.length];
 //        for (int i = m_svms.length; i-->0;) {
@@ -171,16 +254,15 @@ private double[] computeProbabilities(final ArrayList<Double> values) {
         return p;
     }
     /**
-     * Given a vector, find out it's class.
+     * Given the distances of a vector, find out it's class.
      *
-     * @param values the parameters.
+     * @param distances the distances from the SVMs' hyperplanes.
      */
-    private String doPredict(final ArrayList<Double> values) {
-        DoubleVector vector = new DoubleVector(values, "not_known_yet");
+    private String doPredict(final double[] distances) {
         int pos = 0;
-        double bestDistance = m_svms[0].distance(vector);
+        double bestDistance = distances[0];
         for (int i = 1; i < m_svms.length; ++i) {
-            double newDist = m_svms[i].distance(vector);
+            double newDist = distances[i];
             if (newDist > bestDistance) {
                 pos = i;
                 bestDistance = newDist;
@@ -57,7 +57,17 @@
  */
 public class BinarySvmRunnable implements Runnable {
 
-    private SvmAlgorithm m_svmAlgo;
+    private final DoubleVector[] m_inputData;
+
+    private final String m_positiveClass;
+
+    private final Kernel m_kernel;
+
+    private final double m_paramC;
+
+    private final long m_cacheSize;
+
+    private final boolean m_shrinking;
 
     private Exception m_exception;
 
@@ -78,7 +88,29 @@ public BinarySvmRunnable(final DoubleVector[] inputData,
             final String positiveClass,
             final Kernel kernel, final double paramC,
             final ExecutionMonitor exec) {
-        m_svmAlgo = new SvmAlgorithm(inputData, positiveClass, kernel, paramC);
+        this(inputData, positiveClass, kernel, paramC, 0, false, exec);
+    }
+
+    /**
+     * @param inputData the input data to train with
+     * @param positiveClass the positive class value
+     * @param kernel the kernel to use
+     * @param paramC overlapping penalty to use
+     * @param cacheSize the memory budget for cached kernel rows in bytes
+     * @param shrinking whether the problem should be shrunk during training
+     * @param exec the execution process to report to
+     * @since 3.7
+     */
+    public BinarySvmRunnable(final DoubleVector[] inputData,
+            final String positiveClass,
+            final Kernel kernel, final double paramC, final long cacheSize,
+            final boolean shrinking, final ExecutionMonitor exec) {
+        m_inputData = inputData;
+        m_positiveClass = positiveClass;
+        m_kernel = kernel;
+        m_paramC = paramC;
+        m_cacheSize = cacheSize;
+        m_shrinking = shrinking;
         m_exception = null;
         m_exec = exec;
     }
@@ -89,7 +121,11 @@ public BinarySvmRunnable(final DoubleVector[] inputData,
     @Override
     public void run() {
         try {
-            m_svm = m_svmAlgo.run(m_exec);
+            // created here, so that only running problems hold a kernel cache
+            final SvmAlgorithm svmAlgo = new SvmAlgorithm(m_inputData,
+                    m_positiveClass, m_kernel, m_paramC, m_cacheSize,
+                    m_shrinking);
+            m_svm = svmAlgo.run(m_exec);
             if (SvmAlgorithm.MAXIMUM_NUMBER_OF_ITERATIONS_REACHED.equals(m_exec.getProgressMonitor().getMessage())) {
                 m_warning = SvmAlgorithm.MAXIMUM_NUMBER_OF_ITERATIONS_REACHED;
             }
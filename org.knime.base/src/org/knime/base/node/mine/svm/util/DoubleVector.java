@@ -94,6 +94,19 @@ public DoubleVector(final RowKey key, final ArrayList<Double> values,
         m_classValue = classvalue;
     }
 
+    /**
+     * Constructor with no associated {@link RowKey} that uses the given
+     * array directly.
+     *
+     * @param values the double values of the vector, the array is not copied
+     * @param classvalue the class value.
+     * @since 3.7
+     */
+    public DoubleVector(final double[] values, final String classvalue) {
+        m_values = values;
+        m_classValue = classvalue;
+    }
+
     /**
      * Default constructor with no associated {@link RowKey}.
      *
@@ -0,0 +1,388 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeLogger;
+
+
+/**
+ * A {@link GroupByTable} that aggregates the input table in a single pass using hash partitions instead of sorting
+ * it by the group columns. The groups are distributed by the hash code of their {@link GroupKey} into a fixed number
+ * of partitions and each row is aggregated in place by the {@link AggregationOperator}s of its group.
+ * <p>
+ * If the {@link MemoryAlertSystem} reports a low memory condition the partitions with the most groups are evicted:
+ * their aggregation state is dropped and all their remaining rows are spilled into a temporary table. Once the input
+ * is consumed, the rows an evicted partition had seen before its eviction are collected in a second temporary table
+ * and both tables are aggregated recursively using a different hash function (grace hash aggregation). The rows of
+ * a group are always aggregated in their original order.
+ * <p>
+ * The groups are not returned in any particular order. Use the retain order option if the result should be in the
+ * order of the first occurrence of each group in the input table.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class HashGroupByTable extends GroupByTable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashGroupByTable.class);
+
+    /** The number of hash partitions per recursion level. Must be a power of two. */
+    private static final int NUM_PARTITIONS = 32;
+
+    /** The maximum recursion depth after which partitions are no longer evicted. */
+    private static final int MAX_LEVEL = 4;
+
+    private MemoryActionIndicator m_memIndicator;
+
+    private int[] m_aggrColIdx;
+
+    private long m_groupCounter;
+
+    /**Constructor for class HashGroupByTable.
+     * @param exec the <code>ExecutionContext</code>
+     * @param inDataTable the table to aggregate
+     * @param groupByCols the name of all columns to group by
+     * @param colAggregators the aggregation columns with the aggregation method
+     * to use in the order the columns should be appear in the result table
+     * numerical columns
+     * @param globalSettings the global settings
+     * @param enableHilite <code>true</code> if a row key map should be
+     * maintained to enable hiliting
+     * @param colNamePolicy the {@link ColumnNamePolicy} for the
+     * aggregation columns
+     * @param retainOrder returns the row of the table in the same order as the
+     * input table if set to <code>true</code>
+     * @throws CanceledExecutionException if the user has canceled the execution
+     */
+    public HashGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable inDataTable,
+            final List<String> groupByCols,
+            final ColumnAggregator[] colAggregators,
+            final GlobalSettings globalSettings, final boolean enableHilite,
+            final ColumnNamePolicy colNamePolicy, final boolean retainOrder)
+    throws CanceledExecutionException {
+        super(exec, inDataTable, groupByCols, colAggregators, globalSettings,
+                enableHilite, colNamePolicy, retainOrder);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable dataTable, final DataTableSpec resultSpec,
+            final int[] groupColIdx) throws CanceledExecutionException {
+        //the fields are initialized here since this method is called by the
+        //super constructor
+        m_memIndicator = createMemoryIndicator();
+        m_groupCounter = 0;
+        final DataTableSpec spec = dataTable.getDataTableSpec();
+        final ColumnAggregator[] colAggregators = getColAggregators();
+        m_aggrColIdx = new int[colAggregators.length];
+        for (int i = 0, length = colAggregators.length; i < length; i++) {
+            m_aggrColIdx[i] = spec.findColumnIndex(colAggregators[i].getOriginalColName());
+        }
+        final BufferedDataContainer dc = exec.createDataContainer(resultSpec);
+        aggregate(exec, Collections.singletonList(dataTable), dataTable.size(), groupColIdx, 0, dc);
+        dc.close();
+        return dc.getTable();
+    }
+
+    /**
+     * @return the indicator that tells when partitions should be evicted, tests override it to simulate low memory
+     */
+    MemoryActionIndicator createMemoryIndicator() {
+        return MemoryAlertSystem.getInstance().newIndicator();
+    }
+
+    /**
+     * Aggregates all rows of the given tables in one pass. Partitions that are evicted because of a low memory
+     * condition are processed recursively on the next level.
+     *
+     * @param exec the {@link ExecutionContext}
+     * @param sources the tables to aggregate in the given order
+     * @param rowCount the total number of rows of all source tables
+     * @param groupColIdx the group column indices
+     * @param level the current recursion level used to seed the partition hash
+     * @param dc the container to write the result rows to
+     * @throws CanceledExecutionException if the operation has been canceled
+     */
+    private void aggregate(final ExecutionContext exec, final List<BufferedDataTable> sources, final long rowCount,
+        final int[] groupColIdx, final int level, final BufferedDataContainer dc) throws CanceledExecutionException {
+        @SuppressWarnings("unchecked")
+        final Map<GroupKey, GroupState>[] partitions = new Map[NUM_PARTITIONS];
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            partitions[i] = new LinkedHashMap<>();
+        }
+        //the index of the row at which a partition was evicted or -1 if the partition is still in memory
+        final long[] evictedAt = new long[NUM_PARTITIONS];
+        Arrays.fill(evictedAt, -1);
+        final boolean isEvictionAllowed = level < MAX_LEVEL;
+        final ExecutionContext groupExec = exec.createSubExecutionContext(0.6);
+        BufferedDataContainer spillContainer = null;
+        long rowIdx = 0;
+        for (final BufferedDataTable source : sources) {
+            try (final CloseableRowIterator it = source.iterator()) {
+                while (it.hasNext()) {
+                    final DataRow row = it.next();
+                    groupExec.checkCanceled();
+                    final long currentRow = rowIdx + 1;
+                    groupExec.setProgress(rowIdx / (double)rowCount,
+                        () -> "Analyzing row " + currentRow + " of " + rowCount);
+                    if (isEvictionAllowed && m_memIndicator.lowMemoryActionRequired()
+                            && evictPartitions(partitions, evictedAt, rowIdx, level)) {
+                        if (spillContainer == null) {
+                            spillContainer = exec.createDataContainer(source.getDataTableSpec(), false);
+                        }
+                    }
+                    final GroupKey groupKey = createGroupKey(row, groupColIdx);
+                    final int partition = getPartition(groupKey, level);
+                    if (evictedAt[partition] >= 0) {
+                        spillContainer.addRowToTable(row);
+                    } else {
+                        GroupState state = partitions[partition].get(groupKey);
+                        if (state == null) {
+                            state = new GroupState(cloneColumnAggregators(), isEnableHilite());
+                            partitions[partition].put(groupKey, state);
+                        }
+                        state.add(row, m_aggrColIdx, getGlobalSettings());
+                    }
+                    rowIdx++;
+                }
+            }
+        }
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (evictedAt[i] < 0) {
+                createTableRows(dc, partitions[i]);
+            }
+            partitions[i] = null;
+        }
+        if (spillContainer == null) {
+            return;
+        }
+        spillContainer.close();
+        final BufferedDataTable spillTable = spillContainer.getTable();
+        final BufferedDataTable prefixTable = collectEvictedPrefix(exec.createSubExecutionContext(0.1), sources,
+            groupColIdx, level, evictedAt);
+        LOGGER.debugWithFormat("Aggregating %d spilled and %d re-read rows on level %d", spillTable.size(),
+            prefixTable.size(), level + 1);
+        //the rows that were seen before the eviction precede the spilled rows
+        aggregate(exec.createSubExecutionContext(0.3), Arrays.asList(prefixTable, spillTable),
+            prefixTable.size() + spillTable.size(), groupColIdx, level + 1, dc);
+        exec.clearTable(prefixTable);
+        exec.clearTable(spillTable);
+    }
+
+    /**
+     * Evicts the partitions with the most groups. At least one non empty partition remains in memory since
+     * evicting all of them would only postpone the work to the next level.
+     *
+     * @return <code>true</code> if at least one partition was evicted
+     */
+    private static boolean evictPartitions(final Map<GroupKey, GroupState>[] partitions, final long[] evictedAt,
+        final long rowIdx, final int level) {
+        final List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (evictedAt[i] < 0 && !partitions[i].isEmpty()) {
+                candidates.add(i);
+            }
+        }
+        if (candidates.size() < 2) {
+            LOGGER.debug("Memory is low but no partition left to evict on level " + level);
+            return false;
+        }
+        candidates.sort((a, b) -> Integer.compare(partitions[b].size(), partitions[a].size()));
+        final List<Integer> evicted = candidates.subList(0, candidates.size() / 2);
+        for (final int i : evicted) {
+            evictedAt[i] = rowIdx;
+            //drop the aggregation state the rows are reprocessed on the next level
+            partitions[i].clear();
+        }
+        LOGGER.debugWithFormat("Memory is low. Evicted partitions %s at row %d on level %d", evicted, rowIdx, level);
+        return true;
+    }
+
+    /**
+     * Collects all rows of the evicted partitions that have been read before the partition was evicted.
+     */
+    private BufferedDataTable collectEvictedPrefix(final ExecutionContext exec,
+        final List<BufferedDataTable> sources, final int[] groupColIdx, final int level, final long[] evictedAt)
+        throws CanceledExecutionException {
+        final long maxRowIdx = Arrays.stream(evictedAt).max().getAsLong();
+        final BufferedDataContainer prefixContainer =
+            exec.createDataContainer(sources.get(0).getDataTableSpec(), false);
+        long rowIdx = 0;
+        for (final BufferedDataTable source : sources) {
+            try (final CloseableRowIterator it = source.iterator()) {
+                while (rowIdx < maxRowIdx && it.hasNext()) {
+                    exec.checkCanceled();
+                    exec.setProgress(rowIdx / (double)maxRowIdx);
+                    final DataRow row = it.next();
+                    final int partition = getPartition(createGroupKey(row, groupColIdx), level);
+                    if (rowIdx < evictedAt[partition]) {
+                        prefixContainer.addRowToTable(row);
+                    }
+                    rowIdx++;
+                }
+            }
+        }
+        prefixContainer.close();
+        return prefixContainer.getTable();
+    }
+
+    private static GroupKey createGroupKey(final DataRow row, final int[] groupColIdx) {
+        final DataCell[] groupVals = new DataCell[groupColIdx.length];
+        for (int i = 0, length = groupColIdx.length; i < length; i++) {
+            groupVals[i] = row.getCell(groupColIdx[i]);
+        }
+        return new GroupKey(groupVals);
+    }
+
+    /**
+     * @return the partition of the given group on the given level
+     */
+    private static int getPartition(final GroupKey groupKey, final int level) {
+        //re-mix the hash code per level so that evicted partitions are split up on the next level
+        int h = groupKey.hashCode() + level * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & (NUM_PARTITIONS - 1);
+    }
+
+    /**
+     * Creates and adds the result rows for the given groups to the given data container. It also handles the row
+     * key mapping if hilite translation is enabled.
+     */
+    private void createTableRows(final BufferedDataContainer dc, final Map<GroupKey, GroupState> groups) {
+        for (final Entry<GroupKey, GroupState> entry : groups.entrySet()) {
+            final DataCell[] groupVals = entry.getKey().getGroupVals();
+            final GroupState state = entry.getValue();
+            final RowKey rowKey = RowKey.createRowKey(m_groupCounter++);
+            final DataCell[] rowVals = new DataCell[groupVals.length + state.m_aggregators.length];
+            //add the group values first
+            int valIdx = 0;
+            for (final DataCell groupCell : groupVals) {
+                rowVals[valIdx++] = groupCell;
+            }
+            //add the aggregation values
+            for (final ColumnAggregator colAggr : state.m_aggregators) {
+                final AggregationOperator operator = colAggr.getOperator(getGlobalSettings());
+                rowVals[valIdx++] = operator.getResult();
+                if (operator.isSkipped()) {
+                    //add skipped groups and the column that causes the
+                    //skipping into the skipped groups map
+                    addSkippedGroup(colAggr.getOriginalColName(), operator.getSkipMessage(), groupVals);
+                }
+            }
+            dc.addRowToTable(new DefaultRow(rowKey, rowVals));
+            if (isEnableHilite()) {
+                addHiliteMapping(rowKey, state.m_rowKeys);
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the column aggregators
+     */
+    private ColumnAggregator[] cloneColumnAggregators() {
+        final ColumnAggregator[] origAggregators = getColAggregators();
+        final ColumnAggregator[] aggregators = new ColumnAggregator[origAggregators.length];
+        for (int i = 0, length = origAggregators.length; i < length; i++) {
+            aggregators[i] = origAggregators[i].clone();
+        }
+        return aggregators;
+    }
+
+    /** The aggregation state of a single group. */
+    private static final class GroupState {
+
+        private final ColumnAggregator[] m_aggregators;
+
+        private final Set<RowKey> m_rowKeys;
+
+        GroupState(final ColumnAggregator[] aggregators, final boolean enableHilite) {
+            m_aggregators = aggregators;
+            m_rowKeys = enableHilite ? new HashSet<>() : null;
+        }
+
+        void add(final DataRow row, final int[] aggrColIdx, final GlobalSettings globalSettings) {
+            for (int i = 0, length = m_aggregators.length; i < length; i++) {
+                m_aggregators[i].getOperator(globalSettings).compute(row, aggrColIdx[i]);
+            }
+            if (m_rowKeys != null) {
+                m_rowKeys.add(row.getKey());
+            }
+        }
+    }
+}
@@ -48,10 +48,12 @@
 package org.knime.base.node.preproc.joiner;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import org.knime.base.data.sort.SortedTable;
@@ -199,24 +201,33 @@ private void addRow(final DataRow row) {
         if (m_enableHiLite) {
             // Remember RowKeys for HiLiting
             if (null != left.getKey()) {
-                Set<RowKey> keySet = m_leftRowKeyMap.get(left.getKey());
-                if (null == keySet) {
-                    keySet = new HashSet<RowKey>();
-                    m_leftRowKeyMap.put(left.getKey(), keySet);
-                }
-                keySet.add(joinedKey);
+                addRowKeyMapping(m_leftRowKeyMap, left.getKey(), joinedKey);
             }
             if (null != right.getKey()) {
-                Set<RowKey> keySet = m_rightRowKeyMap.get(right.getKey());
-                if (null == keySet) {
-                    keySet = new HashSet<RowKey>();
-                    m_rightRowKeyMap.put(right.getKey(), keySet);
-                }
-                keySet.add(joinedKey);
+                addRowKeyMapping(m_rightRowKeyMap, right.getKey(), joinedKey);
             }
         }
     }
 
+    /**
+     * Maps the key of an input row to the key of a joined row. Most input
+     * rows are part of a single joined row only, a hash set is allocated
+     * for the others.
+     */
+    private static void addRowKeyMapping(final Map<RowKey, Set<RowKey>> map,
+            final RowKey key, final RowKey joinedKey) {
+        Set<RowKey> keySet =
+            map.putIfAbsent(key, Collections.singleton(joinedKey));
+        if (null != keySet && !keySet.contains(joinedKey)) {
+            if (keySet.size() == 1) {
+                // replace the immutable singleton
+                keySet = new HashSet<RowKey>(keySet);
+                map.put(key, keySet);
+            }
+            keySet.add(joinedKey);
+        }
+    }
+
     /**
      * Close container.
      */
@@ -57,8 +57,11 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.base.data.sort.SortedTable;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
@@ -81,9 +84,15 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.ConvenienceMethods;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
 import org.knime.core.util.UniqueNameGenerator;
+import org.knime.core.util.collection.IntIntOpenHashMap;
+import org.knime.core.util.collection.IntOpenHashSet;
+import org.knime.core.util.collection.LongBitSet;
 
 /**
  * The joiner implements a database like join of two tables.
@@ -112,11 +121,11 @@ public final class Joiner {
     private boolean m_matchAny;
 
     /**
-     * This field is only used when (m_retainLeft && m_matchAny) is true. It
-     * holds the row indices of the left table that did not match to a row
-     * of the right table.
+     * This field is only used when (m_retainLeft && m_matchAny) is true. Its
+     * set bits are the row indices of the left table that did not match to a
+     * row of the right table.
      */
-    private Set<Integer> m_globalLeftOuterJoins;
+    private LongBitSet m_globalLeftOuterJoins;
 
     private InputRow.Settings m_inputDataRowSettings;
     private OutputRow.Settings m_outputDataRowSettings;
@@ -145,6 +154,12 @@ public final class Joiner {
     /** Only used for testcases, simulates an out-of-memory event after that many rows added in memory. */
     private int m_rowsAddedBeforeForcedOOM;
 
+    /** The number of rows of the outer table that are probed as one task. */
+    private static final int PROBE_BATCH_SIZE = 1024;
+
+    /** The maximum number of threads used to probe the outer table. */
+    private int m_parallelism = 1;
+
     /**
      * Creates a new instance.
      *
@@ -168,6 +183,29 @@ public Joiner(final DataTableSpec leftTableSpec,
 
     }
 
+    /**
+     * Sets the maximum number of threads used to probe the rows of the outer (right) table against the partitions
+     * held in memory. The output is independent of this setting, the probed rows are always collected in the order of
+     * the outer table.
+     *
+     * @param parallelism the maximum number of threads, 1 to probe in the calling thread only
+     * @since 3.7
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        m_parallelism = parallelism;
+    }
+
+    /**
+     * @return the maximum number of threads used to probe the outer table
+     * @since 3.7
+     */
+    public int getParallelism() {
+        return m_parallelism;
+    }
+
     /**
      * @return the rowKeyMap
      */
@@ -506,10 +544,8 @@ public BufferedDataTable computeJoinTable(
             && m_settings.getLeftJoinColumns().length > 1;
 
         if (m_retainLeft && m_matchAny) {
-            m_globalLeftOuterJoins = new HashSet<Integer>();
-            for (int i = 0; i < leftTable.getRowCount(); i++) {
-                m_globalLeftOuterJoins.add(i);
-            }
+            m_globalLeftOuterJoins = new LongBitSet();
+            m_globalLeftOuterJoins.set(0, leftTable.size());
         }
 
 
@@ -559,7 +595,8 @@ public BufferedDataTable computeJoinTable(
         if (m_retainLeft && m_matchAny) {
             // Add left outer joins
             int c = 0;
-            for (Integer index : m_globalLeftOuterJoins) {
+            for (long index = m_globalLeftOuterJoins.nextSetBit(0); index >= 0;
+                    index = m_globalLeftOuterJoins.nextSetBit(index + 1)) {
                 DataRow outRow = OutputRow.createDataRow(c, index, -1,
                         m_outputDataRowSettings);
                 joinCont.addLeftOuter(outRow, exec);
@@ -650,13 +687,16 @@ private Collection<Integer> performJoin(
         setMessage("Read", exec, pendingParts, currParts);
 
         // Partition left table
-        Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed =
-            new HashMap<Integer, Map<JoinTuple, Set<Integer>>>();
+        Map <Integer, Map<JoinTuple, IntOpenHashSet>> leftTableHashed =
+            new HashMap<Integer, Map<JoinTuple, IntOpenHashSet>>();
         // This is only used when m_leftRetain is true and m_matchAny is false.
         // It holds the row indices of the left table that do not match to
         // any row of the right table
-        Map <Integer, Set<Integer>> leftOuterJoins =
-            new HashMap<Integer, Set<Integer>>();
+        Map <Integer, IntOpenHashSet> leftOuterJoins =
+            new HashMap<Integer, IntOpenHashSet>();
+        // The number of rows held in memory per partition, used to evict the
+        // largest partitions first when memory is low
+        IntIntOpenHashMap partitionRows = new IntIntOpenHashMap();
 
         MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
 
@@ -681,6 +721,7 @@ private Collection<Integer> performJoin(
                     if (currParts.contains(partition)) {
                         addRow(leftTableHashed, leftOuterJoins,
                                 partition, tuple, inputDataRow);
+                        partitionRows.addTo(partition, 1);
                         rowsAdded++;
                     }
                 }
@@ -700,7 +741,10 @@ private Collection<Integer> performJoin(
                 }
                 int numNonEmpty = nonEmptyPartitions.size();
                 if (numNonEmpty > 1) {
-                    // remove input partitions to free memory
+                    // remove the largest input partitions to free memory
+                    nonEmptyPartitions.sort((a, b) -> Integer.compare(
+                        partitionRows.get(b, 0),
+                        partitionRows.get(a, 0)));
                     List<Integer> removeParts = new ArrayList<Integer>();
                     for (int i = 0; i < numNonEmpty / 2; i++) {
                         removeParts.add(nonEmptyPartitions.get(i));
@@ -708,6 +752,7 @@ private Collection<Integer> performJoin(
                     // remove collected data of the no longer processed
                     for (int i : removeParts) {
                         leftTableHashed.remove(i);
+                        partitionRows.remove(i);
                         if (m_retainLeft && !m_matchAny) {
                             leftOuterJoins.remove(i);
                         }
@@ -745,6 +790,11 @@ private Collection<Integer> performJoin(
                         // update chunk size
                         retainPartitions(leftTableHashed, leftOuterJoins,
                                 currPart);
+                        // the retained rows are no longer counted exactly,
+                        // only the relative size matters
+                        final int currRows = partitionRows.get(currPart, 0);
+                        partitionRows.clear();
+                        partitionRows.put(currPart, currRows);
                         // update increment for reporting progress
                         numRows += leftTable.size() + rightTable.size();
                         inc = (progressDiff - progress) / numRows;
@@ -788,6 +838,7 @@ private Collection<Integer> performJoin(
         // Garbage collector has problems without this explicit clearance.
         leftTableHashed.clear();
         leftOuterJoins.clear();
+        partitionRows.clear();
 
         // return successfully joined parts
         return currParts;
@@ -817,12 +868,12 @@ private void setMessage(final String activity,
      * the entries that are in the given part.
      */
     private void retainPartitions(
-            final Map<Integer, Map<JoinTuple, Set<Integer>>> innerHash,
-            final Map<Integer, Set<Integer>> innerIndexMap,
+            final Map<Integer, Map<JoinTuple, IntOpenHashSet>> innerHash,
+            final Map<Integer, IntOpenHashSet> innerIndexMap,
             final int part) {
         innerIndexMap.clear();
 
-        Map<JoinTuple, Set<Integer>> thisInnerHash = innerHash.get(part);
+        Map<JoinTuple, IntOpenHashSet> thisInnerHash = innerHash.get(part);
         for (Iterator<JoinTuple> iter = thisInnerHash.keySet().iterator();
         iter.hasNext();) {
             JoinTuple tuple = iter.next();
@@ -830,14 +881,12 @@ private void retainPartitions(
             if (index != part) {
                 iter.remove();
             } else if (m_retainLeft && !m_matchAny) {
-                Set<Integer> thisInnerIndexMap = innerIndexMap.get(index);
+                IntOpenHashSet thisInnerIndexMap = innerIndexMap.get(index);
                 if (null == thisInnerIndexMap) {
-                    thisInnerIndexMap = new HashSet<Integer>();
+                    thisInnerIndexMap = new IntOpenHashSet();
                     innerIndexMap.put(index, thisInnerIndexMap);
                 }
-                for (Integer rowIndex : thisInnerHash.get(tuple)) {
-                    thisInnerIndexMap.add(rowIndex);
-                }
+                thisInnerHash.get(tuple).forEach(thisInnerIndexMap::add);
             }
         }
     }
@@ -849,32 +898,32 @@ private void retainPartitions(
      * @param row The row to be added.
      */
     private void addRow(
-            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
-            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final Map <Integer, Map<JoinTuple, IntOpenHashSet>> leftTableHashed,
+            final Map <Integer, IntOpenHashSet> leftOuterJoins,
             final int partition, final JoinTuple joinTuple,
             final InputRow row) {
         if (m_retainLeft  && !m_matchAny) {
-            Set<Integer> indices = leftOuterJoins.get(partition);
+            IntOpenHashSet indices = leftOuterJoins.get(partition);
             if (null == indices) {
-                indices = new HashSet<Integer>();
+                indices = new IntOpenHashSet();
                 leftOuterJoins.put(partition, indices);
             }
             indices.add(row.getIndex());
         }
 
-        Map<JoinTuple, Set<Integer>> partTuples =
+        Map<JoinTuple, IntOpenHashSet> partTuples =
             leftTableHashed.get(partition);
         if (null == partTuples) {
-            partTuples = new HashMap<JoinTuple, Set<Integer>>();
+            partTuples = new HashMap<JoinTuple, IntOpenHashSet>();
             leftTableHashed.put(partition, partTuples);
         }
 
 
-        Set<Integer> c = partTuples.get(joinTuple);
+        IntOpenHashSet c = partTuples.get(joinTuple);
         if (null != c) {
             c.add(row.getIndex());
         } else {
-            Set<Integer> list = new HashSet<Integer>();
+            IntOpenHashSet list = new IntOpenHashSet();
             list.add(row.getIndex());
             partTuples.put(joinTuple, list);
         }
@@ -884,7 +933,10 @@ private void addRow(
 
 
     /**
-     * Join given rows in memory and append joined row to the outputCont.
+     * Join given rows in memory and append joined row to the outputCont. The
+     * rows of the outer table are probed in batches, in parallel if
+     * {@link #setParallelism(int)} is larger than 1. The results of the
+     * batches are added to the outputCont in the order of the outer table.
      *
      * @param leftTableHashed Stores the rows of the left input table in parts.
      * @param leftOuterJoins The same number as found in leftTableHashed used
@@ -897,21 +949,94 @@ private void addRow(
      * @throws CanceledExecutionException When execution is canceled
      */
     private void joinInMemory(
-            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
-            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final Map <Integer, Map<JoinTuple, IntOpenHashSet>> leftTableHashed,
+            final Map <Integer, IntOpenHashSet> leftOuterJoins,
             final Collection<Integer> currParts,
             final BufferedDataTable rightTable,
             final JoinContainer outputCont,
             final ExecutionContext exec,
             final double incProgress) throws CanceledExecutionException {
         double progress = exec.getProgressMonitor().getProgress();
+        final ThreadPool pool = m_parallelism > 1
+            ? KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_parallelism)
+            : null;
+        // bound the number of pending batches to limit the memory held by
+        // rows of the outer table and their matches
+        final int maxPending = 2 * m_parallelism;
+        final MemoryActionIndicator memIndicator =
+            MemoryAlertSystem.getInstance().newIndicator();
+        final List<Future<ProbeBatch>> pending =
+            new ArrayList<Future<ProbeBatch>>();
         int counter = 0;
-        for (DataRow dataRow : rightTable) {
-            progress += incProgress;
-            exec.getProgressMonitor().setProgress(progress);
-            exec.checkCanceled();
+        ProbeBatch batch = new ProbeBatch(counter);
+        try (CloseableRowIterator rightIter = rightTable.iterator()) {
+            while (rightIter.hasNext()) {
+                exec.checkCanceled();
+                batch.add(rightIter.next());
+                counter++;
+                if (batch.size() < PROBE_BATCH_SIZE && rightIter.hasNext()) {
+                    continue;
+                }
+                final ProbeBatch currBatch = batch;
+                if (pool == null) {
+                    probe(currBatch, leftTableHashed, leftOuterJoins,
+                        currParts);
+                    addProbeResults(currBatch, outputCont, exec);
+                } else {
+                    pending.add(pool.enqueue(() -> {
+                        probe(currBatch, leftTableHashed, leftOuterJoins,
+                            currParts);
+                        return currBatch;
+                    }));
+                    // collect all pending batches if memory is low
+                    final int maxPendingNow =
+                        memIndicator.lowMemoryActionRequired() ? 1 : maxPending;
+                    while (pending.size() >= maxPendingNow) {
+                        addProbeResults(waitFor(pending.remove(0)),
+                            outputCont, exec);
+                    }
+                }
+                progress += incProgress * currBatch.size();
+                exec.getProgressMonitor().setProgress(progress);
+                batch = new ProbeBatch(counter);
+            }
+            while (!pending.isEmpty()) {
+                addProbeResults(waitFor(pending.remove(0)),
+                    outputCont, exec);
+            }
+        } finally {
+            pending.stream().forEach(f -> f.cancel(true));
+        }
 
-            InputRow rightRow = new InputRow(dataRow, counter,
+        if (m_retainLeft && !m_matchAny) {
+            for (int partition : leftOuterJoins.keySet()) {
+                for (int row : leftOuterJoins.get(partition).toArray()) {
+                    // add left outer join
+                    DataRow outRow = OutputRow.createDataRow(
+                            outputCont.getRowCount(),
+                            row, -1,
+                            m_outputDataRowSettings);
+                    outputCont.addLeftOuter(outRow, exec);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Probes the rows of the given batch against the partitions in memory.
+     * May be called concurrently for different batches, the hashed rows are
+     * only read and the left outer join bookkeeping of the partitions is
+     * synchronized. The global left outer joins (match any) are updated when
+     * the results are added.
+     */
+    private void probe(final ProbeBatch batch,
+            final Map <Integer, Map<JoinTuple, IntOpenHashSet>> leftTableHashed,
+            final Map <Integer, IntOpenHashSet> leftOuterJoins,
+            final Collection<Integer> currParts) {
+        for (int i = 0; i < batch.size(); i++) {
+            InputRow rightRow = new InputRow(batch.getRow(i),
+                    batch.getFirstIndex() + i,
                     InputRow.Settings.InDataPort.Right,
                     m_inputDataRowSettings);
 
@@ -926,7 +1051,7 @@ private void joinInMemory(
                     continue;
                 }
 
-                Map<JoinTuple, Set<Integer>> leftTuples =
+                Map<JoinTuple, IntOpenHashSet> leftTuples =
                     leftTableHashed.get(partition);
                 if (null == leftTuples) {
                     // skip and check for outer join when the left table does not have rows that fall
@@ -935,58 +1060,127 @@ private void joinInMemory(
                     continue;
                 }
 
-                Set<Integer> localLeftOuterJoins = null;
+                IntOpenHashSet localLeftOuterJoins = null;
                 if (m_retainLeft  && !m_matchAny) {
                     localLeftOuterJoins = leftOuterJoins.get(partition);
                 }
 
-                Set<Integer> leftRows = leftTuples.get(joinTuple);
+                IntOpenHashSet leftRows = leftTuples.get(joinTuple);
                 if (null != leftRows) {
                     matchFoundForRightRow = true;
-                    for (Integer leftRowIndex : leftRows) {
+                    for (PrimitiveIterator.OfInt it = leftRows.iterator();
+                            it.hasNext();) {
+                        int leftRowIndex = it.nextInt();
                         // add inner join
-                        DataRow outRow = OutputRow.createDataRow(
-                                outputCont.getRowCount(),
-                                leftRowIndex, rightRow.getIndex(),
-                                dataRow,
-                                m_outputDataRowSettings);
-                        outputCont.addMatch(outRow, exec);
+                        batch.addResult(leftRowIndex, i);
                         if (m_retainLeft && !m_matchAny) {
-                            localLeftOuterJoins.remove(leftRowIndex);
-                        }
-                        if (m_retainLeft && m_matchAny) {
-                            m_globalLeftOuterJoins.remove(leftRowIndex);
+                            synchronized (localLeftOuterJoins) {
+                                localLeftOuterJoins.remove(leftRowIndex);
+                            }
                         }
                     }
                 }
             }
 
-
             if (m_retainRight && !matchFoundForRightRow && !deferMatch) {
-                long outRowIndex = outputCont.getRowCount();
                 // add right outer join
-                DataRow outRow = OutputRow.createDataRow(outRowIndex,
-                        -1, rightRow.getIndex(),
-                        dataRow,
-                        m_outputDataRowSettings);
-                outputCont.addRightOuter(outRow, exec);
+                batch.addResult(-1, i);
             }
-            counter++;
         }
+    }
 
-        if (m_retainLeft && !m_matchAny) {
-            for (int partition : leftOuterJoins.keySet()) {
-                for (Integer row : leftOuterJoins.get(partition)) {
-                    // add left outer join
-                    DataRow outRow = OutputRow.createDataRow(
-                            outputCont.getRowCount(),
-                            row, -1,
-                            m_outputDataRowSettings);
-                    outputCont.addLeftOuter(outRow, exec);
+    /**
+     * Adds the inner and right outer joins found for the given batch to the
+     * outputCont in the order they were found.
+     */
+    private void addProbeResults(final ProbeBatch batch,
+            final JoinContainer outputCont, final ExecutionContext exec) {
+        for (int r = 0; r < batch.getNumResults(); r++) {
+            int leftRowIndex = batch.getResultLeftIndex(r);
+            int pos = batch.getResultRowPosition(r);
+            DataRow outRow = OutputRow.createDataRow(
+                    outputCont.getRowCount(),
+                    leftRowIndex, batch.getFirstIndex() + pos,
+                    batch.getRow(pos),
+                    m_outputDataRowSettings);
+            if (leftRowIndex >= 0) {
+                outputCont.addMatch(outRow, exec);
+                if (m_retainLeft && m_matchAny) {
+                    m_globalLeftOuterJoins.clear(leftRowIndex);
                 }
+            } else {
+                outputCont.addRightOuter(outRow, exec);
+            }
+        }
+    }
+
+    /**
+     * Waits for the completion of a probe task, see
+     * {@link ParallelTasks#waitFor(Future)}.
+     */
+    private static ProbeBatch waitFor(final Future<ProbeBatch> future)
+            throws CanceledExecutionException {
+        try {
+            return ParallelTasks.waitFor(future);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(),
+                e.getCause());
+        }
+    }
+
+    /**
+     * A batch of consecutive rows of the outer table together with the
+     * joins found for them. A result is a pair of the index of the matching
+     * row of the inner table (or -1 for a right outer join) and the position
+     * of the row in the batch.
+     */
+    private static final class ProbeBatch {
+        private final int m_firstIndex;
+        private final List<DataRow> m_rows =
+            new ArrayList<DataRow>(PROBE_BATCH_SIZE);
+        private int[] m_results = new int[2 * PROBE_BATCH_SIZE];
+        private int m_numResults;
+
+        ProbeBatch(final int firstIndex) {
+            m_firstIndex = firstIndex;
+        }
+
+        void add(final DataRow row) {
+            m_rows.add(row);
+        }
+
+        int size() {
+            return m_rows.size();
+        }
+
+        int getFirstIndex() {
+            return m_firstIndex;
+        }
+
+        DataRow getRow(final int pos) {
+            return m_rows.get(pos);
+        }
+
+        void addResult(final int leftIndex, final int pos) {
+            if (2 * m_numResults == m_results.length) {
+                m_results = Arrays.copyOf(m_results, 2 * m_results.length);
             }
+            m_results[2 * m_numResults] = leftIndex;
+            m_results[2 * m_numResults + 1] = pos;
+            m_numResults++;
         }
 
+        int getNumResults() {
+            return m_numResults;
+        }
+
+        int getResultLeftIndex(final int r) {
+            return m_results[2 * r];
+        }
+
+        int getResultRowPosition(final int r) {
+            return m_results[2 * r + 1];
+        }
     }
 
     private List<Integer> getLeftJoinIndices(
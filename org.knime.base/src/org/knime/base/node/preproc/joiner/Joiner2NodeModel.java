@@ -129,6 +129,7 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         Joiner joiner =
                 new Joiner(inData[0].getDataTableSpec(), inData[1]
                         .getDataTableSpec(), m_settings);
+        joiner.setParallelism(Runtime.getRuntime().availableProcessors());
 
         BufferedDataTable[] joinedTable = new BufferedDataTable[]{
                 joiner.computeJoinTable(inData[0], inData[1], exec)};
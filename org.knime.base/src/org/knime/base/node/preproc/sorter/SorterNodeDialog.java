@@ -87,6 +87,12 @@ public class SorterNodeDialog extends NodeDialogPane {
      */
     private static final int NRSORTITEMS = 3;
 
+    /*
+     * Number of threads used for sorting, not shown in the dialog but kept
+     * so that it is not reset when the dialog is applied.
+     */
+    private int m_parallelism = 1;
+
     /**
      * Creates a new {@link NodeDialogPane} for the Sorter Node in order to
      * choose the desired columns and the sorting order (ascending/ descending).
@@ -156,6 +162,10 @@ protected void loadSettingsFrom(final NodeSettingsRO settings,
         }
         boolean sortMissingToEnd = settings.getBoolean(
                 SorterNodeModel.MISSING_TO_END_KEY, false);
+        // new nodes sort in parallel, existing ones keep sorting sequentially
+        m_parallelism = settings.getInt(SorterNodeModel.PARALLELISM_KEY,
+                !settings.containsKey(SorterNodeModel.INCLUDELIST_KEY)
+                ? Runtime.getRuntime().availableProcessors() : 1);
         // set the values on the panel
         m_panel.update(specs[SorterNodeModel.INPORT], list, sortOrder,
                 NRSORTITEMS, sortinMemory, sortMissingToEnd);
@@ -184,5 +194,6 @@ protected void saveSettingsTo(final NodeSettingsWO settings)
                 .sortInMemory());
         settings.addBoolean(SorterNodeModel.MISSING_TO_END_KEY,
                 m_panel.isSortMissingToEnd());
+        settings.addInt(SorterNodeModel.PARALLELISM_KEY, m_parallelism);
     }
 }
@@ -110,6 +110,12 @@ public class SorterNodeModel extends NodeModel {
      */
     static final String MISSING_TO_END_KEY = "missingToEnd";
 
+    /**
+     * Settings key: Number of threads used to sort and merge temporary tables.
+     * @since 3.7
+     */
+    static final String PARALLELISM_KEY = "parallelism";
+
     /*
      * List contains the data cells to include.
      */
@@ -132,6 +138,12 @@ public class SorterNodeModel extends NodeModel {
      */
     private boolean m_missingToEnd = false;
 
+    /** Number of threads used to sort and merge temporary tables. New nodes use all processors, nodes
+     * loaded from workflows created before 3.7 keep sorting sequentially.
+     * @since 3.7
+     */
+    private int m_parallelism = Runtime.getRuntime().availableProcessors();
+
     /**
      * Inits a new <code>SorterNodeModel</code> with one in- and one output.
      *
@@ -173,6 +185,8 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         BufferedDataTableSorter sorter = new BufferedDataTableSorter(
                 inData[INPORT], m_inclList, m_sortOrder, m_missingToEnd);
         sorter.setSortInMemory(m_sortInMemory);
+        // sort and merge temporary tables concurrently (result is identical to sequential sorting)
+        sorter.setParallelism(m_parallelism);
         BufferedDataTable sortedTable = sorter.sort(exec);
 
         return new BufferedDataTable[]{sortedTable};
@@ -238,6 +252,8 @@ protected void saveSettingsTo(final NodeSettingsWO settings) {
         settings.addBoolean(SORTINMEMORY_KEY, m_sortInMemory);
         // added in 2.6
         settings.addBoolean(MISSING_TO_END_KEY, m_missingToEnd);
+        // added in 3.7
+        settings.addInt(PARALLELISM_KEY, m_parallelism);
     }
 
     /**
@@ -293,6 +309,8 @@ protected void loadValidatedSettingsFrom(final NodeSettingsRO settings)
         }
         // added in 2.6, catch missing setting
         m_missingToEnd = settings.getBoolean(MISSING_TO_END_KEY, false);
+        // added in 3.7, old workflows sort sequentially
+        m_parallelism = Math.max(1, settings.getInt(PARALLELISM_KEY, 1));
     }
 
     /**
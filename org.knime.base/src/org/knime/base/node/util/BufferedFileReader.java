@@ -660,6 +660,38 @@ public static BufferedFileReader createNewReader(final InputStream in) {
 
     }
 
+    /**
+     * Same as {@link #createNewReader(InputStream)}, but decodes the stream
+     * with the specified character set.
+     *
+     * @param in the stream to read from
+     * @param charsetName the character set to use, or <code>null</code> to use
+     *            the VM's default
+     * @return a new buffered reader with no file size
+     * @throws java.nio.charset.IllegalCharsetNameException If the given charset
+     *             name is illegal
+     * @throws java.nio.charset.UnsupportedCharsetException If no support for
+     *             the named charset is available in this instance of the Java
+     *             virtual machine
+     * @since 3.7
+     */
+    public static BufferedFileReader createNewReader(final InputStream in,
+            final String charsetName) {
+        if (in == null) {
+            throw new NullPointerException("Can't open a reader on a null "
+                    + "input stream");
+        }
+
+        Charset cs = Charset.defaultCharset();
+        if (charsetName != null) {
+            cs = Charset.forName(charsetName);
+        }
+        ByteCountingStream sourceStream = new ByteCountingStream(in);
+        InputStreamReader readerStream = new InputStreamReader(sourceStream, cs);
+
+        return new BufferedFileReader(readerStream, sourceStream, 0);
+    }
+
     private void setZipEntryName(final String name) {
         m_zipEntryName = name;
     }
@@ -44,10 +44,7 @@
  */
 package org.knime.base.util.kdtree;
 
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
-import java.util.PriorityQueue;
 
 /**
  * This class is an implementation of a k-d tree as described in <div> Friedman,
@@ -55,18 +52,22 @@
  * Finding Best Matches in Logarithmic Expected Time</i>; ACM Transactions on
  * Mathematical Software; 1997, 3(3), pages 209-226 </div>
  *
- * For creating a k-d tree use the {@link KDTreeBuilder}.
+ * For creating a k-d tree use the {@link KDTreeBuilder}. The tree can be
+ * searched concurrently by several threads.
  *
  * @param <T> the type of the data that is to be stored in the tree
  *
  * @author Thorsten Meinl, University of Konstanz
  */
-public class KDTree<T> {
-    private final int m_k, m_size;
+public class KDTree<T> implements NearestNeighbourSearch<T> {
+    private final int m_k;
 
     private final Node m_root;
 
-    private int m_testedPatterns;
+    /** The data of the patterns in the order in which they have been added. */
+    private final List<T> m_data;
+
+    private volatile int m_testedPatterns;
 
     /**
      * Creates a new optimized k-d tree. This constructor is called by the
@@ -74,12 +75,13 @@
      *
      * @param k the number of dimensions of the patterns
      * @param rootNode the root node of the tree
-     * @param size the size of the tree
+     * @param data the data of all patterns in the tree, indexed by
+     *            {@link TerminalNode#getIndex()}
      */
-    KDTree(final int k, final Node rootNode, final int size) {
+    KDTree(final int k, final Node rootNode, final List<T> data) {
         m_k = k;
         m_root = rootNode;
-        m_size = size;
+        m_data = data;
     }
 
     /**
@@ -88,8 +90,9 @@
      *
      * @return the tree's size
      */
+    @Override
     public int size() {
-        return m_size;
+        return m_data.size();
     }
 
     /**
@@ -105,69 +108,24 @@ public int size() {
      * @param k the number of nearest neighbours to retrieve
      * @return a sorted list of the nearest neighbours
      */
+    @Override
     public List<NearestNeighbour<T>> getKNearestNeighbours(
             final double[] query, final int k) {
         if (query.length != m_k) {
             throw new IllegalArgumentException(
                     "The query vector has not length " + m_k);
         }
-        if (k > m_size) {
+        if (k > size()) {
             throw new IllegalArgumentException("The tree contains only "
-                    + m_size + " elements, but " + k + " were requested");
+                    + size() + " elements, but " + k + " were requested");
         }
 
-        PriorityQueue<NearestNeighbour<T>> pq =
-                new PriorityQueue<NearestNeighbour<T>>(k);
-        for (int i = 0; i < k; i++) {
-            pq.add(new NearestNeighbour<T>(null, Double.MAX_VALUE));
+        NearestNeighbourQueue queue =
+                new NearestNeighbourQueue(k, Double.MAX_VALUE);
+        if (k > 0) {
+            search(queue, query);
         }
-
-        double[] lowerBounds = new double[m_k];
-        double[] upperBounds = new double[m_k];
-
-        for (int i = 0; i < m_k; i++) {
-            lowerBounds[i] = -Double.MAX_VALUE;
-            upperBounds[i] = Double.MAX_VALUE;
-        }
-
-        m_testedPatterns = 0;
-        search(m_root, query, pq, lowerBounds, upperBounds, false);
-        LinkedList<NearestNeighbour<T>> results =
-                new LinkedList<NearestNeighbour<T>>();
-
-        while (pq.peek() != null) {
-            NearestNeighbour<T> nn = pq.poll();
-            nn.setDistance(Math.sqrt(nn.getDistance()));
-            results.addFirst(nn);
-        }
-
-        // The final list may contain much more than k elements and even
-        // elements farther away than the k-th. So we need to remove the
-        // superflous elements.
-        ListIterator<NearestNeighbour<T>> it = results.listIterator();
-        // take the first k elements
-        for (int i = 0; i < k; i++) {
-            it.next();
-        }
-        if (it.hasNext()) {
-            // take all following elements having the same distance as the k-th
-            double lastDist = it.previous().getDistance();
-            while (it.hasNext() && (it.next().getDistance() == lastDist)) {
-                //
-            }
-            // remove all remaining elements
-            if (it.hasNext()) {
-                it.remove();
-                while (it.hasNext()) {
-                    it.next();
-                    it.remove();
-                }
-            }
-        }
-
-
-        // assert (results.size() == k);
-        return results;
+        return queue.drain(m_data);
     }
 
     /**
@@ -177,7 +135,7 @@ public List<NearestNeighbour<T>> getKNearestNeighbours(
      *
      * @param query the query pattern, must have the same dimensionality as the
      *            patterns inside the tree
-     * @param maxDist the maximum distance the patterns may have (exclusive)
+     * @param maxDist the maximum distance the patterns may have (inclusive)
      * @return a sorted list of the neighbours
      */
     public List<NearestNeighbour<T>> getMaxDistanceNeighbours(
@@ -187,10 +145,18 @@ public List<NearestNeighbour<T>> getMaxDistanceNeighbours(
                     "The query vector has not length " + m_k);
         }
 
-        PriorityQueue<NearestNeighbour<T>> pq =
-                new PriorityQueue<NearestNeighbour<T>>();
-        pq.add(new NearestNeighbour<T>(null, maxDist * maxDist));
+        NearestNeighbourQueue queue =
+                new NearestNeighbourQueue(Integer.MAX_VALUE, maxDist * maxDist);
+        search(queue, query);
+        List<NearestNeighbour<T>> results = queue.drain(m_data);
 
+        assert results.isEmpty()
+                || (results.get(results.size() - 1).getDistance() <= maxDist);
+        return results;
+    }
+
+    private void search(final NearestNeighbourQueue queue,
+            final double[] query) {
         double[] lowerBounds = new double[m_k];
         double[] upperBounds = new double[m_k];
 
@@ -199,104 +165,37 @@ public List<NearestNeighbour<T>> getMaxDistanceNeighbours(
             upperBounds[i] = Double.MAX_VALUE;
         }
 
-        m_testedPatterns = 0;
-        search(m_root, query, pq, lowerBounds, upperBounds, true);
-        LinkedList<NearestNeighbour<T>> results =
-                new LinkedList<NearestNeighbour<T>>();
-
-        while (pq.peek() != null) {
-            NearestNeighbour<T> nn = pq.poll();
-            nn.setDistance(Math.sqrt(nn.getDistance()));
-            if (nn.getData() != null) {
-                // the "border" pattern has null data and must not be included
-                results.addFirst(nn);
-            }
-        }
-
-        assert (results.getLast().getDistance() <= maxDist);
-        return results;
-    }
-
-    /**
-     * Adds a new nearest neighbour to the candidate list, of the passed
-     * terminal node is nearer to the query pattern than the currently farthest
-     * neighbour. This method can be used for two purposes: First during the
-     * search for the k nearest neighbours of the query pattern. For this the
-     * <code>maxDistanceMode</code> parameter must be set to <code>false</code>.
-     * Second during a search for all patterns up to a maximum distance from the
-     * query pattern, if <code>maxDistanceMode</code> is set to
-     * <code>true</code>.
-     *
-     * @param tn the terminal node under consideration
-     * @param pq the list of nearest neighbours
-     * @param query the query pattern
-     * @param maxDistanceMode <code>true</code> if all nodes up to a maximal
-     *            distance should be added, <code>false</code> if the k nearest
-     *            neighbours should be found
-     *
-     * @return <code>true</code> if a new nearest neighbour has been found,
-     *         <code>false</code> otherwise
-     */
-    private boolean addNewNearestNeighbour(final TerminalNode<T> tn,
-            final PriorityQueue<NearestNeighbour<T>> pq, final double[] query,
-            final boolean maxDistanceMode) {
-        m_testedPatterns++;
-        double distance = tn.getDistance(query);
-
-        double d = pq.peek().getDistance();
-
-        if (d > distance) {
-            NearestNeighbour<T> qr =
-                    new NearestNeighbour<T>(tn.getData(), distance);
-            pq.offer(qr);
-            if (!maxDistanceMode) {
-                pq.poll();
-            }
-            return true;
-        } else if (d == distance) {
-            NearestNeighbour<T> qr =
-                    new NearestNeighbour<T>(tn.getData(), distance);
-            pq.offer(qr);
-            return true;
-        }
-        return false;
+        search(m_root, query, queue, lowerBounds, upperBounds);
+        m_testedPatterns = queue.getOfferedCount();
     }
 
     /**
-     * Does the recursive search. This method can be used for two purposes:
-     * First during the search for the k nearest neighbours of the query
-     * pattern. For this the <code>maxDistanceMode</code> parameter must be set
-     * to <code>false</code>. Second during a search for all patterns up to a
-     * maximum distance from the query pattern, if <code>maxDistanceMode</code>
-     * is set to <code>true</code>.
+     * Does the recursive search. Depending on the queue's capacity this
+     * searches for the k nearest neighbours or for all patterns up to a
+     * maximum distance from the query pattern.
      *
      * @param node the current node under consideration
      * @param query the query pattern
-     * @param pq the priority queue of the currently nearest neighbours
+     * @param queue the queue of the currently nearest neighbours
      * @param lowerBounds the lower bounds array
      * @param upperBounds the upper bounds array
-     * @param maxDistanceMode <code>true</code> if all nodes up to a maximal
-     *            distance should be added, <code>false</code> if the k nearest
-     *            neighbours should be found
      *
      * @return <code>true</code> if the search can be aborted,
      *         <code>false</code> if it should be continued
      */
     private boolean search(final Node node, final double[] query,
-            final PriorityQueue<NearestNeighbour<T>> pq,
-            final double[] lowerBounds, final double[] upperBounds,
-            final boolean maxDistanceMode) {
+            final NearestNeighbourQueue queue,
+            final double[] lowerBounds, final double[] upperBounds) {
         if (node == null) {
             return false;
         }
         if (node instanceof TerminalBucket) {
             boolean newFound = false;
             for (TerminalNode<T> tn : ((TerminalBucket<T>)node)) {
-                newFound |=
-                        addNewNearestNeighbour(tn, pq, query, maxDistanceMode);
+                newFound |= queue.offer(tn.getDistance(query), tn.getIndex());
             }
             if (newFound
-                    && ballWithinBounds(query, pq.peek().getDistance(),
+                    && ballWithinBounds(query, queue.getFarthestDistance(),
                             lowerBounds, upperBounds)) {
                 return true; // search is done
             }
@@ -313,8 +212,7 @@ && ballWithinBounds(query, pq.peek().getDistance(),
             final double temp = upperBounds[keyIndex];
             upperBounds[keyIndex] = keyValue;
             boolean finished =
-                    search(n.getLeft(), query, pq, lowerBounds, upperBounds,
-                            maxDistanceMode);
+                    search(n.getLeft(), query, queue, lowerBounds, upperBounds);
             upperBounds[keyIndex] = temp;
             if (finished) {
                 return true;
@@ -323,8 +221,7 @@ && ballWithinBounds(query, pq.peek().getDistance(),
             final double temp = lowerBounds[keyIndex];
             lowerBounds[keyIndex] = keyValue;
             boolean finished =
-                    search(n.getRight(), query, pq, lowerBounds, upperBounds,
-                            maxDistanceMode);
+                    search(n.getRight(), query, queue, lowerBounds, upperBounds);
             lowerBounds[keyIndex] = temp;
             if (finished) {
                 return true;
@@ -336,26 +233,24 @@ && ballWithinBounds(query, pq.peek().getDistance(),
             final double temp = lowerBounds[keyIndex];
             lowerBounds[keyIndex] = keyValue;
 
-            if (boundsOverlapBall(query, pq.peek().getDistance(), lowerBounds,
-                    upperBounds)) {
-                search(n.getRight(), query, pq, lowerBounds, upperBounds,
-                        maxDistanceMode);
+            if (boundsOverlapBall(query, queue.getFarthestDistance(),
+                    lowerBounds, upperBounds)) {
+                search(n.getRight(), query, queue, lowerBounds, upperBounds);
             }
             lowerBounds[keyIndex] = temp;
         } else {
             final double temp = upperBounds[keyIndex];
             upperBounds[keyIndex] = keyValue;
 
-            if (boundsOverlapBall(query, pq.peek().getDistance(), lowerBounds,
-                    upperBounds)) {
-                search(n.getLeft(), query, pq, lowerBounds, upperBounds,
-                        maxDistanceMode);
+            if (boundsOverlapBall(query, queue.getFarthestDistance(),
+                    lowerBounds, upperBounds)) {
+                search(n.getLeft(), query, queue, lowerBounds, upperBounds);
             }
 
             upperBounds[keyIndex] = temp;
         }
 
-        if (ballWithinBounds(query, pq.peek().getDistance(), lowerBounds,
+        if (ballWithinBounds(query, queue.getFarthestDistance(), lowerBounds,
                 upperBounds)) {
             return true;
         }
@@ -441,7 +336,8 @@ private boolean ballWithinBounds(final double[] query,
     /**
      * Returns the number of tested patterns during the last call to
      * {@link #getKNearestNeighbours(double[], int)}. The lower the number the
-     * better the k-d tree could prune the search.
+     * better the k-d tree could prune the search. If searches are run
+     * concurrently, the number refers to any of the last searches.
      *
      * @return the number of tested patterns
      */
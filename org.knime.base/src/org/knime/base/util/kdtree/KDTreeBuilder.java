@@ -69,6 +69,8 @@
     private final ArrayList<TerminalNode<T>> m_nodes =
             new ArrayList<TerminalNode<T>>();
 
+    private final ArrayList<T> m_data = new ArrayList<T>();
+
     private int m_processedPatterns;
 
     /**
@@ -92,7 +94,8 @@ public void addPattern(final double[] pattern, final T data) {
             throw new IllegalArgumentException(
                     "pattern is not of specified dimensionality " + m_k);
         }
-        m_nodes.add(new TerminalNode<T>(pattern, data));
+        m_nodes.add(new TerminalNode<T>(pattern, data, m_nodes.size()));
+        m_data.add(data);
     }
 
     /**
@@ -118,7 +121,7 @@ public KDTree<T> buildTree(final int bucketSize,
             final ExecutionMonitor progMon) throws CanceledExecutionException {
         m_processedPatterns = 0;
         Node rootNode = buildTree(m_nodes, bucketSize, progMon);
-        return new KDTree<T>(m_k, rootNode, m_nodes.size());
+        return new KDTree<T>(m_k, rootNode, new ArrayList<T>(m_data));
     }
 
     /**
@@ -143,7 +146,7 @@ public KDTree<T> buildTree(final ExecutionMonitor progMon)
      */
     public KDTree<T> buildTree(final int bucketSize) {
         Node rootNode = buildTree(m_nodes, bucketSize);
-        return new KDTree<T>(m_k, rootNode, m_nodes.size());
+        return new KDTree<T>(m_k, rootNode, new ArrayList<T>(m_data));
     }
 
     /**
@@ -0,0 +1,226 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded priority queue of nearest neighbour candidates on primitive arrays. It keeps the <code>capacity</code>
+ * nearest patterns in a max-heap on the (squared) distance and additionally all patterns that have the same distance
+ * as the farthest of them. Patterns are identified by their index, the associated data is only looked up when the
+ * result list is created.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NearestNeighbourQueue {
+    private final int m_capacity;
+
+    private final double m_maxDistance;
+
+    private double[] m_distances;
+
+    private int[] m_indices;
+
+    private int m_size;
+
+    /** Patterns with the same distance as the heap's top that don't fit into the heap any more. */
+    private int[] m_ties = new int[4];
+
+    private int m_tieCount;
+
+    private int m_offered;
+
+    /**
+     * Creates a new queue.
+     *
+     * @param capacity the number of nearest neighbours to keep, {@link Integer#MAX_VALUE} for an unbounded queue
+     * @param maxDistance the maximum (squared) distance of patterns to keep (inclusive)
+     */
+    NearestNeighbourQueue(final int capacity, final double maxDistance) {
+        m_capacity = capacity;
+        m_maxDistance = maxDistance;
+        final int initialSize = Math.max(1, Math.min(capacity, 64));
+        m_distances = new double[initialSize];
+        m_indices = new int[initialSize];
+    }
+
+    /**
+     * Returns the distance a pattern may have at most in order to be added to the queue.
+     *
+     * @return the distance of the currently farthest neighbour if the queue is full, the maximum distance otherwise
+     */
+    double getFarthestDistance() {
+        return m_size < m_capacity ? m_maxDistance : m_distances[0];
+    }
+
+    /**
+     * Returns the number of patterns that have been offered to the queue so far.
+     *
+     * @return the number of offered patterns
+     */
+    int getOfferedCount() {
+        return m_offered;
+    }
+
+    /**
+     * Adds a pattern if it is not farther away than the farthest neighbour in the queue.
+     *
+     * @param distance the (squared) distance of the pattern to the query
+     * @param index the index of the pattern
+     * @return <code>true</code> if the pattern has been added, <code>false</code> otherwise
+     */
+    boolean offer(final double distance, final int index) {
+        m_offered++;
+        if (m_size < m_capacity) {
+            if (distance > m_maxDistance) {
+                return false;
+            }
+            if (m_size == m_distances.length) {
+                final int newLength = (int)Math.min(m_capacity, 2L * m_size);
+                m_distances = Arrays.copyOf(m_distances, newLength);
+                m_indices = Arrays.copyOf(m_indices, newLength);
+            }
+            siftUp(m_size++, distance, index);
+            return true;
+        }
+        final double farthest = m_distances[0];
+        if (distance > farthest) {
+            return false;
+        } else if (distance == farthest) {
+            addTie(index);
+            return true;
+        }
+        final int removed = m_indices[0];
+        siftDown(0, distance, index);
+        if (m_distances[0] == farthest) {
+            // the removed pattern is still as near as the farthest one in the heap
+            addTie(removed);
+        } else {
+            m_tieCount = 0;
+        }
+        return true;
+    }
+
+    private void addTie(final int index) {
+        if (m_tieCount == m_ties.length) {
+            m_ties = Arrays.copyOf(m_ties, 2 * m_tieCount);
+        }
+        m_ties[m_tieCount++] = index;
+    }
+
+    private void siftUp(final int position, final double distance, final int index) {
+        int pos = position;
+        while (pos > 0) {
+            final int parent = (pos - 1) >>> 1;
+            if (m_distances[parent] >= distance) {
+                break;
+            }
+            m_distances[pos] = m_distances[parent];
+            m_indices[pos] = m_indices[parent];
+            pos = parent;
+        }
+        m_distances[pos] = distance;
+        m_indices[pos] = index;
+    }
+
+    private void siftDown(final int position, final double distance, final int index) {
+        int pos = position;
+        final int half = m_size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < m_size && m_distances[child + 1] > m_distances[child]) {
+                child++;
+            }
+            if (distance >= m_distances[child]) {
+                break;
+            }
+            m_distances[pos] = m_distances[child];
+            m_indices[pos] = m_indices[child];
+            pos = child;
+        }
+        m_distances[pos] = distance;
+        m_indices[pos] = index;
+    }
+
+    /**
+     * Empties the queue and returns its contents sorted by increasing distance. Patterns with equal distance are
+     * sorted by their index, which makes the result independent of the order in which the patterns have been offered.
+     *
+     * @param data the data objects associated with the pattern indices
+     * @param <T> the type of the data objects
+     * @return a sorted list of the nearest neighbours with the euclidean (i.e. not squared) distances
+     */
+    <T> List<NearestNeighbour<T>> drain(final List<T> data) {
+        final int count = m_size + m_tieCount;
+        final int[] indices = new int[count];
+        final double[] distances = new double[count];
+        if (m_tieCount > 0) {
+            System.arraycopy(m_ties, 0, indices, m_size, m_tieCount);
+            Arrays.fill(distances, m_size, count, m_distances[0]);
+        }
+        for (int pos = m_size - 1; pos >= 0; pos--) {
+            indices[pos] = m_indices[0];
+            distances[pos] = m_distances[0];
+            m_size--;
+            siftDown(0, m_distances[m_size], m_indices[m_size]);
+        }
+        m_tieCount = 0;
+
+        final List<NearestNeighbour<T>> result = new ArrayList<>(count);
+        int runStart = 0;
+        for (int i = 1; i <= count; i++) {
+            if (i == count || distances[i] != distances[runStart]) {
+                Arrays.sort(indices, runStart, i);
+                runStart = i;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            result.add(new NearestNeighbour<T>(data.get(indices[i]), Math.sqrt(distances[i])));
+        }
+        return result;
+    }
+}
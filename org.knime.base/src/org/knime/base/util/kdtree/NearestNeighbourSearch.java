@@ -0,0 +1,76 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.List;
+
+/**
+ * Common interface of the index structures for the nearest neighbour search, i.e. the {@link KDTree} and the
+ * {@link VPTree}. Searches in the same index may be run concurrently by several threads.
+ *
+ * @param <T> the type of the data that is stored in the index
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public interface NearestNeighbourSearch<T> {
+    /**
+     * Returns the number of stored patterns.
+     *
+     * @return the index' size
+     */
+    int size();
+
+    /**
+     * Searches for the <code>k</code> nearest neighbours of the <code>query</code> pattern. The returned list is sorted
+     * by the distance to the query pattern in increasing order, patterns with the same distance are in the order in
+     * which they have been added to the index. The returned list contains more than <code>k</code> patterns if further
+     * patterns have the same distance as the <code>k</code>-th pattern.
+     *
+     * @param query the query pattern, must have the same dimensionality as the patterns inside the index
+     * @param k the number of nearest neighbours to retrieve
+     * @return a sorted list of the nearest neighbours
+     */
+    List<NearestNeighbour<T>> getKNearestNeighbours(double[] query, int k);
+}
@@ -58,15 +58,28 @@
 
     private final double[] m_pattern;
 
+    private final int m_index;
+
     /**
      * Creates a new terminal node.
      *
      * @param pattern the pattern
      * @param data an optional data object
+     * @param index the index of the pattern in the order in which the patterns have been added to the tree
      */
-    public TerminalNode(final double[] pattern, final T data) {
+    public TerminalNode(final double[] pattern, final T data, final int index) {
         m_pattern = pattern;
         m_data = data;
+        m_index = index;
+    }
+
+    /**
+     * Returns the index of the pattern in the order in which the patterns have been added to the tree.
+     *
+     * @return the index
+     */
+    public int getIndex() {
+        return m_index;
     }
 
     /**
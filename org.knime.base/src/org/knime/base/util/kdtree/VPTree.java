@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.List;
+
+/**
+ * This class is an implementation of a vantage point tree as described in <div> Yianilos, Peter N.: <i>Data
+ * structures and algorithms for nearest neighbor search in general metric spaces</i>; Proceedings of the fourth
+ * annual ACM-SIAM Symposium on Discrete algorithms; 1993, pages 311-321 </div>
+ *
+ * Each inner node splits its patterns by the distance to a vantage point into an inner and an outer half, which only
+ * relies on the triangle inequality. In contrast to the {@link KDTree} the pruning does therefore not degrade as much
+ * for patterns with many dimensions.
+ *
+ * For creating a vp tree use the {@link VPTreeBuilder}. The tree can be searched concurrently by several threads.
+ *
+ * @param <T> the type of the data that is to be stored in the tree
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class VPTree<T> implements NearestNeighbourSearch<T> {
+    /** Relative safety margin for the pruning to compensate rounding errors of the distances. */
+    private static final double PRUNING_EPSILON = 1E-9;
+
+    private final int m_k;
+
+    /** The patterns, ordered such that each node covers a contiguous range. */
+    private final double[][] m_patterns;
+
+    /** The indices of the patterns in {@link #m_patterns}, in the order in which they have been added. */
+    private final int[] m_indices;
+
+    /** The data of the patterns in the order in which they have been added. */
+    private final List<T> m_data;
+
+    /** Position of each node's vantage point in {@link #m_patterns}, -1 for leaves. */
+    private final int[] m_vantagePoints;
+
+    /** The median distance of the patterns below each inner node to its vantage point. */
+    private final double[] m_radii;
+
+    /** The inner child of inner nodes or the first pattern position of leaves. */
+    private final int[] m_left;
+
+    /** The outer child of inner nodes or the end of the pattern range of leaves (exclusive). */
+    private final int[] m_right;
+
+    /**
+     * Creates a new vp tree. This constructor is called by the {@link VPTreeBuilder}.
+     *
+     * @param k the number of dimensions of the patterns
+     * @param patterns the patterns in tree order
+     * @param indices the indices of the patterns in tree order
+     * @param data the data of all patterns, in the order in which they have been added
+     * @param vantagePoints the vantage point position of each node, -1 for leaves
+     * @param radii the radius of each inner node
+     * @param left the inner child or first pattern position of each node
+     * @param right the outer child or pattern range end of each node
+     */
+    VPTree(final int k, final double[][] patterns, final int[] indices, final List<T> data,
+        final int[] vantagePoints, final double[] radii, final int[] left, final int[] right) {
+        m_k = k;
+        m_patterns = patterns;
+        m_indices = indices;
+        m_data = data;
+        m_vantagePoints = vantagePoints;
+        m_radii = radii;
+        m_left = left;
+        m_right = right;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return m_data.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<NearestNeighbour<T>> getKNearestNeighbours(final double[] query, final int k) {
+        if (query.length != m_k) {
+            throw new IllegalArgumentException("The query vector has not length " + m_k);
+        }
+        if (k > size()) {
+            throw new IllegalArgumentException("The tree contains only " + size() + " elements, but " + k
+                + " were requested");
+        }
+
+        NearestNeighbourQueue queue = new NearestNeighbourQueue(k, Double.MAX_VALUE);
+        if (k > 0 && size() > 0) {
+            search(0, query, queue);
+        }
+        return queue.drain(m_data);
+    }
+
+    private void search(final int node, final double[] query, final NearestNeighbourQueue queue) {
+        final int vantagePoint = m_vantagePoints[node];
+        if (vantagePoint < 0) {
+            for (int pos = m_left[node]; pos < m_right[node]; pos++) {
+                queue.offer(distance(m_patterns[pos], query), m_indices[pos]);
+            }
+            return;
+        }
+
+        final double squaredDist = distance(m_patterns[vantagePoint], query);
+        queue.offer(squaredDist, m_indices[vantagePoint]);
+        final double dist = Math.sqrt(squaredDist);
+        final double radius = m_radii[node];
+        // all patterns in the inner child are at most radius away from the vantage point, all in the outer child at
+        // least radius; subtrees are skipped if the triangle inequality shows that they are farther away than the
+        // currently farthest neighbour
+        if (dist <= radius) {
+            search(m_left[node], query, queue);
+            if (dist + searchRadius(queue) >= radius) {
+                search(m_right[node], query, queue);
+            }
+        } else {
+            search(m_right[node], query, queue);
+            if (dist - searchRadius(queue) <= radius) {
+                search(m_left[node], query, queue);
+            }
+        }
+    }
+
+    private static double searchRadius(final NearestNeighbourQueue queue) {
+        return Math.sqrt(queue.getFarthestDistance()) * (1 + PRUNING_EPSILON);
+    }
+
+    /**
+     * Returns the squared euclidean distance between two patterns.
+     *
+     * @param p1 the first pattern
+     * @param p2 the second pattern
+     * @return the squared distance
+     */
+    static double distance(final double[] p1, final double[] p2) {
+        double distSum = 0;
+        for (int i = 0; i < p1.length; i++) {
+            double dist = p1[i] - p2[i];
+            distSum += dist * dist;
+        }
+        return distSum;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.util.kdtree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * This class is some kind of factory for the {@link VPTree}. Like the {@link KDTreeBuilder} it first collects all
+ * patterns and then builds the tree.
+ *
+ * @param <T> the type of the data stored inside the tree
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class VPTreeBuilder<T> {
+    /** The default number of patterns inside a leaf. */
+    public static final int DEFAULT_BUCKET_SIZE = 8;
+
+    private final int m_k;
+
+    private final ArrayList<double[]> m_patterns = new ArrayList<double[]>();
+
+    private final ArrayList<T> m_data = new ArrayList<T>();
+
+    // the state during the building of a tree
+    private double[][] m_treePatterns;
+
+    private int[] m_treeIndices;
+
+    private double[] m_distances;
+
+    private int[] m_vantagePoints;
+
+    private double[] m_radii;
+
+    private int[] m_left;
+
+    private int[] m_right;
+
+    private int m_nodeCount;
+
+    private int m_processedPatterns;
+
+    private Random m_random;
+
+    /**
+     * Creates a new vp tree builder.
+     *
+     * @param k the dimensionality of the stored patterns
+     */
+    public VPTreeBuilder(final int k) {
+        m_k = k;
+    }
+
+    /**
+     * Adds a pattern that is later inserted into the tree.
+     *
+     * @param pattern the pattern; the length of the array must be the same as the number specified when the builder
+     *            was created
+     * @param data (optional) data associated with the pattern
+     */
+    public void addPattern(final double[] pattern, final T data) {
+        if (pattern.length != m_k) {
+            throw new IllegalArgumentException("pattern is not of specified dimensionality " + m_k);
+        }
+        m_patterns.add(pattern);
+        m_data.add(data);
+    }
+
+    /**
+     * Builds a vp tree using all the patterns that have been added to the builder so far.
+     *
+     * @return a vp tree
+     */
+    public VPTree<T> buildTree() {
+        try {
+            return buildTree(DEFAULT_BUCKET_SIZE, null);
+        } catch (CanceledExecutionException ex) {
+            // cannot happen because we don't have an execution monitor
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Builds a vp tree using all the patterns that have been added to the builder so far.
+     *
+     * @param progMon an optional progress monitor, can be <code>null</code>
+     * @return a vp tree
+     * @throws CanceledExecutionException if the execution has been canceled
+     */
+    public VPTree<T> buildTree(final ExecutionMonitor progMon) throws CanceledExecutionException {
+        return buildTree(DEFAULT_BUCKET_SIZE, progMon);
+    }
+
+    /**
+     * Builds a vp tree using all the patterns that have been added to the builder so far.
+     *
+     * @param bucketSize the maximum number of patterns inside the leaves, must be at least 1
+     * @param progMon an optional progress monitor, can be <code>null</code>
+     * @return a vp tree
+     * @throws CanceledExecutionException if the execution has been canceled
+     */
+    public VPTree<T> buildTree(final int bucketSize, final ExecutionMonitor progMon)
+        throws CanceledExecutionException {
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("The bucket size must be at least 1: " + bucketSize);
+        }
+        final int size = m_patterns.size();
+        m_treePatterns = m_patterns.toArray(new double[size][]);
+        m_treeIndices = new int[size];
+        for (int i = 0; i < size; i++) {
+            m_treeIndices[i] = i;
+        }
+        m_distances = new double[size];
+        final int initialNodes = 2 * (size / bucketSize) + 1;
+        m_vantagePoints = new int[initialNodes];
+        m_radii = new double[initialNodes];
+        m_left = new int[initialNodes];
+        m_right = new int[initialNodes];
+        m_nodeCount = 0;
+        m_processedPatterns = 0;
+        // fixed seed, so that the same patterns always result in the same tree
+        m_random = new Random(size);
+        try {
+            buildTree(0, size, bucketSize, progMon);
+            return new VPTree<T>(m_k, m_treePatterns, m_treeIndices, new ArrayList<T>(m_data),
+                Arrays.copyOf(m_vantagePoints, m_nodeCount), Arrays.copyOf(m_radii, m_nodeCount),
+                Arrays.copyOf(m_left, m_nodeCount), Arrays.copyOf(m_right, m_nodeCount));
+        } finally {
+            m_treePatterns = null;
+            m_treeIndices = null;
+            m_distances = null;
+            m_vantagePoints = null;
+            m_radii = null;
+            m_left = null;
+            m_right = null;
+        }
+    }
+
+    /**
+     * Recursive method to build the tree for the patterns in the given range.
+     *
+     * @param from the first position of the range
+     * @param to the end of the range (exclusive)
+     * @param bucketSize the maximum number of patterns inside the leaves
+     * @param progMon an optional progress monitor, can be <code>null</code>
+     * @return the index of the created node
+     * @throws CanceledExecutionException if the execution has been canceled
+     */
+    private int buildTree(final int from, final int to, final int bucketSize, final ExecutionMonitor progMon)
+        throws CanceledExecutionException {
+        final int node = m_nodeCount++;
+        if (node == m_vantagePoints.length) {
+            final int newLength = 2 * node + 1;
+            m_vantagePoints = Arrays.copyOf(m_vantagePoints, newLength);
+            m_radii = Arrays.copyOf(m_radii, newLength);
+            m_left = Arrays.copyOf(m_left, newLength);
+            m_right = Arrays.copyOf(m_right, newLength);
+        }
+        if (to - from <= bucketSize) {
+            m_vantagePoints[node] = -1;
+            m_left[node] = from;
+            m_right[node] = to;
+            m_processedPatterns += to - from;
+            return node;
+        }
+
+        swap(from, from + m_random.nextInt(to - from));
+        final double[] vantagePoint = m_treePatterns[from];
+        for (int pos = from + 1; pos < to; pos++) {
+            m_distances[pos] = VPTree.distance(vantagePoint, m_treePatterns[pos]);
+        }
+        // the inner half including the median is [from + 1, median]
+        final int median = from + 1 + (to - from - 2) / 2;
+        select(from + 1, to - 1, median);
+        final double radius = Math.sqrt(m_distances[median]);
+        m_processedPatterns++;
+
+        final int inner = buildTree(from + 1, median + 1, bucketSize, progMon);
+        final int outer = buildTree(median + 1, to, bucketSize, progMon);
+        m_vantagePoints[node] = from;
+        m_radii[node] = radius;
+        m_left[node] = inner;
+        m_right[node] = outer;
+
+        if (progMon != null) {
+            progMon.checkCanceled();
+            progMon.setProgress(m_processedPatterns / (double)m_treePatterns.length,
+                "Added " + m_processedPatterns + " patterns to the tree");
+        }
+        return node;
+    }
+
+    /**
+     * Rearranges the patterns in the given range so that the pattern at position <code>k</code> is the one that would
+     * be there if the range was sorted by the distances, all patterns before it are not farther away and all patterns
+     * after it are not nearer.
+     */
+    private void select(final int first, final int last, final int k) {
+        int left = first;
+        int right = last;
+        while (right > left) {
+            final double pivot = m_distances[left + m_random.nextInt(right - left + 1)];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (m_distances[i] < pivot) {
+                    i++;
+                }
+                while (m_distances[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        final double[] pattern = m_treePatterns[i];
+        m_treePatterns[i] = m_treePatterns[j];
+        m_treePatterns[j] = pattern;
+        final int index = m_treeIndices[i];
+        m_treeIndices[i] = m_treeIndices[j];
+        m_treeIndices[j] = index;
+        final double dist = m_distances[i];
+        m_distances[i] = m_distances[j];
+        m_distances[j] = dist;
+    }
+}
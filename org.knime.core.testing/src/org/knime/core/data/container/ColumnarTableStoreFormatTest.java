@@ -0,0 +1,245 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.UnmaterializedCell;
+import org.knime.core.data.collection.CollectionCellFactory;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.data.container.storage.TableStoreFormatRegistry;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Writes tables in the {@link ColumnarTableStoreFormat} and compares what is read back with what was written.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ColumnarTableStoreFormatTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new String[]{"int", "long", "double", "boolean", "string", "list"},
+        new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, BooleanCell.TYPE, StringCell.TYPE,
+            DataType.getType(ListCell.class, IntCell.TYPE)});
+
+    /** Strings that standard UTF-8 can't represent (unpaired surrogates) or that differ in modified UTF-8. */
+    private static final String[] SPECIAL_STRINGS = {"", "\u0000", "\u00e4\u20ac", "\ud83d\ude00 (non-BMP)",
+        "\ud800", "unpaired \udc00 low surrogate", "reversed \ude00\ud83d pair", "\ud800\ud800"};
+
+    private final IEclipsePreferences m_prefs =
+        InstanceScope.INSTANCE.getNode(FrameworkUtil.getBundle(TableStoreFormatRegistry.class).getSymbolicName());
+
+    private String m_previousFormat;
+
+    /**
+     * Makes the columnar format the format used for new tables.
+     */
+    @Before
+    public void setUp() {
+        m_previousFormat = m_prefs.get(TableStoreFormatRegistry.PREF_KEY_STORAGE_FORMAT, null);
+        m_prefs.put(TableStoreFormatRegistry.PREF_KEY_STORAGE_FORMAT, ColumnarTableStoreFormat.class.getName());
+    }
+
+    /**
+     * Restores the previous table format.
+     */
+    @After
+    public void tearDown() {
+        if (m_previousFormat == null) {
+            m_prefs.remove(TableStoreFormatRegistry.PREF_KEY_STORAGE_FORMAT);
+        } else {
+            m_prefs.put(TableStoreFormatRegistry.PREF_KEY_STORAGE_FORMAT, m_previousFormat);
+        }
+    }
+
+    /**
+     * Writes all column types with missing values over several chunks, reads them back and compares.
+     */
+    @Test
+    public void testRoundTrip() {
+        final List<DataRow> rows = createRows(2 * ColumnarTableStoreFormat.MAX_ROWS_PER_CHUNK + 17);
+        final ContainerTable table = write(rows);
+        assertTrue("Table not written in columnar format",
+            table.getBuffer().getOutputFormat() instanceof ColumnarTableStoreFormat);
+        assertEquals(rows, read(table));
+    }
+
+    /**
+     * Strings and row keys are written such that any sequence of chars is read back, including non-BMP characters
+     * and unpaired surrogates, which standard UTF-8 replaces.
+     */
+    @Test
+    public void testSpecialStrings() {
+        final List<DataRow> rows = new ArrayList<>();
+        final StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            longString.append(SPECIAL_STRINGS[i % SPECIAL_STRINGS.length]);
+        }
+        final List<String> strings = new ArrayList<>(Arrays.asList(SPECIAL_STRINGS));
+        strings.add(longString.toString());
+        for (int i = 0; i < strings.size(); i++) {
+            final String s = strings.get(i);
+            rows.add(new DefaultRow(new RowKey("Row" + i + s), new IntCell(i), new LongCell(i), new DoubleCell(i),
+                BooleanCell.TRUE, new StringCell(s), DataType.getMissingCell()));
+        }
+        assertEquals(rows, read(write(rows)));
+    }
+
+    /**
+     * Tables without rows and without columns.
+     */
+    @Test
+    public void testEmptyTables() {
+        assertEquals(new ArrayList<DataRow>(), read(write(new ArrayList<DataRow>())));
+
+        final DataContainer container = new DataContainer(new DataTableSpec(), true, 0);
+        for (int i = 0; i < 10; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i)));
+        }
+        container.close();
+        final List<DataRow> rows = read((ContainerTable)container.getTable());
+        assertEquals(10, rows.size());
+        assertEquals(RowKey.createRowKey(9L), rows.get(9).getKey());
+    }
+
+    /**
+     * Iterators filtering columns return the selected columns only, all other cells are unmaterialized.
+     */
+    @Test
+    public void testFilteredIterator() {
+        final List<DataRow> rows = createRows(ColumnarTableStoreFormat.MAX_ROWS_PER_CHUNK + 1);
+        final ContainerTable table = write(rows);
+        try (CloseableRowIterator it = table.iteratorBuilder().filterColumns(1, 4).build()) {
+            for (DataRow expected : rows) {
+                assertTrue(it.hasNext());
+                final DataRow row = it.next();
+                assertEquals(expected.getKey(), row.getKey());
+                for (int c = 0; c < SPEC.getNumColumns(); c++) {
+                    if (c == 1 || c == 4) {
+                        assertEquals(expected.getCell(c), row.getCell(c));
+                    } else {
+                        assertTrue(row.getCell(c) instanceof UnmaterializedCell);
+                    }
+                }
+            }
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /* Rows with random values and missing values in all columns, including missing values with an error message
+     * (which are not written as primitive values). */
+    private static List<DataRow> createRows(final int count) {
+        final Random rand = new Random(42);
+        final List<DataRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final DataCell[] cells = new DataCell[SPEC.getNumColumns()];
+            cells[0] = new IntCell(rand.nextInt());
+            cells[1] = new LongCell(rand.nextLong());
+            cells[2] = new DoubleCell(rand.nextGaussian());
+            cells[3] = BooleanCell.get(rand.nextBoolean());
+            cells[4] = new StringCell(SPECIAL_STRINGS[rand.nextInt(SPECIAL_STRINGS.length)] + i);
+            cells[5] = CollectionCellFactory.createListCell(Arrays.asList(new IntCell(i), DataType.getMissingCell()));
+            for (int c = 0; c < cells.length; c++) {
+                if (rand.nextInt(10) == 0) {
+                    cells[c] = DataType.getMissingCell();
+                }
+            }
+            if (i == count / 2) {
+                cells[0] = new MissingCell("error");
+            }
+            rows.add(new DefaultRow(RowKey.createRowKey((long)i), cells));
+        }
+        return rows;
+    }
+
+    /* Writes the rows to disk, i.e. in the format set in the preferences. */
+    private static ContainerTable write(final List<DataRow> rows) {
+        final DataContainer container = new DataContainer(SPEC, true, 0);
+        for (DataRow row : rows) {
+            container.addRowToTable(row);
+        }
+        container.close();
+        return (ContainerTable)container.getTable();
+    }
+
+    private static List<DataRow> read(final ContainerTable table) {
+        final List<DataRow> rows = new ArrayList<>();
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                final DataCell[] cells = new DataCell[row.getNumCells()];
+                for (int c = 0; c < cells.length; c++) {
+                    cells[c] = row.getCell(c);
+                }
+                rows.add(new DefaultRow(row.getKey(), cells));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
+
+/**
+ * Tests the different {@link CompressionFormat compression formats} of the default table format.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CompressionFormatTest {
+
+    /**
+     * Writes random and redundant data through all formats, reads it back and compares.
+     * @throws Exception ...
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        Random rand = new Random(47);
+        for (CompressionFormat format : CompressionFormat.values()) {
+            for (int length : new int[]{0, 1, 12, 13, 100, 65535, 65536, 65537, 1_000_000}) {
+                byte[] random = new byte[length];
+                rand.nextBytes(random);
+                assertArrayEquals(format + " (random, " + length + " bytes)", random, roundTrip(format, random));
+                byte[] redundant = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    redundant[i] = (byte)(i % 7 == 0 ? rand.nextInt(3) : 'a' + (i / 13) % 5);
+                }
+                assertArrayEquals(format + " (redundant, " + length + " bytes)", redundant,
+                    roundTrip(format, redundant));
+            }
+        }
+    }
+
+    /**
+     * Block stream with small and odd-sized blocks, mixed single byte and array writes.
+     * @throws Exception ...
+     */
+    @Test
+    public void testLZ4BlockBoundaries() throws Exception {
+        Random rand = new Random(11);
+        byte[] data = createTableLikeData(200_000);
+        for (int blockSize : new int[]{1, 13, 4097, 70_000}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new LZ4BlockOutputStream(bytes, blockSize)) {
+                int pos = 0;
+                while (pos < data.length) {
+                    if (rand.nextBoolean()) {
+                        out.write(data[pos++]);
+                    } else {
+                        int count = Math.min(data.length - pos, rand.nextInt(10_000));
+                        out.write(data, pos, count);
+                        pos += count;
+                    }
+                }
+            }
+            assertArrayEquals("block size " + blockSize, data,
+                readFully(new LZ4BlockInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        }
+    }
+
+    /**
+     * Corrupt LZ4 input must result in an {@link IOException}.
+     * @throws Exception ...
+     */
+    @Test
+    public void testLZ4CorruptInput() throws Exception {
+        byte[] compressed = compress(CompressionFormat.Lz4, createTableLikeData(100_000));
+        Random rand = new Random(3);
+        for (int i = 0; i < 50; i++) {
+            byte[] corrupt = compressed.clone();
+            int index = LZ4BlockOutputStream.HEADER_LENGTH + rand.nextInt(corrupt.length
+                - LZ4BlockOutputStream.HEADER_LENGTH);
+            corrupt[index] = (byte)~corrupt[index];
+            try {
+                readFully(CompressionFormat.Lz4.wrapInputStream(new ByteArrayInputStream(corrupt)));
+                // flipping a literal byte is not detectable (no checksums) - that's fine
+            } catch (IOException e) {
+                // expected for most modifications
+            } catch (RuntimeException e) {
+                fail("Corrupt input caused " + e.getClass().getSimpleName() + " instead of IOException: "
+                    + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Round trips table-like data with all formats. The compressing formats must compress it, and each format writes
+     * files with its own suffix.
+     * @throws Exception ...
+     */
+    @Test
+    public void testRatioAndSuffix() throws Exception {
+        byte[] data = createTableLikeData(1 << 20);
+        Set<String> suffixes = new HashSet<>();
+        for (CompressionFormat format : CompressionFormat.values()) {
+            byte[] compressed = compress(format, data);
+            assertArrayEquals(data, readFully(format.wrapInputStream(new ByteArrayInputStream(compressed))));
+            if (format != CompressionFormat.None) {
+                assertTrue("Compressed size of " + format, compressed.length < data.length);
+            }
+            assertTrue("Duplicate suffix " + format.getFilenameSuffix(), suffixes.add(format.getFilenameSuffix()));
+        }
+    }
+
+    private static byte[] roundTrip(final CompressionFormat format, final byte[] data) throws IOException {
+        return readFully(format.wrapInputStream(new ByteArrayInputStream(compress(format, data))));
+    }
+
+    private static byte[] compress(final CompressionFormat format, final byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = format.wrapOutputStream(bytes, Deflater.BEST_SPEED)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /** Mimics the binary stream of a table with a row key, a nominal, an int and a double column. */
+    private static byte[] createTableLikeData(final int approxLength) throws IOException {
+        Random rand = new Random(approxLength);
+        String[] nominalValues = {"Iris-setosa", "Iris-versicolor", "Iris-virginica", "unknown"};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(approxLength + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int row = 0; bytes.size() < approxLength; row++) {
+                out.writeUTF("Row" + row);
+                out.writeByte(KNIMEStreamConstants.TC_TERMINATE);
+                out.writeUTF(nominalValues[rand.nextInt(nominalValues.length)]);
+                out.writeInt(rand.nextInt(1000));
+                out.writeDouble(Math.round(rand.nextGaussian() * 1000) / 100.0);
+                out.writeByte(KNIMEStreamConstants.TC_TERMINATE);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+}
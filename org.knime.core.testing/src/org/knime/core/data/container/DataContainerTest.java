@@ -47,6 +47,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.StandardWatchEventKinds;
@@ -61,6 +62,10 @@
 import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.RandomStringUtils;
@@ -74,6 +79,7 @@
 import org.knime.core.data.MissingValue;
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
@@ -268,6 +274,65 @@ public void run() {
         assertFalse(buffer.usesOutFile());
     }
 
+    /**
+     * Tests {@link ContainerTable#iterator(long, long)} on a table kept in memory and on tables written to disc with
+     * the different compression formats, including empty ranges at the start and end of the table and row counts that
+     * are a multiple of the row offset index granularity.
+     */
+    public final void testRangeIterator() {
+        final CompressionFormat defaultFormat = DefaultTableStoreFormat.getCompressionFormat();
+        try {
+            for (CompressionFormat format : new CompressionFormat[]{CompressionFormat.None, CompressionFormat.Lz4,
+                CompressionFormat.Gzip}) {
+                DefaultTableStoreFormat.setCompressionFormat(format);
+                for (int count : new int[]{10000, 100 * RowOffsetIndex.GRANULARITY, 0}) {
+                    runRangeIteratorTest(count, format);
+                }
+            }
+        } finally {
+            DefaultTableStoreFormat.setCompressionFormat(defaultFormat);
+        }
+    }
+
+    private void runRangeIteratorTest(final int count, final CompressionFormat format) {
+        for (int maxRowsInMemory : new int[] {0, count}) {
+            DataContainer container = new DataContainer(SPEC_STR_INT_DBL, true, maxRowsInMemory, false);
+            for (RowIterator it = generateRows(count); it.hasNext();) {
+                container.addRowToTable(it.next());
+            }
+            container.close();
+            ContainerTable table = container.getBufferedTable();
+            if (count > 0) {
+                assertEquals(maxRowsInMemory == 0, table.getBuffer().usesOutFile());
+            }
+            int[][] ranges = new int[][] {{0, count}, {0, 0}, {count, count}, {1, 2}, {31, 33}, {32, 64},
+                {5000, 5017}, {count - 1, count}, {count - 32, count}, {count - 33, count - 32}};
+            for (int[] range : ranges) {
+                if (range[0] < 0 || range[1] > count || range[0] > range[1]) {
+                    continue;
+                }
+                RowIterator referenceIterator = generateRows(range[1]);
+                for (int i = 0; i < range[0]; i++) {
+                    referenceIterator.next();
+                }
+                try (CloseableRowIterator it = table.iterator(range[0], range[1])) {
+                    while (referenceIterator.hasNext()) {
+                        assertTrue(it.hasNext());
+                        assertEquals(referenceIterator.next(), it.next());
+                    }
+                    assertFalse(String.format("Range [%d, %d) of %d rows, %s", range[0], range[1], count, format),
+                        it.hasNext());
+                }
+            }
+            try {
+                table.iterator(5, count + 1);
+                fail("Expected " + IndexOutOfBoundsException.class + " not thrown");
+            } catch (IndexOutOfBoundsException e) {
+                NodeLogger.getLogger(getClass()).debug("Got expected exception: " + e.getClass(), e);
+            }
+        }
+    }
+
     private static RowIterator generateRows(final int count) {
         return new RowIterator() {
 
@@ -701,7 +766,8 @@ public void testAsyncWriteLimits() throws Exception {
             boolean isAsync;
             do {
                 int activeCount = DataContainer.ASYNC_EXECUTORS.getActiveCount();
-                DataContainer c = new DataContainer(SPEC_STR_INT_DBL, true, 0);
+                // the default (bounded) executor, independent of the virtual threads property
+                DataContainer c = new DataContainer(SPEC_STR_INT_DBL, true, 0, false, null, false);
                 c.addRowToTable(infinitIterator.next());
                 // no activeCount is incremented by one - so order of two lines is important.
                 containerList.add(c);
@@ -716,6 +782,91 @@ public void testAsyncWriteLimits() throws Exception {
         }
     }
 
+    /**
+     * Opens many more containers than {@link DataContainer#MAX_ASYNC_WRITE_THREADS}, fills them in turns and checks
+     * that all of them write asynchronously and contain all rows. Checks both unbounded write modes (see
+     * {@link org.knime.core.node.KNIMEConstants#PROPERTY_TABLE_IO_VIRTUAL_THREADS}): a writer per container on an
+     * unbounded executor, and batches written by a small pool of carrier threads.
+     */
+    public void testUnboundedAsyncWrite() throws Exception {
+        Assume.assumeTrue(!DataContainer.SYNCHRONOUS_IO);
+        ExecutorService unbounded = Executors.newCachedThreadPool();
+        try {
+            checkUnboundedAsyncWrite(unbounded, false);
+        } finally {
+            unbounded.shutdown();
+        }
+        ExecutorService carriers = Executors.newFixedThreadPool(2);
+        try {
+            checkUnboundedAsyncWrite(carriers, true);
+        } finally {
+            carriers.shutdown();
+        }
+    }
+
+    private static void checkUnboundedAsyncWrite(final ExecutorService executor, final boolean isBatchWrite) {
+        final int containerCount = 4 * DataContainer.MAX_ASYNC_WRITE_THREADS;
+        final int rowCount = 5 * DataContainer.ASYNC_CACHE_SIZE + 3;
+        RowIterator infinitIterator = generateRows(Integer.MAX_VALUE);
+        List<DataContainer> containerList = new ArrayList<DataContainer>();
+        try {
+            for (int i = 0; i < containerCount; i++) {
+                DataContainer c = new DataContainer(SPEC_STR_INT_DBL, true, 0, false, executor, isBatchWrite);
+                containerList.add(c);
+                assertFalse("Container " + i + " writes synchronously", c.isSynchronousWrite());
+            }
+            for (int r = 0; r < rowCount; r++) {
+                for (DataContainer c : containerList) {
+                    c.addRowToTable(infinitIterator.next());
+                }
+            }
+        } finally {
+            for (DataContainer c : containerList) {
+                c.close();
+            }
+        }
+        for (DataContainer c : containerList) {
+            assertEquals(rowCount, c.size());
+        }
+    }
+
+    /**
+     * Checks that a batch writer waiting for a busy carrier thread doesn't keep a container from being garbage
+     * collected that was never closed.
+     */
+    public void testBatchWriterDoesNotReferenceContainer() throws Exception {
+        Assume.assumeTrue(!DataContainer.SYNCHRONOUS_IO);
+        ExecutorService carrier = Executors.newSingleThreadExecutor();
+        CountDownLatch blocker = new CountDownLatch(1);
+        try {
+            carrier.execute(() -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            DataContainer c = new DataContainer(SPEC_STR_INT_DBL, true, 0, false, carrier, true);
+            RowIterator it = generateRows(DataContainer.ASYNC_CACHE_SIZE);
+            while (it.hasNext()) {
+                c.addRowToTable(it.next());
+            }
+            // the first batch is queued in the busy carrier pool now
+            WeakReference<DataContainer> ref = new WeakReference<DataContainer>(c);
+            c = null;
+            for (int i = 0; i < 50 && ref.get() != null; i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+            assertNull("Pending batch writer keeps container from being garbage collected", ref.get());
+        } finally {
+            blocker.countDown();
+            carrier.shutdown();
+        }
+        // the writer discards the rows of the collected container
+        assertTrue(carrier.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
     /**
      * In this test, we write a table, check that no unnecessary temp files have been generated and left undeleted, read
      * the file, and compare the read table to the written table.
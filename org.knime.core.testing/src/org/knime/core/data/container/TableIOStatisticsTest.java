@@ -0,0 +1,109 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the {@link TableIOStatistics}. The statistics are global, hence all checks are done on the difference of two
+ * snapshots and only assert lower bounds.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TableIOStatisticsTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new String[]{"String", "Int"}, new DataType[]{StringCell.TYPE, IntCell.TYPE});
+
+    /** Writes a table to disk and reads it back, checks the counters. */
+    @Test
+    public void testWriteAndRead() {
+        final int rowCount = 1000;
+        TableIOStatistics statistics = TableIOStatistics.getInstance();
+        boolean wasCellTimingEnabled = statistics.isCellTimingEnabled();
+        statistics.setCellTimingEnabled(true);
+        try {
+            TableIOStatistics.Snapshot before = statistics.getSnapshot();
+            DataContainer container = new DataContainer(SPEC, false, 0);
+            for (int i = 0; i < rowCount; i++) {
+                container.addRowToTable(new DefaultRow(RowKey.createRowKey(i),
+                    new DataCell[]{new StringCell("Row " + i), new IntCell(i)}));
+            }
+            container.close();
+            int readCount = 0;
+            for (DataRow row : container.getTable()) {
+                assertEquals(readCount, ((IntCell)row.getCell(1)).getIntValue());
+                readCount++;
+            }
+            assertEquals(rowCount, readCount);
+            TableIOStatistics.Snapshot diff = statistics.getSnapshot().minus(before);
+
+            assertTrue("Rows written: " + diff, diff.getRowsWritten() >= rowCount);
+            assertTrue("Bytes written: " + diff, diff.getBytesWritten() > 0);
+            assertTrue("Rows read: " + diff, diff.getRowsRead() >= rowCount);
+            assertTrue("Bytes read: " + diff, diff.getBytesRead() > 0);
+            assertTrue("Spill count: " + diff, diff.getSpillCount() >= 1);
+            assertTrue("Spilled bytes: " + diff, diff.getSpilledBytes() > 0);
+            Long intCellsWritten = diff.getSerializationCountPerCellType().get(IntCell.class.getName());
+            assertTrue("Serialized int cells", intCellsWritten != null && intCellsWritten >= rowCount);
+            Long intCellsRead = diff.getDeserializationCountPerCellType().get(IntCell.class.getName());
+            assertTrue("Deserialized int cells", intCellsRead != null && intCellsRead >= rowCount);
+        } finally {
+            statistics.setCellTimingEnabled(wasCellTimingEnabled);
+        }
+    }
+
+}
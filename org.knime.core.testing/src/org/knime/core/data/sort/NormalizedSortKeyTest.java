@@ -0,0 +1,266 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests that sorting with {@link NormalizedSortKey normalized keys} yields the same result as sorting with the column
+ * comparators.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NormalizedSortKeyTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"int", "long", "double", "string", "bool"},
+        new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE, StringCell.TYPE, BooleanCell.TYPE});
+
+    private static final double[] SPECIAL_DOUBLES = new double[]{Double.NaN, Double.NEGATIVE_INFINITY,
+        Double.POSITIVE_INFINITY, -0.0, 0.0, Double.MIN_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE};
+
+    private static final String[] SPECIAL_STRINGS = new String[]{"", "a", "ab", "a\u0000", "a\u007F", "a\u0080",
+        "\u00E4", "\u0100", "\uFFFF", "A", "~", "ab\u0000c"};
+
+    /**
+     * Keys are only available if all sort columns have a supported type.
+     */
+    @Test
+    public void testSupportedTypes() {
+        assertNotNull(NormalizedSortKey.create(new int[]{0, 1, 2, 3, -1}, new boolean[5], false, SPEC));
+        assertNull(NormalizedSortKey.create(new int[]{0, 4}, new boolean[2], false, SPEC));
+    }
+
+    /**
+     * Sorts random tables with many ties, missing values and special values by different column combinations and
+     * compares with the sort result of the column comparators.
+     * @throws Exception ...
+     */
+    @Test
+    public void testSameOrderAsComparators() throws Exception {
+        Random rand = new Random(4711);
+        DataTable table = createTable(rand, 2000);
+        List<List<String>> columnCombinations = Arrays.asList(Arrays.asList("int"), Arrays.asList("long"),
+            Arrays.asList("double"), Arrays.asList("string"), Arrays.asList("string", "int"),
+            Arrays.asList("double", "string", "long"), Arrays.asList("int", "-ROWKEY -"));
+        for (List<String> columns : columnCombinations) {
+            for (int run = 0; run < 4; run++) {
+                boolean[] ascending = new boolean[columns.size()];
+                for (int i = 0; i < ascending.length; i++) {
+                    ascending[i] = rand.nextBoolean();
+                }
+                boolean missingsToEnd = rand.nextBoolean();
+                for (boolean inMemory : new boolean[]{true, false}) {
+                    List<RowKey> expected = sort(table, columns, ascending, missingsToEnd, inMemory, false);
+                    List<RowKey> actual = sort(table, columns, ascending, missingsToEnd, inMemory, true);
+                    assertEquals(String.format("Sort by %s (ascending %s, missings to end %b, in memory %b)", columns,
+                        Arrays.toString(ascending), missingsToEnd, inMemory), expected, actual);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorting by a column without normalized key (boolean) falls back to the column comparators.
+     * @throws Exception ...
+     */
+    @Test
+    public void testUnsupportedType() throws Exception {
+        DataTable table = createTable(new Random(17), 2000);
+        Comparator<DataRow> byBool = Comparator.comparing(r -> ((BooleanCell)r.getCell(4)).getBooleanValue());
+        for (boolean inMemory : new boolean[]{true, false}) {
+            DataTableSorter sorter = new DataTableSorter(table, 2000L, Arrays.asList("bool"), new boolean[]{true});
+            assertEquals("Sort by boolean column (in memory " + inMemory + ")", sortExpected(table, byBool),
+                sort(sorter, inMemory));
+        }
+    }
+
+    /**
+     * A custom row comparator is used as is.
+     * @throws Exception ...
+     */
+    @Test
+    public void testCustomComparator() throws Exception {
+        DataTable table = createTable(new Random(18), 2000);
+        Comparator<DataRow> byKeyLength = Comparator.comparing(r -> r.getKey().getString().length());
+        for (boolean inMemory : new boolean[]{true, false}) {
+            DataTableSorter sorter = new DataTableSorter(table, 2000L, byKeyLength);
+            assertEquals("Sort with custom comparator (in memory " + inMemory + ")",
+                sortExpected(table, byKeyLength), sort(sorter, inMemory));
+        }
+    }
+
+    /**
+     * Sorting a supported column with normalized keys switched off uses the column comparators.
+     * @throws Exception ...
+     */
+    @Test
+    public void testNormalizedKeysOff() throws Exception {
+        DataTable table = createTable(new Random(19), 2000);
+        // missing values first, as for ascending order without "missings to end"
+        Comparator<DataRow> byInt = Comparator.comparing(r -> r.getCell(0).isMissing()
+            ? Long.MIN_VALUE : ((IntCell)r.getCell(0)).getIntValue());
+        for (boolean inMemory : new boolean[]{true, false}) {
+            DataTableSorter sorter = new DataTableSorter(table, 2000L, Arrays.asList("int"), new boolean[]{true});
+            sorter.setUseNormalizedKeys(false);
+            assertEquals("Sort without normalized keys (in memory " + inMemory + ")", sortExpected(table, byInt),
+                sort(sorter, inMemory));
+        }
+    }
+
+    /**
+     * Chunks sorted by the worker threads of a parallel sort use the normalized keys, too.
+     * @throws Exception ...
+     */
+    @Test
+    public void testParallelChunks() throws Exception {
+        DataTable table = createTable(new Random(20), 2000);
+        List<String> columns = Arrays.asList("string", "int");
+        boolean[] ascending = new boolean[]{true, false};
+        List<RowKey> expected = sort(table, columns, ascending, false, false, false);
+        DataTableSorter sorter = new DataTableSorter(table, 2000L, columns, ascending, false);
+        sorter.setParallelism(4);
+        assertEquals(expected, sort(sorter, false));
+    }
+
+    /**
+     * Byte comparison is unsigned and shorter keys are smaller.
+     */
+    @Test
+    public void testCompare() {
+        assertTrue(NormalizedSortKey.compare(new byte[]{1}, new byte[]{(byte)0x80}) < 0);
+        assertTrue(NormalizedSortKey.compare(new byte[]{1, 2}, new byte[]{1}) > 0);
+        assertEquals(0, NormalizedSortKey.compare(new byte[]{1, (byte)0xFF}, new byte[]{1, (byte)0xFF}));
+    }
+
+    private static List<RowKey> sort(final DataTable table, final List<String> columns, final boolean[] ascending,
+        final boolean missingsToEnd, final boolean inMemory, final boolean normalizedKeys) throws Exception {
+        DataTableSorter sorter = new DataTableSorter(table, 2000L, columns, ascending, missingsToEnd);
+        sorter.setUseNormalizedKeys(normalizedKeys);
+        return sort(sorter, inMemory);
+    }
+
+    private static List<RowKey> sort(final DataTableSorter sorter, final boolean inMemory) throws Exception {
+        sorter.setSortInMemory(inMemory);
+        // several chunks to also test the merge
+        sorter.setMaxRows(300);
+        List<RowKey> result = new ArrayList<>();
+        for (DataRow row : sorter.sort(new ExecutionMonitor(new DefaultNodeProgressMonitor()))) {
+            result.add(row.getKey());
+        }
+        return result;
+    }
+
+    /** Stable sort of the rows in memory. */
+    private static List<RowKey> sortExpected(final DataTable table, final Comparator<DataRow> comparator) {
+        List<DataRow> rows = new ArrayList<>();
+        for (DataRow row : table) {
+            rows.add(row);
+        }
+        Collections.sort(rows, comparator);
+        List<RowKey> result = new ArrayList<>();
+        for (DataRow row : rows) {
+            result.add(row.getKey());
+        }
+        return result;
+    }
+
+    private static DataTable createTable(final Random rand, final int rowCount) {
+        DataContainer container = new DataContainer(SPEC);
+        for (int i = 0; i < rowCount; i++) {
+            DataCell[] cells = new DataCell[5];
+            cells[0] = rand.nextInt(10) == 0 ? DataType.getMissingCell()
+                : new IntCell(rand.nextBoolean() ? rand.nextInt(20) - 10 : rand.nextInt());
+            cells[1] = rand.nextInt(10) == 0 ? DataType.getMissingCell()
+                : new LongCell(rand.nextBoolean() ? rand.nextInt(20) - 10 : rand.nextLong());
+            cells[2] = rand.nextInt(10) == 0 ? DataType.getMissingCell()
+                : new DoubleCell(rand.nextBoolean() ? SPECIAL_DOUBLES[rand.nextInt(SPECIAL_DOUBLES.length)]
+                    : (rand.nextInt(20) - 10) / 4.0);
+            cells[3] = rand.nextInt(10) == 0 ? DataType.getMissingCell()
+                : new StringCell(rand.nextBoolean() ? SPECIAL_STRINGS[rand.nextInt(SPECIAL_STRINGS.length)]
+                    : randomString(rand));
+            cells[4] = BooleanCell.get(rand.nextBoolean());
+            // row keys in random order to test sorting by row key
+            container.addRowToTable(new DefaultRow(new RowKey("Row" + rand.nextInt(rowCount) + "_" + i), cells));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static String randomString(final Random rand) {
+        char[] chars = new char[rand.nextInt(4)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = rand.nextInt(5) == 0 ? (char)rand.nextInt(0x10000) : (char)('a' + rand.nextInt(3));
+        }
+        return new String(chars);
+    }
+
+}
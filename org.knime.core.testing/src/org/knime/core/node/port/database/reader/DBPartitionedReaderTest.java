@@ -0,0 +1,246 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
+import org.knime.core.node.port.database.SQLiteUtility;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the partition boundaries of {@link DBPartitionedReader} and that reading a query in partitions returns the
+ * same rows as reading it with a single statement, using an SQLite database.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBPartitionedReaderTest {
+
+    private static final String TABLE = "reader_test";
+
+    private File m_database;
+
+    private DatabaseConnectionSettings m_settings;
+
+    private ExecutionContext m_exec;
+
+    /**
+     * Creates the database and the execution context.
+     * @throws Exception if an error occurs
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_database = File.createTempFile("reader-test", ".sqlite");
+        m_database.deleteOnExit();
+        m_settings = new DatabaseConnectionSettings(SQLiteUtility.DATABASE_IDENTIFIER, "org.sqlite.JDBC",
+            "jdbc:sqlite:" + m_database.getAbsolutePath(), null, null, null, "none");
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * Deletes the database.
+     */
+    @After
+    public void tearDown() {
+        m_database.delete();
+    }
+
+    /**
+     * A skewed range is cut into equally wide partitions, regardless of where the values are.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBoundsOfSkewedRange() throws Exception {
+        assertEquals(Arrays.asList(0L, 250000L, 500000L, 750000L, 1000000L),
+            DBPartitionedReader.createBounds(0L, 1000000L, 4));
+        // the original minimum and maximum are kept at both ends
+        assertEquals(Arrays.asList(0, 2L, 5L, 7L, 10), DBPartitionedReader.createBounds(0, 10, 4));
+        assertEquals(Arrays.asList(-1.0, -0.5, 0.0, 0.5, 1.0), DBPartitionedReader.createBounds(-1.0, 1.0, 4));
+        assertEquals(Arrays.asList(new BigDecimal("1.00"), 3L, new BigDecimal("5")),
+            DBPartitionedReader.createBounds(new BigDecimal("1.00"), new BigDecimal("5"), 2));
+        final Timestamp min = new Timestamp(0);
+        final Timestamp max = new Timestamp(1000);
+        assertEquals(Arrays.asList(min, new Timestamp(250), new Timestamp(500), new Timestamp(750), max),
+            DBPartitionedReader.createBounds(min, max, 4));
+    }
+
+    /**
+     * A single value forms a single partition, and ranges with fewer distinct values than partitions result in fewer
+     * partitions.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBoundsOfSmallRanges() throws Exception {
+        assertEquals(Collections.singletonList(5L), DBPartitionedReader.createBounds(5L, 5L, 4));
+        assertEquals(Collections.singletonList(0.5), DBPartitionedReader.createBounds(0.5, 0.5, 4));
+        assertEquals(Arrays.asList(0L, 1L, 2L), DBPartitionedReader.createBounds(0L, 2L, 10));
+        assertEquals(Arrays.asList(0L, 1L), DBPartitionedReader.createBounds(0L, 1L, 1000));
+    }
+
+    /**
+     * Values that are neither numbers nor dates can't be partitioned.
+     */
+    @Test
+    public void testBoundsOfUnsupportedType() {
+        try {
+            DBPartitionedReader.createBounds("a", "z", 4);
+            fail("Strings partitioned");
+        } catch (SQLException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Reading a table with skewed values and missing values in the partition column in partitions returns the same
+     * rows as reading it with a single statement - also if there are more partitions than values, or the column
+     * contains only missing values. The partitions hold more rows than they read ahead.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testPartitionedRead() throws Exception {
+        final List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 10 * DBPartitionedReader.READ_AHEAD_ROWS; i++) {
+            values.add(i % 10 == 0 ? null : i);
+        }
+        values.add(1000000);
+        createTable(values);
+
+        final List<String> expected = read(1);
+        assertEquals(values.size(), expected.size());
+        for (int partitions : new int[]{2, 7}) {
+            final List<String> actual = read(partitions);
+            assertEquals(partitions + " partitions", sorted(expected), sorted(actual));
+            // partitions are appended in ascending order, the missing values come last
+            assertEquals(partitions + " partitions", sortedByValue(actual), actual);
+        }
+
+        createTable(Arrays.asList(1, null, 2, 0, 2));
+        assertEquals(Arrays.asList("0:name3", "1:name0", "2:name2", "2:name4", "?:name1"), read(1000));
+
+        createTable(Arrays.asList(null, null, null));
+        assertEquals(read(1), read(4));
+    }
+
+    /* Reads the table with the given number of partitions and returns its rows as "value:name". */
+    private List<String> read(final int partitionCount) throws Exception {
+        final DBReaderImpl reader = (DBReaderImpl)m_settings.getUtility()
+            .getReader(new DatabaseQueryConnectionSettings(m_settings, "SELECT * FROM " + TABLE));
+        reader.setPartitioning("val", partitionCount);
+        final BufferedDataTable table = reader.createTable(m_exec, null, false);
+        final List<String> rows = new ArrayList<>();
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                rows.add(row.getCell(0) + ":" + row.getCell(1));
+            }
+        }
+        return rows;
+    }
+
+    private void createTable(final List<Integer> values) throws Exception {
+        m_settings.execute(null, conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS " + TABLE);
+                stmt.execute("CREATE TABLE " + TABLE + " (val integer, name varchar(255))");
+                for (int i = 0; i < values.size(); i++) {
+                    stmt.execute("INSERT INTO " + TABLE + " VALUES (" + values.get(i) + ", 'name" + i + "')");
+                }
+            }
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+            return null;
+        });
+    }
+
+    private static List<String> sorted(final List<String> rows) {
+        final List<String> result = new ArrayList<>(rows);
+        Collections.sort(result);
+        return result;
+    }
+
+    /* Sorts the rows by their (integer) value, missing values last, keeping the order of equal values. */
+    private static List<String> sortedByValue(final List<String> rows) {
+        final List<String> result = new ArrayList<>(rows);
+        result.sort((a, b) -> Long.compare(value(a), value(b)));
+        return result;
+    }
+
+    private static long value(final String row) {
+        final String value = row.substring(0, row.indexOf(':'));
+        return value.equals("?") ? Long.MAX_VALUE : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.SQLiteUtility;
+import org.knime.core.node.streamable.DataTableRowInput;
+
+/**
+ * Tests that inserting rows on several connections writes the same rows as inserting them on a single connection,
+ * using an SQLite database.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBWriterImplTest {
+
+    private static final String TABLE = "writer_test";
+
+    private static final int ROWS = 2500;
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new String[]{"id", "name"}, new DataType[]{IntCell.TYPE, StringCell.TYPE});
+
+    private File m_database;
+
+    private DatabaseConnectionSettings m_settings;
+
+    /**
+     * Creates the database with an empty table.
+     * @throws Exception if an error occurs
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_database = File.createTempFile("writer-test", ".sqlite");
+        m_database.deleteOnExit();
+        m_settings = new DatabaseConnectionSettings(SQLiteUtility.DATABASE_IDENTIFIER, "org.sqlite.JDBC",
+            "jdbc:sqlite:" + m_database.getAbsolutePath(), null, null, null, "none");
+        createTable();
+    }
+
+    /**
+     * Deletes the database.
+     */
+    @After
+    public void tearDown() {
+        m_database.delete();
+    }
+
+    /**
+     * Writes the same rows on one and on several connections, with and without adaptive batch sizes.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSeveralConnections() throws Exception {
+        List<String> expected = createRows(ROWS, -1);
+        for (int connections : new int[]{1, 4}) {
+            for (boolean adaptive : new boolean[]{false, true}) {
+                String message = connections + " connection(s), adaptive: " + adaptive;
+                DBWriterImpl writer = new DBWriterImpl(m_settings);
+                writer.setNumberOfConnections(connections);
+                writer.setAdaptiveBatchSize(adaptive);
+                assertNull(message, write(writer, createTable(ROWS, -1), 100, false));
+                assertEquals(message, expected, readRows());
+                createTable();
+            }
+        }
+    }
+
+    /**
+     * Writing with fail on error set uses a single connection, which is rolled back completely on errors.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testFailOnError() throws Exception {
+        DBWriterImpl writer = new DBWriterImpl(m_settings);
+        writer.setNumberOfConnections(4);
+        assertNull(write(writer, createTable(ROWS, -1), 100, true));
+        assertEquals(createRows(ROWS, -1), readRows());
+
+        createTable();
+        try {
+            write(writer, createTable(ROWS, ROWS / 2), 100, true);
+            fail("Duplicate primary key not reported");
+        } catch (Exception e) {
+            // expected
+        }
+        assertEquals("Inserts not rolled back", new ArrayList<String>(), readRows());
+    }
+
+    /**
+     * Without fail on error, rows that can't be inserted are counted, all other rows are written - on one and on
+     * several connections.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testErrorsOnSeveralConnections() throws Exception {
+        List<String> expected = createRows(ROWS, -1);
+        for (int connections : new int[]{1, 4}) {
+            DBWriterImpl writer = new DBWriterImpl(m_settings);
+            writer.setNumberOfConnections(connections);
+            // the row duplicating a primary key fails, the other rows are inserted one by one
+            assertEquals(connections + " connection(s)", "Errors \"1\" writing " + ROWS + " rows.",
+                write(writer, createTable(ROWS, ROWS / 2), 1, false));
+            assertEquals(connections + " connection(s)", expected.size() - 1, readRows().size());
+            createTable();
+        }
+    }
+
+    private String write(final DBWriterImpl writer, final DataTable table, final int batchSize,
+        final boolean failOnError) throws Exception {
+        Map<String, String> sqlTypes = new HashMap<>();
+        sqlTypes.put("id", "integer");
+        sqlTypes.put("name", "varchar(255)");
+        return writer.writeData(TABLE, new DataTableRowInput(table), ROWS, true,
+            new ExecutionMonitor(new DefaultNodeProgressMonitor()), sqlTypes, null, batchSize, false, failOnError);
+    }
+
+    /* (Re-)creates the table with a primary key, such that duplicate ids fail. */
+    private void createTable() throws Exception {
+        m_settings.execute(null, conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS " + TABLE);
+                stmt.execute("CREATE TABLE " + TABLE + " (id integer PRIMARY KEY, name varchar(255))");
+            }
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+            return null;
+        });
+    }
+
+    private List<String> readRows() throws Exception {
+        return m_settings.execute(null, conn -> {
+            List<String> rows = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT id, name FROM " + TABLE + " ORDER BY id")) {
+                while (rs.next()) {
+                    rows.add(rs.getInt(1) + ":" + rs.getString(2));
+                }
+            }
+            return rows;
+        });
+    }
+
+    /* The rows of the table as read from the database, the row with the duplicate id (if any) is not written. */
+    private static List<String> createRows(final int count, final int duplicateRow) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (i != duplicateRow) {
+                rows.add(i + ":name" + i);
+            }
+        }
+        return rows;
+    }
+
+    /* Creates a table with ids 0 to count - 1, except for the duplicate row, which repeats the id of the first row. */
+    private static DataTable createTable(final int count, final int duplicateRow) {
+        DataContainer cont = new DataContainer(SPEC);
+        for (int i = 0; i < count; i++) {
+            int id = i == duplicateRow ? 0 : i;
+            cont.addRowToTable(
+                new DefaultRow(RowKey.createRowKey((long)i), new IntCell(id), new StringCell("name" + i)));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+}
@@ -65,6 +65,11 @@
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipFile;
 
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Path;
@@ -251,6 +256,34 @@ public void testExecuteFromZip() throws Exception {
         assertEquals("Wrong number of lines in written CSV file", 1001, countWrittenLines(csvOut));
     }
 
+    /**
+     * Test if per-node execution metrics are written to the file given with <tt>-metricsFile</tt>.
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Test
+    public void testMetricsFile() throws Exception {
+        File metricsFile = File.createTempFile("BatchExecutorTest", ".json");
+        metricsFile.delete();
+        try {
+            int ret = BatchExecutor.mainRun(new String[]{"-workflowFile=" + standardTestWorkflowZip.getAbsolutePath(),
+                "-nosave", "-metricsFile=" + metricsFile.getAbsolutePath(),
+                "-workflow.variable=destinationFile," + csvOut.getAbsolutePath() + ",String"});
+            assertEquals("Non-zero return value", 0, ret);
+            assertTrue("Metrics file not written", metricsFile.isFile());
+            try (JsonReader reader = Json.createReader(new FileReader(metricsFile))) {
+                JsonArray metrics = reader.readArray();
+                assertFalse("No node metrics written", metrics.isEmpty());
+                for (JsonObject o : metrics.getValuesAs(JsonObject.class)) {
+                    assertTrue("Node not executed successfully: " + o, o.getBoolean("success"));
+                    assertTrue("Negative execution time: " + o, o.getJsonNumber("executionTime").longValue() >= 0);
+                }
+            }
+        } finally {
+            metricsFile.delete();
+        }
+    }
+
     /**
      * Test if workflows from a directory can be executed.
      *
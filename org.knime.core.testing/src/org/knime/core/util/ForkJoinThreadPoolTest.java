@@ -0,0 +1,146 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the {@link ThreadPoolTest} on the {@link ForkJoinThreadPool} and adds tests for nested parallel work and
+ * cancellation.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ForkJoinThreadPoolTest extends ThreadPoolTest {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ThreadPool createPool(final int maxThreads) {
+        return new ForkJoinThreadPool(maxThreads);
+    }
+
+    /**
+     * Tasks in a pool with a single thread wait for tasks in a sub pool without using
+     * {@link ThreadPool#runInvisible(java.util.concurrent.Callable)}, which must not deadlock.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testNestedWaitDoesNotStarve() throws Exception {
+        final ThreadPool root = createPool(1);
+        List<Future<Integer>> outer = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            outer.add(root.enqueue(() -> {
+                ThreadPool sub = ThreadPool.currentPool().createSubPool(1);
+                List<Future<Integer>> inner = new ArrayList<>();
+                for (int j = 0; j < 10; j++) {
+                    final int k = j;
+                    inner.add(sub.enqueue(() -> k));
+                }
+                int sum = 0;
+                for (Future<Integer> f : inner) {
+                    sum += f.get();
+                }
+                return sum;
+            }));
+        }
+        for (Future<Integer> f : outer) {
+            assertEquals(45, f.get(30, TimeUnit.SECONDS).intValue());
+        }
+        root.waitForTermination();
+        assertEquals(0, root.getRunningThreads());
+    }
+
+    /**
+     * Exceptions are reported unchanged as cause of the {@link ExecutionException}.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testException() throws Exception {
+        final ThreadPool root = createPool(2);
+        final IllegalStateException exception = new IllegalStateException("Expected exception");
+        Future<?> future = root.enqueue(() -> {
+            throw exception;
+        });
+        try {
+            future.get();
+            fail("Expected exception not thrown");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    /**
+     * Canceling a running task interrupts it, canceling a queued task removes it from the pending jobs.
+     *
+     * @throws Exception if an error occurs
+     */
+    public void testCancel() throws Exception {
+        final ThreadPool root = createPool(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        Future<?> running = root.enqueue(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60 * 1000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        Future<?> queued = root.enqueue(() -> fail("Canceled task must not run"));
+        started.await();
+        assertTrue(queued.cancel(true));
+        assertTrue(running.cancel(true));
+        root.waitForTermination();
+        assertTrue("Running task has not been interrupted", interrupted.get());
+        assertEquals(0, root.getQueueSize());
+    }
+}
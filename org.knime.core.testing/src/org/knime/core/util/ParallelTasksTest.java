@@ -0,0 +1,142 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+
+/**
+ * Tests for {@link ParallelTasks}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelTasksTest {
+
+    /**
+     * Each task index is run exactly once, also if the tasks are started by a thread of a pool that has no free
+     * threads left.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 10000)
+    public void testRunParallelInFullPool() throws Exception {
+        final ThreadPool root = new ThreadPool(1);
+        final AtomicIntegerArray runs = new AtomicIntegerArray(8);
+        Future<?> outer = root.enqueue(() -> {
+            ParallelTasks.runParallel(root.createSubPool(), runs.length(), i -> runs.incrementAndGet(i));
+            return null;
+        });
+        ParallelTasks.waitFor(outer);
+        for (int i = 0; i < runs.length(); i++) {
+            assertEquals("Runs of task " + i, 1, runs.get(i));
+        }
+        root.shutdown();
+        root.waitForTermination();
+    }
+
+    /**
+     * Exceptions of the tasks are rethrown without the wrapping of the thread pool.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testExceptionsAreUnwrapped() throws Exception {
+        final ThreadPool pool = new ThreadPool(2);
+        try {
+            ParallelTasks.runParallel(pool, 4, i -> {
+                if (i == 3) {
+                    throw new IllegalStateException("task " + i);
+                }
+            });
+            fail("Exception of task not rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("task 3", e.getMessage());
+        }
+
+        try {
+            ParallelTasks.runParallel(pool, 4, i -> {
+                if (i == 2) {
+                    throw new CanceledExecutionException("canceled " + i);
+                }
+            });
+            fail("Cancellation of task not rethrown");
+        } catch (CanceledExecutionException e) {
+            assertEquals("canceled 2", e.getMessage());
+        }
+
+        final Future<Void> future = pool.enqueue(() -> {
+            throw new IOException("io");
+        });
+        try {
+            ParallelTasks.waitFor(future);
+            fail("Exception of task not rethrown");
+        } catch (ExecutionException e) {
+            assertTrue("Unexpected cause " + e.getCause(), e.getCause() instanceof IOException);
+        }
+
+        final Future<Void> sleeping = pool.enqueue(() -> {
+            TimeUnit.MINUTES.sleep(1);
+            return null;
+        });
+        sleeping.cancel(true);
+        try {
+            ParallelTasks.waitFor(sleeping);
+            fail("Cancellation of task not rethrown");
+        } catch (CanceledExecutionException e) {
+            // expected
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link IntIntOpenHashMap}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class IntIntOpenHashMapTest {
+
+    /** Checks putting, incrementing, removing and iterating mappings against a {@link HashMap}. */
+    @Test
+    public void testRandomOperations() {
+        final Random rand = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // small ranges cause many collisions and removals of clustered entries
+            final int range = round % 2 == 0 ? 64 : 100000;
+            final IntIntOpenHashMap map = new IntIntOpenHashMap();
+            final Map<Integer, Integer> reference = new HashMap<>();
+            for (int i = 0; i < 10000; i++) {
+                final int key = rand.nextInt(range) - range / 2;
+                final int value = rand.nextInt();
+                switch (rand.nextInt(4)) {
+                    case 0:
+                        reference.put(key, value);
+                        map.put(key, value);
+                        break;
+                    case 1:
+                        assertEquals((int)reference.merge(key, 1, Integer::sum), map.addTo(key, 1));
+                        break;
+                    case 2:
+                        assertEquals(reference.remove(key) != null, map.remove(key));
+                        break;
+                    default:
+                        assertEquals(reference.containsKey(key), map.containsKey(key));
+                        assertEquals((int)reference.getOrDefault(key, -1), map.get(key, -1));
+                }
+                assertEquals(reference.size(), map.size());
+            }
+            final Map<Integer, Integer> iterated = new HashMap<>();
+            map.forEach((k, v) -> assertEquals(null, iterated.put(k, v)));
+            assertEquals(reference, iterated);
+            assertEquals(reference.size(), map.keys().length);
+        }
+    }
+
+    /** Checks that zero, which marks free slots internally, is handled like any other key. */
+    @Test
+    public void testZero() {
+        final IntIntOpenHashMap map = new IntIntOpenHashMap(0);
+        assertFalse(map.containsKey(0));
+        assertEquals(7, map.get(0, 7));
+        assertEquals(3, map.addTo(0, 3));
+        assertEquals(5, map.addTo(0, 2));
+        assertTrue(map.containsKey(0));
+        assertEquals(1, map.size());
+        assertEquals(0, map.keys()[0]);
+        assertTrue(map.remove(0));
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(0, -1));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link IntOpenHashSet}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class IntOpenHashSetTest {
+
+    /** Checks adding, removing and iterating values against a {@link HashSet}. */
+    @Test
+    public void testRandomOperations() {
+        final Random rand = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // small ranges cause many collisions and removals of clustered entries
+            final int range = round % 2 == 0 ? 64 : 100000;
+            final IntOpenHashSet set = new IntOpenHashSet();
+            final Set<Integer> reference = new HashSet<>();
+            for (int i = 0; i < 10000; i++) {
+                final int value = rand.nextInt(range) - range / 2;
+                switch (rand.nextInt(3)) {
+                    case 0:
+                        assertEquals(reference.add(value), set.add(value));
+                        break;
+                    case 1:
+                        assertEquals(reference.remove(value), set.remove(value));
+                        break;
+                    default:
+                        assertEquals(reference.contains(value), set.contains(value));
+                }
+                assertEquals(reference.size(), set.size());
+            }
+            final Set<Integer> iterated = new HashSet<>();
+            for (PrimitiveIterator.OfInt it = set.iterator(); it.hasNext();) {
+                assertTrue(iterated.add(it.nextInt()));
+            }
+            assertEquals(reference, iterated);
+            assertEquals(reference.size(), set.toArray().length);
+        }
+    }
+
+    /** Checks that zero, which marks free slots internally, is handled like any other value. */
+    @Test
+    public void testZero() {
+        final IntOpenHashSet set = new IntOpenHashSet(0);
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+        assertEquals(0, set.iterator().nextInt());
+        assertTrue(set.remove(0));
+        assertTrue(set.isEmpty());
+    }
+}
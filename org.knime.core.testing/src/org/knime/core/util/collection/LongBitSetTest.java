@@ -0,0 +1,115 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link LongBitSet}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class LongBitSetTest {
+
+    /** Checks setting, clearing and searching bits against a {@link BitSet}. */
+    @Test
+    public void testRandomOperations() {
+        final Random rand = new Random(42);
+        for (int round = 0; round < 10; round++) {
+            // large ranges leave pages unallocated
+            final int range = 1 + rand.nextInt(20000000);
+            final LongBitSet bits = new LongBitSet();
+            final BitSet reference = new BitSet();
+            for (int i = 0; i < 5000; i++) {
+                final int index = rand.nextInt(range);
+                switch (rand.nextInt(4)) {
+                    case 0:
+                        bits.set(index);
+                        reference.set(index);
+                        break;
+                    case 1:
+                        bits.clear(index);
+                        reference.clear(index);
+                        break;
+                    case 2:
+                        final int toIndex = Math.min(range, index + rand.nextInt(300));
+                        bits.set(index, toIndex);
+                        reference.set(index, toIndex);
+                        break;
+                    default:
+                        assertEquals(reference.get(index), bits.get(index));
+                }
+            }
+            for (int i = 0; i < 1000; i++) {
+                final int fromIndex = rand.nextInt(range + 100);
+                assertEquals(reference.nextSetBit(fromIndex), bits.nextSetBit(fromIndex));
+            }
+            assertEquals(reference.cardinality(), bits.cardinality());
+        }
+    }
+
+    /** Checks indices beyond the <code>int</code> range. */
+    @Test
+    public void testLongIndices() {
+        final LongBitSet bits = new LongBitSet();
+        assertTrue(bits.isEmpty());
+        final long index = 5L * Integer.MAX_VALUE;
+        bits.set(index);
+        assertTrue(bits.get(index));
+        assertFalse(bits.get(index - 1));
+        assertEquals(index, bits.nextSetBit(0));
+        assertEquals(-1, bits.nextSetBit(index + 1));
+        assertEquals(1, bits.cardinality());
+        bits.clear(index);
+        assertTrue(bits.isEmpty());
+    }
+}
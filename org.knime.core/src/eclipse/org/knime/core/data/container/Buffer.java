@@ -122,6 +122,8 @@
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContext;
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.ShutdownHelper;
 import org.knime.core.util.ThreadUtils;
@@ -330,12 +332,6 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         return result;
     }
 
-    /** Compression on the binary (main) file. */
-    enum CompressionFormat {
-        Gzip,
-        None;
-    }
-
     /** the file to write to. */
     private File m_binFile;
 
@@ -430,6 +426,10 @@ enum CompressionFormat {
      */
     private HashMap<BlobAddress, BlobAddress> m_copiedBlobsMap;
 
+    /** The context of the node that created this buffer for writing (may be null), used to attribute bytes written
+     * to temporary files to the node's execution metrics. */
+    private NodeContext m_creationContext;
+
     /**
      * Creates new buffer for <strong>writing</strong>. It has assigned a given spec, and a max row count that may
      * resize in memory.
@@ -462,6 +462,7 @@ enum CompressionFormat {
                     + "using '%s' instead", prefFormat.getClass().getName(), storeFormat.getClass().getName());
         }
         m_outputFormat = storeFormat;
+        m_creationContext = NodeContext.getContext();
         BufferTracker.getInstance().bufferCreated(this);
     }
 
@@ -625,6 +626,7 @@ final int writeAllRowsFromListToFile() throws IOException {
 
                 initOutputWriter(m_binFile);
                 Buffer.onFileCreated(m_binFile);
+                TableIOStatistics.getInstance().onSpill();
             }
         }
 
@@ -924,6 +926,19 @@ private void writeBlobDataCell(final BlobDataCell cell, final BlobAddress a) thr
                 outStream.writeDataCellPerJavaSerialization(cell);
             }
         }
+        final long blobSize = outFile.length();
+        TableIOStatistics.getInstance().onBlobWritten(blobSize);
+        onBytesSpilled(blobSize);
+    }
+
+    /** Adds the number of bytes written to a temporary file to the table I/O statistics and the metrics of the node
+     * that created this buffer. */
+    private void onBytesSpilled(final long bytes) {
+        TableIOStatistics.getInstance().onBytesSpilled(bytes);
+        NodeContainer nc = m_creationContext == null ? null : m_creationContext.getNodeContainer();
+        if (nc != null) {
+            nc.getNodeTimer().addSpilledBytes(bytes);
+        }
     }
 
     private boolean mustBeFlushedPriorSave(final DataCell cell) {
@@ -992,10 +1007,17 @@ void closeInternal() {
                 m_formatSettings = formatSettings;
                 m_list = null;
                 if (m_hasTempFile) {
+                    onBytesSpilled(m_binFile.length());
                     double sizeInMB = m_binFile.length() / (double)(1 << 20);
                     String size = NumberFormat.getInstance().format(sizeInMB);
                     LOGGER.debug("Buffer file (" + m_binFile.getAbsolutePath() + ") is " + size + "MB in size");
                     initOutputReader(formatSettings, IVERSION);
+                    if (m_outputWriter instanceof DefaultTableStoreWriter
+                        && m_outputReader instanceof DefaultTableStoreReader) {
+                        // reuse the row index collected during write for random access (no file scan)
+                        ((DefaultTableStoreReader)m_outputReader)
+                            .setRowOffsetIndex(((DefaultTableStoreWriter)m_outputWriter).getRowOffsetIndex());
+                    }
                 }
             } catch (IOException ioe) {
                 throw new RuntimeException("Cannot close stream of file \"" + m_binFile.getName() + "\"", ioe);
@@ -1031,6 +1053,7 @@ private synchronized void onMemoryAlert() {
             // concurrent close or addRow() caused this to be flushed (this method may stall long on Buffer.this)
         } else {
             final int nrRowsWritten = m_list.size();
+            TableIOStatistics.getInstance().onMemoryAlertSpill();
             flushBuffer();
             closeInternal();
             LOGGER.debug("Wrote " + nrRowsWritten + " rows in order to free memory");
@@ -1417,6 +1440,28 @@ synchronized RowIteratorBuilder<? extends CloseableRowIterator> iteratorBuilder(
         }
     }
 
+    /**
+     * Get an iterator over a range of rows. For buffers that are kept in memory this is a view on the row list, for
+     * buffers written to disc the iterator is positioned using the table reader's row index (see
+     * {@link AbstractTableStoreReader#iterator(long, long)}).
+     *
+     * @param fromIndex index of the first row, 0-based
+     * @param toIndex index of the row after the last row to return, at most {@link #size()}
+     * @return a new iterator over the range
+     * @throws IndexOutOfBoundsException if the range is invalid
+     */
+    synchronized CloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                String.format("Invalid row range [%d, %d) in table with %d rows", fromIndex, toIndex, size()));
+        }
+        // also read from file while the rows are restored into memory (the list is incomplete)
+        if (usesOutFile() || m_backIntoMemoryIterator != null) {
+            return m_outputReader.iterator(fromIndex, toIndex);
+        }
+        return new FromListIterator((int)fromIndex, (int)toIndex);
+    }
+
     /**
      * True if any row containing blob cells is contained in this buffer.
      *
@@ -1732,15 +1777,29 @@ public synchronized SoftReference<BlobDataCell> put(final BlobAddress key,
     private class FromListIterator extends CloseableRowIterator {
 
         // do not use iterator here, see inner class comment
-        private int m_nextIndex = 0;
+        private int m_nextIndex;
+        private final int m_endIndex;
         private final List<BlobSupportDataRow> m_listReference = m_list;
 
+        /** Iterator over all rows. */
+        FromListIterator() {
+            this(0, Integer.MAX_VALUE);
+        }
+
+        /** Iterator over a range of rows, only used when the list is complete (not restored from disc).
+         * @param fromIndex first row
+         * @param toIndex row after last row */
+        FromListIterator(final int fromIndex, final int toIndex) {
+            m_nextIndex = fromIndex;
+            m_endIndex = toIndex;
+        }
+
         /**
          * {@inheritDoc}
          */
         @Override
         public boolean hasNext() {
-            return m_nextIndex < size();
+            return m_nextIndex < Math.min(m_endIndex, size());
         }
 
         /**
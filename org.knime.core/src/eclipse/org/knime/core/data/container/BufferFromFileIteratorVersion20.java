@@ -56,12 +56,14 @@
 import java.util.NoSuchElementException;
 import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.DefaultTableStoreReader.FromFileIterator;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
 import org.knime.core.data.filestore.FileStoreCell;
 import org.knime.core.data.filestore.FileStoreKey;
 import org.knime.core.data.filestore.FileStoreUtil;
@@ -81,7 +83,10 @@ final class BufferFromFileIteratorVersion20 extends FromFileIterator {
     private final DefaultTableStoreReader m_tableFormatReader;
 
     /** Row pointer. */
-    private int m_pointer;
+    private long m_pointer;
+
+    /** Index of the row after the last row returned, Long.MAX_VALUE if bound by the table size. */
+    private final long m_endRow;
 
     /** Content of the rows that get returned in {@link #next()} when the
      * table is {@link #close()}'d. Will be instantiated lazy. */
@@ -96,6 +101,12 @@ final class BufferFromFileIteratorVersion20 extends FromFileIterator {
     /** Stream to read from. */
     private DCObjectInputVersion2 m_inStream;
 
+    /** Counts the (uncompressed) bytes read, reported to the {@link TableIOStatistics} on close. */
+    private final CountingInputStream m_countingStream;
+
+    /** Index of the first row read by this iterator, used to report the number of rows read. */
+    private final long m_firstRow;
+
     /** Utility object with designated functionality to deserialize datacell. */
     private DataCellStreamReader m_dataCellStreamReader;
 
@@ -104,38 +115,79 @@ final class BufferFromFileIteratorVersion20 extends FromFileIterator {
      * @throws IOException If stream reading fails.
      */
     BufferFromFileIteratorVersion20(final DefaultTableStoreReader tableFormatReader) throws IOException {
-        m_pointer = 0;
-        if (tableFormatReader.getBinFile() == null) {
-            throw new IOException("Unable to read table from file, "
-                    + "table has been cleared.");
-        }
+        this(tableFormatReader, openStream(tableFormatReader), 0L, Long.MAX_VALUE);
+    }
+
+    /** Inits iterator on a stream that is already positioned on a row, used for iterating a row range.
+     * @param tableFormatReader The associated buffer.
+     * @param in The (uncompressed) stream, positioned at the start of row <code>firstRow</code>.
+     * @param firstRow The index of the first row read from <code>in</code>.
+     * @param endRow The index of the row after the last row to return (exclusive), Long.MAX_VALUE for all rows.
+     */
+    BufferFromFileIteratorVersion20(final DefaultTableStoreReader tableFormatReader, final InputStream in,
+        final long firstRow, final long endRow) {
+        m_pointer = firstRow;
+        m_endRow = endRow;
         m_tableFormatReader = tableFormatReader;
         assert m_tableFormatReader.getReadVersion() >= 6 : "Iterator is not backward "
             + "compatible, use instead "
             + BufferFromFileIteratorVersion1x.class.getSimpleName();
+        m_firstRow = firstRow;
+        m_dataCellStreamReader = new DataCellStreamReader(tableFormatReader);
+        m_countingStream = new CountingInputStream(in);
+        m_inStream = new DCObjectInputVersion2(m_countingStream, m_dataCellStreamReader);
+    }
+
+    /** Opens the (uncompressed) stream on the start of the table file.
+     * @param tableFormatReader The associated buffer.
+     * @return A new stream.
+     * @throws IOException If the file can't be opened, e.g. because the table has been cleared. */
+    static InputStream openStream(final DefaultTableStoreReader tableFormatReader) throws IOException {
+        if (tableFormatReader.getBinFile() == null) {
+            throw new IOException("Unable to read table from file, "
+                    + "table has been cleared.");
+        }
         BufferedInputStream bufferedStream =
             new BufferedInputStream(new FileInputStream(tableFormatReader.getBinFile()));
-        InputStream in;
-        switch (tableFormatReader.getBinFileCompressionFormat()) {
-            case Gzip:
-                in = new GZIPInputStream(bufferedStream);
-                // buffering is important when reading gzip streams
-                in = new BufferedInputStream(in);
-                break;
-            case None:
-                in = bufferedStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + tableFormatReader.getBinFileCompressionFormat());
+        return tableFormatReader.getBinFileCompressionFormat().wrapInputStream(bufferedStream);
+    }
+
+    /** Advances the iterator by the given number of rows without deserializing their cells (the cell blocks are
+     * skipped on byte level). Used to position the iterator at the start of a row range.
+     * @param count The number of rows to skip.
+     * @throws IOException If reading the stream fails.
+     */
+    synchronized void skipRows(final long count) throws IOException {
+        final int colCount = m_tableFormatReader.getTableSpec().getNumColumns();
+        for (long i = 0; i < count && hasNext(); i++) {
+            skipRow(m_inStream, colCount, m_tableFormatReader.isReadRowKey());
+            m_pointer++;
+        }
+    }
+
+    /** Skips a single row in the argument stream by reading over the row key and cell blocks.
+     * @param inStream To read from, positioned at the start of a row.
+     * @param colCount The number of columns.
+     * @param isReadRowKey Whether the stream contains row keys.
+     * @throws IOException If reading fails or the row is not properly terminated.
+     */
+    static void skipRow(final DCObjectInputVersion2 inStream, final int colCount, final boolean isReadRowKey)
+        throws IOException {
+        final int blockCount = isReadRowKey ? colCount + 1 : colCount;
+        for (int i = 0; i < blockCount; i++) {
+            inStream.endBlock();
+        }
+        byte eoRow = inStream.readControlByte();
+        if (eoRow != BYTE_ROW_SEPARATOR) {
+            throw new IOException("Expected end of row byte, "
+                + "got '" + eoRow + "', (byte " + (int)eoRow + ")");
         }
-        m_dataCellStreamReader = new DataCellStreamReader(tableFormatReader);
-        m_inStream = new DCObjectInputVersion2(in, m_dataCellStreamReader);
     }
 
     /** {@inheritDoc} */
     @Override
     public synchronized boolean hasNext() {
-        boolean hasNext = m_pointer < m_tableFormatReader.size();
+        boolean hasNext = m_pointer < Math.min(m_endRow, m_tableFormatReader.size());
         if (!hasNext && (m_inStream != null)) {
             close();
         }
@@ -254,6 +306,7 @@ public synchronized boolean performClose() throws IOException {
         DCObjectInputVersion2 in = m_inStream;
         m_inStream = null;
         in.close();
+        TableIOStatistics.getInstance().onTableRead(m_pointer - m_firstRow, m_countingStream.getByteCount());
         return true;
     }
 
@@ -312,11 +365,11 @@ static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellCl
     static class DataCellStreamReader {
 
         /** Associated buffer. */
-        private final DefaultTableStoreReader m_tableFormatReader;
+        private final AbstractTableStoreReader m_tableFormatReader;
 
         /** Only memorizes the table reader.
          * @param tableFormatReader associated reader, possibly be null. */
-        DataCellStreamReader(final DefaultTableStoreReader tableFormatReader) {
+        DataCellStreamReader(final AbstractTableStoreReader tableFormatReader) {
             m_tableFormatReader = tableFormatReader;
         }
 
@@ -327,6 +380,19 @@ static class DataCellStreamReader {
          * @throws IOException If exceptions occur.
          */
         DataCell readDataCell(final DCObjectInputVersion2 inStream) throws IOException {
+            final TableIOStatistics statistics = TableIOStatistics.getInstance();
+            if (!statistics.isCellTimingEnabled()) {
+                return readDataCellUntimed(inStream);
+            }
+            final long start = System.nanoTime();
+            final DataCell result = readDataCellUntimed(inStream);
+            final Class<?> cellClass = result instanceof BlobWrapperDataCell
+                ? ((BlobWrapperDataCell)result).getBlobClass() : result.getClass();
+            statistics.onCellDeserialized(cellClass, System.nanoTime() - start);
+            return result;
+        }
+
+        private DataCell readDataCellUntimed(final DCObjectInputVersion2 inStream) throws IOException {
             inStream.setCurrentClassLoader(null);
             byte identifier = inStream.readControlByte();
             if (identifier == BYTE_TYPE_MISSING) {
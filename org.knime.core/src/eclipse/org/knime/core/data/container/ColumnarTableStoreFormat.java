@@ -0,0 +1,222 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.data.container.storage.TableStoreFormat;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+
+/**
+ * Column oriented table format. Rows are collected into chunks; within a chunk each column is stored as a separate
+ * segment so that readers which only access some of the columns (see
+ * {@link org.knime.core.data.RowIteratorBuilder#filterColumns(int...)}) can skip the bytes of all other columns.
+ *
+ * <p>
+ * Columns of type {@link IntCell}, {@link LongCell}, {@link DoubleCell}, {@link BooleanCell} and {@link StringCell}
+ * are stored as primitive arrays with a bitmap marking missing values. All other columns (and chunks in which a
+ * column contains cells of an unexpected class) fall back to the serialization used by the
+ * {@link DefaultTableStoreFormat}.
+ *
+ * <p>
+ * File layout, per chunk:
+ * <pre>
+ *   int    number of rows in chunk
+ *   int    number of segments (number of columns, plus one for the row keys if present)
+ *   for each segment: byte encoding ({@link ColumnEncoding#getID()}), int length in bytes
+ *   segment data
+ * </pre>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @noextend This class is not intended to be subclassed by clients.
+ * @noreference This class is not intended to be referenced by clients.
+ * @since 3.7
+ */
+public final class ColumnarTableStoreFormat implements TableStoreFormat {
+
+    /** Config key for the version of the columnar layout, see {@link #LAYOUT_VERSION}. */
+    static final String CFG_LAYOUT_VERSION = "columnar.layout.version";
+
+    /** Version of the file layout, the only one that is written and read. */
+    static final int LAYOUT_VERSION = 2;
+
+    /** Number of cells (rows x columns) that are kept in memory by the writer before a chunk is written. */
+    static final int CELLS_PER_CHUNK = 1 << 20;
+
+    /** Upper bound for the number of rows in a chunk (relevant for narrow tables). */
+    static final int MAX_ROWS_PER_CHUNK = 1 << 13;
+
+    /** Size of the fixed chunk header (row count and segment count). */
+    static final int CHUNK_HEADER_LENGTH = 4 + 4;
+
+    /** Size of the header of a single segment (encoding and length). */
+    static final int SEGMENT_HEADER_LENGTH = 1 + 4;
+
+    /** How a column segment is stored. */
+    enum ColumnEncoding {
+        /** {@link IntCell}: missing bitmap followed by int values. */
+        INT(1, IntCell.class),
+        /** {@link LongCell}: missing bitmap followed by long values. */
+        LONG(2, LongCell.class),
+        /** {@link DoubleCell}: missing bitmap followed by double values. */
+        DOUBLE(3, DoubleCell.class),
+        /** {@link BooleanCell}: missing bitmap followed by value bitmap. */
+        BOOLEAN(4, BooleanCell.class),
+        /** {@link StringCell} and row keys: missing bitmap followed by length prefixed modified UTF-8 bytes. */
+        STRING(5, StringCell.class),
+        /** Any other cell, serialized as in the {@link DefaultTableStoreFormat}. */
+        CELLS(6, null);
+
+        private final byte m_id;
+
+        private final Class<? extends DataCell> m_cellClass;
+
+        private ColumnEncoding(final int id, final Class<? extends DataCell> cellClass) {
+            m_id = (byte)id;
+            m_cellClass = cellClass;
+        }
+
+        /** @return the byte written to the file. */
+        byte getID() {
+            return m_id;
+        }
+
+        /** @param cell A cell of the column.
+         * @return true if the cell can be stored using this (primitive) encoding. */
+        boolean canEncode(final DataCell cell) {
+            return cell == DataType.getMissingCell() || (m_cellClass != null && cell.getClass() == m_cellClass);
+        }
+
+        /** @param type The column type.
+         * @return the preferred encoding for a column of the given type. */
+        static ColumnEncoding forType(final DataType type) {
+            Class<? extends DataCell> cellClass = type.getCellClass();
+            for (ColumnEncoding e : values()) {
+                if (e.m_cellClass != null && e.m_cellClass.equals(cellClass)) {
+                    return e;
+                }
+            }
+            return CELLS;
+        }
+
+        /** @param id The byte as read from the file.
+         * @return the corresponding encoding.
+         * @throws IOException If the byte is invalid. */
+        static ColumnEncoding get(final byte id) throws IOException {
+            for (ColumnEncoding e : values()) {
+                if (e.m_id == id) {
+                    return e;
+                }
+            }
+            throw new IOException("Invalid column encoding: " + id);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Columnar (KNIME)";
+    }
+
+    @Override
+    public String getFilenameSuffix() {
+        return ".bin.col";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean accepts(final DataTableSpec spec) {
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AbstractTableStoreWriter createWriter(final File binFile, final DataTableSpec spec,
+        final boolean writeRowKey) throws IOException {
+        return createWriter(new FileOutputStream(binFile), spec, writeRowKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AbstractTableStoreWriter createWriter(final OutputStream output, final DataTableSpec spec,
+        final boolean writeRowKey) throws IOException {
+        return new ColumnarTableStoreWriter(spec, output, writeRowKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public AbstractTableStoreReader createReader(final File binFile, final DataTableSpec spec,
+        final NodeSettingsRO settings, final Map<Integer, ContainerTable> tblRep, final int version,
+        final boolean isReadRowKey) throws IOException, InvalidSettingsException {
+        return new ColumnarTableStoreReader(binFile, spec, settings, version, isReadRowKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getVersion() {
+        return "columnar_" + LAYOUT_VERSION;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean validateVersion(final String versionString) {
+        return getVersion().equals(versionString);
+    }
+
+}
@@ -0,0 +1,457 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowIteratorBuilder;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.UnmaterializedCell;
+import org.knime.core.data.container.BufferFromFileIteratorVersion20.DataCellStreamReader;
+import org.knime.core.data.container.ColumnarTableStoreFormat.ColumnEncoding;
+import org.knime.core.data.container.storage.AbstractTableStoreReader;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettingsRO;
+
+/**
+ * Reader for the {@link ColumnarTableStoreFormat}. Iterators that are created with a column filter (see
+ * {@link #iteratorBuilder()}) only read and deserialize the segments of the selected columns; all other cells are
+ * returned as {@link UnmaterializedCell}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarTableStoreReader extends AbstractTableStoreReader {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ColumnarTableStoreReader.class);
+
+    private final boolean m_isReadRowKey;
+
+    /**
+     * Constructs a reader for materializing serialized KNIME tables.
+     *
+     * @param binFile the local file from which to read
+     * @param spec the specification of the data table
+     * @param settings The settings (written by
+     *            {@link ColumnarTableStoreWriter#writeMetaInfoAfterWrite(org.knime.core.node.NodeSettingsWO)})
+     * @param version The version as defined in the {@link Buffer} class
+     * @param isReadRowKey whether or not row keys are to be read (or generated anew)
+     * @throws IOException any type of I/O problem
+     * @throws InvalidSettingsException If the settings are invalid or written by a newer version
+     */
+    ColumnarTableStoreReader(final File binFile, final DataTableSpec spec, final NodeSettingsRO settings,
+        final int version, final boolean isReadRowKey) throws IOException, InvalidSettingsException {
+        super(binFile, spec, settings, version);
+        m_isReadRowKey = isReadRowKey;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readMetaFromFile(final NodeSettingsRO settings, final int version)
+        throws IOException, InvalidSettingsException {
+        int layoutVersion = settings.getInt(ColumnarTableStoreFormat.CFG_LAYOUT_VERSION);
+        if (layoutVersion != ColumnarTableStoreFormat.LAYOUT_VERSION) {
+            throw new InvalidSettingsException("Unsupported columnar table layout version " + layoutVersion
+                + " (supported: " + ColumnarTableStoreFormat.LAYOUT_VERSION + ")");
+        }
+        super.readMetaFromFile(settings, version);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TableStoreCloseableRowIterator iterator() {
+        return createIterator(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RowIteratorBuilder<? extends TableStoreCloseableRowIterator> iteratorBuilder() {
+        return new ColumnarRowIteratorBuilder();
+    }
+
+    private TableStoreCloseableRowIterator createIterator(final boolean[] materialize) {
+        try {
+            return new ColumnarRowIterator(materialize);
+        } catch (IOException ioe) {
+            StringBuilder b = new StringBuilder("Cannot read file \"");
+            b.append(getFile().getName());
+            b.append("\"");
+            checkAndReportOpenFiles(ioe);
+            throw new RuntimeException(b.toString(), ioe);
+        }
+    }
+
+    /** Builder that remembers the selected columns. */
+    private final class ColumnarRowIteratorBuilder implements RowIteratorBuilder<TableStoreCloseableRowIterator> {
+
+        /** Columns to read, null for all. */
+        private boolean[] m_materialize;
+
+        /** {@inheritDoc} */
+        @Override
+        public RowIteratorBuilder<TableStoreCloseableRowIterator> filterColumns(final int... indices) {
+            getSpec().verifyIndices(indices);
+            m_materialize = new boolean[getSpec().getNumColumns()];
+            for (int index : indices) {
+                m_materialize[index] = true;
+            }
+            return this;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public RowIteratorBuilder<TableStoreCloseableRowIterator> filterColumns(final String... columns) {
+            return filterColumns(getSpec().columnsToIndices(columns));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public TableStoreCloseableRowIterator build() {
+            TableStoreCloseableRowIterator iterator = createIterator(m_materialize);
+            registerNewIteratorInstance(iterator);
+            return iterator;
+        }
+    }
+
+    /** Iterator reading chunk by chunk, only materializing the requested columns. */
+    private final class ColumnarRowIterator extends TableStoreCloseableRowIterator {
+
+        /** Columns to read, null for all. */
+        private final boolean[] m_materialize;
+
+        private final long m_size;
+
+        private final int m_colCount;
+
+        private final DataCellStreamReader m_cellReader;
+
+        /** Channel to read from, null when closed. */
+        private FileChannel m_channel;
+
+        /** File position of the next chunk. */
+        private long m_position;
+
+        /** Number of rows returned so far. */
+        private long m_pointer;
+
+        private int m_chunkRowCount;
+
+        private int m_chunkRowIndex;
+
+        private RowKey[] m_keys;
+
+        /** Cells of the current chunk [column][row], null elements for unmaterialized columns. */
+        private DataCell[][] m_columns;
+
+        private DataCell[] m_missingCellsForClosedTable;
+
+        ColumnarRowIterator(final boolean[] materialize) throws IOException {
+            m_materialize = materialize;
+            m_size = getBuffer().size();
+            m_colCount = getSpec().getNumColumns();
+            m_cellReader = new DataCellStreamReader(ColumnarTableStoreReader.this);
+            m_columns = new DataCell[m_colCount][];
+            m_channel = FileChannel.open(getFile().toPath(), StandardOpenOption.READ);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized boolean hasNext() {
+            boolean hasNext = m_pointer < m_size;
+            if (!hasNext && m_channel != null) {
+                close();
+            }
+            return hasNext;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized BlobSupportDataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Iterator at end");
+            }
+            if (m_channel == null) { // iterator was closed
+                if (m_missingCellsForClosedTable == null) {
+                    m_missingCellsForClosedTable = new DataCell[m_colCount];
+                    Arrays.fill(m_missingCellsForClosedTable, DataType.getMissingCell());
+                    LOGGER.warn("Invalid access on table, iterator has been closed");
+                }
+                RowKey key = new RowKey("INVALID_ROW (table is closed) - (Row " + m_pointer + ")");
+                m_pointer++;
+                return new BlobSupportDataRow(key, m_missingCellsForClosedTable);
+            }
+            if (m_chunkRowIndex == m_chunkRowCount) {
+                try {
+                    readChunk();
+                } catch (IOException ioe) {
+                    throw new RuntimeException("Errors while reading row " + (m_pointer + 1) + " from file \""
+                        + getFile().getName() + "\": " + ioe.getMessage(), ioe);
+                }
+            }
+            final int r = m_chunkRowIndex++;
+            final DataCell[] cells = new DataCell[m_colCount];
+            for (int c = 0; c < m_colCount; c++) {
+                cells[c] = m_columns[c] != null ? m_columns[c][r] : UnmaterializedCell.getInstance();
+            }
+            final RowKey key = m_keys != null ? m_keys[r] : DUMMY_ROW_KEY;
+            m_pointer++;
+            return new BlobSupportDataRow(key, cells);
+        }
+
+        private boolean isMaterialize(final int column) {
+            return m_materialize == null || m_materialize[column];
+        }
+
+        private void readChunk() throws IOException {
+            final int keyOffset = m_isReadRowKey ? 1 : 0;
+            final ByteBuffer header = read(m_position, ColumnarTableStoreFormat.CHUNK_HEADER_LENGTH);
+            final int rowCount = header.getInt();
+            final int segmentCount = header.getInt();
+            if (rowCount <= 0 || segmentCount != keyOffset + m_colCount) {
+                throw new IOException("Corrupt chunk header at position " + m_position + " (rows: " + rowCount
+                    + ", segments: " + segmentCount + ")");
+            }
+            final ByteBuffer segmentHeader = read(m_position + ColumnarTableStoreFormat.CHUNK_HEADER_LENGTH,
+                segmentCount * ColumnarTableStoreFormat.SEGMENT_HEADER_LENGTH);
+            final ColumnEncoding[] encodings = new ColumnEncoding[segmentCount];
+            final int[] lengths = new int[segmentCount];
+            long bodyLength = 0L;
+            for (int s = 0; s < segmentCount; s++) {
+                encodings[s] = ColumnEncoding.get(segmentHeader.get());
+                lengths[s] = segmentHeader.getInt();
+                if (lengths[s] < 0) {
+                    throw new IOException("Corrupt chunk header at position " + m_position + ", negative length");
+                }
+                bodyLength += lengths[s];
+            }
+            long segmentPosition = m_position + ColumnarTableStoreFormat.CHUNK_HEADER_LENGTH
+                + segmentCount * ColumnarTableStoreFormat.SEGMENT_HEADER_LENGTH;
+            // if all columns are read, read the chunk in one go
+            final ByteBuffer body = m_materialize == null && bodyLength <= Integer.MAX_VALUE
+                ? read(segmentPosition, (int)bodyLength) : null;
+            int bodyOffset = 0;
+            for (int s = 0; s < segmentCount; s++) {
+                final boolean isKey = s < keyOffset;
+                final int column = s - keyOffset;
+                if (isKey || isMaterialize(column)) {
+                    final ByteBuffer segment;
+                    if (body != null) {
+                        segment = body.duplicate();
+                        segment.position(bodyOffset);
+                        segment.limit(bodyOffset + lengths[s]);
+                    } else {
+                        segment = read(segmentPosition, lengths[s]);
+                    }
+                    if (isKey) {
+                        m_keys = decodeRowKeys(segment, rowCount);
+                    } else {
+                        m_columns[column] = decode(encodings[s], segment, rowCount);
+                    }
+                }
+                segmentPosition += lengths[s];
+                bodyOffset += lengths[s];
+            }
+            m_position = segmentPosition;
+            m_chunkRowCount = rowCount;
+            m_chunkRowIndex = 0;
+        }
+
+        private ByteBuffer read(final long position, final int length) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            long p = position;
+            while (buffer.hasRemaining()) {
+                int count = m_channel.read(buffer, p);
+                if (count < 0) {
+                    throw new EOFException("Unexpected end of file \"" + getFile().getName() + "\" at position " + p);
+                }
+                p += count;
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private RowKey[] decodeRowKeys(final ByteBuffer segment, final int rowCount) throws IOException {
+            final RowKey[] keys = new RowKey[rowCount];
+            final byte[] missing = readBitmap(segment, rowCount);
+            for (int r = 0; r < rowCount; r++) {
+                if (isSet(missing, r)) {
+                    throw new IOException("Row key must not be missing");
+                }
+                keys[r] = new RowKey(readString(segment));
+            }
+            return keys;
+        }
+
+        private DataCell[] decode(final ColumnEncoding encoding, final ByteBuffer segment, final int rowCount)
+            throws IOException {
+            final DataCell[] cells = new DataCell[rowCount];
+            final DataCell missingCell = DataType.getMissingCell();
+            if (encoding == ColumnEncoding.CELLS) {
+                final DCObjectInputVersion2 in = new DCObjectInputVersion2(new ByteArrayInputStream(segment.array(),
+                    segment.arrayOffset() + segment.position(), segment.remaining()), m_cellReader);
+                for (int r = 0; r < rowCount; r++) {
+                    try {
+                        cells[r] = m_cellReader.readDataCell(in);
+                    } finally {
+                        in.endBlock();
+                    }
+                }
+                return cells;
+            }
+            final byte[] missing = readBitmap(segment, rowCount);
+            switch (encoding) {
+                case INT:
+                    for (int r = 0; r < rowCount; r++) {
+                        final int v = segment.getInt();
+                        cells[r] = isSet(missing, r) ? missingCell : new IntCell(v);
+                    }
+                    break;
+                case LONG:
+                    for (int r = 0; r < rowCount; r++) {
+                        final long v = segment.getLong();
+                        cells[r] = isSet(missing, r) ? missingCell : new LongCell(v);
+                    }
+                    break;
+                case DOUBLE:
+                    for (int r = 0; r < rowCount; r++) {
+                        final double v = segment.getDouble();
+                        cells[r] = isSet(missing, r) ? missingCell : new DoubleCell(v);
+                    }
+                    break;
+                case BOOLEAN:
+                    final byte[] values = readBitmap(segment, rowCount);
+                    for (int r = 0; r < rowCount; r++) {
+                        cells[r] = isSet(missing, r) ? missingCell : BooleanCell.get(isSet(values, r));
+                    }
+                    break;
+                case STRING:
+                    for (int r = 0; r < rowCount; r++) {
+                        cells[r] = isSet(missing, r) ? missingCell : new StringCell(readString(segment));
+                    }
+                    break;
+                default:
+                    throw new IOException("Unsupported column encoding: " + encoding);
+            }
+            return cells;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized boolean performClose() throws IOException {
+            if (m_channel == null) {
+                return false;
+            }
+            FileChannel channel = m_channel;
+            m_channel = null;
+            m_keys = null;
+            m_columns = new DataCell[m_colCount][];
+            channel.close();
+            return true;
+        }
+    }
+
+    private static byte[] readBitmap(final ByteBuffer segment, final int rowCount) {
+        final byte[] bitmap = new byte[ColumnarTableStoreWriter.bitmapLength(rowCount)];
+        segment.get(bitmap);
+        return bitmap;
+    }
+
+    private static boolean isSet(final byte[] bitmap, final int index) {
+        return (bitmap[index >>> 3] & (1 << (index & 7))) != 0;
+    }
+
+    private String readString(final ByteBuffer segment) throws IOException {
+        final int length = segment.getInt();
+        if (length < 0 || length > segment.remaining()) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        final int offset = segment.arrayOffset() + segment.position();
+        final String result = decodeModifiedUTF(segment.array(), offset, length);
+        segment.position(segment.position() + length);
+        return result;
+    }
+
+    /** Decodes the bytes written by {@link ColumnarTableStoreWriter#encodeModifiedUTF(String)}. */
+    static String decodeModifiedUTF(final byte[] bytes, final int offset, final int length) throws IOException {
+        final char[] chars = new char[length];
+        final int end = offset + length;
+        int count = 0;
+        int i = offset;
+        while (i < end) {
+            final int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char)b;
+                i += 1;
+            } else if ((b & 0xE0) == 0xC0 && i + 1 < end && (bytes[i + 1] & 0xC0) == 0x80) {
+                chars[count++] = (char)(((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+                i += 2;
+            } else if ((b & 0xF0) == 0xE0 && i + 2 < end && (bytes[i + 1] & 0xC0) == 0x80
+                && (bytes[i + 2] & 0xC0) == 0x80) {
+                chars[count++] = (char)(((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+                i += 3;
+            } else {
+                throw new IOException("Malformed string at byte " + (i - offset));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+}
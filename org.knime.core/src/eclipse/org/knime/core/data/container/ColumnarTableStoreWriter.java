@@ -0,0 +1,324 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.container.ColumnarTableStoreFormat.ColumnEncoding;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
+import org.knime.core.node.NodeSettingsWO;
+
+/**
+ * Writer for the {@link ColumnarTableStoreFormat}. Keeps the cells of one chunk in memory and writes them column by
+ * column once the chunk is full (or the writer is closed).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ColumnarTableStoreWriter extends AbstractTableStoreWriter {
+
+    private final DataOutputStream m_out;
+
+    /** Preferred encoding per column, derived from the spec. */
+    private final ColumnEncoding[] m_encodings;
+
+    private final int m_rowsPerChunk;
+
+    /** Row keys of the current chunk, null if no row keys are written. */
+    private final String[] m_keys;
+
+    /** Cells of the current chunk, [column][row]. */
+    private final DataCell[][] m_cells;
+
+    private int m_rowsInChunk;
+
+    /**
+     * @param spec the specification of the KNIME table to write to disk
+     * @param outputStream the stream to write to
+     * @param writeRowKey a flag that determines whether to store the row keys
+     */
+    ColumnarTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey) {
+        super(spec, writeRowKey);
+        final int colCount = spec.getNumColumns();
+        m_encodings = new ColumnEncoding[colCount];
+        for (int i = 0; i < colCount; i++) {
+            m_encodings[i] = ColumnEncoding.forType(spec.getColumnSpec(i).getType());
+        }
+        m_rowsPerChunk = Math.max(1,
+            Math.min(ColumnarTableStoreFormat.MAX_ROWS_PER_CHUNK, ColumnarTableStoreFormat.CELLS_PER_CHUNK / Math.max(1,
+                colCount)));
+        m_keys = writeRowKey ? new String[m_rowsPerChunk] : null;
+        m_cells = new DataCell[colCount][m_rowsPerChunk];
+        m_out = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeRow(final DataRow row) throws IOException {
+        final int r = m_rowsInChunk;
+        if (m_keys != null) {
+            m_keys[r] = row.getKey().getString();
+        }
+        for (int i = 0; i < m_cells.length; i++) {
+            m_cells[i][r] =
+                row instanceof BlobSupportDataRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
+        }
+        m_rowsInChunk++;
+        if (m_rowsInChunk == m_rowsPerChunk) {
+            writeChunk();
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        final int rowCount = m_rowsInChunk;
+        final int offset = m_keys != null ? 1 : 0;
+        final int segmentCount = offset + m_cells.length;
+        final ColumnEncoding[] encodings = new ColumnEncoding[segmentCount];
+        final byte[][] segments = new byte[segmentCount][];
+        if (m_keys != null) {
+            encodings[0] = ColumnEncoding.STRING;
+            segments[0] = encodeStrings(m_keys, rowCount);
+            Arrays.fill(m_keys, null);
+        }
+        for (int c = 0; c < m_cells.length; c++) {
+            final DataCell[] column = m_cells[c];
+            ColumnEncoding encoding = m_encodings[c];
+            for (int r = 0; r < rowCount && encoding != ColumnEncoding.CELLS; r++) {
+                if (!encoding.canEncode(column[r])) {
+                    encoding = ColumnEncoding.CELLS;
+                }
+            }
+            encodings[offset + c] = encoding;
+            segments[offset + c] = encode(encoding, column, rowCount);
+            // release the cell references early
+            Arrays.fill(column, null);
+        }
+        m_out.writeInt(rowCount);
+        m_out.writeInt(segmentCount);
+        for (int s = 0; s < segmentCount; s++) {
+            m_out.writeByte(encodings[s].getID());
+            m_out.writeInt(segments[s].length);
+        }
+        for (int s = 0; s < segmentCount; s++) {
+            m_out.write(segments[s]);
+        }
+        m_rowsInChunk = 0;
+    }
+
+    private byte[] encode(final ColumnEncoding encoding, final DataCell[] column, final int rowCount)
+        throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(estimateSize(encoding, rowCount));
+        final DataOutputStream out = new DataOutputStream(bytes);
+        switch (encoding) {
+            case INT:
+                out.write(createMissingBitmap(column, rowCount));
+                for (int r = 0; r < rowCount; r++) {
+                    out.writeInt(isMissing(column[r]) ? 0 : ((IntValue)column[r]).getIntValue());
+                }
+                break;
+            case LONG:
+                out.write(createMissingBitmap(column, rowCount));
+                for (int r = 0; r < rowCount; r++) {
+                    out.writeLong(isMissing(column[r]) ? 0L : ((LongValue)column[r]).getLongValue());
+                }
+                break;
+            case DOUBLE:
+                out.write(createMissingBitmap(column, rowCount));
+                for (int r = 0; r < rowCount; r++) {
+                    out.writeDouble(isMissing(column[r]) ? 0.0 : ((DoubleValue)column[r]).getDoubleValue());
+                }
+                break;
+            case BOOLEAN:
+                out.write(createMissingBitmap(column, rowCount));
+                final byte[] values = new byte[bitmapLength(rowCount)];
+                for (int r = 0; r < rowCount; r++) {
+                    if (!isMissing(column[r]) && ((BooleanValue)column[r]).getBooleanValue()) {
+                        values[r >>> 3] |= 1 << (r & 7);
+                    }
+                }
+                out.write(values);
+                break;
+            case STRING:
+                final String[] strings = new String[rowCount];
+                for (int r = 0; r < rowCount; r++) {
+                    strings[r] = isMissing(column[r]) ? null : ((StringValue)column[r]).getStringValue();
+                }
+                return encodeStrings(strings, rowCount);
+            case CELLS:
+                final DCObjectOutputVersion2 cellOut = new DCObjectOutputVersion2(bytes, this);
+                for (int r = 0; r < rowCount; r++) {
+                    DefaultTableStoreWriter.writeDataCell(column[r], cellOut, this);
+                    cellOut.endBlock();
+                }
+                cellOut.flush();
+                return bytes.toByteArray();
+            default:
+                throw new IOException("Unsupported column encoding: " + encoding);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** Encodes strings, null elements represent missing values. */
+    private static byte[] encodeStrings(final String[] strings, final int rowCount) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(estimateSize(ColumnEncoding.STRING, rowCount));
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final byte[] missing = new byte[bitmapLength(rowCount)];
+        for (int r = 0; r < rowCount; r++) {
+            if (strings[r] == null) {
+                missing[r >>> 3] |= 1 << (r & 7);
+            }
+        }
+        out.write(missing);
+        for (int r = 0; r < rowCount; r++) {
+            if (strings[r] != null) {
+                final byte[] utf = encodeModifiedUTF(strings[r]);
+                out.writeInt(utf.length);
+                out.write(utf);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encodes the string in modified UTF-8 like {@link DataOutputStream#writeUTF(String)} (but without its length
+     * limit). Other than standard UTF-8 this preserves any sequence of chars, including unpaired surrogates.
+     */
+    static byte[] encodeModifiedUTF(final String string) {
+        final int length = string.length();
+        int byteCount = length;
+        for (int i = 0; i < length; i++) {
+            final char c = string.charAt(i);
+            if (c >= 0x800) {
+                byteCount += 2;
+            } else if (c == 0 || c >= 0x80) {
+                byteCount += 1;
+            }
+        }
+        final byte[] bytes = new byte[byteCount];
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = string.charAt(i);
+            if (c != 0 && c < 0x80) {
+                bytes[b++] = (byte)c;
+            } else if (c < 0x800) {
+                bytes[b++] = (byte)(0xC0 | (c >> 6));
+                bytes[b++] = (byte)(0x80 | (c & 0x3F));
+            } else {
+                bytes[b++] = (byte)(0xE0 | (c >> 12));
+                bytes[b++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[b++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        return bytes;
+    }
+
+    private static byte[] createMissingBitmap(final DataCell[] column, final int rowCount) {
+        final byte[] bitmap = new byte[bitmapLength(rowCount)];
+        for (int r = 0; r < rowCount; r++) {
+            if (isMissing(column[r])) {
+                bitmap[r >>> 3] |= 1 << (r & 7);
+            }
+        }
+        return bitmap;
+    }
+
+    private static boolean isMissing(final DataCell cell) {
+        return cell == DataType.getMissingCell();
+    }
+
+    /** @return number of bytes of a bitmap with one bit per row. */
+    static int bitmapLength(final int rowCount) {
+        return (rowCount + 7) >>> 3;
+    }
+
+    private static int estimateSize(final ColumnEncoding encoding, final int rowCount) {
+        switch (encoding) {
+            case INT:
+                return bitmapLength(rowCount) + 4 * rowCount;
+            case LONG:
+            case DOUBLE:
+                return bitmapLength(rowCount) + 8 * rowCount;
+            case BOOLEAN:
+                return 2 * bitmapLength(rowCount);
+            default:
+                return bitmapLength(rowCount) + 16 * rowCount;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
+        settings.addInt(ColumnarTableStoreFormat.CFG_LAYOUT_VERSION, ColumnarTableStoreFormat.LAYOUT_VERSION);
+        super.writeMetaInfoAfterWrite(settings);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (m_rowsInChunk > 0) {
+                writeChunk();
+            }
+        } finally {
+            m_out.close();
+        }
+    }
+
+}
@@ -128,6 +128,24 @@ public CloseableRowIterator iterator() {
         return m_buffer.iteratorBuilder().build();
     }
 
+    /**
+     * Get an iterator over the rows with index <code>fromIndex</code> (inclusive) to <code>toIndex</code> (exclusive).
+     * Unlike skipping rows of a full {@link #iterator()} this positions the iterator directly on the first row (using
+     * an in-memory row index) if the table is written uncompressed or LZ4 compressed; otherwise the leading rows are
+     * skipped without deserializing their cells. This allows to process a table in independent chunks.
+     *
+     * @param fromIndex index of the first row to return, 0-based
+     * @param toIndex index of the row after the last row to return, at most {@link #size()}
+     * @return a new iterator over the given rows
+     * @throws IndexOutOfBoundsException if <code>fromIndex &lt; 0</code>, <code>toIndex &gt; size()</code> or
+     *             <code>fromIndex &gt; toIndex</code>
+     * @since 3.7
+     */
+    public CloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        ensureBufferOpen();
+        return m_buffer.iterator(fromIndex, toIndex);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -57,6 +57,7 @@
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
+import org.knime.core.data.container.storage.AbstractTableStoreWriter;
 import org.knime.core.data.filestore.FileStoreKey;
 
 
@@ -90,7 +91,7 @@ class DCObjectOutputVersion2 implements KNIMEStreamConstants, AutoCloseable {
      * @param out The stream to write to (the file)
      * @param tableStoreWriter the corresponding writer (callback for embedded cell writing)
      */
-    DCObjectOutputVersion2(final OutputStream out, final DefaultTableStoreWriter tableStoreWriter) {
+    DCObjectOutputVersion2(final OutputStream out, final AbstractTableStoreWriter tableStoreWriter) {
         m_out = new BlockableOutputStream(out);
         m_dataOut = new DCLongUTFDataOutputStream(new DataOutputStream(m_out), tableStoreWriter);
     }
@@ -187,7 +188,7 @@ public void flush() throws IOException {
      * as required by {@link DataCellDataOutput}. */
     final class DCLongUTFDataOutputStream extends LongUTFDataOutputStream implements DataCellDataOutput {
 
-        private final DefaultTableStoreWriter m_tableStoreWriter;
+        private final AbstractTableStoreWriter m_tableStoreWriter;
 
         /**
          * Delegates to super implementation.
@@ -195,7 +196,7 @@ final class DCLongUTFDataOutputStream extends LongUTFDataOutputStream implements
          * @param output Forwarded to super.
          * @param tableStoreWriter To redirect the contained cell writing to. Null when not supported (for blobs).
          */
-        DCLongUTFDataOutputStream(final DataOutputStream output, final DefaultTableStoreWriter tableStoreWriter) {
+        DCLongUTFDataOutputStream(final DataOutputStream output, final AbstractTableStoreWriter tableStoreWriter) {
             super(output);
             m_tableStoreWriter = tableStoreWriter;
         }
@@ -206,7 +207,7 @@ public void writeDataCell(final DataCell cell) throws IOException {
             if (m_tableStoreWriter == null) {
                 throw new UnsupportedOperationException("Writing encapsulated cells not supported for Blobs");
             }
-            m_tableStoreWriter.writeDataCell(cell, DCObjectOutputVersion2.this);
+            DefaultTableStoreWriter.writeDataCell(cell, DCObjectOutputVersion2.this, m_tableStoreWriter);
         }
     }
 
@@ -52,6 +52,7 @@
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -59,14 +60,21 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipEntry;
@@ -243,6 +251,23 @@ public class DataContainer implements RowAppender {
 
         // enh 5835: Number of asynchronous write threads to have different limits on different architectures
         MAX_ASYNC_WRITE_THREADS = Platform.ARCH_X86.equals(Platform.getOSArch()) ? 10 : 50;
+
+        ExecutorService unboundedExecutor = null;
+        boolean isVirtual = false;
+        if (Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_IO_VIRTUAL_THREADS)) {
+            unboundedExecutor = createVirtualThreadExecutor();
+            if (unboundedExecutor != null) {
+                LOGGER.debug("Writing tables asynchronously on virtual threads");
+                isVirtual = true;
+            } else {
+                final int carrierCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+                LOGGER.debug("Virtual threads not available, writing tables asynchronously in batches using "
+                    + carrierCount + " carrier threads");
+                unboundedExecutor = createCarrierPool(carrierCount);
+            }
+        }
+        UNBOUNDED_WRITE_EXECUTOR = unboundedExecutor;
+        UNBOUNDED_WRITE_ON_VIRTUAL_THREADS = isVirtual;
     }
 
     /**
@@ -294,6 +319,23 @@ public Thread newThread(final Runnable r) {
      */
     static final int MAX_ASYNC_WRITE_THREADS;
 
+    /**
+     * Executor for the asynchronous writers if {@link KNIMEConstants#PROPERTY_TABLE_IO_VIRTUAL_THREADS} is set, null
+     * otherwise. It's either a virtual thread per task executor (each container gets its {@link ASyncWriteCallable}
+     * as in the default case) or, if virtual threads are not available, a bounded pool of carrier threads which is
+     * fed with {@link ASyncBatchWriter} tasks. In both cases {@link #MAX_ASYNC_WRITE_THREADS} does not apply.
+     */
+    static final ExecutorService UNBOUNDED_WRITE_EXECUTOR;
+
+    /** Whether {@link #UNBOUNDED_WRITE_EXECUTOR} runs its tasks on virtual threads. */
+    static final boolean UNBOUNDED_WRITE_ON_VIRTUAL_THREADS;
+
+    /**
+     * Number of row batches a container may have queued in the {@link ASyncBatchWriter} before the producer blocks.
+     * Corresponds to the filling and emptying buffer of the exchanger based implementation.
+     */
+    private static final int MAX_PENDING_BATCHES = 2;
+
     /** Put into write queue to signal end of writing process. */
     private static final Object CONTAINER_CLOSE = new Object();
 
@@ -338,6 +380,9 @@ public Thread newThread(final Runnable r) {
 
     private List<Object> m_emptyingRowBuffer;
 
+    /** The batch writer if rows are written by the bounded carrier pool, otherwise null. */
+    private ASyncBatchWriter m_batchWriter;
+
     private int m_maxRowsInMemory;
 
     /** Holds the keys of the added rows to check for duplicates. */
@@ -420,6 +465,27 @@ public DataContainer(final DataTableSpec spec, final boolean initDomain, final i
      */
     protected DataContainer(final DataTableSpec spec, final boolean initDomain, final int maxCellsInMemory,
         final boolean forceSynchronousIO) {
+        this(spec, initDomain, maxCellsInMemory, forceSynchronousIO, UNBOUNDED_WRITE_EXECUTOR,
+            UNBOUNDED_WRITE_EXECUTOR != null && !UNBOUNDED_WRITE_ON_VIRTUAL_THREADS);
+    }
+
+    /**
+     * Opens the container so that rows can be added by <code>addRowToTable(DataRow)</code>, writing asynchronously
+     * with the given executor. Used by the public constructors (with {@link #UNBOUNDED_WRITE_EXECUTOR}) and by tests,
+     * which need to check all write modes within one JVM.
+     *
+     * @param spec Table spec of the final table. Rows that are added to the container must comply with this spec.
+     * @param initDomain if set to true, the column domains in the container are initialized with the domains from spec.
+     * @param maxCellsInMemory Maximum count of cells in memory before swapping.
+     * @param forceSynchronousIO Whether to force synchronous IO (see above)
+     * @param writeExecutor the executor for the asynchronous writes, null to use {@link #ASYNC_EXECUTORS} (which is
+     *            limited to {@link #MAX_ASYNC_WRITE_THREADS} containers)
+     * @param isBatchWrite whether the writeExecutor is a bounded pool that runs {@link ASyncBatchWriter} tasks
+     *            rather than one {@link ASyncWriteCallable} per container; ignored if the executor is null
+     * @throws IllegalArgumentException If <code>maxCellsInMemory</code> &lt; 0 or the spec is null
+     */
+    DataContainer(final DataTableSpec spec, final boolean initDomain, final int maxCellsInMemory,
+        final boolean forceSynchronousIO, final ExecutorService writeExecutor, final boolean isBatchWrite) {
         if (maxCellsInMemory < 0) {
             throw new IllegalArgumentException("Cell count must be positive: " + maxCellsInMemory);
         }
@@ -429,7 +495,8 @@ protected DataContainer(final DataTableSpec spec, final boolean initDomain, fina
         m_spec = spec;
         m_duplicateChecker = new DuplicateChecker();
         boolean isSynchronousWrite = forceSynchronousIO || SYNCHRONOUS_IO;
-        if (!isSynchronousWrite && ASYNC_EXECUTORS.getActiveCount() > MAX_ASYNC_WRITE_THREADS) {
+        if (!isSynchronousWrite && writeExecutor == null
+            && ASYNC_EXECUTORS.getActiveCount() > MAX_ASYNC_WRITE_THREADS) {
             LOGGER.debug("Number of Table IO write threads exceeds " + MAX_ASYNC_WRITE_THREADS
                 + " -- switching to synchronous write mode");
             isSynchronousWrite = true;
@@ -441,12 +508,17 @@ protected DataContainer(final DataTableSpec spec, final boolean initDomain, fina
             m_asyncAddFuture = null;
             m_rowBufferExchanger = null;
             m_writeThrowable = null;
+        } else if (writeExecutor != null && isBatchWrite) {
+            m_fillingRowBuffer = new ArrayList<Object>(ASYNC_CACHE_SIZE);
+            m_writeThrowable = new AtomicReference<Throwable>();
+            m_batchWriter = new ASyncBatchWriter(this, writeExecutor, NodeContext.getContext());
         } else {
             m_fillingRowBuffer = new ArrayList<Object>(ASYNC_CACHE_SIZE);
             m_emptyingRowBuffer = new ArrayList<Object>(ASYNC_CACHE_SIZE);
             m_rowBufferExchanger = new Exchanger<List<Object>>();
             m_writeThrowable = new AtomicReference<Throwable>();
-            m_asyncAddFuture = ASYNC_EXECUTORS.submit(new ASyncWriteCallable(this, NodeContext.getContext()));
+            ExecutorService executor = writeExecutor != null ? writeExecutor : ASYNC_EXECUTORS;
+            m_asyncAddFuture = executor.submit(new ASyncWriteCallable(this, NodeContext.getContext()));
         }
 
         m_domainCreator = new DataTableDomainCreator(m_spec, initDomain);
@@ -614,7 +686,11 @@ public void close() {
         if (!m_isSynchronousWrite) {
             try {
                 offerToAsynchronousQueue(CONTAINER_CLOSE);
-                m_asyncAddFuture.get();
+                if (m_batchWriter != null) {
+                    m_batchWriter.awaitClose();
+                } else {
+                    m_asyncAddFuture.get();
+                }
                 checkAsyncWriteThrowable();
             } catch (InterruptedException e) {
                 throw new DataContainerException("Adding rows to table was interrupted", e);
@@ -653,9 +729,17 @@ public void close() {
     private void offerToAsynchronousQueue(final Object object) {
         m_fillingRowBuffer.add(object);
         if (m_fillingRowBuffer.size() >= ASYNC_CACHE_SIZE || object == CONTAINER_CLOSE || object == FLUSH_CACHE) {
+            if (m_batchWriter != null) {
+                m_batchWriter.submit(m_fillingRowBuffer);
+                m_fillingRowBuffer = new ArrayList<Object>(ASYNC_CACHE_SIZE);
+                checkAsyncWriteThrowable();
+                return;
+            }
             while (true) {
+                final long start = System.nanoTime();
                 try {
                     m_fillingRowBuffer = m_rowBufferExchanger.exchange(m_fillingRowBuffer, 30, TimeUnit.SECONDS);
+                    TableIOStatistics.getInstance().onAsyncProducerWait(System.nanoTime() - start);
                     if (!m_fillingRowBuffer.isEmpty()) {
                         Object ob = m_fillingRowBuffer.get(0);
                         assert ob == CONTAINER_WRITE_FAILED : "Not expected element in write queue: " + ob;
@@ -664,6 +748,7 @@ private void offerToAsynchronousQueue(final Object object) {
                     }
                     return;
                 } catch (TimeoutException e) {
+                    TableIOStatistics.getInstance().onAsyncProducerWait(System.nanoTime() - start);
                     if (m_asyncAddFuture.isDone()) {
                         checkAsyncWriteThrowable();
                         // if we reach this code, the write process has not
@@ -1196,6 +1281,50 @@ public static final boolean isContainerTable(final DataTable table) {
         return table instanceof ContainerTable;
     }
 
+    /**
+     * Creates an executor that starts a new virtual thread for each task. Virtual threads are only available in Java 21
+     * (or as preview feature in 19 and 20), hence they are accessed via reflection.
+     *
+     * @return the executor or null if the runtime doesn't support virtual threads
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "KNIME-TableIO-V", 1L);
+            final ThreadFactory factory = (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService)Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        } catch (InvocationTargetException | IllegalAccessException | RuntimeException e) {
+            // Java 19/20 without --enable-preview throws an UnsupportedOperationException
+            LOGGER.debug("Unable to create virtual thread executor: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates the bounded pool that runs the {@link ASyncBatchWriter} tasks if virtual threads are not available.
+     *
+     * @param threadCount the maximum number of threads
+     * @return a new pool whose threads time out when idle
+     */
+    private static ExecutorService createCarrierPool(final int threadCount) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger m_threadCount = new AtomicInteger();
+
+                /** {@inheritDoc} */
+                @Override
+                public Thread newThread(final Runnable r) {
+                    return new Thread(r, "KNIME-TableIO-Carrier-" + m_threadCount.incrementAndGet());
+                }
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
     /**
      * Background task that will write the output data. This is kept as static inner class in order to allow for a
      * garbage collection of the outer class (which indicates an early stopped buffer writing).
@@ -1255,11 +1384,14 @@ private Void callWithContext() throws Exception {
                     }
                     queue.clear();
                     d = null;
+                    final long start = System.nanoTime();
                     try {
                         queue = exchanger.exchange(queue, 30, TimeUnit.SECONDS);
                     } catch (TimeoutException te) {
                         // can be safely ignored, do another loop on the same
                         // (empty!) queue (or don't if container is gc'ed)
+                    } finally {
+                        TableIOStatistics.getInstance().onAsyncWriterWait(System.nanoTime() - start);
                     }
                     d = m_containerRef.get();
                 } while (d != null);
@@ -1285,6 +1417,133 @@ private Void callWithContext() throws Exception {
         }
     }
 
+    /**
+     * Writes the rows of one container in batches on a bounded pool (usually {@link #UNBOUNDED_WRITE_EXECUTOR}).
+     * Unlike the {@link ASyncWriteCallable} it doesn't block a thread while waiting for new rows: full batches are
+     * queued and the writer is scheduled only if it's not already running; it ends as soon as the queue is empty. At
+     * most one task per container is active so rows are written in order. The producer blocks once
+     * {@value #MAX_PENDING_BATCHES} batches are pending. Like the {@link ASyncWriteCallable} it only keeps a weak
+     * reference to the container, so that a scheduled writer doesn't keep an abandoned container from being garbage
+     * collected.
+     */
+    private static final class ASyncBatchWriter implements Runnable {
+
+        /** Number of batches written before the task is re-scheduled to give other containers a chance. */
+        private static final int BATCHES_PER_RUN = 64;
+
+        private final WeakReference<DataContainer> m_containerRef;
+
+        private final AtomicReference<Throwable> m_throwable;
+
+        private final ExecutorService m_executor;
+
+        private final NodeContext m_context;
+
+        private final ConcurrentLinkedQueue<List<Object>> m_pendingBatches = new ConcurrentLinkedQueue<>();
+
+        private final Semaphore m_freeSlots = new Semaphore(MAX_PENDING_BATCHES);
+
+        private final AtomicBoolean m_isScheduled = new AtomicBoolean();
+
+        private final CountDownLatch m_closeLatch = new CountDownLatch(1);
+
+        /**
+         * @param cont The outer container.
+         * @param executor the pool running the writer.
+         * @param context owner node information, if any.
+         */
+        ASyncBatchWriter(final DataContainer cont, final ExecutorService executor, final NodeContext context) {
+            m_containerRef = new WeakReference<DataContainer>(cont);
+            m_throwable = cont.m_writeThrowable;
+            m_executor = executor;
+            m_context = context;
+        }
+
+        /**
+         * Queues a full batch, called by the thread adding the rows.
+         *
+         * @param batch the rows, possibly followed by {@link #FLUSH_CACHE} or {@link #CONTAINER_CLOSE}
+         */
+        void submit(final List<Object> batch) {
+            final long start = System.nanoTime();
+            try {
+                m_freeSlots.acquire();
+            } catch (InterruptedException e) {
+                throw new DataContainerException("Adding rows to buffer was interrupted", e);
+            } finally {
+                TableIOStatistics.getInstance().onAsyncProducerWait(System.nanoTime() - start);
+            }
+            m_pendingBatches.add(batch);
+            schedule();
+        }
+
+        /**
+         * Waits until the batch containing {@link #CONTAINER_CLOSE} has been processed.
+         *
+         * @throws InterruptedException if interrupted while waiting
+         */
+        void awaitClose() throws InterruptedException {
+            m_closeLatch.await();
+        }
+
+        private void schedule() {
+            if (!m_pendingBatches.isEmpty() && m_isScheduled.compareAndSet(false, true)) {
+                m_executor.execute(this);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            NodeContext.pushContext(m_context);
+            try {
+                List<Object> batch;
+                int batchCount = 0;
+                while (batchCount++ < BATCHES_PER_RUN && (batch = m_pendingBatches.poll()) != null) {
+                    try {
+                        write(batch);
+                    } finally {
+                        m_freeSlots.release();
+                    }
+                }
+            } finally {
+                NodeContext.removeLastContext();
+                m_isScheduled.set(false);
+            }
+            // batches may have been added after the last poll and before the flag was reset
+            schedule();
+        }
+
+        private void write(final List<Object> batch) {
+            final DataContainer d = m_containerRef.get();
+            if (d == null) {
+                // close() was never called on the container (which was garbage collected already)
+                LOGGER.debug("Discarding rows of DataContainer since container was garbage collected");
+                m_pendingBatches.clear();
+                return;
+            }
+            try {
+                for (Object obj : batch) {
+                    if (obj == CONTAINER_CLOSE) {
+                        m_closeLatch.countDown();
+                    } else if (m_throwable.get() != null) {
+                        // previous batch failed, discard remaining rows
+                        continue;
+                    } else if (obj == FLUSH_CACHE) {
+                        d.m_buffer.flushBuffer();
+                    } else {
+                        d.addRowToTableWrite((DataRow)obj);
+                    }
+                }
+            } catch (Throwable t) {
+                m_throwable.compareAndSet(null, t);
+                if (batch.contains(CONTAINER_CLOSE)) {
+                    m_closeLatch.countDown();
+                }
+            }
+        }
+    }
+
     /**
      * Helper class to create a Buffer instance given a binary file and the data table spec.
      */
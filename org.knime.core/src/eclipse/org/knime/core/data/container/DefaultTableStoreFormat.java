@@ -47,11 +47,20 @@
  */
 package org.knime.core.data.container;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
@@ -80,6 +89,18 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
      * defaults to {@value DataContainer#DEF_GZIP_COMPRESSION}. */
     static final boolean IS_USE_GZIP;
 
+    /**
+     * The compression format used for newly written tables. Determined by
+     * {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION_FORMAT} or, if that is not set, by {@link #IS_USE_GZIP}. */
+    static final CompressionFormat DEF_COMPRESSION_FORMAT;
+
+    /** The compression format used for new tables, only changed in unit tests. */
+    private static CompressionFormat compressionFormatForNewTables;
+
+    /** The level used by {@link CompressionFormat#Deflate}, see {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION_LEVEL}.
+     */
+    static final int DEFLATE_LEVEL;
+
     static {
         // prefer this block over Boolean.getBoolean(...) to cover typos
         // on command line (warn on console)
@@ -102,12 +123,164 @@ public final class DefaultTableStoreFormat implements TableStoreFormat {
         if (debugLog) {
             LOGGER.debug("Setting table stream compression to " + IS_USE_GZIP);
         }
+
+        CompressionFormat compressionFormat = IS_USE_GZIP ? CompressionFormat.Gzip : CompressionFormat.None;
+        String formatString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_COMPRESSION_FORMAT);
+        if (formatString != null) {
+            CompressionFormat parsed = CompressionFormat.parse(formatString);
+            if (parsed == null) {
+                LOGGER.warn("Unable to read property " + KNIMEConstants.PROPERTY_TABLE_COMPRESSION_FORMAT + " (\""
+                        + formatString + "\"); defaulting to " + compressionFormat);
+            } else {
+                compressionFormat = parsed;
+                LOGGER.debug("Setting table stream compression format to " + compressionFormat);
+            }
+        }
+        DEF_COMPRESSION_FORMAT = compressionFormat;
+        compressionFormatForNewTables = compressionFormat;
+
+        int level = Deflater.BEST_SPEED;
+        String levelString = System.getProperty(KNIMEConstants.PROPERTY_TABLE_COMPRESSION_LEVEL);
+        if (levelString != null) {
+            try {
+                level = Integer.parseInt(levelString.trim());
+                if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+                    throw new NumberFormatException("not in [" + Deflater.BEST_SPEED + ", "
+                            + Deflater.BEST_COMPRESSION + "]");
+                }
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Unable to read property " + KNIMEConstants.PROPERTY_TABLE_COMPRESSION_LEVEL + " (\""
+                        + levelString + "\"): " + nfe.getMessage() + "; defaulting to " + Deflater.BEST_SPEED);
+                level = Deflater.BEST_SPEED;
+            }
+        }
+        DEFLATE_LEVEL = level;
     }
 
-    /** Compression on the binary (main) file. */
+    /** @return the compression format used for new tables, {@link #DEF_COMPRESSION_FORMAT} unless set in a test. */
+    static CompressionFormat getCompressionFormat() {
+        return compressionFormatForNewTables;
+    }
+
+    /**
+     * Sets the compression format used for new tables. This method is called from the testing framework only.
+     *
+     * @param format the format, not null
+     */
+    static void setCompressionFormat(final CompressionFormat format) {
+        compressionFormatForNewTables = format;
+    }
+
+    /** Compression on the binary (main) file. The name of the constant is persisted as part of the table meta
+     * information ({@link #CFG_COMPRESSION}), so don't rename. */
     enum CompressionFormat {
-            Gzip,
-            None;
+            /** Stream compression via {@link GZIPOutputStream} (default). */
+            Gzip(".bin.gz"),
+            /** No compression. */
+            None(".bin"),
+            /** Fast block compression using the LZ4 block format, see {@link LZ4BlockOutputStream}. */
+            Lz4(".bin.lz4"),
+            /** Deflate (zlib format) with a configurable level, see
+             * {@link KNIMEConstants#PROPERTY_TABLE_COMPRESSION_LEVEL}. */
+            Deflate(".bin.zlib");
+
+        private final String m_filenameSuffix;
+
+        CompressionFormat(final String filenameSuffix) {
+            m_filenameSuffix = filenameSuffix;
+        }
+
+        /** @return the suffix of (temporary) files written in this format */
+        String getFilenameSuffix() {
+            return m_filenameSuffix;
+        }
+
+        /**
+         * Wraps the argument stream into a compressing stream. The returned stream is buffered (if necessary), the
+         * argument stream is expected to be buffered already.
+         *
+         * @param out The stream to wrap.
+         * @param level The compression level, only used by {@link #Deflate}.
+         * @return A new stream (or the argument if no compression is used).
+         * @throws IOException If the stream can't be created.
+         */
+        OutputStream wrapOutputStream(final OutputStream out, final int level) throws IOException {
+            switch (this) {
+                case Gzip:
+                    // buffering the input stream is important as the blockable
+                    // stream, which will be put on top of it, reads bytes individually
+                    // (had a table, on which a single read-scan took ~6min without
+                    // and ~30s with buffering)
+                    return new BufferedOutputStream(new GZIPOutputStream(out));
+                case None:
+                    return out;
+                case Lz4:
+                    // block stream does its own buffering
+                    return new LZ4BlockOutputStream(out);
+                case Deflate:
+                    return new BufferedOutputStream(new LevelDeflaterOutputStream(out, level));
+                default:
+                    throw new IOException("Unsupported compression format: " + this);
+            }
+        }
+
+        /**
+         * Wraps the argument stream into a decompressing stream. The returned stream is buffered (if necessary), the
+         * argument stream is expected to be buffered already.
+         *
+         * @param in The stream to wrap.
+         * @return A new stream (or the argument if no compression is used).
+         * @throws IOException If the stream can't be created.
+         */
+        InputStream wrapInputStream(final InputStream in) throws IOException {
+            switch (this) {
+                case Gzip:
+                    // buffering is important when reading gzip streams
+                    return new BufferedInputStream(new GZIPInputStream(in));
+                case None:
+                    return in;
+                case Lz4:
+                    return new LZ4BlockInputStream(in);
+                case Deflate:
+                    return new BufferedInputStream(new InflaterInputStream(in));
+                default:
+                    throw new IOException("Unsupported compression format: " + this);
+            }
+        }
+
+        /**
+         * Case-insensitive lookup, used to parse the system property.
+         * @param value The value to parse.
+         * @return The format or null if not valid.
+         */
+        static CompressionFormat parse(final String value) {
+            String v = value.trim().toLowerCase(Locale.ROOT);
+            for (CompressionFormat f : values()) {
+                if (f.name().toLowerCase(Locale.ROOT).equals(v)) {
+                    return f;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Deflater stream using a custom level. Other than the super class it releases the (native) deflater on close.
+     */
+    private static final class LevelDeflaterOutputStream extends DeflaterOutputStream {
+
+        LevelDeflaterOutputStream(final OutputStream out, final int level) {
+            super(out, new Deflater(level), 1 << 16);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
     }
 
     @Override
@@ -117,7 +290,7 @@ public String getName() {
 
     @Override
     public String getFilenameSuffix() {
-        return ".bin.gz";
+        return getCompressionFormat().getFilenameSuffix();
     }
 
     /** {@inheritDoc} */
@@ -47,14 +47,22 @@
  */
 package org.knime.core.data.container;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.container.Buffer.CompressionFormat;
+import org.knime.core.data.container.DefaultTableStoreFormat.CompressionFormat;
 import org.knime.core.data.container.storage.AbstractTableStoreReader;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 
 /**
@@ -63,12 +71,20 @@
  */
 final class DefaultTableStoreReader extends AbstractTableStoreReader {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DefaultTableStoreReader.class);
+
     private CompressionFormat m_compressionFormat;
     private final File m_binFile;
     private final DataTableSpec m_spec;
     private int m_version;
     private final boolean m_isReadRowKey;
 
+    /** Index on row offsets, set by the writer or lazily built on first range access; null if not available. */
+    private RowOffsetIndex m_rowOffsetIndex;
+
+    /** File offsets of the LZ4 blocks, lazily built on first range access of a {@link CompressionFormat#Lz4} file. */
+    private long[] m_lz4BlockOffsets;
+
     /**
      * Constructs a reader for materializing serialized KNIME tables.
      *
@@ -109,6 +125,140 @@ public TableStoreCloseableRowIterator iterator() {
         }
     }
 
+    /**
+     * Creates an iterator that is positioned on the first row of the range. For uncompressed and LZ4 compressed
+     * files the position is determined using the {@link RowOffsetIndex} and the file is read through a
+     * {@link MappedFileInputStream}; for gzip/deflate compressed files (which don't allow random access) the rows
+     * before the range are skipped on byte level.
+     * {@inheritDoc}
+     */
+    @Override
+    protected TableStoreCloseableRowIterator createRangeIterator(final long fromIndex, final long toIndex) {
+        if (m_version <= 5) {
+            return super.createRangeIterator(fromIndex, toIndex);
+        }
+        try {
+            if (!isRandomAccessSupported()) {
+                BufferFromFileIteratorVersion20 iterator = new BufferFromFileIteratorVersion20(this,
+                    BufferFromFileIteratorVersion20.openStream(this), 0L, toIndex);
+                iterator.skipRows(fromIndex);
+                return iterator;
+            }
+            final long indexedRow = RowOffsetIndex.getIndexedRow(fromIndex);
+            final long offset = getRowOffsetIndex().getOffset(indexedRow);
+            BufferFromFileIteratorVersion20 iterator =
+                new BufferFromFileIteratorVersion20(this, openStreamAt(offset), indexedRow, toIndex);
+            iterator.skipRows(fromIndex - indexedRow);
+            return iterator;
+        } catch (IOException ioe) {
+            StringBuilder b = new StringBuilder("Cannot read file \"");
+            b.append(m_binFile != null ? m_binFile.getName() : "<unknown>");
+            b.append("\"");
+            checkAndReportOpenFiles(ioe);
+            throw new RuntimeException(b.toString(), ioe);
+        }
+    }
+
+    /** @return whether the file can be read from an arbitrary (uncompressed) offset. */
+    private boolean isRandomAccessSupported() {
+        return m_compressionFormat == CompressionFormat.None || m_compressionFormat == CompressionFormat.Lz4;
+    }
+
+    /**
+     * Sets the index created while writing the file, avoids a file scan on first range access.
+     *
+     * @param index The index, not null.
+     */
+    synchronized void setRowOffsetIndex(final RowOffsetIndex index) {
+        m_rowOffsetIndex = index;
+    }
+
+    /** Get the row index, scans the file if not available yet. */
+    private synchronized RowOffsetIndex getRowOffsetIndex() throws IOException {
+        if (m_rowOffsetIndex == null) {
+            final long start = System.currentTimeMillis();
+            final RowOffsetIndex index = new RowOffsetIndex();
+            final int colCount = m_spec.getNumColumns();
+            final long size = size();
+            try (CountingInputStream countingStream = new CountingInputStream(openStreamAt(0L))) {
+                DCObjectInputVersion2 inStream = new DCObjectInputVersion2(countingStream);
+                for (long row = 0; row < size; row++) {
+                    index.onRowStart(row, countingStream.getByteCount());
+                    BufferFromFileIteratorVersion20.skipRow(inStream, colCount, m_isReadRowKey);
+                }
+                index.onTableEnd(size, countingStream.getByteCount());
+            }
+            LOGGER.debugWithFormat("Indexed %d rows of file \"%s\" in %dms", size, m_binFile.getName(),
+                System.currentTimeMillis() - start);
+            m_rowOffsetIndex = index;
+        }
+        return m_rowOffsetIndex;
+    }
+
+    /**
+     * Opens the (uncompressed) stream at the given offset.
+     *
+     * @param offset The offset in the uncompressed stream.
+     * @return A new stream, positioned at the offset.
+     * @throws IOException If the file can't be read.
+     */
+    private InputStream openStreamAt(final long offset) throws IOException {
+        if (m_binFile == null) {
+            throw new IOException("Unable to read table from file, table has been cleared.");
+        }
+        switch (m_compressionFormat) {
+            case None:
+                return new MappedFileInputStream(m_binFile, offset);
+            case Lz4:
+                final long[] blockOffsets = getLZ4BlockOffsets();
+                final int block = (int)(offset / LZ4BlockOutputStream.DEFAULT_BLOCK_SIZE);
+                if (block >= blockOffsets.length) {
+                    // offset at the very end of the stream, e.g. empty table
+                    return new LZ4BlockInputStream(new MappedFileInputStream(m_binFile, m_binFile.length()));
+                }
+                InputStream in =
+                    new LZ4BlockInputStream(new MappedFileInputStream(m_binFile, blockOffsets[block]));
+                final long toSkip = offset - (long)block * LZ4BlockOutputStream.DEFAULT_BLOCK_SIZE;
+                if (in.skip(toSkip) != toSkip) {
+                    in.close();
+                    throw new EOFException("Unable to position LZ4 stream at offset " + offset);
+                }
+                return in;
+            default:
+                throw new IllegalStateException("No random access on " + m_compressionFormat + " compressed files");
+        }
+    }
+
+    /** Reads the block headers of a LZ4 compressed file and memorizes the file offset of each block. All but the
+     * last block have {@link LZ4BlockOutputStream#DEFAULT_BLOCK_SIZE} uncompressed bytes. */
+    private synchronized long[] getLZ4BlockOffsets() throws IOException {
+        if (m_lz4BlockOffsets == null) {
+            final long fileLength = m_binFile.length();
+            long[] offsets = new long[(int)Math.max(16, fileLength / LZ4BlockOutputStream.DEFAULT_BLOCK_SIZE + 1)];
+            int count = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new MappedFileInputStream(m_binFile, 0L), LZ4BlockOutputStream.HEADER_LENGTH))) {
+                long offset = 0L;
+                while (offset < fileLength) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, 2 * count);
+                    }
+                    offsets[count++] = offset;
+                    in.readByte(); // method
+                    in.readInt(); // uncompressed length
+                    final int storedLength = in.readInt();
+                    if (storedLength < 0) {
+                        throw new IOException("Corrupt LZ4 stream, invalid block length " + storedLength);
+                    }
+                    IOUtils.skipFully(in, storedLength);
+                    offset += LZ4BlockOutputStream.HEADER_LENGTH + storedLength;
+                }
+            }
+            m_lz4BlockOffsets = Arrays.copyOf(offsets, count);
+        }
+        return m_lz4BlockOffsets;
+    }
+
     /** @return Whether stream is zipped. */
     CompressionFormat getBinFileCompressionFormat() {
         return m_compressionFormat;
@@ -50,8 +50,8 @@
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataRow;
@@ -77,6 +77,14 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
      */
     private final DCObjectOutputVersion2 m_outStream;
 
+    /** Counts the (uncompressed) bytes written to {@link #m_outStream}, used to fill {@link #m_rowOffsetIndex}. */
+    private final CountingOutputStream m_countingStream;
+
+    /** Offsets of every n-th row, handed to the reader for random access (see {@link #getRowOffsetIndex()}). */
+    private final RowOffsetIndex m_rowOffsetIndex = new RowOffsetIndex();
+
+    private long m_rowCount;
+
     /**
      * Constructs a writer for writing KNIME tables to disk.
      *
@@ -87,9 +95,28 @@ final class DefaultTableStoreWriter extends AbstractTableStoreWriter implements
      */
     public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey)
         throws IOException {
+        this(spec, outputStream, writeRowKey, DefaultTableStoreFormat.getCompressionFormat(),
+            DefaultTableStoreFormat.DEFLATE_LEVEL);
+    }
+
+    /**
+     * Constructs a writer using a specific compression format. The format is recorded in the meta information (see
+     * {@link #writeMetaInfoAfterWrite(NodeSettingsWO)}) so that the reader chooses the matching decompression.
+     *
+     * @param spec the specification of the KNIME table to write to disk
+     * @param outputStream the stream to write to
+     * @param writeRowKey a flag that determines whether to store the row keys
+     * @param compressionFormat the compression applied to the binary stream, not null
+     * @param compressionLevel the compression level (only used by {@link CompressionFormat#Deflate})
+     * @throws IOException any type of I/O problem
+     */
+    DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outputStream, final boolean writeRowKey,
+        final CompressionFormat compressionFormat, final int compressionLevel) throws IOException {
         super(spec, writeRowKey);
-        m_compressionFormat = DefaultTableStoreFormat.IS_USE_GZIP ? CompressionFormat.Gzip : CompressionFormat.None;
-        m_outStream = initOutFile(new BufferedOutputStream(outputStream));
+        m_compressionFormat = compressionFormat;
+        m_countingStream = new CountingOutputStream(
+            compressionFormat.wrapOutputStream(new BufferedOutputStream(outputStream), compressionLevel));
+        m_outStream = new DCObjectOutputVersion2(m_countingStream, this);
     }
 
     /**
@@ -99,6 +126,8 @@ public DefaultTableStoreWriter(final DataTableSpec spec, final OutputStream outp
      */
     @Override
     public void writeRow(final DataRow row) throws IOException {
+        // the object stream doesn't buffer, the count is hence the exact offset of the row
+        m_rowOffsetIndex.onRowStart(m_rowCount++, m_countingStream.getByteCount());
         RowKey id = row.getKey();
         writeRowKey(id, m_outStream);
         for (int i = 0; i < row.getNumCells(); i++) {
@@ -133,6 +162,34 @@ void writeRowKey(final RowKey key, final DCObjectOutputVersion2 outStream) throw
      * @throws IOException If stream corruption happens.
      */
     void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream) throws IOException {
+        writeDataCell(cell, outStream, this);
+    }
+
+    /**
+     * Writes a data cell to the outStream, using the type short cuts etc. of the argument writer. Also used by
+     * {@link ColumnarTableStoreWriter} for columns that are not stored as primitives.
+     *
+     * @param cell The cell to write.
+     * @param outStream To write to.
+     * @param writer The writer maintaining the cell type short cuts and file store handler.
+     * @throws IOException If stream corruption happens.
+     */
+    static void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream,
+        final AbstractTableStoreWriter writer) throws IOException {
+        final TableIOStatistics statistics = TableIOStatistics.getInstance();
+        if (statistics.isCellTimingEnabled()) {
+            final long start = System.nanoTime();
+            writeDataCellUntimed(cell, outStream, writer);
+            final Class<?> cellClass =
+                cell instanceof BlobWrapperDataCell ? ((BlobWrapperDataCell)cell).getBlobClass() : cell.getClass();
+            statistics.onCellSerialized(cellClass, System.nanoTime() - start);
+        } else {
+            writeDataCellUntimed(cell, outStream, writer);
+        }
+    }
+
+    private static void writeDataCellUntimed(final DataCell cell, final DCObjectOutputVersion2 outStream,
+        final AbstractTableStoreWriter writer) throws IOException {
         if (cell == DataType.getMissingCell()) {
             // only write 'missing' byte if that's the singleton missing cell;
             // missing cells with error cause are handled like ordinary cells below (via serializer)
@@ -141,9 +198,9 @@ void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream)
         }
         boolean isBlob = cell instanceof BlobWrapperDataCell;
         CellClassInfo cellClass = isBlob ? ((BlobWrapperDataCell)cell).getBlobClassInfo() : CellClassInfo.get(cell);
-        DataCellSerializer<DataCell> ser = getSerializerForDataCell(cellClass);
-        Byte identifier = getTypeShortCut(cellClass);
-        FileStoreKey fileStoreKey = super.getFileStoreKeyAndFlush(cell);
+        DataCellSerializer<DataCell> ser = writer.getSerializerForDataCell(cellClass);
+        Byte identifier = writer.getTypeShortCut(cellClass);
+        FileStoreKey fileStoreKey = writer.getFileStoreKeyAndFlush(cell);
         final boolean isJavaSerializationOrBlob = ser == null && !isBlob;
         if (isJavaSerializationOrBlob) {
             outStream.writeControlByte(BYTE_TYPE_SERIALIZATION);
@@ -166,26 +223,11 @@ void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outStream)
     }
 
     /**
-     * Creates short cut array and wraps the argument stream in a {@link DCObjectOutputVersion2}.
+     * @return the index on the rows written so far, used by {@link DefaultTableStoreReader} to position iterators
+     *         without scanning the file.
      */
-    private DCObjectOutputVersion2 initOutFile(final OutputStream outStream) throws IOException {
-        OutputStream wrap;
-        switch (m_compressionFormat) {
-            case Gzip:
-                wrap = new GZIPOutputStream(outStream);
-                // buffering the input stream is important as the blockable
-                // stream, which will be put on top of it, reads bytes individually
-                // (had a table, on which a single read-scan took ~6min without
-                // and ~30s with buffering)
-                wrap = new BufferedOutputStream(wrap);
-                break;
-            case None:
-                wrap = outStream;
-                break;
-            default:
-                throw new IOException("Unsupported compression format: " + m_compressionFormat);
-        }
-        return new DCObjectOutputVersion2(wrap, this);
+    RowOffsetIndex getRowOffsetIndex() {
+        return m_rowOffsetIndex;
     }
 
     /** {@inheritDoc} */
@@ -198,7 +240,9 @@ public void writeMetaInfoAfterWrite(final NodeSettingsWO settings) {
     /** {@inheritDoc} */
     @Override
     public void close() throws IOException {
+        m_rowOffsetIndex.onTableEnd(m_rowCount, m_countingStream.getByteCount());
         m_outStream.close();
+        TableIOStatistics.getInstance().onTableWritten(m_rowCount, m_countingStream.getByteCount());
     }
 
 }
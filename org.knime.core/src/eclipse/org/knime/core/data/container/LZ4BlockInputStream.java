@@ -0,0 +1,218 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream reading data written by {@link LZ4BlockOutputStream}. Blocks are decompressed one at a time, the memory
+ * requirement is therefore bound by the block size.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LZ4BlockInputStream extends InputStream {
+
+    /** Upper bound for a block length read from the stream, protects against allocating huge arrays on corrupt
+     * input. */
+    private static final int MAX_BLOCK_SIZE = 1 << 26;
+
+    private final InputStream m_in;
+
+    private final byte[] m_header = new byte[LZ4BlockOutputStream.HEADER_LENGTH];
+
+    private byte[] m_buffer = new byte[LZ4BlockOutputStream.DEFAULT_BLOCK_SIZE];
+
+    private byte[] m_compressedBuffer = new byte[LZ4Codec.maxCompressedLength(LZ4BlockOutputStream.DEFAULT_BLOCK_SIZE)];
+
+    private int m_bufferPos;
+
+    private int m_bufferLength;
+
+    private boolean m_isEOF;
+
+    private boolean m_isClosed;
+
+    /**
+     * @param in The stream to read from.
+     */
+    LZ4BlockInputStream(final InputStream in) {
+        m_in = in;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return m_buffer[m_bufferPos++] & 0xFF;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        final int count = Math.min(len, m_bufferLength - m_bufferPos);
+        System.arraycopy(m_buffer, m_bufferPos, b, off, count);
+        m_bufferPos += count;
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long skip(final long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0 && ensureData()) {
+            final int count = (int)Math.min(remaining, m_bufferLength - m_bufferPos);
+            m_bufferPos += count;
+            remaining -= count;
+        }
+        return n - remaining;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return m_bufferLength - m_bufferPos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (!m_isClosed) {
+            m_isClosed = true;
+            m_in.close();
+        }
+    }
+
+    /** Reads the next block if the current one is consumed.
+     * @return false if the end of stream is reached. */
+    private boolean ensureData() throws IOException {
+        ensureOpen();
+        while (m_bufferPos == m_bufferLength) {
+            if (m_isEOF || !readBlock()) {
+                m_isEOF = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean readBlock() throws IOException {
+        int first = m_in.read();
+        if (first < 0) {
+            return false;
+        }
+        m_header[0] = (byte)first;
+        readFully(m_header, 1, m_header.length - 1);
+        final byte method = m_header[0];
+        final int rawLength = readInt(m_header, 1);
+        final int storedLength = readInt(m_header, 5);
+        if (rawLength < 0 || rawLength > MAX_BLOCK_SIZE || storedLength < 0 || storedLength > MAX_BLOCK_SIZE) {
+            throw new IOException("Corrupt LZ4 stream, invalid block lengths (raw: " + rawLength + ", stored: "
+                + storedLength + ")");
+        }
+        if (m_buffer.length < rawLength) {
+            m_buffer = new byte[rawLength];
+        }
+        switch (method) {
+            case LZ4BlockOutputStream.METHOD_RAW:
+                if (storedLength != rawLength) {
+                    throw new IOException("Corrupt LZ4 stream, raw block with inconsistent lengths");
+                }
+                readFully(m_buffer, 0, rawLength);
+                break;
+            case LZ4BlockOutputStream.METHOD_LZ4:
+                if (m_compressedBuffer.length < storedLength) {
+                    m_compressedBuffer = new byte[storedLength];
+                }
+                readFully(m_compressedBuffer, 0, storedLength);
+                final int length = LZ4Codec.decompress(m_compressedBuffer, 0, storedLength, m_buffer, 0, rawLength);
+                if (length != rawLength) {
+                    throw new IOException("Corrupt LZ4 stream, block decompressed to " + length
+                        + " bytes, expected " + rawLength);
+                }
+                break;
+            default:
+                throw new IOException("Corrupt LZ4 stream, unknown block method: " + method);
+        }
+        m_bufferPos = 0;
+        m_bufferLength = rawLength;
+        return true;
+    }
+
+    private void readFully(final byte[] b, final int off, final int len) throws IOException {
+        int read = 0;
+        while (read < len) {
+            int count = m_in.read(b, off + read, len - read);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of LZ4 stream");
+            }
+            read += count;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (m_isClosed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static int readInt(final byte[] b, final int off) {
+        return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+    }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that compresses its data in independent blocks using {@link LZ4Codec}. Each block is written as
+ * <pre>
+ *   byte  method ({@link #METHOD_RAW} or {@link #METHOD_LZ4})
+ *   int   number of uncompressed bytes
+ *   int   number of stored bytes
+ *   byte[] stored bytes
+ * </pre>
+ * Blocks that don't compress are stored raw so that the stream never grows by more than a few bytes per block. The
+ * end of the stream is given by the end of the underlying stream.
+ *
+ * <p>
+ * Similar to the {@link java.util.zip.GZIPOutputStream} used for the default format a call to {@link #flush()} does
+ * not force the current (partial) block to be written; this is done when the block is full or the stream is closed.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @see LZ4BlockInputStream
+ */
+final class LZ4BlockOutputStream extends OutputStream {
+
+    /** Default size of an uncompressed block, also the max match distance in LZ4. */
+    static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /** Block method: bytes are stored uncompressed. */
+    static final byte METHOD_RAW = 0x10;
+
+    /** Block method: bytes are LZ4 compressed. */
+    static final byte METHOD_LZ4 = 0x20;
+
+    /** Size of the block header. */
+    static final int HEADER_LENGTH = 1 + 4 + 4;
+
+    private final OutputStream m_out;
+
+    private final byte[] m_buffer;
+
+    private final byte[] m_compressedBuffer;
+
+    private final int[] m_hashTable;
+
+    private int m_bufferPos;
+
+    private boolean m_isClosed;
+
+    /**
+     * Creates new stream using the {@link #DEFAULT_BLOCK_SIZE}.
+     *
+     * @param out The stream to write to.
+     */
+    LZ4BlockOutputStream(final OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates new stream.
+     *
+     * @param out The stream to write to.
+     * @param blockSize The number of uncompressed bytes per block, &gt; 0.
+     */
+    LZ4BlockOutputStream(final OutputStream out, final int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be > 0: " + blockSize);
+        }
+        m_out = out;
+        m_buffer = new byte[blockSize];
+        m_compressedBuffer = new byte[HEADER_LENGTH + LZ4Codec.maxCompressedLength(blockSize)];
+        m_hashTable = LZ4Codec.newHashTable();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (m_bufferPos == m_buffer.length) {
+            writeBlock();
+        }
+        m_buffer[m_bufferPos++] = (byte)b;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (m_bufferPos == m_buffer.length) {
+                writeBlock();
+            }
+            final int count = Math.min(remaining, m_buffer.length - m_bufferPos);
+            System.arraycopy(b, offset, m_buffer, m_bufferPos, count);
+            m_bufferPos += count;
+            offset += count;
+            remaining -= count;
+        }
+    }
+
+    /** Flushes the underlying stream only, see class description. {@inheritDoc} */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        m_out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (m_isClosed) {
+            return;
+        }
+        try {
+            if (m_bufferPos > 0) {
+                writeBlock();
+            }
+            m_out.flush();
+        } finally {
+            m_isClosed = true;
+            m_out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        final int rawLength = m_bufferPos;
+        final int compressedLength =
+            LZ4Codec.compress(m_buffer, 0, rawLength, m_compressedBuffer, HEADER_LENGTH, m_hashTable);
+        final byte method;
+        final int storedLength;
+        if (compressedLength < rawLength) {
+            method = METHOD_LZ4;
+            storedLength = compressedLength;
+        } else {
+            method = METHOD_RAW;
+            storedLength = rawLength;
+            System.arraycopy(m_buffer, 0, m_compressedBuffer, HEADER_LENGTH, rawLength);
+        }
+        m_compressedBuffer[0] = method;
+        writeInt(m_compressedBuffer, 1, rawLength);
+        writeInt(m_compressedBuffer, 5, storedLength);
+        m_out.write(m_compressedBuffer, 0, HEADER_LENGTH + storedLength);
+        m_bufferPos = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (m_isClosed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static void writeInt(final byte[] b, final int off, final int value) {
+        b[off] = (byte)(value >>> 24);
+        b[off + 1] = (byte)(value >>> 16);
+        b[off + 2] = (byte)(value >>> 8);
+        b[off + 3] = (byte)value;
+    }
+
+}
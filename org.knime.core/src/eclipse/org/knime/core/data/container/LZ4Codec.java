@@ -0,0 +1,298 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pure java implementation of the LZ4 block format (no framing, no checksums). It trades compression ratio for speed
+ * and is used by {@link LZ4BlockOutputStream} and {@link LZ4BlockInputStream} to compress the binary table files.
+ *
+ * <p>
+ * The compressor uses a single hash table lookup per position (no match chains), which is what the reference
+ * implementation calls the "fast" mode. Decompression is bounds-checked, i.e. corrupt input results in an
+ * {@link IOException} and never in an {@link ArrayIndexOutOfBoundsException}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LZ4Codec {
+
+    /** Minimum length of a match. */
+    private static final int MIN_MATCH = 4;
+
+    /** Last bytes of the input that are always encoded as literals. */
+    private static final int LAST_LITERALS = 5;
+
+    /** A match must start at least that many bytes before the end of the input. */
+    private static final int MF_LIMIT = 12;
+
+    /** Inputs shorter than this are encoded as literals only. */
+    private static final int MIN_LENGTH = MF_LIMIT + 1;
+
+    /** Maximum offset of a match (format limit). */
+    private static final int MAX_DISTANCE = (1 << 16) - 1;
+
+    /** Number of bits of the hash table index. */
+    private static final int HASH_LOG = 14;
+
+    /** Number of consecutive misses after which the search step size is increased. */
+    private static final int SKIP_STRENGTH = 6;
+
+    private static final int RUN_MASK = 0x0F;
+
+    private LZ4Codec() {
+    }
+
+    /**
+     * @param length number of uncompressed bytes
+     * @return the size of the buffer that is needed to compress <code>length</code> bytes (worst case).
+     */
+    static int maxCompressedLength(final int length) {
+        return length + length / 255 + 16;
+    }
+
+    /** @return a new hash table to be passed to {@link #compress(byte[], int, int, byte[], int, int[])}. */
+    static int[] newHashTable() {
+        return new int[1 << HASH_LOG];
+    }
+
+    /**
+     * Compresses <code>src[srcOff..srcOff+srcLen)</code> into <code>dest</code>.
+     *
+     * @param src The input.
+     * @param srcOff Offset in input.
+     * @param srcLen Number of bytes to compress.
+     * @param dest Target array, must have {@link #maxCompressedLength(int)} bytes available starting at
+     *            <code>destOff</code>.
+     * @param destOff Offset in target.
+     * @param hashTable A table as created by {@link #newHashTable()}, content is overwritten (re-used to save
+     *            allocations).
+     * @return The number of bytes written to <code>dest</code>.
+     */
+    static int compress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff,
+        final int[] hashTable) {
+        final int srcEnd = srcOff + srcLen;
+        int sOff = srcOff;
+        int dOff = destOff;
+        int anchor = srcOff;
+        if (srcLen >= MIN_LENGTH) {
+            Arrays.fill(hashTable, -1);
+            final int mfLimit = srcEnd - MF_LIMIT;
+            final int matchLimit = srcEnd - LAST_LITERALS;
+            hashTable[hash(readInt(src, sOff))] = sOff;
+            sOff++;
+            int misses = 0;
+            while (sOff < mfLimit) {
+                final int sequence = readInt(src, sOff);
+                final int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    sOff += 1 + (misses++ >>> SKIP_STRENGTH);
+                    continue;
+                }
+                misses = 0;
+                // extend match backwards (as long as the bytes are not yet consumed by a previous sequence)
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (sOff + matchLength < matchLimit && src[ref + matchLength] == src[sOff + matchLength]) {
+                    matchLength++;
+                }
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLength, dest, dOff);
+                sOff += matchLength;
+                anchor = sOff;
+                if (sOff < mfLimit) {
+                    // cheap update to find matches that start right at the end of the current one
+                    hashTable[hash(readInt(src, sOff - 2))] = sOff - 2;
+                }
+            }
+        }
+        dOff = writeLastLiterals(src, anchor, srcEnd - anchor, dest, dOff);
+        return dOff - destOff;
+    }
+
+    /**
+     * Decompresses a block previously written by {@link #compress(byte[], int, int, byte[], int, int[])}.
+     *
+     * @param src The compressed input.
+     * @param srcOff Offset in input.
+     * @param srcLen Number of compressed bytes.
+     * @param dest Target array.
+     * @param destOff Offset in target.
+     * @param destLen Maximum number of bytes to write into <code>dest</code>.
+     * @return The number of decompressed bytes.
+     * @throws IOException If the input is corrupt.
+     */
+    static int decompress(final byte[] src, final int srcOff, final int srcLen, final byte[] dest, final int destOff,
+        final int destLen) throws IOException {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int sOff = srcOff;
+        int dOff = destOff;
+        while (true) {
+            if (sOff >= srcEnd) {
+                throw new IOException("Corrupt LZ4 block, unexpected end of input");
+            }
+            final int token = src[sOff++] & 0xFF;
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new IOException("Corrupt LZ4 block, unexpected end of input in literal length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    literalLength += b;
+                } while (b == 0xFF);
+            }
+            if (literalLength < 0 || literalLength > srcEnd - sOff || literalLength > destEnd - dOff) {
+                throw new IOException("Corrupt LZ4 block, invalid literal length " + literalLength);
+            }
+            System.arraycopy(src, sOff, dest, dOff, literalLength);
+            sOff += literalLength;
+            dOff += literalLength;
+            if (sOff == srcEnd) {
+                // last sequence has no match part
+                break;
+            }
+            if (srcEnd - sOff < 2) {
+                throw new IOException("Corrupt LZ4 block, unexpected end of input in match offset");
+            }
+            final int offset = (src[sOff++] & 0xFF) | ((src[sOff++] & 0xFF) << 8);
+            final int ref = dOff - offset;
+            if (offset == 0 || ref < destOff) {
+                throw new IOException("Corrupt LZ4 block, invalid match offset " + offset);
+            }
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new IOException("Corrupt LZ4 block, unexpected end of input in match length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength < 0 || matchLength > destEnd - dOff) {
+                throw new IOException("Corrupt LZ4 block, invalid match length " + matchLength);
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dest, ref, dest, dOff, matchLength);
+            } else {
+                // overlapping copy (run length encoding) -- must be done byte by byte
+                for (int i = 0; i < matchLength; i++) {
+                    dest[dOff + i] = dest[ref + i];
+                }
+            }
+            dOff += matchLength;
+        }
+        return dOff - destOff;
+    }
+
+    private static int writeSequence(final byte[] src, final int literalOff, final int literalLength,
+        final int matchOffset, final int matchLength, final byte[] dest, final int destOff) {
+        int dOff = destOff;
+        final int tokenOff = dOff++;
+        int token;
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            dOff = writeLength(literalLength - RUN_MASK, dest, dOff);
+        } else {
+            token = literalLength << 4;
+        }
+        System.arraycopy(src, literalOff, dest, dOff, literalLength);
+        dOff += literalLength;
+        dest[dOff++] = (byte)matchOffset;
+        dest[dOff++] = (byte)(matchOffset >>> 8);
+        final int encodedMatchLength = matchLength - MIN_MATCH;
+        if (encodedMatchLength >= RUN_MASK) {
+            token |= RUN_MASK;
+            dOff = writeLength(encodedMatchLength - RUN_MASK, dest, dOff);
+        } else {
+            token |= encodedMatchLength;
+        }
+        dest[tokenOff] = (byte)token;
+        return dOff;
+    }
+
+    private static int writeLastLiterals(final byte[] src, final int literalOff, final int literalLength,
+        final byte[] dest, final int destOff) {
+        int dOff = destOff;
+        if (literalLength >= RUN_MASK) {
+            dest[dOff++] = (byte)(RUN_MASK << 4);
+            dOff = writeLength(literalLength - RUN_MASK, dest, dOff);
+        } else {
+            dest[dOff++] = (byte)(literalLength << 4);
+        }
+        System.arraycopy(src, literalOff, dest, dOff, literalLength);
+        return dOff + literalLength;
+    }
+
+    private static int writeLength(final int length, final byte[] dest, final int destOff) {
+        int dOff = destOff;
+        int l = length;
+        while (l >= 0xFF) {
+            dest[dOff++] = (byte)0xFF;
+            l -= 0xFF;
+        }
+        dest[dOff++] = (byte)l;
+        return dOff;
+    }
+
+    private static int readInt(final byte[] b, final int off) {
+        return (b[off] & 0xFF) | ((b[off + 1] & 0xFF) << 8) | ((b[off + 2] & 0xFF) << 16) | ((b[off + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(final int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+}
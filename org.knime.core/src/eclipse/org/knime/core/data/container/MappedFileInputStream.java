@@ -0,0 +1,223 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Input stream on a file that starts reading at an arbitrary position. The file is memory-mapped in segments of
+ * {@link #MAP_SEGMENT_SIZE} bytes so that repeated positioning (as done by range iterators on a table) is served from
+ * the OS page cache without copying through a {@link java.io.BufferedInputStream}.
+ *
+ * <p>
+ * On Windows a mapped file can't be deleted until the mapping is garbage collected (compare bug #63 about temp files
+ * not being deleted), hence the stream falls back to positional reads on the file channel there.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class MappedFileInputStream extends InputStream {
+
+    /** Max size of a single mapped region. */
+    static final int MAP_SEGMENT_SIZE = 1 << 28;
+
+    /** Size of the read buffer used when mapping is disabled. */
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    /** Whether files are mapped (false on Windows). */
+    static final boolean IS_USE_MAPPING = !Platform.OS_WIN32.equals(Platform.getOS());
+
+    private final FileChannel m_channel;
+
+    private final long m_fileSize;
+
+    private final boolean m_isUseMapping;
+
+    /** File position of the first byte in {@link #m_buffer}. */
+    private long m_bufferStart;
+
+    /** Current data, either a mapped region or a heap buffer filled by positional reads. */
+    private ByteBuffer m_buffer;
+
+    private boolean m_isClosed;
+
+    /**
+     * Opens the file and positions the stream.
+     *
+     * @param file The file to read.
+     * @param position The position of the first byte to read.
+     * @throws IOException If the file can't be opened.
+     */
+    MappedFileInputStream(final File file, final long position) throws IOException {
+        this(file, position, IS_USE_MAPPING);
+    }
+
+    /**
+     * Opens the file and positions the stream.
+     *
+     * @param file The file to read.
+     * @param position The position of the first byte to read.
+     * @param useMapping Whether to memory-map the file or use positional reads.
+     * @throws IOException If the file can't be opened.
+     */
+    MappedFileInputStream(final File file, final long position, final boolean useMapping) throws IOException {
+        m_channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        m_fileSize = m_channel.size();
+        if (position < 0 || position > m_fileSize) {
+            m_channel.close();
+            throw new IOException("Invalid position " + position + " in file \"" + file.getName() + "\" ("
+                + m_fileSize + " bytes)");
+        }
+        m_isUseMapping = useMapping;
+        m_bufferStart = position;
+        m_buffer = ByteBuffer.allocate(0);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return m_buffer.get() & 0xFF;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        final int count = Math.min(len, m_buffer.remaining());
+        m_buffer.get(b, off, count);
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long skip(final long n) throws IOException {
+        ensureOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        final long position = m_bufferStart + m_buffer.position();
+        final long skipped = Math.min(n, m_fileSize - position);
+        if (skipped < m_buffer.remaining()) {
+            m_buffer.position(m_buffer.position() + (int)skipped);
+        } else {
+            m_bufferStart = position + skipped;
+            m_buffer = ByteBuffer.allocate(0);
+        }
+        return skipped;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return m_buffer.remaining();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (!m_isClosed) {
+            m_isClosed = true;
+            m_buffer = null;
+            m_channel.close();
+        }
+    }
+
+    /** Maps or reads the next region if the current one is consumed.
+     * @return false if the end of file is reached. */
+    private boolean ensureData() throws IOException {
+        ensureOpen();
+        if (m_buffer.hasRemaining()) {
+            return true;
+        }
+        final long position = m_bufferStart + m_buffer.position();
+        if (position >= m_fileSize) {
+            return false;
+        }
+        final long length = Math.min(m_fileSize - position, m_isUseMapping ? MAP_SEGMENT_SIZE : READ_BUFFER_SIZE);
+        if (m_isUseMapping) {
+            m_buffer = m_channel.map(MapMode.READ_ONLY, position, length);
+        } else {
+            ByteBuffer buffer =
+                m_buffer.capacity() == READ_BUFFER_SIZE ? m_buffer : ByteBuffer.allocate(READ_BUFFER_SIZE);
+            buffer.clear();
+            buffer.limit((int)length);
+            while (buffer.hasRemaining()) {
+                if (m_channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            m_buffer = buffer;
+        }
+        m_bufferStart = position;
+        return m_buffer.hasRemaining();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (m_isClosed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.Arrays;
+
+/**
+ * Sparse index on the rows of a table stream. It memorizes the (uncompressed) stream offset of every
+ * {@link #GRANULARITY}-th row, which allows to position an iterator on an arbitrary row by seeking to the closest
+ * preceding indexed row and skipping less than {@link #GRANULARITY} rows from there.
+ *
+ * <p>
+ * The index is kept in memory only (8 bytes per {@link #GRANULARITY} rows), it is either filled while the table is
+ * written or lazily by a single scan over the file (see {@link DefaultTableStoreReader}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class RowOffsetIndex {
+
+    /** Every n-th row is indexed. */
+    static final int GRANULARITY = 32;
+
+    private long[] m_offsets = new long[64];
+
+    private int m_size;
+
+    /** Number of rows in the table, -1 until {@link #onTableEnd(long, long)} is called. */
+    private long m_rowCount = -1L;
+
+    /** Stream offset after the last row. */
+    private long m_endOffset;
+
+    /**
+     * Called for each row in the table, in order. Adds the offset to the index if the row is one of the indexed rows.
+     *
+     * @param row The index of the row.
+     * @param offset The offset of the row's first byte in the stream.
+     */
+    void onRowStart(final long row, final long offset) {
+        if (row % GRANULARITY != 0) {
+            return;
+        }
+        assert row / GRANULARITY == m_size : "Rows not added in order: " + row;
+        if (m_size == m_offsets.length) {
+            m_offsets = Arrays.copyOf(m_offsets, m_offsets.length * 2);
+        }
+        m_offsets[m_size++] = offset;
+    }
+
+    /**
+     * Called after the last row of the table. Memorizes the end of the stream, which is the position of an empty
+     * range at the end of the table if the row count is a multiple of {@link #GRANULARITY} (including empty tables).
+     *
+     * @param rowCount The number of rows in the table.
+     * @param offset The offset after the last row's last byte.
+     */
+    void onTableEnd(final long rowCount, final long offset) {
+        m_rowCount = rowCount;
+        m_endOffset = offset;
+    }
+
+    /**
+     * Get the indexed row that is closest to (not after) the argument row.
+     *
+     * @param row The row of interest.
+     * @return The indexed row, i.e. {@code row - row % GRANULARITY}.
+     */
+    static long getIndexedRow(final long row) {
+        return row - row % GRANULARITY;
+    }
+
+    /**
+     * Get the stream offset of the indexed row closest to (not after) the argument row.
+     *
+     * @param row The row of interest, must not be larger than the number of rows added.
+     * @return The offset of row {@link #getIndexedRow(long)}, or the end of the stream if that is the row after the
+     *         last row.
+     */
+    long getOffset(final long row) {
+        final long slot = row / GRANULARITY;
+        if (slot == m_size && getIndexedRow(row) == m_rowCount) {
+            return m_endOffset;
+        }
+        if (slot >= m_size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is not indexed (" + m_size + " index entries)");
+        }
+        return m_offsets[(int)slot];
+    }
+
+}
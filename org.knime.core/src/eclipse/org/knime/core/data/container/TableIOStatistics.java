@@ -0,0 +1,478 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.ObjectName;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Counters and timers on the reading and writing of tables ({@link Buffer} and {@link DataContainer}): bytes and
+ * rows read and written, tables swapped to disk, blob files, the time spent waiting on the asynchronous table writer
+ * threads and optionally the (de)serialization time per cell type.
+ *
+ * <p>
+ * The statistics are global to the JVM. They are exposed via JMX (see {@link TableIOStatisticsMXBean}) and
+ * programmatically via {@link #getSnapshot()}. Counting is cheap and always on; measuring the time per cell is only
+ * done if enabled via {@link KNIMEConstants#PROPERTY_TABLE_IO_CELL_TIMING} or {@link #setCellTimingEnabled(boolean)}.
+ * Times of collection cells include the times of their elements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class TableIOStatistics implements TableIOStatisticsMXBean {
+
+    /** The name under which the statistics are registered with the platform MBean server. */
+    public static final String OBJECT_NAME = "org.knime.core:type=TableIOStatistics";
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(TableIOStatistics.class);
+
+    private static final TableIOStatistics INSTANCE = new TableIOStatistics();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            LOGGER.debug("Unable to register table I/O statistics with the MBean server: " + e.getMessage(), e);
+        }
+    }
+
+    private final LongAdder m_rowsWritten = new LongAdder();
+
+    private final LongAdder m_bytesWritten = new LongAdder();
+
+    private final LongAdder m_rowsRead = new LongAdder();
+
+    private final LongAdder m_bytesRead = new LongAdder();
+
+    private final LongAdder m_spillCount = new LongAdder();
+
+    private final LongAdder m_memoryAlertSpillCount = new LongAdder();
+
+    private final LongAdder m_spilledBytes = new LongAdder();
+
+    private final LongAdder m_blobWriteCount = new LongAdder();
+
+    private final LongAdder m_blobBytesWritten = new LongAdder();
+
+    private final LongAdder m_asyncProducerWaitNanos = new LongAdder();
+
+    private final LongAdder m_asyncWriterWaitNanos = new LongAdder();
+
+    private final ConcurrentMap<Class<?>, CellTiming> m_serializationTimes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, CellTiming> m_deserializationTimes = new ConcurrentHashMap<>();
+
+    private volatile boolean m_isCellTimingEnabled = Boolean.getBoolean(KNIMEConstants.PROPERTY_TABLE_IO_CELL_TIMING);
+
+    private TableIOStatistics() {
+    }
+
+    /** @return the singleton instance, not null. */
+    public static TableIOStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /** @return an immutable copy of the current values. */
+    public Snapshot getSnapshot() {
+        return new Snapshot(this);
+    }
+
+    /** Called when a table file was written completely.
+     * @param rows number of rows in the file
+     * @param bytes number of uncompressed bytes */
+    void onTableWritten(final long rows, final long bytes) {
+        m_rowsWritten.add(rows);
+        m_bytesWritten.add(bytes);
+    }
+
+    /** Called when an iterator on a table file was closed.
+     * @param rows number of rows read
+     * @param bytes number of uncompressed bytes read */
+    void onTableRead(final long rows, final long bytes) {
+        m_rowsRead.add(rows);
+        m_bytesRead.add(bytes);
+    }
+
+    /** Called when an in-memory table starts to be written to a temporary file. */
+    void onSpill() {
+        m_spillCount.increment();
+    }
+
+    /** Called when a table is swapped to disk to free memory (in addition to {@link #onSpill()}). */
+    void onMemoryAlertSpill() {
+        m_memoryAlertSpillCount.increment();
+    }
+
+    /** @param bytes size of a temporary file that has been closed */
+    void onBytesSpilled(final long bytes) {
+        m_spilledBytes.add(bytes);
+    }
+
+    /** @param bytes size of a blob file that has been written */
+    void onBlobWritten(final long bytes) {
+        m_blobWriteCount.increment();
+        m_blobBytesWritten.add(bytes);
+    }
+
+    /** @param nanos time a node thread waited for the asynchronous writer */
+    void onAsyncProducerWait(final long nanos) {
+        m_asyncProducerWaitNanos.add(nanos);
+    }
+
+    /** @param nanos time an asynchronous writer thread waited for rows */
+    void onAsyncWriterWait(final long nanos) {
+        m_asyncWriterWaitNanos.add(nanos);
+    }
+
+    /** @param cellClass class of the serialized cell
+     * @param nanos time it took to write the cell */
+    void onCellSerialized(final Class<?> cellClass, final long nanos) {
+        m_serializationTimes.computeIfAbsent(cellClass, c -> new CellTiming()).add(nanos);
+    }
+
+    /** @param cellClass class of the deserialized cell
+     * @param nanos time it took to read the cell */
+    void onCellDeserialized(final Class<?> cellClass, final long nanos) {
+        m_deserializationTimes.computeIfAbsent(cellClass, c -> new CellTiming()).add(nanos);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getRowsWritten() {
+        return m_rowsWritten.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getBytesWritten() {
+        return m_bytesWritten.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getRowsRead() {
+        return m_rowsRead.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getBytesRead() {
+        return m_bytesRead.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSpillCount() {
+        return m_spillCount.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMemoryAlertSpillCount() {
+        return m_memoryAlertSpillCount.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getSpilledBytes() {
+        return m_spilledBytes.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getBlobWriteCount() {
+        return m_blobWriteCount.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getBlobBytesWritten() {
+        return m_blobBytesWritten.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getAsyncProducerWaitNanos() {
+        return m_asyncProducerWaitNanos.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getAsyncWriterWaitNanos() {
+        return m_asyncWriterWaitNanos.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Long> getSerializationNanosPerCellType() {
+        return toMap(m_serializationTimes, t -> t.m_nanos.sum());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Long> getSerializationCountPerCellType() {
+        return toMap(m_serializationTimes, t -> t.m_count.sum());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Long> getDeserializationNanosPerCellType() {
+        return toMap(m_deserializationTimes, t -> t.m_nanos.sum());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Long> getDeserializationCountPerCellType() {
+        return toMap(m_deserializationTimes, t -> t.m_count.sum());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isCellTimingEnabled() {
+        return m_isCellTimingEnabled;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setCellTimingEnabled(final boolean enabled) {
+        m_isCellTimingEnabled = enabled;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reset() {
+        for (LongAdder a : new LongAdder[]{m_rowsWritten, m_bytesWritten, m_rowsRead, m_bytesRead, m_spillCount,
+            m_memoryAlertSpillCount, m_spilledBytes, m_blobWriteCount, m_blobBytesWritten, m_asyncProducerWaitNanos,
+            m_asyncWriterWaitNanos}) {
+            a.reset();
+        }
+        m_serializationTimes.clear();
+        m_deserializationTimes.clear();
+    }
+
+    private static Map<String, Long> toMap(final Map<Class<?>, CellTiming> timings,
+        final ToLongFunction<CellTiming> value) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<Class<?>, CellTiming> e : timings.entrySet()) {
+            result.merge(e.getKey().getName(), value.applyAsLong(e.getValue()), Long::sum);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /** Count and accumulated time of a single cell class. */
+    private static final class CellTiming {
+
+        private final LongAdder m_count = new LongAdder();
+
+        private final LongAdder m_nanos = new LongAdder();
+
+        void add(final long nanos) {
+            m_count.increment();
+            m_nanos.add(nanos);
+        }
+    }
+
+    /**
+     * Immutable copy of the statistics at a given point in time. Two snapshots can be subtracted to get the
+     * statistics of an interval, see {@link #minus(Snapshot)}.
+     */
+    public static final class Snapshot {
+
+        private final long m_timestamp;
+
+        private final long[] m_values;
+
+        private final Map<String, Long> m_serializationNanos;
+
+        private final Map<String, Long> m_serializationCounts;
+
+        private final Map<String, Long> m_deserializationNanos;
+
+        private final Map<String, Long> m_deserializationCounts;
+
+        private Snapshot(final TableIOStatistics s) {
+            m_timestamp = System.currentTimeMillis();
+            m_values = new long[]{s.getRowsWritten(), s.getBytesWritten(), s.getRowsRead(), s.getBytesRead(),
+                s.getSpillCount(), s.getMemoryAlertSpillCount(), s.getSpilledBytes(), s.getBlobWriteCount(),
+                s.getBlobBytesWritten(), s.getAsyncProducerWaitNanos(), s.getAsyncWriterWaitNanos()};
+            m_serializationNanos = s.getSerializationNanosPerCellType();
+            m_serializationCounts = s.getSerializationCountPerCellType();
+            m_deserializationNanos = s.getDeserializationNanosPerCellType();
+            m_deserializationCounts = s.getDeserializationCountPerCellType();
+        }
+
+        private Snapshot(final Snapshot s, final Snapshot earlier) {
+            m_timestamp = s.m_timestamp;
+            m_values = new long[s.m_values.length];
+            for (int i = 0; i < m_values.length; i++) {
+                m_values[i] = s.m_values[i] - earlier.m_values[i];
+            }
+            m_serializationNanos = minus(s.m_serializationNanos, earlier.m_serializationNanos);
+            m_serializationCounts = minus(s.m_serializationCounts, earlier.m_serializationCounts);
+            m_deserializationNanos = minus(s.m_deserializationNanos, earlier.m_deserializationNanos);
+            m_deserializationCounts = minus(s.m_deserializationCounts, earlier.m_deserializationCounts);
+        }
+
+        private static Map<String, Long> minus(final Map<String, Long> m, final Map<String, Long> earlier) {
+            Map<String, Long> result = new TreeMap<>(m);
+            earlier.forEach((k, v) -> result.merge(k, -v, Long::sum));
+            return Collections.unmodifiableMap(result);
+        }
+
+        /**
+         * Get the difference of this and an earlier snapshot, e.g. to determine the I/O of a single workflow
+         * execution. Note that the difference is meaningless if the statistics have been
+         * {@linkplain TableIOStatistics#reset() reset} in between.
+         *
+         * @param earlier a snapshot taken before this one, not null
+         * @return a snapshot containing the differences
+         */
+        public Snapshot minus(final Snapshot earlier) {
+            return new Snapshot(this, earlier);
+        }
+
+        /** @return the time when the snapshot was taken (milliseconds since epoch). */
+        public long getTimestamp() {
+            return m_timestamp;
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getRowsWritten()} */
+        public long getRowsWritten() {
+            return m_values[0];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getBytesWritten()} */
+        public long getBytesWritten() {
+            return m_values[1];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getRowsRead()} */
+        public long getRowsRead() {
+            return m_values[2];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getBytesRead()} */
+        public long getBytesRead() {
+            return m_values[3];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getSpillCount()} */
+        public long getSpillCount() {
+            return m_values[4];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getMemoryAlertSpillCount()} */
+        public long getMemoryAlertSpillCount() {
+            return m_values[5];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getSpilledBytes()} */
+        public long getSpilledBytes() {
+            return m_values[6];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getBlobWriteCount()} */
+        public long getBlobWriteCount() {
+            return m_values[7];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getBlobBytesWritten()} */
+        public long getBlobBytesWritten() {
+            return m_values[8];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getAsyncProducerWaitNanos()} */
+        public long getAsyncProducerWaitNanos() {
+            return m_values[9];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getAsyncWriterWaitNanos()} */
+        public long getAsyncWriterWaitNanos() {
+            return m_values[10];
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getSerializationNanosPerCellType()} */
+        public Map<String, Long> getSerializationNanosPerCellType() {
+            return m_serializationNanos;
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getSerializationCountPerCellType()} */
+        public Map<String, Long> getSerializationCountPerCellType() {
+            return m_serializationCounts;
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getDeserializationNanosPerCellType()} */
+        public Map<String, Long> getDeserializationNanosPerCellType() {
+            return m_deserializationNanos;
+        }
+
+        /** @return see {@link TableIOStatisticsMXBean#getDeserializationCountPerCellType()} */
+        public Map<String, Long> getDeserializationCountPerCellType() {
+            return m_deserializationCounts;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return String.format("written: %d rows (%d bytes), read: %d rows (%d bytes), spilled: %d tables "
+                + "(%d on low memory, %d bytes), blobs: %d (%d bytes), async wait: %dms producer / %dms writer",
+                getRowsWritten(), getBytesWritten(), getRowsRead(), getBytesRead(), getSpillCount(),
+                getMemoryAlertSpillCount(), getSpilledBytes(), getBlobWriteCount(), getBlobBytesWritten(),
+                getAsyncProducerWaitNanos() / 1000000L, getAsyncWriterWaitNanos() / 1000000L);
+        }
+    }
+
+}
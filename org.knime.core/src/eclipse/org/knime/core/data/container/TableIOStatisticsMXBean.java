@@ -0,0 +1,119 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link TableIOStatistics}, registered with the platform MBean server under the name
+ * {@value TableIOStatistics#OBJECT_NAME}. All counters are cumulative since the start of the JVM (or the last
+ * {@link #reset()}) and are summed up over all tables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public interface TableIOStatisticsMXBean {
+
+    /** @return number of rows written to table files (temporary and saved tables). */
+    long getRowsWritten();
+
+    /** @return number of uncompressed bytes written to table files. */
+    long getBytesWritten();
+
+    /** @return number of rows read from table files. */
+    long getRowsRead();
+
+    /** @return number of uncompressed bytes read from table files. */
+    long getBytesRead();
+
+    /** @return number of tables that were swapped from memory to a temporary file. */
+    long getSpillCount();
+
+    /** @return number of tables that were swapped to disk because of a low memory condition (a subset of
+     *         {@link #getSpillCount()}). */
+    long getMemoryAlertSpillCount();
+
+    /** @return size in bytes of the temporary table and blob files (as on disk, i.e. compressed). */
+    long getSpilledBytes();
+
+    /** @return number of blob cells written to individual blob files. */
+    long getBlobWriteCount();
+
+    /** @return size in bytes of the written blob files. */
+    long getBlobBytesWritten();
+
+    /** @return time in nanoseconds that node threads were blocked because the asynchronous table writer threads
+     *         did not keep up. */
+    long getAsyncProducerWaitNanos();
+
+    /** @return time in nanoseconds that the asynchronous table writer threads were waiting for rows. */
+    long getAsyncWriterWaitNanos();
+
+    /** @return accumulated serialization time in nanoseconds per cell class, only filled when
+     *         {@linkplain #isCellTimingEnabled() enabled}. */
+    Map<String, Long> getSerializationNanosPerCellType();
+
+    /** @return number of serialized cells per cell class, only filled when {@linkplain #isCellTimingEnabled()
+     *         enabled}. */
+    Map<String, Long> getSerializationCountPerCellType();
+
+    /** @return accumulated deserialization time in nanoseconds per cell class, only filled when
+     *         {@linkplain #isCellTimingEnabled() enabled}. */
+    Map<String, Long> getDeserializationNanosPerCellType();
+
+    /** @return number of deserialized cells per cell class, only filled when {@linkplain #isCellTimingEnabled()
+     *         enabled}. */
+    Map<String, Long> getDeserializationCountPerCellType();
+
+    /** @return whether the (de)serialization time per cell type is measured. */
+    boolean isCellTimingEnabled();
+
+    /** @param enabled whether to measure the (de)serialization time per cell type. */
+    void setCellTimingEnabled(boolean enabled);
+
+    /** Sets all counters back to zero. */
+    void reset();
+
+}
@@ -55,6 +55,7 @@
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -62,6 +63,7 @@
 import org.apache.commons.io.IOUtils;
 import org.eclipse.core.runtime.Platform;
 import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
@@ -198,6 +200,45 @@ public TableStoreCloseableRowIterator build() {
         };
     }
 
+    /**
+     * Returns a row iterator over the rows with index <code>fromIndex</code> (inclusive) to <code>toIndex</code>
+     * (exclusive). The iterator is registered with this reader, i.e. it gets closed when the table is cleared.
+     *
+     * @param fromIndex index of the first row to return, 0-based
+     * @param toIndex index of the row after the last row to return, at most {@link Buffer#size()}
+     * @return a row iterator over the given range
+     * @throws IndexOutOfBoundsException if the range is invalid
+     * @since 3.7
+     */
+    public final TableStoreCloseableRowIterator iterator(final long fromIndex, final long toIndex) {
+        final long size = m_buffer.size();
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                String.format("Invalid row range [%d, %d) in table with %d rows", fromIndex, toIndex, size));
+        }
+        TableStoreCloseableRowIterator iterator = createRangeIterator(fromIndex, toIndex);
+        registerNewIteratorInstance(iterator);
+        return iterator;
+    }
+
+    /**
+     * Creates the (not yet registered) iterator for {@link #iterator(long, long)}. The default implementation
+     * iterates the table from the start and discards the rows before <code>fromIndex</code>; subclasses should
+     * overwrite it if the format supports positioning on a row.
+     *
+     * @param fromIndex index of the first row to return, valid
+     * @param toIndex index of the row after the last row to return, valid
+     * @return a new row iterator over the given range
+     * @since 3.7
+     */
+    protected TableStoreCloseableRowIterator createRangeIterator(final long fromIndex, final long toIndex) {
+        final TableStoreCloseableRowIterator iterator = iterator();
+        for (long i = 0; i < fromIndex && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        return new RangeRowIterator(iterator, toIndex - fromIndex);
+    }
+
     /**
      * Reads meta information, such as the classes of serialized {@link DataCell} instances.
      *
@@ -409,4 +450,41 @@ public final void close() {
         public abstract boolean performClose() throws IOException;
     }
 
+    /** Iterator returning a fixed number of rows from a delegate, used by the default
+     * {@link AbstractTableStoreReader#createRangeIterator(long, long)}. */
+    private static final class RangeRowIterator extends TableStoreCloseableRowIterator {
+
+        private final TableStoreCloseableRowIterator m_delegate;
+
+        private long m_remaining;
+
+        RangeRowIterator(final TableStoreCloseableRowIterator delegate, final long count) {
+            m_delegate = delegate;
+            m_remaining = count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return m_remaining > 0 && m_delegate.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataRow next() {
+            if (m_remaining <= 0) {
+                throw new NoSuchElementException("Iterator at end");
+            }
+            m_remaining--;
+            return m_delegate.next();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean performClose() throws IOException {
+            m_remaining = 0;
+            return m_delegate.performClose();
+        }
+    }
+
 }
@@ -51,6 +51,7 @@
 import java.text.NumberFormat;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -62,6 +63,9 @@
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -78,7 +82,10 @@
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Class to sort a table. See <a href="package.html">package description</a> for details.
@@ -98,6 +105,24 @@ abstract class AbstractTableSorter {
      */
     public static final int DEF_MAX_OPENCONTAINER = 40;
 
+    /**
+     * Upper bound for the number of open containers if it's derived from the available heap (i.e. if not set via
+     * {@link #setMaxOpenContainers(int)}).
+     */
+    static final int MAX_ADAPTIVE_OPENCONTAINER = 256;
+
+    /** Lower bound of the fan-in of the intermediate merges run in parallel. */
+    private static final int MIN_PARALLEL_FANIN = 8;
+
+    /**
+     * Minimum number of rows of a chunk written in parallel because memory is low. Memory stays low while the pending
+     * chunks are written, cutting chunks earlier would create many tiny temporary tables the merge has to open.
+     */
+    static final int MIN_ROWS_PER_PARALLEL_CHUNK = 10000;
+
+    /** Estimated heap used by an open container during merging (stream buffers, decompressor, current row). */
+    private static final long ESTIMATED_BYTES_PER_OPENCONTAINER = 1L << 20;
+
     private MemoryAlertSystem m_memService = MemoryAlertSystem.getInstance();
 
     private final DataTable m_inputTable;
@@ -111,6 +136,21 @@ abstract class AbstractTableSorter {
      */
     private int m_maxOpenContainers = DEF_MAX_OPENCONTAINER;
 
+    /**
+     * Whether {@link #m_maxOpenContainers} was set by the client, otherwise the fan-in of a parallel sort is derived
+     * from the heap.
+     */
+    private boolean m_isMaxOpenContainersSet;
+
+    /** Number of threads used to write the initial chunks and the intermediate merges, 1 for sequential sorting. */
+    private int m_parallelism = 1;
+
+    /** Pool running the chunk tasks, only non-null during {@link #sortOnDisk(ExecutionMonitor)} if parallel. */
+    private ThreadPool m_workerPool;
+
+    /** Guards creation/closing and clearing of temporary tables, which modifies the node's table repository. */
+    private final Object m_containerLock = new Object();
+
     /**
      * Maximum number of rows. Only changed in unit test. Defaults to {@link Integer#MAX_VALUE}.
      */
@@ -121,6 +161,12 @@ abstract class AbstractTableSorter {
     /** The RowComparator to compare two DataRows (inner class). */
     private Comparator<DataRow> m_rowComparator;
 
+    /** Key encoder equivalent to {@link #m_rowComparator}, null if not a {@link RowComparator} or not supported. */
+    private NormalizedSortKey m_normalizedSortKey;
+
+    /** See {@link #setUseNormalizedKeys(boolean)}. */
+    private boolean m_useNormalizedKeys = true;
+
     private DataContainer m_currentContainer;
 
     private Queue<Iterable<DataRow>> m_chunksContainer = new LinkedList<Iterable<DataRow>>();
@@ -164,6 +210,7 @@ private AbstractTableSorter(final DataTable inputTable, final long rowsCount) {
         final Comparator<DataRow> rowComparator) {
         m_dataTableSpec = dataTableSpec;
         m_rowComparator = rowComparator;
+        m_normalizedSortKey = createNormalizedSortKey(rowComparator);
         m_inputTable = null;
         m_rowsInInputTable = rowsCount;
     }
@@ -278,6 +325,68 @@ public void setRowComparator(final Comparator<DataRow> rowComparator) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_rowComparator = rowComparator;
+        m_normalizedSortKey = createNormalizedSortKey(rowComparator);
+    }
+
+    private static NormalizedSortKey createNormalizedSortKey(final Comparator<DataRow> rowComparator) {
+        if (rowComparator instanceof RowComparator) {
+            return ((RowComparator)rowComparator).createNormalizedSortKey();
+        }
+        return null;
+    }
+
+    /**
+     * @return whether normalized binary keys are used, see {@link #setUseNormalizedKeys(boolean)}.
+     * @since 3.7
+     */
+    public boolean getUseNormalizedKeys() {
+        return m_useNormalizedKeys;
+    }
+
+    /**
+     * Whether to compare rows using precomputed binary keys instead of the column comparators. The keys are computed
+     * once per row when a chunk is sorted or a row is read during merging; they are only used if the sort columns are
+     * set via {@link #setSortColumns(Collection, boolean[], boolean)} and all have a supported type (int, long,
+     * double, string, date&amp;time or the row key), otherwise the column comparators are used. The sort result is
+     * identical in both cases.
+     *
+     * <p>
+     * The default is <b>true</b>.
+     *
+     * @param useNormalizedKeys the value to set
+     * @since 3.7
+     */
+    public void setUseNormalizedKeys(final boolean useNormalizedKeys) {
+        m_useNormalizedKeys = useNormalizedKeys;
+    }
+
+    /** @return the key encoder to use or null if rows are compared using the {@link #m_rowComparator}. */
+    private NormalizedSortKey getNormalizedSortKey() {
+        return m_useNormalizedKeys ? m_normalizedSortKey : null;
+    }
+
+    /**
+     * Sorts the argument list (stable), using normalized keys if possible.
+     *
+     * @param rows the list to sort
+     */
+    private void sortRows(final List<DataRow> rows) {
+        final NormalizedSortKey sortKey = getNormalizedSortKey();
+        if (sortKey == null) {
+            Collections.sort(rows, m_rowComparator);
+            return;
+        }
+        final int size = rows.size();
+        final KeyedRow[] keyedRows = new KeyedRow[size];
+        for (int i = 0; i < size; i++) {
+            DataRow row = rows.get(i);
+            keyedRows[i] = new KeyedRow(sortKey.encode(row), row);
+        }
+        // merge sort on objects, stable
+        Arrays.sort(keyedRows);
+        for (int i = 0; i < size; i++) {
+            rows.set(i, keyedRows[i].m_row);
+        }
     }
 
     /**
@@ -350,7 +459,9 @@ public int getMaxOpenContainers() {
      * sort, the higher the number the fewer iterations in the final merge need to be done.
      *
      * <p>
-     * The default is {@value #DEF_MAX_OPENCONTAINER}.
+     * If not set, the number is {@value #DEF_MAX_OPENCONTAINER}. Only if the sorting is done in parallel (see
+     * {@link #setParallelism(int)}) the number is derived from the available heap when the sorting starts; it's then
+     * at least {@value #DEF_MAX_OPENCONTAINER} and at most {@value #MAX_ADAPTIVE_OPENCONTAINER}.
      *
      * @param value the maxOpenContainers to number of maximal open containers.
      * @throws IllegalArgumentException If argument is smaller or equal to 2.
@@ -360,6 +471,53 @@ public void setMaxOpenContainers(final int value) {
             throw new IllegalArgumentException("Invalid open container count: " + value);
         }
         m_maxOpenContainers = value;
+        m_isMaxOpenContainersSet = true;
+    }
+
+    /**
+     * @return the number of threads used for sorting, see {@link #setParallelism(int)}.
+     * @since 3.7
+     */
+    public int getParallelism() {
+        return m_parallelism;
+    }
+
+    /**
+     * Sets the number of threads used when sorting on disk. With a value larger than 1 the temporary tables are sorted
+     * and written by workers of the {@link KNIMEConstants#GLOBAL_THREAD_POOL} while the input is still read, and if
+     * more temporary tables exist than can be opened at once, they are merged as a tree of concurrent merges. The
+     * final merge into the output table is always done by the calling thread.
+     *
+     * <p>
+     * The default is 1, i.e. sequential sorting. Unless set via {@link #setMaxOpenContainers(int)}, a parallel sort
+     * derives the number of open containers from the available heap.
+     *
+     * @param parallelism the number of threads, at least 1
+     * @throws IllegalArgumentException If argument is smaller than 1.
+     * @since 3.7
+     */
+    public void setParallelism(final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        m_parallelism = parallelism;
+    }
+
+    /**
+     * The maximum number of containers opened in a single merge. Unless set explicitly or if sorting sequentially this
+     * is {@link #DEF_MAX_OPENCONTAINER}, for a parallel sort it's derived from the heap available at the time of the
+     * call.
+     *
+     * @return the fan-in of the merge
+     */
+    private int getMergeFanIn() {
+        if (m_isMaxOpenContainersSet || m_parallelism <= 1) {
+            return m_maxOpenContainers;
+        }
+        long available = MemoryAlertSystem.getMaximumMemory() - MemoryAlertSystem.getUsedMemory();
+        // use at most a quarter of the free heap for the input buffers of the merge
+        long fanIn = available / (4 * ESTIMATED_BYTES_PER_OPENCONTAINER);
+        return (int)Math.max(DEF_MAX_OPENCONTAINER, Math.min(MAX_ADAPTIVE_OPENCONTAINER, fanIn));
     }
 
     /**
@@ -451,7 +609,7 @@ private DataTable sortInMemory(final ExecutionMonitor exec) throws CanceledExecu
         }
 
         exec.setMessage("Sorting");
-        Collections.sort(rowList, m_rowComparator);
+        sortRows(rowList);
 
         exec.setMessage("Creating sorted table");
 
@@ -501,17 +659,25 @@ private DataTable sortOnDisk(final ExecutionMonitor exec) throws CanceledExecuti
 
         m_progress = 0.0;
         m_incProgress = m_rowsInInputTable <= 0 ? -1.0 : 1.0 / (2.0 * m_rowsInInputTable);
-        long counter = createInitialChunks(exec, dataTable);
-        // no or one row only in input table, can exit immediately
-        // (can't rely on global rowCount - might not be set)
-        if (counter <= 1) {
-            return m_inputTable;
+        if (m_parallelism > 1) {
+            m_workerPool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_parallelism);
         }
+        Iterator<DataRow> result;
+        try {
+            long counter = createInitialChunks(exec, dataTable);
+            // no or one row only in input table, can exit immediately
+            // (can't rely on global rowCount - might not be set)
+            if (counter <= 1) {
+                return m_inputTable;
+            }
 
-        exec.setMessage("Merging temporary tables");
-        // The final output container
-        // merge chunks until there are only so much left, as m_maxopencontainers
-        Iterator<DataRow> result = mergeChunks(exec, false);
+            exec.setMessage("Merging temporary tables");
+            // The final output container
+            // merge chunks until there are only so much left, as m_maxopencontainers
+            result = mergeChunks(exec, false);
+        } finally {
+            m_workerPool = null;
+        }
 
         // add results to the final container
         // The final output container, leave it to the
@@ -527,29 +693,33 @@ private DataTable sortOnDisk(final ExecutionMonitor exec) throws CanceledExecuti
     /**
      * @param exec execution context
      * @param mergeCompletely if <code>true</code> the chunks are merged until only one chunk is left, otherwise the
-     *            algorithm returns after at most {@link #m_maxOpenContainers} chunks are used
+     *            algorithm returns after at most {@link #getMaxOpenContainers() max open containers} chunks are used
      * @return an iterator returning the sorted, merged result
      * @throws CanceledExecutionException if the algorithm has been canceled
      */
     Iterator<DataRow> mergeChunks(final ExecutionMonitor exec, final boolean mergeCompletely)
         throws CanceledExecutionException {
+        final int maxOpenContainers = getMergeFanIn();
+        if (m_workerPool != null && m_chunksContainer.size() > maxOpenContainers) {
+            mergeChunksInParallel(exec, maxOpenContainers);
+        }
         while (!m_chunksContainer.isEmpty()) {
             exec.setMessage("Merging temporary tables, " + m_chunksContainer.size() + " remaining");
-            if (m_chunksContainer.size() < m_maxOpenContainers) {
+            if (m_chunksContainer.size() < maxOpenContainers) {
                 if (m_rowsInInputTable > 0) {
                     m_incProgress = (1.0 - m_progress) / m_rowsInInputTable;
                 }
             } else {
                 if (m_rowsInInputTable > 0) {
                     double estimatedReads =
-                        Math.ceil(m_chunksContainer.size() / (double)m_maxOpenContainers) * m_rowsInInputTable;
+                        Math.ceil(m_chunksContainer.size() / (double)maxOpenContainers) * m_rowsInInputTable;
                     m_incProgress = (1.0 - m_progress) / estimatedReads;
                 }
             }
 
             Queue<MergeEntry> containersToMerge = new ArrayDeque<>();
 
-            for (int i = 0; !m_chunksContainer.isEmpty() && i < m_maxOpenContainers; i++) {
+            for (int i = 0; !m_chunksContainer.isEmpty() && i < maxOpenContainers; i++) {
                 containersToMerge.add(new MergeEntry(m_chunksContainer.poll(), i, m_rowComparator));
             }
 
@@ -587,6 +757,10 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
         int rowsInCurrentChunk = 0;
 
         MemoryActionIndicator memObservable = m_memService.newIndicator();
+        // chunks sorted and written by the worker pool (if parallel), in order of the input
+        List<Future<DataTable>> chunkFutures = new ArrayList<>();
+        final int minRowsPerLowMemoryChunk = m_workerPool != null
+            ? Math.min(MIN_ROWS_PER_PARALLEL_CHUNK, m_maxRowsPerChunk) : m_maxOpenContainers;
 
         exec.setMessage("Reading table");
         for (Iterator<DataRow> iter = dataTable.iterator(); iter.hasNext();) {
@@ -602,16 +776,23 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
             }
             DataRow row = iter.next();
             buffer.add(row);
-            if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= m_maxOpenContainers))
+            if ((memObservable.lowMemoryActionRequired() && (rowsInCurrentChunk >= minRowsPerLowMemoryChunk))
                 || (counter % m_maxRowsPerChunk == 0)) {
                 LOGGER.debug("Writing chunk [" + chunkStartRow + ":" + counter + "] - mem usage: " + getMemUsage());
                 if (m_rowsInInputTable > 0) {
                     long estimatedIncrements = m_rowsInInputTable - counter + buffer.size();
                     m_incProgress = (0.5 - m_progress) / estimatedIncrements;
                 }
+                if (m_workerPool != null) {
+                    submitChunk(buffer, chunkFutures, exec);
+                    buffer = new ArrayList<DataRow>();
+                    chunkStartRow = counter + 1;
+                    rowsInCurrentChunk = 0;
+                    continue;
+                }
                 exec.setMessage("Sorting temporary buffer");
                 // sort buffer
-                Collections.sort(buffer, m_rowComparator);
+                sortRows(buffer);
                 // write buffer to disk
                 openChunk();
                 final int totalBufferSize = buffer.size();
@@ -635,16 +816,165 @@ private long createInitialChunks(final ExecutionMonitor exec, final DataTable da
                 rowsInCurrentChunk = 0;
             }
         }
+        for (Future<DataTable> f : chunkFutures) {
+            m_chunksContainer.add(waitFor(f, chunkFutures));
+        }
         // Add buffer to the chunks
         if (!buffer.isEmpty()) {
             // sort buffer
-            Collections.sort(buffer, m_rowComparator);
+            sortRows(buffer);
             m_chunksContainer.add(buffer);
         }
         outerCounter = counter;
         return outerCounter;
     }
 
+    /**
+     * Submits the (unsorted) rows to the worker pool to be sorted and written to a temporary table. Blocks while
+     * {@link #m_parallelism} chunks are still being written in order to bound the memory held by pending chunks.
+     *
+     * @param rows the rows of the chunk, the list is cleared while written
+     * @param chunkFutures the futures of all chunks submitted so far, the new chunk is added
+     * @param exec for cancelation checks
+     * @throws CanceledExecutionException if canceled
+     */
+    private void submitChunk(final List<DataRow> rows, final List<Future<DataTable>> chunkFutures,
+        final ExecutionMonitor exec) throws CanceledExecutionException {
+        int pending = 0;
+        for (Future<DataTable> f : chunkFutures) {
+            pending += f.isDone() ? 0 : 1;
+        }
+        for (int i = 0; pending >= m_parallelism && i < chunkFutures.size(); i++) {
+            Future<DataTable> f = chunkFutures.get(i);
+            if (!f.isDone()) {
+                exec.setMessage("Waiting for temporary tables to be written");
+                waitFor(f, chunkFutures);
+                pending--;
+            }
+        }
+        LOGGER.debugWithFormat("Submitting chunk %d with %d rows - mem usage: %s", chunkFutures.size(), rows.size(),
+            getMemUsage());
+        chunkFutures.add(m_workerPool.enqueue(new Callable<DataTable>() {
+            @Override
+            public DataTable call() throws Exception {
+                sortRows(rows);
+                DataContainer container = createChunkContainer();
+                final int size = rows.size();
+                for (int i = 0; i < size; i++) {
+                    // must not use Iterator#remove as it causes array copies
+                    container.addRowToTable(rows.set(i, null));
+                    exec.checkCanceled();
+                }
+                return closeChunkContainer(container);
+            }
+        }));
+    }
+
+    /**
+     * Reduces the number of chunks to at most <code>maxOpenContainers</code> by merging consecutive chunks in the
+     * worker pool. Each level merges groups of chunks concurrently, the merged chunks replace their group in the queue
+     * (so the relative order of chunks is retained and equal rows stay in input order).
+     *
+     * @param exec for progress and cancelation
+     * @param maxOpenContainers the fan-in of the final merge
+     * @throws CanceledExecutionException if canceled
+     */
+    private void mergeChunksInParallel(final ExecutionMonitor exec, final int maxOpenContainers)
+        throws CanceledExecutionException {
+        // all concurrent merges together shouldn't open (many) more than the max number of containers
+        final int fanIn =
+            Math.max(Math.min(MIN_PARALLEL_FANIN, maxOpenContainers), maxOpenContainers / m_parallelism);
+        while (m_chunksContainer.size() > maxOpenContainers) {
+            final int chunkCount = m_chunksContainer.size();
+            exec.setMessage("Merging temporary tables in parallel, " + chunkCount + " remaining");
+            List<Future<DataTable>> mergeFutures = new ArrayList<>();
+            List<Iterable<DataRow>> unmerged = new ArrayList<>();
+            while (!m_chunksContainer.isEmpty()) {
+                final List<Iterable<DataRow>> group = new ArrayList<>();
+                for (int i = 0; i < fanIn && !m_chunksContainer.isEmpty(); i++) {
+                    group.add(m_chunksContainer.poll());
+                }
+                if (group.size() == 1) {
+                    unmerged.add(group.get(0));
+                    break;
+                }
+                mergeFutures.add(m_workerPool.enqueue(new Callable<DataTable>() {
+                    @Override
+                    public DataTable call() throws Exception {
+                        Queue<MergeEntry> containersToMerge = new ArrayDeque<>();
+                        for (Iterable<DataRow> chunk : group) {
+                            containersToMerge.add(new MergeEntry(chunk, containersToMerge.size(), m_rowComparator));
+                        }
+                        MergingIterator mergingIterator = new MergingIterator(containersToMerge);
+                        DataContainer container = createChunkContainer();
+                        while (mergingIterator.hasNext()) {
+                            container.addRowToTable(mergingIterator.next());
+                            exec.checkCanceled();
+                        }
+                        return closeChunkContainer(container);
+                    }
+                }));
+            }
+            // the final merge reads all rows once more, split the remaining progress accordingly
+            final double progressPerMerge = (1.0 - m_progress) / 2 / mergeFutures.size();
+            for (Future<DataTable> f : mergeFutures) {
+                m_chunksContainer.add(waitFor(f, mergeFutures));
+                m_progress += progressPerMerge;
+                exec.setProgress(m_progress);
+            }
+            m_chunksContainer.addAll(unmerged);
+            LOGGER.debugWithFormat("Merged %d temporary tables into %d - mem usage: %s", chunkCount,
+                m_chunksContainer.size(), getMemUsage());
+        }
+    }
+
+    /**
+     * Waits for the completion of a chunk task, see {@link ParallelTasks#waitFor(Future)}. If the task failed all
+     * other tasks are canceled.
+     *
+     * @param future the task to wait for
+     * @param allFutures all tasks of the current phase, canceled in case of failure
+     * @return the table created by the task
+     * @throws CanceledExecutionException if the task was canceled
+     */
+    private static DataTable waitFor(final Future<DataTable> future, final List<Future<DataTable>> allFutures)
+        throws CanceledExecutionException {
+        boolean success = false;
+        try {
+            final DataTable table = ParallelTasks.waitFor(future);
+            success = true;
+            return table;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Writing temporary table failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            if (!success) {
+                allFutures.stream().forEach(f -> f.cancel(true));
+            }
+        }
+    }
+
+    /** @return a new container for a temporary table, thread-safe */
+    private DataContainer createChunkContainer() {
+        synchronized (m_containerLock) {
+            DataContainer container = createDataContainer(m_dataTableSpec, true);
+            container.setMaxPossibleValues(0);
+            return container;
+        }
+    }
+
+    /**
+     * Closes a temporary container, thread-safe.
+     *
+     * @param container the container to close
+     * @return its table
+     */
+    private DataTable closeChunkContainer(final DataContainer container) {
+        synchronized (m_containerLock) {
+            container.close();
+            return container.getTable();
+        }
+    }
+
     /**
      * Opens a chunk data container to accept rows using {@link #addRowToChunk(DataRow)}, {@link #closeChunk()} closes
      * the current container and adds it to the chunk list.
@@ -693,9 +1023,34 @@ private String getMemUsage() {
         return "avail: " + availS + "MB, total: " + totalS + "MB, free: " + freeS + "MB";
     }
 
+    /** A row and its normalized key, used in {@link AbstractTableSorter#sortRows(List)}. */
+    private static final class KeyedRow implements Comparable<KeyedRow> {
+        private final byte[] m_key;
+
+        private final DataRow m_row;
+
+        KeyedRow(final byte[] key, final DataRow row) {
+            m_key = key;
+            m_row = row;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(final KeyedRow that) {
+            return NormalizedSortKey.compare(m_key, that.m_key);
+        }
+    }
+
     private final class MergeEntry implements Comparable<MergeEntry>, Iterator<DataRow> {
         private DataRow m_row;
 
+        /** Normalized key of m_row, null if keys are not used. */
+        private byte[] m_key;
+
+        private final NormalizedSortKey m_sortKey = getNormalizedSortKey();
+
         private Iterable<DataRow> m_iterable;
 
         private Iterator<DataRow> m_iterator;
@@ -719,7 +1074,7 @@ private void open() {
             if (m_iterator == null) {
                 m_iterator = m_iterable.iterator();
                 if (m_iterator.hasNext()) {
-                    m_row = m_iterator.next();
+                    setRow(m_iterator.next());
                 }
             }
         }
@@ -732,7 +1087,9 @@ public boolean hasNext() {
             // open the file lazily
             if (m_row == null) {
                 if (m_iterable instanceof DataTable) {
-                    clearTable((DataTable)m_iterable);
+                    synchronized (m_containerLock) {
+                        clearTable((DataTable)m_iterable);
+                    }
                 }
                 return false;
             }
@@ -749,10 +1106,15 @@ public DataRow next() {
                 throw new NoSuchElementException();
             }
             DataRow toReturn = m_row;
-            m_row = m_iterator.hasNext() ? m_iterator.next() : null;
+            setRow(m_iterator.hasNext() ? m_iterator.next() : null);
             return toReturn;
         }
 
+        private void setRow(final DataRow row) {
+            m_row = row;
+            m_key = m_sortKey != null && row != null ? m_sortKey.encode(row) : null;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -766,7 +1128,8 @@ public void remove() {
          */
         @Override
         public int compareTo(final MergeEntry that) {
-            int value = m_comparator.compare(this.m_row, that.m_row);
+            int value = m_key != null && that.m_key != null ? NormalizedSortKey.compare(m_key, that.m_key)
+                : m_comparator.compare(this.m_row, that.m_row);
             if (value == 0) {
                 return this.m_index - that.m_index;
             } else {
@@ -893,6 +1256,8 @@ private static final class RowComparator implements Comparator<DataRow> {
          */
         private final boolean m_sortMissingsToEnd;
 
+        private final DataTableSpec m_spec;
+
         /**
          * @param indices Array of sort column indices.
          * @param sortAscending Sort order.
@@ -914,6 +1279,12 @@ private static final class RowComparator implements Comparator<DataRow> {
             }
             m_sortAscending = sortAscending;
             m_sortMissingsToEnd = sortMissingsToEnd;
+            m_spec = spec;
+        }
+
+        /** @return a key encoder yielding the same order as this comparator or null if not supported. */
+        NormalizedSortKey createNormalizedSortKey() {
+            return NormalizedSortKey.create(m_indices, m_sortAscending, m_sortMissingsToEnd, m_spec);
         }
 
         /** {@inheritDoc} */
@@ -0,0 +1,298 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.data.sort;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.DoubleValueComparator;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.IntValueComparator;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.LongValueComparator;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.StringValueComparator;
+import org.knime.core.data.date.DateAndTimeCell;
+import org.knime.core.data.date.DateAndTimeValue;
+
+/**
+ * Encodes the sort columns of a row into a byte array such that comparing two arrays byte-wise (unsigned,
+ * lexicographically, see {@link #compare(byte[], byte[])}) yields the same order as the {@link DataValueComparator
+ * comparators} of the columns, including the sort direction and the position of missing values. The key is computed
+ * once per row so that sorting and merging don't need to dispatch to the column comparators for each comparison.
+ *
+ * <p>
+ * Keys can only be created if all sort columns have one of the supported types (int, long, double, string and the
+ * legacy date&amp;time type, or the row key), see {@link #create(int[], boolean[], boolean, DataTableSpec)}.
+ *
+ * <p>
+ * Column encodings (each column is prefixed by a byte encoding the missing value state, values of descending columns
+ * are stored with all bits flipped):
+ * <ul>
+ * <li>int, long, date&amp;time (UTC millis): big endian with flipped sign bit</li>
+ * <li>double: the IEEE bits, negative numbers with all bits flipped, positive with sign bit flipped (same order as
+ * {@link Double#compare(double, double)})</li>
+ * <li>string: UTF-16 code units, chars below 0x7F as one byte (char + 1), others as 0x80 followed by the two char
+ * bytes, terminated by 0x00 (same order as {@link String#compareTo(String)})</li>
+ * </ul>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NormalizedSortKey {
+
+    /** Column encodings. */
+    private enum Encoding {
+        INT, LONG, DOUBLE, STRING, DATE_AND_TIME, ROW_KEY;
+    }
+
+    private static final byte PRESENT = 0x01;
+
+    private static final byte MISSING_FIRST = 0x00;
+
+    private static final byte MISSING_LAST = 0x02;
+
+    @SuppressWarnings("deprecation")
+    private static final Class<?> DATE_AND_TIME_COMPARATOR_CLASS = DateAndTimeCell.TYPE.getComparator().getClass();
+
+    private final int[] m_indices;
+
+    private final Encoding[] m_encodings;
+
+    private final boolean[] m_sortAscending;
+
+    private final byte[] m_missingBytes;
+
+    /**
+     * Size of the last key, used as initial buffer size for the next key. Only a hint, so concurrent chunk sorts may
+     * access it without synchronization.
+     */
+    private int m_lastKeyLength = 16;
+
+    private NormalizedSortKey(final int[] indices, final Encoding[] encodings, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd) {
+        m_indices = indices;
+        m_encodings = encodings;
+        m_sortAscending = sortAscending;
+        m_missingBytes = new byte[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            // the comparator negates the result for descending columns, i.e. missings are then sorted last
+            m_missingBytes[i] = sortMissingsToEnd || !sortAscending[i] ? MISSING_LAST : MISSING_FIRST;
+        }
+    }
+
+    /**
+     * Creates a key encoder for the given sort criteria.
+     *
+     * @param indices the sort column indices, -1 for the row key
+     * @param sortAscending the sort order of each column
+     * @param sortMissingsToEnd whether missing values are always sorted last
+     * @param spec the spec of the table
+     * @return the encoder or null if any sort column has a type that is not supported
+     */
+    static NormalizedSortKey create(final int[] indices, final boolean[] sortAscending,
+        final boolean sortMissingsToEnd, final DataTableSpec spec) {
+        Encoding[] encodings = new Encoding[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] == -1) {
+                encodings[i] = Encoding.ROW_KEY;
+                continue;
+            }
+            Class<?> comparatorClass = spec.getColumnSpec(indices[i]).getType().getComparator().getClass();
+            if (comparatorClass == IntValueComparator.class) {
+                encodings[i] = Encoding.INT;
+            } else if (comparatorClass == LongValueComparator.class) {
+                encodings[i] = Encoding.LONG;
+            } else if (comparatorClass == DoubleValueComparator.class) {
+                encodings[i] = Encoding.DOUBLE;
+            } else if (comparatorClass == StringValueComparator.class) {
+                encodings[i] = Encoding.STRING;
+            } else if (comparatorClass == DATE_AND_TIME_COMPARATOR_CLASS) {
+                encodings[i] = Encoding.DATE_AND_TIME;
+            } else {
+                return null;
+            }
+        }
+        return new NormalizedSortKey(indices.clone(), encodings, sortAscending.clone(), sortMissingsToEnd);
+    }
+
+    /**
+     * Computes the key of a row. Not thread-safe (only the buffer size hint is shared, races are harmless).
+     *
+     * @param row the row to encode
+     * @return the key
+     */
+    @SuppressWarnings("deprecation")
+    byte[] encode(final DataRow row) {
+        KeyBuilder builder = new KeyBuilder(m_lastKeyLength);
+        for (int i = 0; i < m_indices.length; i++) {
+            final Encoding encoding = m_encodings[i];
+            final int start = builder.m_length;
+            if (encoding == Encoding.ROW_KEY) {
+                builder.add(PRESENT);
+                builder.addString(row.getKey().getString());
+            } else {
+                final DataCell cell = row.getCell(m_indices[i]);
+                if (cell.isMissing()) {
+                    // the missing byte is not flipped for descending columns
+                    builder.add(m_missingBytes[i]);
+                    continue;
+                }
+                builder.add(PRESENT);
+                switch (encoding) {
+                    case INT:
+                        builder.addInt(((IntValue)cell).getIntValue() ^ Integer.MIN_VALUE);
+                        break;
+                    case LONG:
+                        builder.addLong(((LongValue)cell).getLongValue() ^ Long.MIN_VALUE);
+                        break;
+                    case DATE_AND_TIME:
+                        builder.addLong(((DateAndTimeValue)cell).getUTCTimeInMillis() ^ Long.MIN_VALUE);
+                        break;
+                    case DOUBLE:
+                        // doubleToLongBits (not ...Raw...) to treat all NaNs alike, as Double#compare does
+                        long bits = Double.doubleToLongBits(((DoubleValue)cell).getDoubleValue());
+                        builder.addLong(bits < 0 ? ~bits : bits ^ Long.MIN_VALUE);
+                        break;
+                    case STRING:
+                        builder.addString(((StringValue)cell).getStringValue());
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown encoding: " + encoding);
+                }
+            }
+            if (!m_sortAscending[i]) {
+                builder.flip(start + 1);
+            }
+        }
+        m_lastKeyLength = builder.m_length;
+        return builder.toByteArray();
+    }
+
+    /**
+     * Compares two keys byte-wise (unsigned).
+     *
+     * @param k1 first key
+     * @param k2 second key
+     * @return negative, zero or positive value as the first key is smaller, equal or larger than the second
+     */
+    static int compare(final byte[] k1, final byte[] k2) {
+        final int length = Math.min(k1.length, k2.length);
+        for (int i = 0; i < length; i++) {
+            if (k1[i] != k2[i]) {
+                return (k1[i] & 0xFF) - (k2[i] & 0xFF);
+            }
+        }
+        return k1.length - k2.length;
+    }
+
+    /** Growable byte buffer. */
+    private static final class KeyBuilder {
+
+        private byte[] m_bytes;
+
+        private int m_length;
+
+        KeyBuilder(final int capacity) {
+            m_bytes = new byte[Math.max(capacity, 8)];
+        }
+
+        private void ensureCapacity(final int additional) {
+            if (m_length + additional > m_bytes.length) {
+                m_bytes = Arrays.copyOf(m_bytes, Math.max(2 * m_bytes.length, m_length + additional));
+            }
+        }
+
+        void add(final byte b) {
+            ensureCapacity(1);
+            m_bytes[m_length++] = b;
+        }
+
+        void addInt(final int v) {
+            ensureCapacity(4);
+            m_bytes[m_length++] = (byte)(v >>> 24);
+            m_bytes[m_length++] = (byte)(v >>> 16);
+            m_bytes[m_length++] = (byte)(v >>> 8);
+            m_bytes[m_length++] = (byte)v;
+        }
+
+        void addLong(final long v) {
+            addInt((int)(v >>> 32));
+            addInt((int)v);
+        }
+
+        void addString(final String s) {
+            final int length = s.length();
+            ensureCapacity(length + 1);
+            for (int i = 0; i < length; i++) {
+                final char c = s.charAt(i);
+                if (c < 0x7F) {
+                    m_bytes[m_length++] = (byte)(c + 1);
+                } else {
+                    ensureCapacity(length - i + 3);
+                    m_bytes[m_length++] = (byte)0x80;
+                    m_bytes[m_length++] = (byte)(c >>> 8);
+                    m_bytes[m_length++] = (byte)c;
+                }
+            }
+            m_bytes[m_length++] = 0x00;
+        }
+
+        /** Flips all bits from the given position to the end. */
+        void flip(final int from) {
+            for (int i = from; i < m_length; i++) {
+                m_bytes[i] = (byte)~m_bytes[i];
+            }
+        }
+
+        byte[] toByteArray() {
+            return m_bytes.length == m_length ? m_bytes : Arrays.copyOf(m_bytes, m_length);
+        }
+    }
+
+}
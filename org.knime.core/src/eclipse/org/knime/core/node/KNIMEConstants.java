@@ -71,6 +71,7 @@
 import org.knime.core.eclipseUtil.OSGIHelper;
 import org.knime.core.internal.ConfigurationAreaChecker;
 import org.knime.core.internal.KNIMEPath;
+import org.knime.core.util.ForkJoinThreadPool;
 import org.knime.core.util.ThreadPool;
 import org.osgi.framework.Bundle;
 
@@ -165,6 +166,21 @@ public final class KNIMEConstants {
     public static final String PROPERTY_TABLE_GZIP_COMPRESSION =
         "knime.compress.io";
 
+    /** Java property to choose the compression format of table streams. Valid values are "Gzip" (default), "Lz4"
+     * (fast block compression, lower compression ratio), "Deflate" (level set via
+     * {@link #PROPERTY_TABLE_COMPRESSION_LEVEL}) and "None" (case-insensitive). If set, this property takes
+     * precedence over {@link #PROPERTY_TABLE_GZIP_COMPRESSION}. The format is stored along with each table so that
+     * tables written with different settings can be read back independent of the current value.
+     * @since 3.7
+     */
+    public static final String PROPERTY_TABLE_COMPRESSION_FORMAT = "knime.compress.io.format";
+
+    /** Java property to set the compression level (1-9) used when
+     * {@link #PROPERTY_TABLE_COMPRESSION_FORMAT} is "Deflate". The default is 1 (best speed).
+     * @since 3.7
+     */
+    public static final String PROPERTY_TABLE_COMPRESSION_LEVEL = "knime.compress.io.level";
+
     /** Java property to enable/disable row ID duplicate checks on tables.
      * Tables in KNIME are supposed to have unique IDs, whereby the uniqueness
      * is asserted using a duplicate checker. This property will disable this
@@ -291,6 +307,73 @@ public final class KNIMEConstants {
     */
    public static final String PROPERTY_URL_TIMEOUT = "knime.url.timeout";
 
+   /** Java property used to set the number of threads the file reader (and the CSV reader) use to parse a file.
+    * The file is split into chunks at row boundaries which are tokenized concurrently. Defaults to the number of
+    * available processors, a value of 1 (or less) disables parallel parsing.
+    *
+    * @since 3.7
+    */
+   public static final String PROPERTY_FILEREADER_THREADS = "knime.filereader.threads";
+
+   /** Java property used to set the number of blocks the file analyzer of the CSV reader samples from large local
+    * files. Instead of scanning the entire file, it reads the beginning, the end, and that many blocks spread evenly
+    * across the file. Defaults to 64, a value of 0 (or less) makes the analyzer read the entire file. The file reader
+    * always analyzes the entire file.
+    *
+    * @since 3.7
+    */
+   public static final String PROPERTY_FILEREADER_ANALYSIS_SAMPLES = "knime.filereader.analysis.samples";
+
+   /** Java property used to set the number of threads the CSV writer uses to format rows. The rows are formatted
+    * in batches concurrently and written in their original order by the executing thread. Defaults to the number of
+    * available processors, a value of 1 (or less) formats all rows in the executing thread.
+    *
+    * @since 3.7
+    */
+   public static final String PROPERTY_CSVWRITER_THREADS = "knime.csvwriter.threads";
+
+   /** Java property used to set the number of connections the database writer uses to insert rows. With more than
+    * one connection the rows are inserted by several threads concurrently, unless the writer is set to fail on
+    * errors. Defaults to 1.
+    *
+    * @since 3.7
+    */
+   public static final String PROPERTY_DATABASE_WRITER_CONNECTIONS = "knime.database.writer.connections";
+
+   /** Java property used to enable adaptive batch sizes in the database writer. If set to <code>true</code> the
+    * configured batch size is only the initial size which is adapted to the measured round trip time of the batches.
+    *
+    * @since 3.7
+    */
+   public static final String PROPERTY_DATABASE_WRITER_ADAPTIVE_BATCH = "knime.database.writer.adaptivebatch";
+
+   /** Java property used to enable the measurement of (de)serialization times per cell type in the table I/O
+    * statistics. This adds two calls to {@link System#nanoTime()} per cell and is therefore disabled by default; it
+    * can also be switched on at runtime via JMX.
+    *
+    * @see org.knime.core.data.container.TableIOStatistics
+    * @since 3.7
+    */
+   public static final String PROPERTY_TABLE_IO_CELL_TIMING = "knime.tableio.celltiming";
+
+   /** Java property to run the {@link #GLOBAL_THREAD_POOL} on a work-stealing fork/join pool (see
+    * {@link org.knime.core.util.ForkJoinThreadPool}) instead of the classic implementation. Defaults to
+    * <code>false</code>.
+    *
+    * @since 3.7
+    */
+   public static final String PROPERTY_FORKJOIN_THREAD_POOL = "knime.threadpool.forkjoin";
+
+   /** Java property to run the asynchronous table writers on virtual threads so that every open
+    * {@link org.knime.core.data.container.DataContainer} keeps writing asynchronously, no matter how many are open.
+    * If the Java runtime has no virtual threads the rows are written in batches by a bounded pool of carrier threads
+    * instead. Defaults to <code>false</code> (one platform thread per container, limited number of asynchronous
+    * containers).
+    *
+    * @since 3.7
+    */
+   public static final String PROPERTY_TABLE_IO_VIRTUAL_THREADS = "knime.tableio.virtualthreads";
+
     /**
      * Java property which allows to skip automatic Log4J configuration when
      * KNIME starts. The value should be <code>true</code> or <code>false</code>
@@ -450,7 +533,8 @@ private static int getWorkflowEditorConnectionTimeout() {
                     + "\"org.knime.core.maxThreads\" (\"" + maxThreadsString
                     + "\") as number: " + nfe.getMessage());
         }
-        GLOBAL_THREAD_POOL = new ThreadPool(maxThreads);
+        GLOBAL_THREAD_POOL = Boolean.getBoolean(PROPERTY_FORKJOIN_THREAD_POOL) ? new ForkJoinThreadPool(maxThreads)
+            : new ThreadPool(maxThreads);
         boolean flag;
         try {
             assert false;
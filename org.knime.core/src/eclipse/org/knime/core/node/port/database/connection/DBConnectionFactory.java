@@ -74,6 +74,25 @@ public interface DBConnectionFactory {
     Connection getConnection(final CredentialsProvider cp,
         final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException;
 
+    /**
+     * Opens a new connection that is not cached and not shared with other callers. This allows to run several
+     * statements on the same database in parallel, e.g. when reading a query in partitions.
+     *
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @return a new {@link Connection} which needs to be closed after usage by calling {@link Connection#close()}
+     * @throws InvalidSettingsException
+     * @throws SQLException if the connection could not be opened or the factory does not support exclusive
+     *             connections
+     * @throws IOException
+     * @since 3.7
+     */
+    default Connection getExclusiveConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
+        throw new SQLException("Connection factory " + getClass().getName()
+            + " does not support exclusive connections");
+    }
+
     /**
      * @return the {@link DBDriverFactory} the connection factory uses
      */
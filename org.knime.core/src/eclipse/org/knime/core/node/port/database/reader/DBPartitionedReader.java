@@ -0,0 +1,441 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.blob.BinaryObjectCellFactory;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
+import org.knime.core.node.port.database.StatementManipulator;
+import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ParallelTasks;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Reads the query of a {@link DBReaderImpl} in parallel by splitting it into range queries on a numeric or date
+ * column. The minimum and maximum of the column are used to cut its value range into equally sized partitions, rows
+ * with a missing value form an additional partition. Each partition is read on its own (exclusive) connection
+ * within a sub pool of the global thread pool. The rows are appended to a single table while they are read, in
+ * ascending order of the column, each partition reads at most {@link #READ_AHEAD_ROWS} rows ahead of the partitions
+ * before it. Row ids are created consecutively, i.e. they are unique but not based on the database row ids.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class DBPartitionedReader {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DBPartitionedReader.class);
+
+    /** The number of rows a partition keeps in memory until the partitions before it have been appended. */
+    static final int READ_AHEAD_ROWS = 1000;
+
+    /** Interval in which blocked readers and the appending thread check for cancellation. */
+    private static final long POLL_MILLIS = 100;
+
+    /** Put into the buffer of a partition after its last row. */
+    private static final DataRow END_OF_PARTITION = new DefaultRow(new RowKey("End of partition"), new DataCell[0]);
+
+    private final DBReaderImpl m_reader;
+
+    private final String m_column;
+
+    private final int m_partitionCount;
+
+    /** Set if reading is aborted (e.g. because one of the partitions failed) so that the others stop reading. */
+    private volatile boolean m_aborted;
+
+    /** The first exception thrown while reading a partition. */
+    private Throwable m_failure;
+
+    /**
+     * @param reader the reader providing the query and the connection settings
+     * @param column the name of the numeric or date column to partition the query on
+     * @param partitionCount the number of range partitions, at least 2
+     */
+    DBPartitionedReader(final DBReaderImpl reader, final String column, final int partitionCount) {
+        m_reader = reader;
+        m_column = column;
+        m_partitionCount = partitionCount;
+    }
+
+    /**
+     * Reads all partitions and appends them into a single table.
+     *
+     * @param exec the execution context used to create the table and to report progress
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param useDbRowId <code>true</code> if the row ids should start at 1 unless the connection settings state that
+     *            the database row ids start with zero
+     * @return the table or <code>null</code> if the partition column contains only missing values and the query
+     *         should be read with a single statement
+     * @throws CanceledExecutionException if canceled in between
+     * @throws SQLException if the query could not be partitioned or one of the partitions could not be read
+     */
+    BufferedDataTable read(final ExecutionContext exec, final CredentialsProvider cp, final boolean useDbRowId)
+        throws CanceledExecutionException, SQLException {
+        final DatabaseQueryConnectionSettings settings = m_reader.getQueryConnection();
+        final DataTableSpec spec = m_reader.getDataTableSpec(cp);
+        if (!spec.containsName(m_column)) {
+            throw new SQLException("Partition column \"" + m_column + "\" is not part of the query result");
+        }
+        final StatementManipulator manipulator = settings.getUtility().getStatementManipulator();
+        String query = settings.getQuery().trim();
+        if (query.endsWith(";")) {
+            query = query.substring(0, query.length() - 1);
+        }
+        final String column = manipulator.quoteIdentifier(m_column);
+        final String table = "(" + query + ") table_" + System.identityHashCode(this);
+
+        exec.setMessage("Determining value range of partition column \"" + m_column + "\"...");
+        final List<Object> bounds = settings.execute(cp, conn -> readBounds(conn, column, table));
+        if (bounds.isEmpty()) {
+            LOGGER.debug("Partition column \"" + m_column + "\" contains only missing values, "
+                + "reading query with a single statement");
+            return null;
+        }
+        final String select = "SELECT * FROM " + table + " WHERE ";
+        final List<String> queries = new ArrayList<>();
+        final List<Object[]> parameters = new ArrayList<>();
+        if (bounds.size() == 1) {
+            queries.add(select + column + " = ?");
+            parameters.add(new Object[]{bounds.get(0)});
+        }
+        for (int i = 0; i < bounds.size() - 1; i++) {
+            final boolean last = i == bounds.size() - 2;
+            queries.add(select + column + " >= ? AND " + column + (last ? " <= ?" : " < ?"));
+            parameters.add(new Object[]{bounds.get(i), bounds.get(i + 1)});
+        }
+        queries.add(select + column + " IS NULL");
+        parameters.add(new Object[0]);
+
+        if (m_reader.m_blobFactory == null) {
+            m_reader.m_blobFactory = new BinaryObjectCellFactory(exec);
+        }
+        final int fetchSize =
+            (DatabaseConnectionSettings.FETCH_SIZE != null) ? DatabaseConnectionSettings.FETCH_SIZE : -1;
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(m_partitionCount);
+        final List<BlockingQueue<DataRow>> buffers = new ArrayList<>(queries.size());
+        final List<Future<Void>> futures = new ArrayList<>(queries.size());
+        try {
+            exec.setMessage("Start reading " + queries.size() + " partitions from database...");
+            for (int i = 0; i < queries.size(); i++) {
+                final String sql = queries.get(i);
+                final Object[] params = parameters.get(i);
+                final BlockingQueue<DataRow> buffer = new ArrayBlockingQueue<>(READ_AHEAD_ROWS);
+                buffers.add(buffer);
+                futures.add(
+                    pool.enqueue(() -> readPartition(exec, cp, settings, spec, sql, params, fetchSize, buffer)));
+            }
+            final BufferedDataContainer result = exec.createDataContainer(spec);
+            final long firstRowId = useDbRowId && !settings.getRowIdsStartWithZero() ? 1 : 0;
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool == null) {
+                append(exec, buffers, futures, result, firstRowId);
+            } else {
+                // waiting for the partitions must not block a thread the partitions could be read with
+                try {
+                    currentPool.runInvisible(() -> {
+                        append(exec, buffers, futures, result, firstRowId);
+                        return null;
+                    });
+                } catch (ExecutionException e) {
+                    throw rethrow(e.getCause());
+                }
+            }
+            result.close();
+            return result.getTable();
+        } finally {
+            m_aborted = true;
+            futures.stream().forEach(f -> f.cancel(true));
+        }
+    }
+
+    /* Appends the rows of all partitions in their order while they are read, with consecutive row ids. */
+    private void append(final ExecutionContext exec, final List<BlockingQueue<DataRow>> buffers,
+        final List<Future<Void>> futures, final BufferedDataContainer result, final long firstRowId)
+        throws CanceledExecutionException, SQLException {
+        long rowId = firstRowId;
+        for (int i = 0; i < buffers.size(); i++) {
+            exec.setProgress(i / (double)buffers.size(), "Reading partition " + (i + 1) + " of " + buffers.size());
+            final BlockingQueue<DataRow> buffer = buffers.get(i);
+            DataRow row;
+            while ((row = poll(buffer)) != END_OF_PARTITION) {
+                exec.checkCanceled();
+                if (row != null) {
+                    result.addRowToTable(new DefaultRow(RowKey.createRowKey(rowId++), row));
+                } else if (futures.get(i).isDone()) {
+                    // throws the exception if reading the partition failed, otherwise its end is in the buffer
+                    waitForPartition(futures.get(i));
+                }
+            }
+        }
+    }
+
+    private static DataRow poll(final BlockingQueue<DataRow> buffer) throws CanceledExecutionException {
+        try {
+            return buffer.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while reading partitions");
+        }
+    }
+
+    /* Returns the partition boundaries in ascending order. The first and last boundary are the minimum and maximum
+     * of the column as returned by the database, an empty list is returned if the column has no values. */
+    private List<Object> readBounds(final Connection conn, final String column, final String table)
+        throws SQLException {
+        final String sql = "SELECT MIN(" + column + "), MAX(" + column + ") FROM " + table;
+        try (final Statement stmt = conn.createStatement()) {
+            LOGGER.debug("Executing SQL statement as executeQuery: " + sql);
+            try (final ResultSet result = stmt.executeQuery(sql)) {
+                final Object min = result.next() ? result.getObject(1) : null;
+                final Object max = min != null ? result.getObject(2) : null;
+                if (min == null || max == null) {
+                    return Collections.emptyList();
+                }
+                return createBounds(min, max, m_partitionCount);
+            } finally {
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cuts the range between the given minimum and maximum into at most <code>partitionCount</code> equally sized
+     * ranges. Integral values are split at integral boundaries and duplicate boundaries are removed, hence fewer
+     * partitions are returned if the range contains fewer distinct values.
+     *
+     * @param min the minimum value of the partition column
+     * @param max the maximum value of the partition column
+     * @param partitionCount the maximum number of partitions
+     * @return the distinct boundaries in ascending order, starting with <code>min</code> and ending with
+     *         <code>max</code> (if different from <code>min</code>)
+     * @throws SQLException if the values are neither numbers nor dates
+     */
+    static List<Object> createBounds(final Object min, final Object max, final int partitionCount)
+        throws SQLException {
+        final List<Object> bounds = new ArrayList<>(partitionCount + 1);
+        if (min instanceof java.util.Date && max instanceof java.util.Date) {
+            for (final BigInteger b : integerBounds(BigInteger.valueOf(((java.util.Date)min).getTime()),
+                BigInteger.valueOf(((java.util.Date)max).getTime()), partitionCount)) {
+                bounds.add(new Timestamp(b.longValue()));
+            }
+        } else if (isIntegral(min) && isIntegral(max)) {
+            for (final BigInteger b : integerBounds(toBigInteger(min), toBigInteger(max), partitionCount)) {
+                bounds.add(b.bitLength() < Long.SIZE ? (Object)b.longValue() : new BigDecimal(b));
+            }
+        } else if (min instanceof Number && max instanceof Number) {
+            final double lo = ((Number)min).doubleValue();
+            final double hi = ((Number)max).doubleValue();
+            double last = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i <= partitionCount; i++) {
+                final double b = i == partitionCount ? hi : lo + (hi / partitionCount - lo / partitionCount) * i;
+                if (b > last || i == 0) {
+                    bounds.add(b);
+                    last = b;
+                }
+            }
+        } else {
+            throw new SQLException("Partition column must be numeric or a date, found values of type "
+                + min.getClass().getName());
+        }
+        // use the original values at both ends so that no value is lost due to rounding or time precision
+        bounds.set(0, min);
+        if (bounds.size() > 1) {
+            bounds.set(bounds.size() - 1, max);
+        } else if (!min.equals(max)) {
+            bounds.add(max);
+        }
+        return bounds;
+    }
+
+    private static List<BigInteger> integerBounds(final BigInteger min, final BigInteger max,
+        final int partitionCount) {
+        final List<BigInteger> bounds = new ArrayList<>(partitionCount + 1);
+        final BigInteger range = max.subtract(min);
+        final BigInteger count = BigInteger.valueOf(partitionCount);
+        BigInteger last = null;
+        for (int i = 0; i <= partitionCount; i++) {
+            final BigInteger b = min.add(range.multiply(BigInteger.valueOf(i)).divide(count));
+            if (!b.equals(last)) {
+                bounds.add(b);
+                last = b;
+            }
+        }
+        return bounds;
+    }
+
+    private static boolean isIntegral(final Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte
+            || value instanceof BigInteger) {
+            return true;
+        }
+        // e.g. Oracle returns NUMBER columns as BigDecimal
+        return value instanceof BigDecimal && ((BigDecimal)value).stripTrailingZeros().scale() <= 0;
+    }
+
+    private static BigInteger toBigInteger(final Object value) {
+        if (value instanceof BigInteger) {
+            return (BigInteger)value;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal)value).toBigIntegerExact();
+        }
+        return BigInteger.valueOf(((Number)value).longValue());
+    }
+
+    private Void readPartition(final ExecutionContext exec, final CredentialsProvider cp,
+        final DatabaseQueryConnectionSettings settings, final DataTableSpec spec, final String sql,
+        final Object[] params, final int fetchSize, final BlockingQueue<DataRow> buffer) throws Exception {
+        checkCanceled(exec);
+        try (final Connection conn =
+                settings.getUtility().getConnectionFactory().getExclusiveConnection(cp, settings);
+                final PreparedStatement stmt = conn.prepareStatement(sql)) {
+            settings.getUtility().getStatementManipulator().setFetchSize(stmt, fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            LOGGER.debug("Executing SQL preparedStatement as executeQuery: " + sql);
+            try (final ResultSet result = stmt.executeQuery()) {
+                final RowIterator it =
+                    m_reader.createDBRowIterator(spec, settings, m_reader.m_blobFactory, false, result, 0);
+                while (it.hasNext()) {
+                    checkCanceled(exec);
+                    put(exec, buffer, it.next());
+                }
+                put(exec, buffer, END_OF_PARTITION);
+                return null;
+            }
+        } catch (Exception | Error e) {
+            if (!(e instanceof CanceledExecutionException)) {
+                synchronized (this) {
+                    if (m_failure == null) {
+                        m_failure = e;
+                    }
+                }
+            }
+            m_aborted = true;
+            throw e;
+        }
+    }
+
+    /* Waits until the partitions before have been appended far enough for the row to fit into the buffer. */
+    private void put(final ExecutionContext exec, final BlockingQueue<DataRow> buffer, final DataRow row)
+        throws CanceledExecutionException, InterruptedException {
+        while (!buffer.offer(row, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkCanceled(exec);
+        }
+    }
+
+    private void checkCanceled(final ExecutionContext exec) throws CanceledExecutionException {
+        if (m_aborted) {
+            throw new CanceledExecutionException("Reading of partitions aborted");
+        }
+        exec.checkCanceled();
+    }
+
+    /* Waits for the partition and reports the exception of the partition that failed first, other partitions are
+     * aborted with a CanceledExecutionException in that case. */
+    private void waitForPartition(final Future<Void> future) throws CanceledExecutionException, SQLException {
+        try {
+            ParallelTasks.waitFor(future);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (CanceledExecutionException e) {
+            final Throwable failure;
+            synchronized (this) {
+                failure = m_failure;
+            }
+            if (failure != null) {
+                throw rethrow(failure);
+            }
+            throw e;
+        }
+    }
+
+    private static SQLException rethrow(final Throwable cause) throws CanceledExecutionException {
+        if (cause instanceof CanceledExecutionException) {
+            throw (CanceledExecutionException)cause;
+        }
+        if (cause instanceof SQLException) {
+            return (SQLException)cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error)cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException)cause;
+        }
+        return new SQLException(cause);
+    }
+}
@@ -97,6 +97,10 @@ public class DBReaderImpl extends DatabaseHelper implements DBReader {
 
     private BufferedDataContainer m_errorContainer;
 
+    private String m_partitionColumn;
+
+    private int m_partitionCount = 1;
+
     /**
      * Creates a empty handle for a new connection.
      * @param conn a database connection object
@@ -122,6 +126,22 @@ public void updateQuery(final String query) {
         getQueryConnection().setQuery(query);
     }
 
+    /**
+     * Sets the column used to split the query into range queries when reading it with
+     * {@link #createTable(ExecutionContext, CredentialsProvider, boolean)}. The range between the minimum and the
+     * maximum value of the column is cut into the given number of partitions that are read in parallel, each on its
+     * own connection, and appended into one table. Only single statement queries with a numeric or date partition
+     * column are read in partitions, row ids are created consecutively in this case.
+     *
+     * @param column the name of the partition column or <code>null</code> to read the query with a single statement
+     * @param partitionCount the number of partitions, a value of 1 (or less) reads the query with a single statement
+     * @since 3.7
+     */
+    public void setPartitioning(final String column, final int partitionCount) {
+        m_partitionColumn = column;
+        m_partitionCount = partitionCount;
+    }
+
     /**
      * Returns the database meta data on the connection.
      * @param cp CredentialsProvider to receive user/password from
@@ -234,6 +254,17 @@ public DataTableSpec getDataTableSpec(final CredentialsProvider cp)
     @Override
     public BufferedDataTable createTable(final ExecutionContext exec, final CredentialsProvider cp,
         final boolean useDbRowId) throws CanceledExecutionException, SQLException {
+        if (m_partitionColumn != null && m_partitionCount > 1) {
+            if (getQueryConnection().getQuery().split(SQL_QUERY_SEPARATOR).length == 1) {
+                final BufferedDataTable table =
+                    new DBPartitionedReader(this, m_partitionColumn, m_partitionCount).read(exec, cp, useDbRowId);
+                if (table != null) {
+                    return table;
+                }
+            } else {
+                LOGGER.debug("Query consists of multiple statements, reading it without partitions");
+            }
+        }
 //        final Connection conn = initConnection(cp);
 //        synchronized (getQueryConnection().syncConnection(conn)) {
         return getQueryConnection().execute(cp, conn -> {
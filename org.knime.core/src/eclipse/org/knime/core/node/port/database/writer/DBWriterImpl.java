@@ -44,6 +44,8 @@
  */
 package org.knime.core.node.port.database.writer;
 
+import java.io.IOException;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -51,9 +53,17 @@
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.knime.core.data.BooleanValue;
 import org.knime.core.data.DataCell;
@@ -69,11 +79,14 @@
 import org.knime.core.data.date.DateAndTimeValue;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
 import org.knime.core.node.port.database.DatabaseHelper;
 import org.knime.core.node.streamable.RowInput;
 import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Creates a connection to write to database.
@@ -87,6 +100,23 @@ public class DBWriterImpl extends DatabaseHelper implements DBWriter {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(DBWriterImpl.class);
 
+    /** Round trip time of a single batch the adaptive batch size aims at. */
+    private static final long TARGET_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** Lower bound of the adaptive batch size, smaller batches are not worth the round trip. */
+    private static final int MIN_ADAPTIVE_BATCH_SIZE = 2;
+
+    /** Upper bound of the adaptive batch size, limits the memory the driver needs for a single batch. */
+    private static final int MAX_ADAPTIVE_BATCH_SIZE = 1 << 15;
+
+    /** Number of rows handed to the writer threads at once when writing on several connections. */
+    private static final int CHUNK_SIZE = 256;
+
+    private int m_numberOfConnections =
+        Math.max(1, Integer.getInteger(KNIMEConstants.PROPERTY_DATABASE_WRITER_CONNECTIONS, 1));
+
+    private boolean m_adaptiveBatchSize = Boolean.getBoolean(KNIMEConstants.PROPERTY_DATABASE_WRITER_ADAPTIVE_BATCH);
+
     /**
      * @param conn {@link DatabaseConnectionSettings}
      */
@@ -94,6 +124,36 @@ public DBWriterImpl(final DatabaseConnectionSettings conn) {
         super(conn);
     }
 
+    /**
+     * Sets the number of connections used to insert rows in
+     * {@link #writeData(String, RowInput, long, boolean, ExecutionMonitor, Map, CredentialsProvider, int, boolean,
+     * boolean)}. If more than one connection is used the rows are distributed among writer threads, each inserting
+     * on its own connection and committing after each batch. As the inserts of several connections can't be
+     * committed or rolled back atomically, a single connection is used if the writer is set to fail on errors. If
+     * the connection factory can't open additional connections, the rows are inserted on the connections that are
+     * available. The order of the inserted rows is not preserved. Defaults to the value of the
+     * {@link KNIMEConstants#PROPERTY_DATABASE_WRITER_CONNECTIONS} property.
+     *
+     * @param numberOfConnections the number of connections, a value of 1 (or less) inserts all rows on the
+     *            connection of the settings
+     * @since 3.7
+     */
+    public void setNumberOfConnections(final int numberOfConnections) {
+        m_numberOfConnections = Math.max(1, numberOfConnections);
+    }
+
+    /**
+     * Sets whether the batch size passed to the write methods is only used as the initial batch size which is then
+     * adapted to the round trip time measured for each batch, aiming at batches that take about 100ms. Defaults to
+     * the value of the {@link KNIMEConstants#PROPERTY_DATABASE_WRITER_ADAPTIVE_BATCH} property.
+     *
+     * @param adaptive <code>true</code> to adapt the batch size, <code>false</code> to use a fixed batch size
+     * @since 3.7
+     */
+    public void setAdaptiveBatchSize(final boolean adaptive) {
+        m_adaptiveBatchSize = adaptive;
+    }
+
     /**
      * {@inheritDoc}
      * @deprecated
@@ -314,127 +374,49 @@ public String writeData(final String table, final RowInput input, final long row
             // problems writing more than 13 columns. the prepare statement
             // ensures that we can set the columns directly row-by-row, the
             // database will handle the commit
-            long cnt = 1;
-            long errorCnt = 0;
-            long allErrors = 0;
-
-            // count number of rows added to current batch
-            int curBatchSize = 0;
+            final TimeZone timezone = conSettings.getTimeZone();
+            final Map<Integer, Integer> sqlColumnTypes = columnTypes;
+            final StatementFiller filler = (stmt, row) -> {
+                int dbIdx = 1;
+                for (int i = 0; i < mapping.length; i++) {
+                    if (mapping[i] < 0) {
+                        if (insertNullForMissingCols) {
+                            //insert only null if the insert null for missing col option is enabled
+                            stmt.setNull(dbIdx++, Types.NULL);
+                        }
+                    } else {
+                        final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
+                        final DataCell cell = row.getCell(mapping[i]);
+                        fillStatement(stmt, dbIdx++, cspec, cell, timezone, sqlColumnTypes);
+                    }
+                }
+            };
+            // the inserts of several connections can't be rolled back together, hence fail on error requires a
+            // single connection
+            if (m_numberOfConnections > 1 && !failOnError) {
+                return writeParallel(conn, cp, insertStamtement, filler, input, rowCount, exec, batchSize);
+            }
 
             LOGGER.debug("Executing SQL statement as prepareStatement: " + insertStamtement);
-            final PreparedStatement stmt = conn.prepareStatement(insertStamtement);
-            // remember auto-commit flag
-            final boolean autoCommit = conn.getAutoCommit();
-            DatabaseConnectionSettings.setAutoCommit(conn, false);
-            try {
-                final TimeZone timezone = conSettings.getTimeZone();
-                DataRow row; //get the first row
-                DataRow nextRow = input.poll();
+            try (final BatchWriter writer =
+                    new BatchWriter(conn, insertStamtement, filler, batchSize, failOnError, false, exec)) {
+                long cnt = 0;
+                DataRow row;
                 //iterate over all incoming data rows
-                while (nextRow != null) {
-                    row = nextRow;
+                while ((row = input.poll()) != null) {
                     cnt++;
                     exec.checkCanceled();
-                        if (rowCount > 0) {
-                            exec.setProgress(1.0 * cnt / rowCount, "Row " + "#" + cnt);
-                        } else {
-                            exec.setProgress("Writing Row#" + cnt);
-                        }
-
-                    int dbIdx = 1;
-                    for (int i = 0; i < mapping.length; i++) {
-                        if (mapping[i] < 0) {
-                            if (insertNullForMissingCols) {
-                                //insert only null if the insert null for missing col option is enabled
-                                stmt.setNull(dbIdx++, Types.NULL);
-                            }
-                        } else {
-                            final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
-                            final DataCell cell = row.getCell(mapping[i]);
-                            fillStatement(stmt, dbIdx++, cspec, cell, timezone, columnTypes);
-                        }
-                    }
-                    // if batch mode
-                    if (batchSize > 1) {
-                        // a new row will be added
-                        stmt.addBatch();
-                    }
-
-                    //get one more input row to check if 'row' is the last one
-                    nextRow = input.poll();
-
-                    curBatchSize++;
-                    // if batch size equals number of row in batch or input table at end
-                        if ((curBatchSize == batchSize) || nextRow == null) {
-                            curBatchSize = 0;
-                        try {
-                            // write batch
-                            if (batchSize > 1) {
-                                stmt.executeBatch();
-                            } else { // or write single row
-                                stmt.execute();
-                            }
-                        } catch (Throwable t) {
-
-                            final String errorMsg;
-                            if (batchSize > 1) {
-                                errorMsg = "Error while adding rows #" + (cnt - batchSize) + " - #" + cnt
-                                    + ", reason: " + t.getMessage();
-                            } else {
-                                errorMsg = "Error while adding row #" + cnt + " (" + row.getKey() + "), reason: "
-                                    + t.getMessage();
-                            }
-
-                            //introduced in KNIME 3.3.2
-                            if (failOnError) {
-                                try {
-                                    //rollback all changes
-                                    conn.rollback();
-                                    LOGGER.debug("Rollback complete transaction with auto commit=" + autoCommit);
-                                } catch (Throwable ex) {
-                                    LOGGER.info("Failed rollback after db exception with auto commit=" + autoCommit
-                                        + ". Rollback error: " + ex.getMessage(), ex);
-                                }
-                                throw new Exception(errorMsg, t);
-                            }
-
-
-                            // Postgres will refuse any more commands in this transaction after errors
-                            // Therefore we commit the changes that were possible. We commit everything at the end
-                            // anyway.
-                            if (!conn.getAutoCommit()) {
-                                conn.commit();
-                            }
-
-                            allErrors++;
-                            if (errorCnt > -1) {
-                                exec.setMessage(errorMsg);
-                                if (errorCnt++ < 10) {
-                                    LOGGER.warn(errorMsg);
-                                } else {
-                                    errorCnt = -1;
-                                    LOGGER.warn(errorMsg + " - more errors...", t);
-                                }
-                            }
-                        } finally {
-                            // clear batch if in batch mode
-                            if (batchSize > 1) {
-                                stmt.clearBatch();
-                            }
-                        }
-                        }
-                    }
-                if (!conn.getAutoCommit()) {
-                    conn.commit();
-                }
-                if (allErrors == 0) {
-                        return null;
+                    if (rowCount > 0) {
+                        exec.setProgress(1.0 * cnt / rowCount, "Row " + "#" + cnt + writer.getRateInfo());
                     } else {
-                        return "Errors \"" + allErrors + "\" writing " + (cnt - 1) + " rows.";
+                        exec.setProgress("Writing Row#" + cnt + writer.getRateInfo());
                     }
-            } finally {
-                DatabaseConnectionSettings.setAutoCommit(conn, autoCommit);
-                stmt.close();
+                    writer.addRow(cnt, row);
+                }
+                // write the remaining rows of the last batch
+                writer.flush();
+                writer.commit();
+                return createWriteResult(writer.getErrorCount(), cnt);
             }
         });
     }
@@ -718,4 +700,381 @@ public final String deleteRows(final String schema,
             }
         });
     }
+
+    private static String createWriteResult(final long allErrors, final long cnt) {
+        if (allErrors == 0) {
+            return null;
+        } else {
+            return "Errors \"" + allErrors + "\" writing " + cnt + " rows.";
+        }
+    }
+
+    /* Inserts the rows on several connections: the shared connection plus exclusive connections of the connection
+     * factory. The rows are read on the calling thread and handed to one writer thread per connection in chunks.
+     * Each writer commits after each batch (failed batches are counted), such that the connections don't block each
+     * other on databases locking the entire table. */
+    private String writeParallel(final Connection conn, final CredentialsProvider cp, final String insertStatement,
+        final StatementFiller filler, final RowInput input, final long rowCount, final ExecutionMonitor exec,
+        final int batchSize) throws Exception {
+        final DatabaseConnectionSettings conSettings = getDatabaseConnectionSettings();
+        final List<Connection> exclusiveConnections = new ArrayList<>(m_numberOfConnections - 1);
+        final List<BatchWriter> writers = new ArrayList<>(m_numberOfConnections);
+        final List<Future<Void>> futures = new ArrayList<>(m_numberOfConnections);
+        try {
+            writers.add(new BatchWriter(conn, insertStatement, filler, batchSize, false, true, exec));
+            for (int i = 1; i < m_numberOfConnections; i++) {
+                final Connection exclusive;
+                try {
+                    exclusive =
+                        conSettings.getUtility().getConnectionFactory().getExclusiveConnection(cp, conSettings);
+                } catch (InvalidSettingsException | SQLException | IOException ex) {
+                    LOGGER.info("Unable to open additional database connection, writing on " + writers.size()
+                        + " connection(s): " + ex.getMessage(), ex);
+                    break;
+                }
+                exclusiveConnections.add(exclusive);
+                writers.add(new BatchWriter(exclusive, insertStatement, filler, batchSize, false, true, exec));
+            }
+            final int connections = writers.size();
+            LOGGER.debug("Executing SQL statement as prepareStatement on " + connections + " connections: "
+                + insertStatement);
+            final BlockingQueue<RowChunk> queue = new ArrayBlockingQueue<>(2 * connections);
+            final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(connections);
+            for (final BatchWriter writer : writers) {
+                futures.add(pool.enqueue(() -> {
+                    writer.write(queue);
+                    return null;
+                }));
+            }
+            // the writer threads are taken from the global pool, hence don't block a slot while waiting for them
+            final Callable<Long> produce = () -> {
+                long cnt = 0;
+                List<DataRow> rows = new ArrayList<>(CHUNK_SIZE);
+                DataRow row;
+                while ((row = input.poll()) != null) {
+                    cnt++;
+                    rows.add(row);
+                    if (rows.size() == CHUNK_SIZE) {
+                        put(queue, new RowChunk(cnt - rows.size() + 1, rows), futures, exec);
+                        rows = new ArrayList<>(CHUNK_SIZE);
+                        final String rates = getRateInfo(writers);
+                        if (rowCount > 0) {
+                            exec.setProgress(1.0 * cnt / rowCount, "Row " + "#" + cnt + rates);
+                        } else {
+                            exec.setProgress("Writing Row#" + cnt + rates);
+                        }
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    put(queue, new RowChunk(cnt - rows.size() + 1, rows), futures, exec);
+                }
+                for (int i = 0; i < connections; i++) {
+                    put(queue, RowChunk.END, futures, exec);
+                }
+                for (final Future<Void> future : futures) {
+                    future.get();
+                }
+                return cnt;
+            };
+            final long cnt;
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            try {
+                cnt = currentPool == null ? produce.call() : currentPool.runInvisible(produce);
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+            long allErrors = 0;
+            for (final BatchWriter writer : writers) {
+                writer.commit();
+                allErrors += writer.getErrorCount();
+            }
+            return createWriteResult(allErrors, cnt);
+        } finally {
+            futures.stream().forEach(f -> f.cancel(true));
+            for (final BatchWriter writer : writers) {
+                try {
+                    writer.close();
+                } catch (SQLException ex) {
+                    LOGGER.debug("Error closing insert statement: " + ex.getMessage(), ex);
+                }
+            }
+            for (final Connection exclusive : exclusiveConnections) {
+                try {
+                    exclusive.close();
+                } catch (SQLException ex) {
+                    LOGGER.debug("Error closing connection: " + ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    /* Hands the chunk to the writer threads, fails if a writer has failed in the meantime. */
+    private static void put(final BlockingQueue<RowChunk> queue, final RowChunk chunk,
+        final List<Future<Void>> futures, final ExecutionMonitor exec) throws Exception {
+        while (!queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            exec.checkCanceled();
+            for (final Future<Void> future : futures) {
+                if (future.isDone()) {
+                    // writers only terminate early if they fail
+                    future.get();
+                }
+            }
+        }
+    }
+
+    private static Exception unwrap(final ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof ExecutionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Error) {
+            throw (Error)cause;
+        }
+        return cause instanceof Exception ? (Exception)cause : e;
+    }
+
+    private static String getRateInfo(final List<BatchWriter> writers) {
+        final StringBuilder buf = new StringBuilder(" (");
+        for (int i = 0; i < writers.size(); i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append("connection ").append(i + 1).append(": ")
+                .append(writers.get(i).getRowsPerSecond()).append(" rows/s");
+        }
+        return buf.append(')').toString();
+    }
+
+    /** Sets the parameters of the insert statement for a single row. */
+    @FunctionalInterface
+    private interface StatementFiller {
+        void fill(PreparedStatement stmt, DataRow row) throws SQLException;
+    }
+
+    /** Consecutive rows handed to a writer thread. */
+    private static final class RowChunk {
+
+        /** Marks the end of the input. */
+        static final RowChunk END = new RowChunk(-1, Collections.emptyList());
+
+        private final long m_firstRow;
+
+        private final List<DataRow> m_rows;
+
+        RowChunk(final long firstRow, final List<DataRow> rows) {
+            m_firstRow = firstRow;
+            m_rows = rows;
+        }
+    }
+
+    /**
+     * Inserts rows on a single connection using a prepared statement in batch mode (if the batch size is larger than
+     * one). Failed batches are either rolled back and reported as exception or committed and counted, depending on
+     * the fail on error flag. Successful batches are committed at the end or, if the writer shares the table with
+     * writers on other connections, after each batch. The batch size is adapted to the measured round trip time if
+     * enabled. Instances are used by a single thread only, except for the statistics.
+     */
+    private final class BatchWriter implements AutoCloseable {
+
+        private final Connection m_conn;
+
+        private final PreparedStatement m_stmt;
+
+        private final boolean m_autoCommit;
+
+        private final StatementFiller m_filler;
+
+        private final boolean m_failOnError;
+
+        private final boolean m_commitBatches;
+
+        private final ExecutionMonitor m_exec;
+
+        private final boolean m_batchMode;
+
+        private final boolean m_adaptive;
+
+        private final long m_startTime = System.nanoTime();
+
+        private int m_batchSize;
+
+        // count number of rows added to current batch
+        private int m_curBatchSize;
+
+        private long m_firstRowInBatch;
+
+        private long m_lastRowInBatch;
+
+        private DataRow m_lastRow;
+
+        private long m_allErrors;
+
+        private int m_errorCnt;
+
+        private volatile long m_writtenRows;
+
+        BatchWriter(final Connection conn, final String insertStatement, final StatementFiller filler,
+            final int batchSize, final boolean failOnError, final boolean commitBatches, final ExecutionMonitor exec)
+            throws SQLException {
+            m_conn = conn;
+            m_filler = filler;
+            m_failOnError = failOnError;
+            m_commitBatches = commitBatches;
+            m_exec = exec;
+            m_batchMode = batchSize > 1;
+            m_batchSize = m_batchMode ? batchSize : 1;
+            m_adaptive = m_batchMode && m_adaptiveBatchSize;
+            m_stmt = conn.prepareStatement(insertStatement);
+            try {
+                // remember auto-commit flag
+                m_autoCommit = conn.getAutoCommit();
+                DatabaseConnectionSettings.setAutoCommit(conn, false);
+            } catch (SQLException ex) {
+                m_stmt.close();
+                throw ex;
+            }
+        }
+
+        /* Reads row chunks from the queue until the end marker is found. */
+        void write(final BlockingQueue<RowChunk> queue) throws Exception {
+            RowChunk chunk;
+            while ((chunk = queue.take()) != RowChunk.END) {
+                long rowNumber = chunk.m_firstRow;
+                for (final DataRow row : chunk.m_rows) {
+                    m_exec.checkCanceled();
+                    addRow(rowNumber++, row);
+                }
+            }
+            flush();
+        }
+
+        void addRow(final long rowNumber, final DataRow row) throws Exception {
+            m_filler.fill(m_stmt, row);
+            // if batch mode
+            if (m_batchMode) {
+                // a new row will be added
+                m_stmt.addBatch();
+            }
+            if (m_curBatchSize == 0) {
+                m_firstRowInBatch = rowNumber;
+            }
+            m_lastRowInBatch = rowNumber;
+            m_lastRow = row;
+            m_curBatchSize++;
+            // if batch size equals number of row in batch
+            if (m_curBatchSize >= m_batchSize) {
+                flush();
+            }
+        }
+
+        void flush() throws Exception {
+            final int rows = m_curBatchSize;
+            if (rows == 0) {
+                return;
+            }
+            m_curBatchSize = 0;
+            try {
+                final long start = System.nanoTime();
+                // write batch
+                if (m_batchMode) {
+                    m_stmt.executeBatch();
+                } else { // or write single row
+                    m_stmt.execute();
+                }
+                if (m_commitBatches) {
+                    commit();
+                }
+                adaptBatchSize(rows, System.nanoTime() - start);
+            } catch (Throwable t) {
+                final String errorMsg;
+                if (m_batchMode) {
+                    errorMsg = "Error while adding rows #" + m_firstRowInBatch + " - #" + m_lastRowInBatch
+                        + ", reason: " + t.getMessage();
+                } else {
+                    errorMsg = "Error while adding row #" + m_lastRowInBatch + " (" + m_lastRow.getKey()
+                        + "), reason: " + t.getMessage();
+                }
+
+                //introduced in KNIME 3.3.2
+                if (m_failOnError) {
+                    //rollback all changes
+                    rollback();
+                    throw new Exception(errorMsg, t);
+                }
+
+                // Postgres will refuse any more commands in this transaction after errors
+                // Therefore we commit the changes that were possible. We commit everything at the end
+                // anyway.
+                commit();
+
+                m_allErrors++;
+                if (m_errorCnt > -1) {
+                    m_exec.setMessage(errorMsg);
+                    if (m_errorCnt++ < 10) {
+                        LOGGER.warn(errorMsg);
+                    } else {
+                        m_errorCnt = -1;
+                        LOGGER.warn(errorMsg + " - more errors...", t);
+                    }
+                }
+            } finally {
+                // clear batch if in batch mode
+                if (m_batchMode) {
+                    m_stmt.clearBatch();
+                }
+                m_writtenRows += rows;
+            }
+        }
+
+        /* Sizes the next batches such that they take about TARGET_BATCH_NANOS, changing the size at most by a factor
+         * of two per batch to smooth out outliers. Only full batches are measured. */
+        private void adaptBatchSize(final int rows, final long nanos) {
+            if (!m_adaptive || rows < m_batchSize) {
+                return;
+            }
+            final long nanosPerRow = Math.max(1, nanos / rows);
+            final long optimal = TARGET_BATCH_NANOS / nanosPerRow;
+            final long size = Math.max(m_batchSize / 2, Math.min(2L * m_batchSize, optimal));
+            m_batchSize = (int)Math.max(MIN_ADAPTIVE_BATCH_SIZE, Math.min(MAX_ADAPTIVE_BATCH_SIZE, size));
+        }
+
+        void commit() throws SQLException {
+            if (!m_conn.getAutoCommit()) {
+                m_conn.commit();
+            }
+        }
+
+        void rollback() {
+            try {
+                m_conn.rollback();
+                LOGGER.debug("Rollback complete transaction with auto commit=" + m_autoCommit);
+            } catch (Throwable ex) {
+                LOGGER.info("Failed rollback after db exception with auto commit=" + m_autoCommit
+                    + ". Rollback error: " + ex.getMessage(), ex);
+            }
+        }
+
+        long getErrorCount() {
+            return m_allErrors;
+        }
+
+        long getRowsPerSecond() {
+            final long elapsed = System.nanoTime() - m_startTime;
+            return elapsed > 0 ? (long)(m_writtenRows * 1e9 / elapsed) : 0;
+        }
+
+        /* Rows per second shown in the progress message. */
+        String getRateInfo() {
+            return " (" + getRowsPerSecond() + " rows/s)";
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                DatabaseConnectionSettings.setAutoCommit(m_conn, m_autoCommit);
+            } finally {
+                m_stmt.close();
+            }
+        }
+    }
 }
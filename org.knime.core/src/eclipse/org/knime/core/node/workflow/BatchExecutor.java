@@ -50,8 +50,10 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -382,6 +384,14 @@ protected static class WorkflowConfiguration {
         /** The output directory. Either a directory or an {@link #outputFile} should be given */
         public File outputDir;
 
+        /**
+         * The (JSON) file the execution metrics of all nodes are written to after execution, may be
+         * <code>null</code>.
+         *
+         * @since 3.7
+         */
+        public File metricsFile;
+
         /** A collection of workflow variables. */
         public final Collection<FlowVariable> flowVariables = new ArrayList<FlowVariable>();
 
@@ -556,6 +566,11 @@ protected void handleCommandlineArgument(final String[] parts, final String s, f
                 throw new IllegalOptionException("Couldn't parse -destDir argument: " + s);
             }
             config.outputDir = new File(parts[1]);
+        } else if ("-metricsFile".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -metricsFile argument: " + s);
+            }
+            config.metricsFile = new File(parts[1]);
         } else if ("-workflow.variable".equals(parts[0])) {
             if (parts.length != 2) {
                 throw new IllegalOptionException("Couldn't parse -workflow.variable argument: " + s);
@@ -622,6 +637,8 @@ public static String getOptionsString() {
                 + "                      if omitted the workflow is only saved in place\n"
                 + " -destDir=...      => directory where the executed workflow is saved to\n"
                 + "                      if omitted the workflow is only saved in place\n"
+                + " -metricsFile=...  => JSON file the execution metrics (CPU time, memory, rows, ...)\n"
+                + "                      of all executed nodes are written to\n"
                 + " -workflow.variable=name,value,type => define or overwrite workflow variable\n"
                 + "                      'name' with value 'value' (possibly enclosed by quotes). The\n"
                 + "                      'type' must be one of \"String\", \"int\" or \"double\".";
@@ -829,6 +846,23 @@ public void run() {
         return successful;
     }
 
+    /**
+     * Writes the execution metrics of all nodes to the metrics file of the configuration (if any). Failures are only
+     * logged as they don't affect the result of the execution.
+     */
+    private static void writeMetrics(final WorkflowManager wfm, final WorkflowConfiguration config) {
+        if (config.metricsFile == null) {
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(config.metricsFile)) {
+            NodeExecutionMetrics.writeJson(wfm.getNodeExecutionMetrics(), out);
+            LOGGER.info("Execution metrics written to " + config.metricsFile.getAbsolutePath());
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error("Could not write execution metrics to " + config.metricsFile.getAbsolutePath() + ": "
+                + ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Saves the workflow after execution.
      *
@@ -941,6 +975,7 @@ private int runOne(final WorkflowConfiguration config) {
                 LOGGER.debug("------------------------------------");
                 dumpWorkflowToDebugLog(wfm);
                 LOGGER.debug("------------------------------------");
+                writeMetrics(wfm, config);
             }
 
             try {
@@ -556,12 +556,22 @@ public NodeContainerExecutionStatus performExecuteNode(final PortObject[] inObje
             success = false;
         }
         NodeContext.pushContext(this);
+        getNodeTimer().startMetrics(inObjects);
+        boolean executed = false;
         try {
             // execute node outside any synchronization!
-            success = success && m_node.execute(inObjects, ev, ec);
+            executed = success && m_node.execute(inObjects, ev, ec);
         } finally {
             NodeContext.removeLastContext();
+            PortObject[] outObjects = new PortObject[m_node.getNrOutPorts()];
+            if (executed) {
+                for (int i = 0; i < outObjects.length; i++) {
+                    outObjects[i] = m_node.getOutputObject(i);
+                }
+            }
+            getNodeTimer().endMetrics(outObjects, executed);
         }
+        success = executed;
         if (success) {
             // output tables are made publicly available (for blobs)
             putOutputTablesIntoGlobalRepository(ec);
@@ -0,0 +1,297 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataTableSpecCreator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * Resource usage of a single execution of a {@link NativeNodeContainer}. The metrics are recorded by the node's
+ * {@link NodeTimer} and can be collected for an entire workflow using
+ * {@link WorkflowManager#getNodeExecutionMetrics()}.
+ *
+ * <p>CPU time and allocated bytes are measured for the thread executing the node only, work the node delegates to
+ * other threads (e.g. the threads of the global thread pool or one of its sub pools) is not included. The garbage
+ * collection time is a JVM wide figure observed while the node was executing, hence it includes the effect of
+ * concurrently executing nodes. The peak heap usage is JVM wide as well and therefore only reported if no other node
+ * was executing at the same time. Values that cannot be measured on the running JVM are reported as -1.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class NodeExecutionMetrics {
+
+    private final NodeID m_nodeID;
+
+    private final String m_nodeName;
+
+    private final boolean m_success;
+
+    private final long m_executionTime;
+
+    private final long m_cpuTime;
+
+    private final long m_allocatedBytes;
+
+    private final long m_rowsIn;
+
+    private final long m_rowsOut;
+
+    private final long m_spilledBytes;
+
+    private final long m_gcTime;
+
+    private final long m_peakHeapUsage;
+
+    NodeExecutionMetrics(final NodeID nodeID, final String nodeName, final boolean success, final long executionTime,
+        final long cpuTime, final long allocatedBytes, final long rowsIn, final long rowsOut, final long spilledBytes,
+        final long gcTime, final long peakHeapUsage) {
+        m_nodeID = nodeID;
+        m_nodeName = nodeName;
+        m_success = success;
+        m_executionTime = executionTime;
+        m_cpuTime = cpuTime;
+        m_allocatedBytes = allocatedBytes;
+        m_rowsIn = rowsIn;
+        m_rowsOut = rowsOut;
+        m_spilledBytes = spilledBytes;
+        m_gcTime = gcTime;
+        m_peakHeapUsage = peakHeapUsage;
+    }
+
+    /**
+     * @return the id of the executed node
+     */
+    public NodeID getNodeID() {
+        return m_nodeID;
+    }
+
+    /**
+     * @return the name of the executed node
+     */
+    public String getNodeName() {
+        return m_nodeName;
+    }
+
+    /**
+     * @return whether the execution was successful
+     */
+    public boolean isSuccess() {
+        return m_success;
+    }
+
+    /**
+     * @return the wall clock execution time in milliseconds
+     */
+    public long getExecutionTime() {
+        return m_executionTime;
+    }
+
+    /**
+     * @return the CPU time of the executing thread in milliseconds (not including threads the node delegates work
+     *         to) or -1 if not supported
+     */
+    public long getCPUTime() {
+        return m_cpuTime;
+    }
+
+    /**
+     * @return the number of bytes allocated by the executing thread (not including threads the node delegates work
+     *         to) or -1 if not supported
+     */
+    public long getAllocatedBytes() {
+        return m_allocatedBytes;
+    }
+
+    /**
+     * @return the number of rows of all input tables
+     */
+    public long getRowsIn() {
+        return m_rowsIn;
+    }
+
+    /**
+     * @return the number of rows of all output tables
+     */
+    public long getRowsOut() {
+        return m_rowsOut;
+    }
+
+    /**
+     * @return the number of bytes the tables created by the node have written to temporary files during execution
+     */
+    public long getSpilledBytes() {
+        return m_spilledBytes;
+    }
+
+    /**
+     * @return the time in milliseconds the garbage collectors were active during the execution
+     */
+    public long getGCTime() {
+        return m_gcTime;
+    }
+
+    /**
+     * @return the peak heap usage in bytes observed during the execution or -1 if not supported or other nodes were
+     *         executing at the same time
+     */
+    public long getPeakHeapUsage() {
+        return m_peakHeapUsage;
+    }
+
+    /**
+     * @return the metrics as JSON object
+     */
+    public JsonObject toJson() {
+        JsonObjectBuilder job = Json.createObjectBuilder();
+        job.add("nodeID", m_nodeID.toString());
+        job.add("nodeName", m_nodeName);
+        job.add("success", m_success);
+        job.add("executionTime", m_executionTime);
+        job.add("cpuTime", m_cpuTime);
+        job.add("allocatedBytes", m_allocatedBytes);
+        job.add("rowsIn", m_rowsIn);
+        job.add("rowsOut", m_rowsOut);
+        job.add("spilledBytes", m_spilledBytes);
+        job.add("gcTime", m_gcTime);
+        job.add("peakHeapUsage", m_peakHeapUsage);
+        return job.build();
+    }
+
+    /**
+     * Writes the given metrics as JSON array to the stream. The stream is closed afterwards.
+     *
+     * @param metrics the metrics to write
+     * @param out the stream to write to
+     */
+    public static void writeJson(final Collection<NodeExecutionMetrics> metrics, final OutputStream out) {
+        JsonArrayBuilder jab = Json.createArrayBuilder();
+        for (NodeExecutionMetrics m : metrics) {
+            jab.add(m.toJson());
+        }
+        Map<String, Boolean> cfg = Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, Boolean.TRUE);
+        try (JsonWriter jw = Json.createWriterFactory(cfg).createWriter(out)) {
+            jw.writeArray(jab.build());
+        }
+    }
+
+    /**
+     * @return the spec of the table created by {@link #createTable(Collection, ExecutionContext)}
+     */
+    public static DataTableSpec getTableSpec() {
+        DataTableSpecCreator dtsc = new DataTableSpecCreator();
+        DataColumnSpec[] colSpecs = new DataColumnSpec[] {
+            new DataColumnSpecCreator("Name", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Success", BooleanCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Execution Time", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("CPU Time", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Allocated Bytes", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows In", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows Out", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Spilled Bytes", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("GC Time", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Peak Heap Usage", LongCell.TYPE).createSpec()
+        };
+        dtsc.addColumns(colSpecs);
+        return dtsc.createSpec();
+    }
+
+    /**
+     * Creates a table with one row per metrics object; the node id is used as row key.
+     *
+     * @param metrics the metrics
+     * @param exec the context used to create the table
+     * @return a new table with spec {@link #getTableSpec()}
+     */
+    public static BufferedDataTable createTable(final Collection<NodeExecutionMetrics> metrics,
+        final ExecutionContext exec) {
+        BufferedDataContainer result = exec.createDataContainer(getTableSpec());
+        for (NodeExecutionMetrics m : metrics) {
+            result.addRowToTable(new DefaultRow(new RowKey(m.m_nodeID.toString()),
+                new StringCell(m.m_nodeName),
+                BooleanCell.get(m.m_success),
+                new LongCell(m.m_executionTime),
+                new LongCell(m.m_cpuTime),
+                new LongCell(m.m_allocatedBytes),
+                new LongCell(m.m_rowsIn),
+                new LongCell(m.m_rowsOut),
+                new LongCell(m.m_spilledBytes),
+                new LongCell(m.m_gcTime),
+                new LongCell(m.m_peakHeapUsage)));
+        }
+        result.close();
+        return result.getTable();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return m_nodeName + " (" + m_nodeID + "): " + m_executionTime + "ms, CPU " + m_cpuTime + "ms, "
+            + m_allocatedBytes + " bytes allocated, " + m_rowsIn + " rows in, " + m_rowsOut + " rows out, "
+            + m_spilledBytes + " bytes spilled, GC " + m_gcTime + "ms, peak heap " + m_peakHeapUsage + " bytes";
+    }
+}
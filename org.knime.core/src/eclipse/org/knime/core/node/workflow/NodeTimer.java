@@ -53,6 +53,12 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
 import java.net.URLEncoder;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -60,6 +66,8 @@
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.json.Json;
 import javax.json.JsonArray;
@@ -96,6 +104,7 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
 import org.knime.core.util.EclipseUtil;
 import org.osgi.framework.Version;
 import org.osgi.service.prefs.Preferences;
@@ -121,6 +130,8 @@ public final class NodeTimer {
     private long m_executionDurationOverall;
     private int m_numberOfExecutionsSinceReset;
     private int m_numberOfExecutionsOverall;
+    private volatile MetricsRecorder m_metricsRecorder;
+    private volatile NodeExecutionMetrics m_lastExecutionMetrics;
 
     /**
      * Container holding stats for the entire instance and all nodes that have been used/timed.
@@ -704,4 +715,173 @@ public void endExec(final boolean success) {
         m_startTime = -1;
     }
 
+    /**
+     * Starts recording the resource usage of an execution. Must be called by the thread executing the node.
+     *
+     * @param inObjects the input of the node
+     */
+    void startMetrics(final PortObject[] inObjects) {
+        m_metricsRecorder = new MetricsRecorder(inObjects);
+    }
+
+    /**
+     * Finishes recording the resource usage of the current execution. Must be called by the same thread as
+     * {@link #startMetrics(PortObject[])}.
+     *
+     * @param outObjects the output of the node, may contain <code>null</code> if execution failed
+     * @param success whether the execution was successful
+     */
+    void endMetrics(final PortObject[] outObjects, final boolean success) {
+        MetricsRecorder recorder = m_metricsRecorder;
+        if (recorder != null) {
+            m_metricsRecorder = null;
+            m_lastExecutionMetrics = recorder.finish(m_parent, outObjects, success);
+        }
+    }
+
+    /**
+     * Adds bytes written to temporary files by a table of this node. Ignored if the node is not executing.
+     *
+     * @param bytes the number of bytes
+     * @since 3.7
+     */
+    public void addSpilledBytes(final long bytes) {
+        MetricsRecorder recorder = m_metricsRecorder;
+        if (recorder != null) {
+            recorder.m_spilledBytes.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * @return the resource usage of the last execution or <code>null</code> if the node has not been executed yet
+     *         (or is no native node)
+     * @since 3.7
+     */
+    public NodeExecutionMetrics getLastExecutionMetrics() {
+        return m_lastExecutionMetrics;
+    }
+
+    /**
+     * Records the resource usage of a single execution, see {@link NodeExecutionMetrics}. CPU time and allocated bytes
+     * are read for the thread creating and finishing the recorder, i.e. work on other threads (like the ones of
+     * {@link org.knime.core.util.ThreadPool} and its sub pools) is not counted. The peak heap usage of the JVM is
+     * only attributed to the execution if no other node executed in the meantime.
+     */
+    private static final class MetricsRecorder {
+
+        private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+        /* com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long), accessed via reflection as the package
+         * is not necessarily visible to this bundle; null if not available. */
+        private static final Method ALLOCATED_BYTES_METHOD = findAllocatedBytesMethod();
+
+        /** Number of executions currently recorded, used to reset the peak heap usage. */
+        private static final AtomicInteger RUNNING = new AtomicInteger();
+
+        /** Number of executions started so far, used to detect executions that started and finished in between. */
+        private static final AtomicLong STARTED = new AtomicLong();
+
+        private final long m_startNanos = System.nanoTime();
+        private final long m_startCPUTime;
+        private final long m_startAllocatedBytes;
+        private final long m_startGCTime;
+        private final long m_rowsIn;
+        private final AtomicLong m_spilledBytes = new AtomicLong();
+
+        /** Whether no other node was executing when this one started. */
+        private final boolean m_startedAlone;
+
+        /** The value of {@link #STARTED} after this execution was started. */
+        private final long m_startNumber;
+
+        MetricsRecorder(final PortObject[] inObjects) {
+            m_startedAlone = RUNNING.getAndIncrement() == 0;
+            m_startNumber = STARTED.incrementAndGet();
+            if (m_startedAlone) {
+                // no other node is executing, peak usage from now on is caused by this (and later) nodes
+                for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                        pool.resetPeakUsage();
+                    }
+                }
+            }
+            m_startCPUTime = currentThreadCPUTime();
+            m_startAllocatedBytes = currentThreadAllocatedBytes();
+            m_startGCTime = gcTime();
+            m_rowsIn = countRows(inObjects);
+        }
+
+        NodeExecutionMetrics finish(final NodeContainer nc, final PortObject[] outObjects, final boolean success) {
+            long cpuTime = currentThreadCPUTime();
+            long allocatedBytes = currentThreadAllocatedBytes();
+            long peakHeapUsage = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.getPeakUsage() != null) {
+                    peakHeapUsage += pool.getPeakUsage().getUsed();
+                }
+            }
+            // the peak can't be attributed to this node if another one executed at any time in between
+            boolean ranAlone = m_startedAlone && STARTED.get() == m_startNumber;
+            if (RUNNING.getAndDecrement() != 1 || !ranAlone) {
+                peakHeapUsage = -1;
+            }
+            return new NodeExecutionMetrics(nc.getID(), nc.getName(), success,
+                (System.nanoTime() - m_startNanos) / 1000000,
+                cpuTime < 0 || m_startCPUTime < 0 ? -1 : (cpuTime - m_startCPUTime) / 1000000,
+                allocatedBytes < 0 || m_startAllocatedBytes < 0 ? -1 : allocatedBytes - m_startAllocatedBytes,
+                m_rowsIn, countRows(outObjects), m_spilledBytes.get(), gcTime() - m_startGCTime, peakHeapUsage);
+        }
+
+        private static long countRows(final PortObject[] objects) {
+            long rows = 0;
+            if (objects != null) {
+                for (PortObject o : objects) {
+                    if (o instanceof BufferedDataTable) {
+                        rows += ((BufferedDataTable)o).size();
+                    }
+                }
+            }
+            return rows;
+        }
+
+        private static long currentThreadCPUTime() {
+            try {
+                return THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() : -1;
+            } catch (UnsupportedOperationException e) {
+                return -1;
+            }
+        }
+
+        private static long currentThreadAllocatedBytes() {
+            if (ALLOCATED_BYTES_METHOD == null) {
+                return -1;
+            }
+            try {
+                return (Long)ALLOCATED_BYTES_METHOD.invoke(THREAD_BEAN, Thread.currentThread().getId());
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+
+        private static long gcTime() {
+            long time = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                time += Math.max(0, gc.getCollectionTime());
+            }
+            return time;
+        }
+
+        private static Method findAllocatedBytesMethod() {
+            for (Class<?> c : THREAD_BEAN.getClass().getInterfaces()) {
+                if ("com.sun.management.ThreadMXBean".equals(c.getName())) {
+                    try {
+                        return c.getMethod("getThreadAllocatedBytes", long.class);
+                    } catch (NoSuchMethodException e) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
 }
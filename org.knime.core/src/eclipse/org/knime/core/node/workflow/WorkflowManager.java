@@ -6271,6 +6271,33 @@ public Collection<NodeContainer> getNodeContainers() {
         }
     }
 
+    /**
+     * Collects the resource usage of the last execution of all native nodes in this workflow, including the nodes
+     * contained in metanodes and wrapped metanodes. Nodes that have not been executed since the workflow was loaded
+     * are omitted.
+     *
+     * @return the metrics in the order of the node ids within each (nested) workflow
+     * @since 3.7
+     */
+    public List<NodeExecutionMetrics> getNodeExecutionMetrics() {
+        List<NodeExecutionMetrics> result = new ArrayList<NodeExecutionMetrics>();
+        try (WorkflowLock lock = lock()) {
+            for (NodeContainer nc : m_workflow.getNodeValues()) {
+                if (nc instanceof WorkflowManager) {
+                    result.addAll(((WorkflowManager)nc).getNodeExecutionMetrics());
+                } else if (nc instanceof SubNodeContainer) {
+                    result.addAll(((SubNodeContainer)nc).getWorkflowManager().getNodeExecutionMetrics());
+                } else {
+                    NodeExecutionMetrics metrics = nc.getNodeTimer().getLastExecutionMetrics();
+                    if (metrics != null) {
+                        result.add(metrics);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * @return collection of ConnectionContainer in this WFM
      */
@@ -0,0 +1,708 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * A {@link ThreadPool} that runs its tasks in a work-stealing {@link ForkJoinPool}. It has the same API and the same
+ * semantics with respect to the maximum number of threads in the pool and its sub pools, but
+ * <ul>
+ * <li>the bookkeeping of running tasks is done with atomic counters per pool instead of locks shared with the
+ * parent pool, i.e. sub pools don't contend on a common lock,</li>
+ * <li>tasks submitted from within the pool are pushed to the local queue of the submitting thread and can be stolen
+ * by idle threads; a task that waits for such a task that has not been started yet runs it itself,</li>
+ * <li>waiting on a future of this pool, {@link #waitForTermination()} and {@link #runInvisible(Callable)} are
+ * managed blocks: the waiting task does not count as running and the fork/join pool may start a compensating
+ * thread, hence nested parallel work does not starve even if the waiting code doesn't use
+ * {@link #runInvisible(Callable)}.</li>
+ * </ul>
+ * The global pool is created as a fork/join pool if the {@link KNIMEConstants#PROPERTY_FORKJOIN_THREAD_POOL} property
+ * is set.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public class ForkJoinThreadPool extends ThreadPool {
+
+    private static final AtomicInteger WORKER_COUNTER = new AtomicInteger();
+
+    /** Worker thread, knows the task it is currently executing. */
+    private static final class Worker extends ForkJoinWorkerThread {
+
+        private PoolTask<?> m_currentTask;
+
+        Worker(final ForkJoinPool pool) {
+            super(pool);
+            setName("KNIME-FJ-Worker-" + WORKER_COUNTER.getAndIncrement());
+            setPriority(Thread.MIN_PRIORITY + 2);
+            setDaemon(true);
+        }
+    }
+
+    /**
+     * The future returned to the caller. It's run by a fork/join task once the pool (and all its parents) have a
+     * free slot.
+     */
+    private final class PoolTask<T> extends FutureTask<T> {
+
+        private final CountDownLatch m_startWaiter = new CountDownLatch(1);
+
+        private final ClassLoader m_contextClassloader = Thread.currentThread().getContextClassLoader();
+
+        private final ForkJoinTask<?> m_forkJoinTask = ForkJoinTask.adapt(this);
+
+        private final AtomicBoolean m_isFinished = new AtomicBoolean();
+
+        /** Whether the task has got its slots and has been handed to the fork/join pool. */
+        private volatile boolean m_isScheduled;
+
+        /** The pool in whose queue the task is waiting for a free slot. */
+        private volatile ForkJoinThreadPool m_waitingIn;
+
+        private volatile Thread m_runner;
+
+        /** Number of nested invisible sections, only accessed by the running thread. */
+        private int m_invisibleCount;
+
+        PoolTask(final Callable<T> callable) {
+            super(ThreadUtils.callableWithContext(callable, false));
+        }
+
+        PoolTask(final Runnable runnable, final T result) {
+            super(ThreadUtils.runnableWithContext(runnable, false), result);
+        }
+
+        ForkJoinThreadPool getPool() {
+            return ForkJoinThreadPool.this;
+        }
+
+        @Override
+        public void run() {
+            m_startWaiter.countDown();
+            final Thread thread = Thread.currentThread();
+            final Worker worker = thread instanceof Worker ? (Worker)thread : null;
+            final PoolTask<?> previousTask = worker == null ? null : worker.m_currentTask;
+            final ClassLoader previousContextClassloader = thread.getContextClassLoader();
+            thread.setContextClassLoader(m_contextClassloader);
+            if (worker != null) {
+                worker.m_currentTask = this;
+            }
+            m_runner = thread;
+            for (ForkJoinThreadPool p = getPool(); p != null; p = p.m_parent) {
+                p.m_runningTasks.add(this);
+            }
+            try {
+                super.run();
+            } finally {
+                for (ForkJoinThreadPool p = getPool(); p != null; p = p.m_parent) {
+                    p.m_runningTasks.remove(this);
+                }
+                m_runner = null;
+                if (worker != null) {
+                    worker.m_currentTask = previousTask;
+                }
+                thread.setContextClassLoader(previousContextClassloader);
+                getPool().release();
+                finish();
+                if (previousTask == null) {
+                    // clear interrupt from a cancel(true) that came too late
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        @Override
+        protected void setException(final Throwable t) {
+            if (!(t instanceof CanceledExecutionException)) {
+                // canceled execution exception is fine and will not be reported
+                NodeLogger.getLogger(ThreadPool.class).error("An exception occurred while executing a runnable.", t);
+            }
+            super.setException(t);
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            boolean b = super.cancel(mayInterruptIfRunning);
+            if (b) {
+                m_startWaiter.countDown();
+                final ForkJoinThreadPool waitingIn = m_waitingIn;
+                if (!m_isScheduled && waitingIn != null && waitingIn.m_waitingTasks.remove(this)) {
+                    finish();
+                }
+            }
+            return b;
+        }
+
+        /** Decrements the pending job counters, only once. */
+        void finish() {
+            if (m_isFinished.compareAndSet(false, true)) {
+                getPool().decrementPendingJobs();
+            }
+        }
+
+        void interruptRunner() {
+            final Thread runner = m_runner;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+
+        void setInvisible(final boolean invisible) {
+            if (invisible) {
+                if (m_invisibleCount++ == 0) {
+                    getPool().release();
+                }
+            } else if (--m_invisibleCount == 0) {
+                getPool().acquireUnconditionally();
+            }
+        }
+
+        void waitUntilStarted() throws InterruptedException {
+            runManaged(() -> {
+                m_startWaiter.await();
+                return null;
+            });
+        }
+
+        /** Runs the task in the current thread if it has been forked by this thread and not been started yet. */
+        private boolean tryRunInline() {
+            if (Thread.currentThread() instanceof Worker && m_isScheduled && m_forkJoinTask.tryUnfork()) {
+                m_forkJoinTask.invoke();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            if (!isDone() && !tryRunInline()) {
+                runManaged(() -> {
+                    try {
+                        super.get();
+                    } catch (ExecutionException | CancellationException e) {
+                        // reported below
+                    }
+                    return null;
+                });
+            }
+            return super.get();
+        }
+
+        @Override
+        public T get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+            if (!isDone() && !tryRunInline()) {
+                runManaged(() -> {
+                    try {
+                        super.get(timeout, unit);
+                    } catch (ExecutionException | CancellationException | TimeoutException e) {
+                        // reported below
+                    }
+                    return null;
+                });
+                if (!isDone()) {
+                    throw new TimeoutException();
+                }
+            }
+            return super.get();
+        }
+    }
+
+    /** Runs a callable as managed block and memorizes its result. */
+    private static final class BlockingCall<V> implements ManagedBlocker {
+
+        private final Callable<V> m_callable;
+
+        private V m_result;
+
+        private Exception m_exception;
+
+        private boolean m_isDone;
+
+        BlockingCall(final Callable<V> callable) {
+            m_callable = callable;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                m_result = m_callable.call();
+            } catch (Exception e) {
+                m_exception = e;
+            }
+            m_isDone = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return m_isDone;
+        }
+
+        V getResult() throws Exception {
+            if (m_exception != null) {
+                throw m_exception;
+            }
+            return m_result;
+        }
+    }
+
+    private final ForkJoinThreadPool m_parent;
+
+    private final ForkJoinThreadPool m_root;
+
+    /** The pool running the tasks, only set in the root pool. Replaced if the maximum thread count is increased. */
+    private volatile ForkJoinPool m_forkJoinPool;
+
+    /** Number of running tasks in this pool and its sub pools, not counting invisible tasks. */
+    private final AtomicInteger m_activeTasks = new AtomicInteger();
+
+    private final AtomicInteger m_pendingJobs = new AtomicInteger();
+
+    /** Tasks waiting for a free slot in this pool. */
+    private final Queue<PoolTask<?>> m_waitingTasks = new ConcurrentLinkedQueue<>();
+
+    private final Set<PoolTask<?>> m_runningTasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new pool with a maximum number of threads.
+     *
+     * @param maxThreads the maximum number of threads
+     */
+    public ForkJoinThreadPool(final int maxThreads) {
+        super(maxThreads);
+        m_parent = null;
+        m_root = this;
+        m_forkJoinPool = createForkJoinPool(maxThreads);
+    }
+
+    /**
+     * Creates a new sub pool.
+     *
+     * @param maxThreads the maximum number of threads in the pool
+     * @param parent the parent pool
+     */
+    protected ForkJoinThreadPool(final int maxThreads, final ForkJoinThreadPool parent) {
+        super(maxThreads);
+        m_parent = parent;
+        m_root = parent.m_root;
+    }
+
+    private static ForkJoinPool createForkJoinPool(final int parallelism) {
+        return new ForkJoinPool(parallelism, Worker::new, null, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ThreadPool createSubPool() {
+        return new ForkJoinThreadPool(getMaxThreads(), this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ThreadPool createSubPool(final int maxThreads) {
+        return new ForkJoinThreadPool(maxThreads, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Future<T> enqueue(final Callable<T> task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task must not be null");
+        }
+        return enqueue(new PoolTask<T>(task));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Future<?> enqueue(final Runnable r) {
+        return enqueue(new PoolTask<Object>(r, null));
+    }
+
+    private <T> PoolTask<T> enqueue(final PoolTask<T> task) {
+        incrementPendingJobs();
+        if (m_waitingTasks.isEmpty()) {
+            schedule(task);
+        } else {
+            // don't overtake tasks that are already waiting
+            task.m_waitingIn = this;
+            m_waitingTasks.add(task);
+            drain();
+        }
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Future<T> trySubmit(final Callable<T> t) {
+        return trySubmit(new PoolTask<T>(t));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Future<?> trySubmit(final Runnable r) {
+        return trySubmit(new PoolTask<Object>(r, null));
+    }
+
+    private <T> PoolTask<T> trySubmit(final PoolTask<T> task) {
+        incrementPendingJobs();
+        if (tryAcquire() != null) {
+            decrementPendingJobs();
+            return null;
+        }
+        task.m_isScheduled = true;
+        m_root.fork(task.m_forkJoinTask);
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Future<T> submit(final Callable<T> task) throws InterruptedException {
+        PoolTask<T> ftask = (PoolTask<T>)enqueue(task);
+        ftask.waitUntilStarted();
+        return ftask;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Future<?> submit(final Runnable task) throws InterruptedException {
+        PoolTask<?> ftask = (PoolTask<?>)enqueue(task);
+        ftask.waitUntilStarted();
+        return ftask;
+    }
+
+    /** Hands the task of this pool to the fork/join pool or queues it in the first pool that has no free slot. */
+    private void schedule(final PoolTask<?> task) {
+        ForkJoinThreadPool saturated = tryAcquire();
+        if (saturated == null) {
+            task.m_isScheduled = true;
+            m_root.fork(task.m_forkJoinTask);
+        } else {
+            task.m_waitingIn = saturated;
+            saturated.m_waitingTasks.add(task);
+            // a slot may have been released after tryAcquire, don't let the task starve
+            saturated.drain();
+        }
+    }
+
+    /** Schedules waiting tasks as long as this pool has free slots. */
+    private void drain() {
+        while (m_activeTasks.get() < getMaxThreads()) {
+            PoolTask<?> task = m_waitingTasks.poll();
+            if (task == null) {
+                return;
+            }
+            if (task.isCancelled()) {
+                task.finish();
+            } else {
+                task.getPool().schedule(task);
+            }
+        }
+    }
+
+    /**
+     * Takes a slot in this pool and all its parents.
+     *
+     * @return <code>null</code> if successful, otherwise the pool that has no free slot (no slot is taken then)
+     */
+    private ForkJoinThreadPool tryAcquire() {
+        for (ForkJoinThreadPool p = this; p != null; p = p.m_parent) {
+            if (!p.tryAcquireLocal()) {
+                for (ForkJoinThreadPool q = this; q != p; q = q.m_parent) {
+                    q.m_activeTasks.decrementAndGet();
+                }
+                for (ForkJoinThreadPool q = this; q != p; q = q.m_parent) {
+                    q.drain();
+                }
+                return p;
+            }
+        }
+        return null;
+    }
+
+    private boolean tryAcquireLocal() {
+        while (true) {
+            final int active = m_activeTasks.get();
+            if (active >= getMaxThreads()) {
+                return false;
+            }
+            if (m_activeTasks.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Takes a slot in this pool and all its parents even if this exceeds the maximum thread count (like the
+     * {@link ThreadPool} does when a thread becomes visible again). */
+    private void acquireUnconditionally() {
+        for (ForkJoinThreadPool p = this; p != null; p = p.m_parent) {
+            p.m_activeTasks.incrementAndGet();
+        }
+    }
+
+    /** Releases a slot in this pool and all its parents and starts waiting tasks. */
+    private void release() {
+        for (ForkJoinThreadPool p = this; p != null; p = p.m_parent) {
+            p.m_activeTasks.decrementAndGet();
+        }
+        for (ForkJoinThreadPool p = this; p != null; p = p.m_parent) {
+            p.drain();
+        }
+    }
+
+    /** Forks the task into the fork/join pool, called on the root pool only. */
+    private void fork(final ForkJoinTask<?> task) {
+        while (true) {
+            final ForkJoinPool pool = m_forkJoinPool;
+            final Thread thread = Thread.currentThread();
+            try {
+                if (thread instanceof Worker && ((Worker)thread).getPool() == pool) {
+                    // local queue of the current worker, may be stolen by idle workers
+                    task.fork();
+                } else {
+                    pool.execute(task);
+                }
+                return;
+            } catch (RejectedExecutionException e) {
+                if (pool == m_forkJoinPool) {
+                    throw e;
+                }
+                // pool has been replaced concurrently, retry with the new one
+            }
+        }
+    }
+
+    private void incrementPendingJobs() {
+        m_pendingJobs.incrementAndGet();
+        if (m_parent != null) {
+            m_parent.incrementPendingJobs();
+        }
+    }
+
+    private void decrementPendingJobs() {
+        if (m_parent != null) {
+            m_parent.decrementPendingJobs();
+        }
+        if (m_pendingJobs.decrementAndGet() == 0) {
+            synchronized (m_pendingJobs) {
+                m_pendingJobs.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Runs the callable in the current thread. If the thread is running a task of a fork/join thread pool the task
+     * doesn't count as running while the callable is executed and the fork/join pool is informed that the thread may
+     * block.
+     */
+    private static <V> V runManaged(final Callable<V> callable) throws InterruptedException {
+        final Thread thread = Thread.currentThread();
+        final PoolTask<?> currentTask = thread instanceof Worker ? ((Worker)thread).m_currentTask : null;
+        try {
+            if (currentTask == null) {
+                return callable.call();
+            }
+            currentTask.setInvisible(true);
+            try {
+                BlockingCall<V> call = new BlockingCall<>(callable);
+                ForkJoinPool.managedBlock(call);
+                return call.getResult();
+            } finally {
+                currentTask.setInvisible(false);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unexpected exception while waiting: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRunningThreads() {
+        return m_activeTasks.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T runInvisible(final Callable<T> r) throws ExecutionException {
+        final Thread thread = Thread.currentThread();
+        final PoolTask<?> currentTask = thread instanceof Worker ? ((Worker)thread).m_currentTask : null;
+        if (currentTask == null) {
+            throw new IllegalThreadStateException("The current thread is not taken out of a thread pool");
+        }
+        currentTask.setInvisible(true);
+        try {
+            BlockingCall<T> call = new BlockingCall<>(r);
+            ForkJoinPool.managedBlock(call);
+            return call.getResult();
+        } catch (Exception ex) {
+            throw new ExecutionException(ex);
+        } finally {
+            currentTask.setInvisible(false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMaxThreads(final int newValue) {
+        super.setMaxThreads(newValue);
+        if (m_parent == null) {
+            synchronized (this) {
+                final ForkJoinPool pool = m_forkJoinPool;
+                if (newValue > pool.getParallelism()) {
+                    // parallelism of a fork/join pool is fixed; running tasks finish in the old pool
+                    m_forkJoinPool = createForkJoinPool(newValue);
+                    pool.shutdown();
+                }
+            }
+        }
+        drain();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdown() {
+        for (ForkJoinThreadPool p = this; p != null; p = p.m_parent) {
+            for (Iterator<PoolTask<?>> it = p.m_waitingTasks.iterator(); it.hasNext();) {
+                PoolTask<?> task = it.next();
+                if (task.getPool() == this) {
+                    task.cancel(true);
+                }
+            }
+        }
+        setMaxThreads(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void interruptAll() {
+        for (PoolTask<?> task : m_runningTasks) {
+            task.interruptRunner();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void waitForTermination() throws InterruptedException {
+        runManaged(() -> {
+            synchronized (m_pendingJobs) {
+                while (m_pendingJobs.get() != 0) {
+                    m_pendingJobs.wait();
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return the pool of the task the current thread is executing or <code>null</code>
+     */
+    static ThreadPool currentForkJoinThreadPool() {
+        final Thread thread = Thread.currentThread();
+        final PoolTask<?> currentTask = thread instanceof Worker ? ((Worker)thread).m_currentTask : null;
+        return currentTask == null ? null : currentTask.getPool();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int getQueueSize() {
+        return m_waitingTasks.size();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.CanceledExecutionException;
+
+/**
+ * Utility methods to split a computation into tasks that run in a {@link ThreadPool} and to wait for them without
+ * blocking the threads of the pool.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /** A part of a computation that can run concurrently to the other parts. */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Runs the part of the computation.
+         *
+         * @param taskIndex the index of the task, between 0 and the number of tasks (exclusive)
+         * @throws CanceledExecutionException if the computation was canceled
+         */
+        void run(int taskIndex) throws CanceledExecutionException;
+    }
+
+    /**
+     * Runs the given number of tasks, all but the first one in the pool and the first one in the calling thread, and
+     * waits for all of them. If one of the tasks fails, the tasks not finished yet are canceled.
+     *
+     * @param pool the pool to run the tasks in
+     * @param taskCount the number of tasks, if it is 1 (or less) the single task runs in the calling thread only
+     * @param task the task to run with each index
+     * @throws CanceledExecutionException if one of the tasks was canceled
+     */
+    public static void runParallel(final ThreadPool pool, final int taskCount, final Task task)
+        throws CanceledExecutionException {
+        if (taskCount <= 1) {
+            task.run(0);
+            return;
+        }
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>(taskCount - 1);
+        try {
+            for (int t = 1; t < taskCount; t++) {
+                final int taskIndex = t;
+                futures.add(pool.enqueue(() -> {
+                    task.run(taskIndex);
+                    return null;
+                }));
+            }
+            task.run(0);
+            for (Future<Void> future : futures) {
+                try {
+                    waitFor(future);
+                } catch (ExecutionException e) {
+                    // tasks throw no other checked exceptions
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Waits for the result of a task. If the calling thread belongs to a thread pool, it is not counted as running
+     * while waiting (see {@link ThreadPool#runInvisible(java.util.concurrent.Callable)}), so that nested tasks don't
+     * block the threads of the pool. Exceptions thrown by the task are rethrown unwrapped if they are unchecked or
+     * {@link CanceledExecutionException}s.
+     *
+     * @param <T> the type of the result
+     * @param future the future of the task
+     * @return the result of the task
+     * @throws CanceledExecutionException if the task or the waiting thread was canceled or interrupted
+     * @throws ExecutionException if the task threw any other checked exception, which is the cause of the exception
+     */
+    public static <T> T waitFor(final Future<T> future) throws CanceledExecutionException, ExecutionException {
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool == null) {
+                return future.get();
+            }
+            return currentPool.runInvisible(() -> future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while waiting for a parallel task");
+        } catch (CancellationException e) {
+            throw new CanceledExecutionException("Parallel task canceled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // runInvisible wraps the exception thrown by Future#get
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof CancellationException || cause instanceof InterruptedException) {
+                throw new CanceledExecutionException("Parallel task canceled");
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new ExecutionException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util.collection;
+
+import java.util.Arrays;
+
+/**
+ * A map from <code>int</code> keys to <code>int</code> values based on open addressing with linear probing. Compared
+ * to a <code>HashMap&lt;Integer, Integer&gt;</code> it neither boxes keys and values nor allocates an entry object per
+ * mapping, which makes it suitable for counters and index lookups keyed by row or partition indices. The iteration
+ * order is unspecified.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class IntIntOpenHashMap {
+
+    /**
+     * Receives the mappings of a map, see {@link IntIntOpenHashMap#forEach(EntryConsumer)}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * @param key the key of the mapping
+         * @param value the value of the mapping
+         */
+        void accept(int key, int value);
+    }
+
+    /** The key marking a free slot, its mapping is stored in {@link #m_containsFree} and {@link #m_freeValue}. */
+    private static final int FREE = 0;
+
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] m_keys;
+
+    private int[] m_values;
+
+    private int m_mask;
+
+    private boolean m_containsFree;
+
+    private int m_freeValue;
+
+    private int m_size;
+
+    /** Creates a new empty map. */
+    public IntIntOpenHashMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a new empty map that can hold the given number of mappings without being rehashed.
+     *
+     * @param expectedSize the expected number of mappings
+     */
+    public IntIntOpenHashMap(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @param key the key to look for
+     * @param defaultValue the value to return if the key is not mapped
+     * @return the value mapped to the key or the default value
+     */
+    public int get(final int key, final int defaultValue) {
+        if (key == FREE) {
+            return m_containsFree ? m_freeValue : defaultValue;
+        }
+        final int pos = find(key);
+        return pos < 0 ? defaultValue : m_values[pos];
+    }
+
+    /**
+     * @param key the key to look for
+     * @return <code>true</code> if the key is mapped
+     */
+    public boolean containsKey(final int key) {
+        return key == FREE ? m_containsFree : find(key) >= 0;
+    }
+
+    /**
+     * Maps the key to the given value, replacing any previous value.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(final int key, final int value) {
+        if (key == FREE) {
+            if (!m_containsFree) {
+                m_containsFree = true;
+                m_size++;
+            }
+            m_freeValue = value;
+            return;
+        }
+        final int pos = find(key);
+        if (pos >= 0) {
+            m_values[pos] = value;
+        } else {
+            insert(-pos - 1, key, value);
+        }
+    }
+
+    /**
+     * Adds the increment to the value mapped to the key. Keys that are not mapped are treated as if mapped to zero.
+     *
+     * @param key the key
+     * @param increment the value to add
+     * @return the new value
+     */
+    public int addTo(final int key, final int increment) {
+        if (key == FREE) {
+            m_freeValue = m_containsFree ? m_freeValue + increment : increment;
+            if (!m_containsFree) {
+                m_containsFree = true;
+                m_size++;
+            }
+            return m_freeValue;
+        }
+        final int pos = find(key);
+        if (pos >= 0) {
+            return m_values[pos] += increment;
+        }
+        insert(-pos - 1, key, increment);
+        return increment;
+    }
+
+    /**
+     * Removes the mapping of the given key.
+     *
+     * @param key the key to remove
+     * @return <code>true</code> if the key was mapped
+     */
+    public boolean remove(final int key) {
+        if (key == FREE) {
+            if (!m_containsFree) {
+                return false;
+            }
+            m_containsFree = false;
+            m_freeValue = 0;
+            m_size--;
+            return true;
+        }
+        final int pos = find(key);
+        if (pos < 0) {
+            return false;
+        }
+        shiftKeys(pos);
+        m_size--;
+        return true;
+    }
+
+    /**
+     * @return the position of the key or <code>-(insertion position) - 1</code> if it's not contained
+     */
+    private int find(final int key) {
+        int pos = mix(key) & m_mask;
+        int current;
+        while ((current = m_keys[pos]) != FREE) {
+            if (current == key) {
+                return pos;
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        return -pos - 1;
+    }
+
+    private void insert(final int pos, final int key, final int value) {
+        m_keys[pos] = key;
+        m_values[pos] = value;
+        // keep the load factor at or below 1/2
+        if (++m_size > m_keys.length / 2) {
+            rehash(m_keys.length * 2);
+        }
+    }
+
+    /**
+     * Closes the gap at the given position by moving back the following entries of the probe sequence.
+     */
+    private void shiftKeys(final int gap) {
+        int last;
+        int pos = gap;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & m_mask;
+            int current;
+            while (true) {
+                current = m_keys[pos];
+                if (current == FREE) {
+                    m_keys[last] = FREE;
+                    m_values[last] = 0;
+                    return;
+                }
+                final int slot = mix(current) & m_mask;
+                // move the entry if its home slot is not between the gap and its position (cyclically)
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & m_mask;
+            }
+            m_keys[last] = current;
+            m_values[last] = m_values[pos];
+        }
+    }
+
+    /**
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * @return <code>true</code> if this map contains no mappings
+     */
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    /** Removes all mappings. The capacity is retained. */
+    public void clear() {
+        Arrays.fill(m_keys, FREE);
+        Arrays.fill(m_values, 0);
+        m_containsFree = false;
+        m_freeValue = 0;
+        m_size = 0;
+    }
+
+    /**
+     * Calls the given consumer for each mapping of this map.
+     *
+     * @param action the action to perform
+     */
+    public void forEach(final EntryConsumer action) {
+        if (m_containsFree) {
+            action.accept(FREE, m_freeValue);
+        }
+        for (int i = 0; i < m_keys.length; i++) {
+            if (m_keys[i] != FREE) {
+                action.accept(m_keys[i], m_values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return a new array with the keys of this map
+     */
+    public int[] keys() {
+        final int[] result = new int[m_size];
+        int i = 0;
+        if (m_containsFree) {
+            result[i++] = FREE;
+        }
+        for (final int key : m_keys) {
+            if (key != FREE) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(final int newCapacity) {
+        final int[] oldKeys = m_keys;
+        final int[] oldValues = m_values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final int key = oldKeys[i];
+            if (key != FREE) {
+                int pos = mix(key) & m_mask;
+                while (m_keys[pos] != FREE) {
+                    pos = (pos + 1) & m_mask;
+                }
+                m_keys[pos] = key;
+                m_values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        m_keys = new int[capacity];
+        m_values = new int[capacity];
+        m_mask = capacity - 1;
+    }
+
+    /** @return the smallest power of two that holds the given number of mappings at a load factor of 1/2 */
+    private static int capacityFor(final int expectedSize) {
+        final long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1L, 2L * expectedSize) - 1) << 1);
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many mappings: " + expectedSize);
+        }
+        return (int)capacity;
+    }
+
+    /** Spreads the bits of the key so that consecutive keys don't form clusters. */
+    private static int mix(final int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder("{");
+        forEach((k, v) -> b.append(b.length() > 1 ? ", " : "").append(k).append('=').append(v));
+        return b.append('}').toString();
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util.collection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of <code>int</code> values based on open addressing with linear probing. Compared to a
+ * <code>HashSet&lt;Integer&gt;</code> it neither boxes the values nor allocates an entry object per value, which
+ * makes it suitable for holding many small sets of row indices. The iteration order is unspecified.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class IntOpenHashSet {
+
+    /** The value marking a free slot, it's stored in {@link #m_containsFree} if it's part of the set. */
+    private static final int FREE = 0;
+
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] m_keys;
+
+    private int m_mask;
+
+    private boolean m_containsFree;
+
+    private int m_size;
+
+    /** Creates a new empty set. */
+    public IntOpenHashSet() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a new empty set that can hold the given number of values without being rehashed.
+     *
+     * @param expectedSize the expected number of values
+     */
+    public IntOpenHashSet(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds the given value.
+     *
+     * @param value the value to add
+     * @return <code>true</code> if the value was not contained before
+     */
+    public boolean add(final int value) {
+        if (value == FREE) {
+            if (m_containsFree) {
+                return false;
+            }
+            m_containsFree = true;
+            m_size++;
+            return true;
+        }
+        int pos = mix(value) & m_mask;
+        int current;
+        while ((current = m_keys[pos]) != FREE) {
+            if (current == value) {
+                return false;
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        m_keys[pos] = value;
+        // keep the load factor at or below 1/2
+        if (++m_size > m_keys.length / 2) {
+            rehash(m_keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @param value the value to look for
+     * @return <code>true</code> if the value is contained in this set
+     */
+    public boolean contains(final int value) {
+        if (value == FREE) {
+            return m_containsFree;
+        }
+        int pos = mix(value) & m_mask;
+        int current;
+        while ((current = m_keys[pos]) != FREE) {
+            if (current == value) {
+                return true;
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the given value.
+     *
+     * @param value the value to remove
+     * @return <code>true</code> if the value was contained in this set
+     */
+    public boolean remove(final int value) {
+        if (value == FREE) {
+            if (!m_containsFree) {
+                return false;
+            }
+            m_containsFree = false;
+            m_size--;
+            return true;
+        }
+        int pos = mix(value) & m_mask;
+        int current;
+        while ((current = m_keys[pos]) != FREE) {
+            if (current == value) {
+                shiftKeys(pos);
+                m_size--;
+                return true;
+            }
+            pos = (pos + 1) & m_mask;
+        }
+        return false;
+    }
+
+    /**
+     * Closes the gap at the given position by moving back the following entries of the probe sequence.
+     */
+    private void shiftKeys(final int gap) {
+        int last;
+        int pos = gap;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & m_mask;
+            int current;
+            while (true) {
+                current = m_keys[pos];
+                if (current == FREE) {
+                    m_keys[last] = FREE;
+                    return;
+                }
+                final int slot = mix(current) & m_mask;
+                // move the entry if its home slot is not between the gap and its position (cyclically)
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & m_mask;
+            }
+            m_keys[last] = current;
+        }
+    }
+
+    /**
+     * @return the number of values in this set
+     */
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * @return <code>true</code> if this set contains no values
+     */
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    /** Removes all values. The capacity is retained. */
+    public void clear() {
+        Arrays.fill(m_keys, FREE);
+        m_containsFree = false;
+        m_size = 0;
+    }
+
+    /**
+     * Calls the given consumer for each value of this set.
+     *
+     * @param action the action to perform
+     */
+    public void forEach(final IntConsumer action) {
+        if (m_containsFree) {
+            action.accept(FREE);
+        }
+        for (final int key : m_keys) {
+            if (key != FREE) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over the values of this set, it does not support removal
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int m_pos = m_containsFree ? -1 : nextPos(0);
+
+            @Override
+            public boolean hasNext() {
+                return m_pos < m_keys.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int value = m_pos < 0 ? FREE : m_keys[m_pos];
+                m_pos = nextPos(m_pos + 1);
+                return value;
+            }
+
+            private int nextPos(final int from) {
+                int pos = from;
+                while (pos < m_keys.length && m_keys[pos] == FREE) {
+                    pos++;
+                }
+                return pos;
+            }
+        };
+    }
+
+    /**
+     * @return a new array with the values of this set
+     */
+    public int[] toArray() {
+        final int[] result = new int[m_size];
+        int i = 0;
+        if (m_containsFree) {
+            result[i++] = FREE;
+        }
+        for (final int key : m_keys) {
+            if (key != FREE) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(final int newCapacity) {
+        final int[] oldKeys = m_keys;
+        allocate(newCapacity);
+        for (final int key : oldKeys) {
+            if (key != FREE) {
+                int pos = mix(key) & m_mask;
+                while (m_keys[pos] != FREE) {
+                    pos = (pos + 1) & m_mask;
+                }
+                m_keys[pos] = key;
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        m_keys = new int[capacity];
+        m_mask = capacity - 1;
+    }
+
+    /** @return the smallest power of two that holds the given number of values at a load factor of 1/2 */
+    private static int capacityFor(final int expectedSize) {
+        final long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1L, 2L * expectedSize) - 1) << 1);
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many values: " + expectedSize);
+        }
+        return (int)capacity;
+    }
+
+    /** Spreads the bits of the value so that consecutive values don't form clusters. */
+    private static int mix(final int value) {
+        final int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder("{");
+        forEach(v -> b.append(b.length() > 1 ? ", " : "").append(v));
+        return b.append('}').toString();
+    }
+}
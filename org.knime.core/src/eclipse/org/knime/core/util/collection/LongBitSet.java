@@ -0,0 +1,230 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util.collection;
+
+import java.util.Arrays;
+
+/**
+ * A set of bits indexed by non-negative <code>long</code> values, e.g. row indices of large tables. In contrast to
+ * {@link java.util.BitSet} the index range is not limited to <code>int</code> and the memory is allocated in pages
+ * only for the regions that contain set bits.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.7
+ */
+public final class LongBitSet {
+
+    /** The number of words per page as a power of two (512KB per page). */
+    private static final int PAGE_SHIFT = 16;
+
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final long[][] EMPTY = new long[0][];
+
+    private long[][] m_pages = EMPTY;
+
+    /** Creates a new empty bit set. */
+    public LongBitSet() {
+    }
+
+    /**
+     * Sets the bit at the given index.
+     *
+     * @param index the index of the bit, must not be negative
+     */
+    public void set(final long index) {
+        checkIndex(index);
+        final long word = index >>> 6;
+        getOrCreatePage(word)[(int)(word & PAGE_MASK)] |= 1L << index;
+    }
+
+    /**
+     * Sets all bits from <code>fromIndex</code> (inclusive) to <code>toIndex</code> (exclusive).
+     *
+     * @param fromIndex the index of the first bit to set
+     * @param toIndex the index after the last bit to set
+     */
+    public void set(final long fromIndex, final long toIndex) {
+        checkIndex(fromIndex);
+        if (toIndex < fromIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + " > toIndex: " + toIndex);
+        }
+        long index = fromIndex;
+        // set single bits until the first word boundary, then full words
+        while (index < toIndex && (index & 63) != 0) {
+            set(index++);
+        }
+        while (toIndex - index >= 64) {
+            final long word = index >>> 6;
+            getOrCreatePage(word)[(int)(word & PAGE_MASK)] = -1L;
+            index += 64;
+        }
+        while (index < toIndex) {
+            set(index++);
+        }
+    }
+
+    /**
+     * Clears the bit at the given index.
+     *
+     * @param index the index of the bit, must not be negative
+     */
+    public void clear(final long index) {
+        checkIndex(index);
+        final long word = index >>> 6;
+        final long[] page = getPage(word);
+        if (page != null) {
+            page[(int)(word & PAGE_MASK)] &= ~(1L << index);
+        }
+    }
+
+    /** Clears all bits and releases the memory. */
+    public void clear() {
+        m_pages = EMPTY;
+    }
+
+    /**
+     * @param index the index of the bit, must not be negative
+     * @return <code>true</code> if the bit at the given index is set
+     */
+    public boolean get(final long index) {
+        checkIndex(index);
+        final long word = index >>> 6;
+        final long[] page = getPage(word);
+        return page != null && (page[(int)(word & PAGE_MASK)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the index of the first set bit at or after the given index.
+     *
+     * @param fromIndex the index to start from (inclusive)
+     * @return the index of the next set bit or -1 if there is no such bit
+     */
+    public long nextSetBit(final long fromIndex) {
+        checkIndex(fromIndex);
+        long word = fromIndex >>> 6;
+        final long maxWord = (long)m_pages.length << PAGE_SHIFT;
+        if (word >= maxWord) {
+            return -1;
+        }
+        long[] page = getPage(word);
+        long bits = page == null ? 0 : (page[(int)(word & PAGE_MASK)] & (-1L << fromIndex));
+        while (bits == 0) {
+            if (page == null) {
+                // skip the rest of an unallocated page
+                word |= PAGE_MASK;
+            }
+            word++;
+            if (word >= maxWord) {
+                return -1;
+            }
+            page = getPage(word);
+            bits = page == null ? 0 : page[(int)(word & PAGE_MASK)];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @return the number of set bits
+     */
+    public long cardinality() {
+        long count = 0;
+        for (final long[] page : m_pages) {
+            if (page != null) {
+                for (final long word : page) {
+                    count += Long.bitCount(word);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return <code>true</code> if no bit is set
+     */
+    public boolean isEmpty() {
+        return nextSetBit(0) < 0;
+    }
+
+    private long[] getPage(final long word) {
+        final long pageIndex = word >>> PAGE_SHIFT;
+        return pageIndex < m_pages.length ? m_pages[(int)pageIndex] : null;
+    }
+
+    private long[] getOrCreatePage(final long word) {
+        final int pageIndex = (int)(word >>> PAGE_SHIFT);
+        if (pageIndex >= m_pages.length) {
+            m_pages = Arrays.copyOf(m_pages, Math.max(pageIndex + 1, 2 * m_pages.length));
+        }
+        long[] page = m_pages[pageIndex];
+        if (page == null) {
+            page = new long[PAGE_SIZE];
+            m_pages[pageIndex] = page;
+        }
+        return page;
+    }
+
+    private static void checkIndex(final long index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Negative index: " + index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder("{");
+        for (long i = nextSetBit(0); i >= 0 && b.length() < 1024; i = nextSetBit(i + 1)) {
+            b.append(b.length() > 1 ? ", " : "").append(i);
+        }
+        return b.append('}').toString();
+    }
+}
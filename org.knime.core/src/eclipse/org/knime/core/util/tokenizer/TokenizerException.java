@@ -60,8 +60,9 @@ public class TokenizerException extends RuntimeException {
      * Always provide a good user message why things go wrong.
      * 
      * @param msg the message to store in the exception.
+     * @since 3.7
      */
-    TokenizerException(final String msg) {
+    public TokenizerException(final String msg) {
         super(msg);
     }
 }